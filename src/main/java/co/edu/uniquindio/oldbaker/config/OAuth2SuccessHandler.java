@@ -1,14 +1,17 @@
 package co.edu.uniquindio.oldbaker.config;
 
 import co.edu.uniquindio.oldbaker.services.AuthService;
+import co.edu.uniquindio.oldbaker.services.GuestCartService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
@@ -23,11 +26,13 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
     static final Logger log = LoggerFactory.getLogger(OAuth2SuccessHandler.class);
     private final AuthService authService;
+    private final GuestCartService guestCartService;
     private final String urlRedirect;
 
-    // Constructor que inyecta el servicio de autenticación y la URL de redirección.
-    public OAuth2SuccessHandler(AuthService authService, String urlRedirect) {
+    // Constructor que inyecta el servicio de autenticación, el de carritos de invitado y la URL de redirección.
+    public OAuth2SuccessHandler(AuthService authService, GuestCartService guestCartService, String urlRedirect) {
         this.authService = authService;
+        this.guestCartService = guestCartService;
         // Fallback seguro para entornos de desarrollo en caso de no tener la variable configurada.
         String fallback = "http://localhost:4200/oauth-callback?data=";
         this.urlRedirect = (urlRedirect == null || urlRedirect.isBlank()) ? fallback : urlRedirect;
@@ -57,6 +62,11 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
             var authResponse = authService.processOAuth2User(oAuth2User);
             var data = Objects.requireNonNull(authResponse.getData(), "Auth response data is null");
 
+            // Fusionar el carrito que el visitante armó como invitado antes de iniciar sesión
+            if (guestCartService.fusionarAlIniciarSesion(tokenInvitado(request), data.getUsuario())) {
+                response.addHeader(HttpHeaders.SET_COOKIE, guestCartService.cookieEliminada().toString());
+            }
+
             // Serializar únicamente el payload necesario para el frontend (tokens + datos del usuario)
             var payload = new java.util.LinkedHashMap<String, Object>();
             payload.put("accessToken", data.getAccessToken());
@@ -82,4 +92,18 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
             response.sendRedirect(this.urlRedirect + err);
         }
     }
+
+    // Token del carrito de invitado enviado en la cookie, o null si no hay
+    private String tokenInvitado(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (GuestCartService.COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
 }
@@ -1,6 +1,7 @@
 package co.edu.uniquindio.oldbaker.config;
 
 import co.edu.uniquindio.oldbaker.services.AuthService;
+import co.edu.uniquindio.oldbaker.services.GuestCartService;
 import co.edu.uniquindio.oldbaker.services.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
@@ -57,7 +58,7 @@ public class SecurityConfig {
      * @throws Exception Si ocurre un error durante la configuración.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, AuthService authService) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthService authService, GuestCartService guestCartService) throws Exception {
         String frontendRedirect = env.getProperty("FRONTEND_REDIRECT_URL");
         http
                 // Deshabilitar CSRF para APIs REST
@@ -85,10 +86,12 @@ public class SecurityConfig {
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
                                 "/swagger-ui.html",
-                                "/api/productos/**"
+                                "/api/productos/**",
+                                "/api/guest/**"
                         ).permitAll()
                         // Endpoints para administradores
                         .requestMatchers("/api/admin/**").hasRole("ADMINISTRADOR")
+                        .requestMatchers("/actuator/**").hasRole("ADMINISTRADOR")
                         // Endpoints para usuarios autenticados
                         .requestMatchers("/api/user/**").hasRole("CLIENTE")
                         .requestMatchers("/api/orders/**").hasRole("CLIENTE")
@@ -105,7 +108,7 @@ public class SecurityConfig {
                 // Configurar el inicio de sesión OAuth2
                 .oauth2Login(oauth2 -> oauth2
                         // Configurar el manejador de éxito y fracaso en la autenticación OAuth2
-                        .successHandler(new OAuth2SuccessHandler(authService, frontendRedirect))
+                        .successHandler(new OAuth2SuccessHandler(authService, guestCartService, frontendRedirect))
                         .failureHandler((request, response, exception) -> {
                             System.out.println("OAuth2 login FAILURE: " + exception.getMessage());
                             response.sendRedirect("/api/auth/google/failure");
@@ -131,7 +134,7 @@ public class SecurityConfig {
                 List.of(
                         "http://localhost:4200",
                         "https://www.oldbaker.shop"));
-        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "Origin", "X-Requested-With"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
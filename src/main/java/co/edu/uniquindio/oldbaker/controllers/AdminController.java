@@ -1,6 +1,7 @@
 package co.edu.uniquindio.oldbaker.controllers;
 
 
+import co.edu.uniquindio.oldbaker.dto.ComponenteRecetaRequest;
 import co.edu.uniquindio.oldbaker.dto.ProductoRequest;
 import co.edu.uniquindio.oldbaker.dto.ProductoResponse;
 import co.edu.uniquindio.oldbaker.services.ProductoService;
@@ -43,6 +44,13 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
+    // Reemplazar la receta del producto (insumos y preparaciones intermedias)
+    @PutMapping("/{id}/receta")
+    public ResponseEntity<ProductoResponse> actualizarReceta(@PathVariable Long id,
+                                                             @RequestBody List<ComponenteRecetaRequest> componentes) {
+        return ResponseEntity.ok(productoService.actualizarReceta(id, componentes));
+    }
+
     // Eliminar producto
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminarProducto(@PathVariable Long id) {
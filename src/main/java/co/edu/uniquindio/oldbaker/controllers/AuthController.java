@@ -3,9 +3,11 @@ package co.edu.uniquindio.oldbaker.controllers;
 import co.edu.uniquindio.oldbaker.dto.api.ApiResponse;
 import co.edu.uniquindio.oldbaker.dto.auth.*;
 import co.edu.uniquindio.oldbaker.services.AuthService;
+import co.edu.uniquindio.oldbaker.services.GuestCartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
 
     private final AuthService authService;
+    private final GuestCartService guestCartService;
 
 
     /**
@@ -55,17 +58,25 @@ public class AuthController {
 
     /**
      * Endpoint para autenticar a un usuario.
+     * Si el visitante traía un carrito de invitado se fusiona con el suyo y se borra la cookie.
      *
-     * @param request Datos de inicio de sesión.
+     * @param request    Datos de inicio de sesión.
+     * @param guestToken Token del carrito de invitado, si existe.
      * @return Respuesta con los tokens de autenticación.
      */
     @PostMapping("/auth/login")
     public ResponseEntity<ApiResponse<AuthResponse>> authenticate(
-            @Valid @RequestBody LoginRequest request
+            @Valid @RequestBody LoginRequest request,
+            @CookieValue(name = GuestCartService.COOKIE, required = false) String guestToken
     ) {
         try {
             // Llamar al servicio para autenticar al usuario
             AuthResponse response = authService.authenticate(request);
+            if (guestCartService.fusionarAlIniciarSesion(guestToken, response.getUsuario())) {
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.SET_COOKIE, guestCartService.cookieEliminada().toString())
+                        .body(ApiResponse.success("Inicio de sesión exitoso", response));
+            }
             return ResponseEntity.ok(
                     ApiResponse.success("Inicio de sesión exitoso", response)
             );
@@ -0,0 +1,51 @@
+package co.edu.uniquindio.oldbaker.controllers;
+
+import co.edu.uniquindio.oldbaker.dto.MargenProductoDTO;
+import co.edu.uniquindio.oldbaker.services.CosteoProductosService;
+import co.edu.uniquindio.oldbaker.services.SugerenciaHorneadoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/costeo")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://old-baker-front.vercel.app", "https://localhost:4200", "http://localhost:4200", "https://www.oldbaker.shop"})
+public class CosteoController {
+
+    private final CosteoProductosService costeoProductosService;
+    private final SugerenciaHorneadoService sugerenciaHorneadoService;
+
+    // Reporte de márgenes: costo de ingredientes frente al precio de venta, peor margen primero
+    @GetMapping
+    public ResponseEntity<List<MargenProductoDTO>> reporte() {
+        return ResponseEntity.ok(costeoProductosService.reporte());
+    }
+
+    @GetMapping("/{idProducto}")
+    public ResponseEntity<MargenProductoDTO> margen(@PathVariable Long idProducto) {
+        return ResponseEntity.ok(costeoProductosService.margen(idProducto));
+    }
+
+    // Qué hornear con el stock actual; aquí se admite maximizar el margen, por ejemplo ?objetivo=MARGEN
+    @GetMapping("/sugerencia-horneado")
+    public ResponseEntity<?> sugerenciaHorneado(
+            @RequestParam(required = false) SugerenciaHorneadoService.Objetivo objetivo,
+            @RequestParam(required = false) Long presupuestoMs) {
+        try {
+            return ResponseEntity.ok(sugerenciaHorneadoService.sugerir(objetivo, presupuestoMs));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Recalcula todo el costeo, por ejemplo tras cargar precios directamente en la base de datos
+    @PostMapping("/recalcular")
+    public ResponseEntity<List<MargenProductoDTO>> recalcular() {
+        costeoProductosService.recargar();
+        return ResponseEntity.ok(costeoProductosService.reporte());
+    }
+}
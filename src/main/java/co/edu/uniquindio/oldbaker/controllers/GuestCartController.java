@@ -0,0 +1,87 @@
+package co.edu.uniquindio.oldbaker.controllers;
+
+import co.edu.uniquindio.oldbaker.dto.cart.CartDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartPatchRequest;
+import co.edu.uniquindio.oldbaker.services.GuestCartService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Carrito de visitantes sin sesión. Se identifica por la cookie del carrito de invitado
+ * y se fusiona con el carrito del usuario cuando inicia sesión.
+ */
+@RestController
+@RequestMapping("/api/guest/cart")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://old-baker-front.vercel.app", "https://localhost:4200", "http://localhost:4200", "https://www.oldbaker.shop"})
+public class GuestCartController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuestCartController.class);
+
+    private final GuestCartService guestCartService;
+
+    /**
+     * Obtener el carrito del invitado
+     */
+    @GetMapping
+    public ResponseEntity<?> obtenerCart(@CookieValue(name = GuestCartService.COOKIE, required = false) String token) {
+        return ResponseEntity.ok(guestCartService.obtener(token));
+    }
+
+    /**
+     * Reemplaza los items del carrito del invitado con los enviados
+     */
+    @PutMapping
+    public ResponseEntity<?> actualizarCart(@CookieValue(name = GuestCartService.COOKIE, required = false) String token,
+                                            @RequestBody CartDTO request) {
+        try {
+            GuestCartService.Resultado resultado = guestCartService.reemplazar(token, request);
+            return conCookie(resultado);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (Exception e) {
+            logger.warn("Error actualizando carrito de invitado: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "No se pudo actualizar el carrito"));
+        }
+    }
+
+    /**
+     * Aplica operaciones puntuales sobre el carrito del invitado (agregar, fijar cantidad, seleccionar, eliminar)
+     */
+    @PatchMapping
+    public ResponseEntity<?> modificarCart(@CookieValue(name = GuestCartService.COOKIE, required = false) String token,
+                                           @RequestBody CartPatchRequest request) {
+        try {
+            GuestCartService.Resultado resultado = guestCartService.aplicarOperaciones(token, request);
+            return conCookie(resultado);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (Exception e) {
+            logger.warn("Error modificando carrito de invitado: {}", e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "No se pudo actualizar el carrito"));
+        }
+    }
+
+    /**
+     * Descarta el carrito del invitado y borra su cookie
+     */
+    @DeleteMapping
+    public ResponseEntity<?> eliminarCart(@CookieValue(name = GuestCartService.COOKIE, required = false) String token) {
+        guestCartService.eliminar(token);
+        return ResponseEntity.noContent()
+                .header(HttpHeaders.SET_COOKIE, guestCartService.cookieEliminada().toString())
+                .build();
+    }
+
+    private ResponseEntity<?> conCookie(GuestCartService.Resultado resultado) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, guestCartService.cookie(resultado.token()).toString())
+                .body(resultado.cart());
+    }
+}
@@ -2,13 +2,17 @@ package co.edu.uniquindio.oldbaker.controllers;
 
 import co.edu.uniquindio.oldbaker.dto.InsumoRequest;
 import co.edu.uniquindio.oldbaker.dto.InsumoResponse;
+import co.edu.uniquindio.oldbaker.dto.LoteVencimientoDTO;
 import co.edu.uniquindio.oldbaker.services.InsumoService;
+import co.edu.uniquindio.oldbaker.services.LoteInsumoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -16,6 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class InsumoController {
     private final InsumoService insumoService;
+    private final LoteInsumoService loteInsumoService;
 
     @PostMapping
     public ResponseEntity<InsumoResponse> crearInsumo(@Valid @RequestBody InsumoRequest request) {
@@ -33,6 +38,24 @@ public class InsumoController {
         return ResponseEntity.ok(insumoService.listarInsumos());
     }
 
+    /**
+     * Insumo con su stock en un instante, por ejemplo ?fecha=2025-03-01T06:00:00. Sin fecha devuelve el stock vigente.
+     */
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<InsumoResponse> obtenerStock(@PathVariable Long id,
+                                                       @RequestParam(required = false)
+                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return ResponseEntity.ok(insumoService.obtenerStockEn(id, fecha != null ? fecha : LocalDateTime.now()));
+    }
+
+    /**
+     * Lotes con existencias que vencen en los próximos días (por defecto 3), incluidos los ya vencidos.
+     */
+    @GetMapping("/lotes/vencimientos")
+    public ResponseEntity<List<LoteVencimientoDTO>> listarLotesPorVencer(@RequestParam(defaultValue = "3") int dias) {
+        return ResponseEntity.ok(loteInsumoService.porVencer(dias));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<InsumoResponse> actualizarInsumo(@PathVariable Long id,
                                                            @Valid @RequestBody InsumoRequest request) {
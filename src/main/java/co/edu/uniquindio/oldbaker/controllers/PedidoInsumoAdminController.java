@@ -1,17 +1,20 @@
 package co.edu.uniquindio.oldbaker.controllers;
 
+import co.edu.uniquindio.oldbaker.dto.PedidoInsumoPaginaResponse;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoRequest;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoResponse;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorRequest;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorResponse;
+import co.edu.uniquindio.oldbaker.model.PedidoInsumo;
 import co.edu.uniquindio.oldbaker.services.PedidoInsumoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/admin/pedidos-insumos")
@@ -34,10 +37,15 @@ public class PedidoInsumoAdminController {
         return ResponseEntity.ok(pedidoInsumoService.obtenerProveedorPorPedido(id));
     }
 
-    // 2. Obtener todos los pedidos
+    // 2. Obtener los pedidos por páginas, con filtros de estado y rango de fechas
     @GetMapping
-    public ResponseEntity<List<PedidoInsumoResponse>> obtenerPedidos() {
-        return ResponseEntity.ok(pedidoInsumoService.listarPedidos());
+    public ResponseEntity<PedidoInsumoPaginaResponse> obtenerPedidos(
+            @RequestParam(required = false) PedidoInsumo.EstadoPedido estado,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer limite) {
+        return ResponseEntity.ok(pedidoInsumoService.listarPedidos(estado, desde, hasta, cursor, limite));
     }
 
     // 3. Obtener pedido por ID
@@ -1,16 +1,21 @@
 package co.edu.uniquindio.oldbaker.controllers;
 
+import co.edu.uniquindio.oldbaker.dto.AprobacionPedidosRequest;
+import co.edu.uniquindio.oldbaker.dto.PedidoInsumoPaginaResponse;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoRequest;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoResponse;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorRequest;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorResponse;
+import co.edu.uniquindio.oldbaker.model.PedidoInsumo;
 import co.edu.uniquindio.oldbaker.services.PedidoInsumoService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -21,10 +26,15 @@ public class PedidoInsumoAuxController {
 
     private final PedidoInsumoService pedidoInsumoService;
 
-    // 2. Obtener todos los pedidos
+    // 2. Obtener los pedidos por páginas, con filtros de estado y rango de fechas
     @GetMapping
-    public ResponseEntity<List<PedidoInsumoResponse>> obtenerPedidos() {
-        return ResponseEntity.ok(pedidoInsumoService.listarPedidos());
+    public ResponseEntity<PedidoInsumoPaginaResponse> obtenerPedidos(
+            @RequestParam(required = false) PedidoInsumo.EstadoPedido estado,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer limite) {
+        return ResponseEntity.ok(pedidoInsumoService.listarPedidos(estado, desde, hasta, cursor, limite));
     }
 
     // 3. Obtener pedido por ID
@@ -39,6 +49,13 @@ public class PedidoInsumoAuxController {
         return ResponseEntity.ok(pedidoInsumoService.aprobarPedido(id));
     }
 
+    // 4.1 Aprobar varios pedidos en una sola transacción (Auxiliar)
+    @PutMapping("/aprobar")
+    public ResponseEntity<List<PedidoInsumoResponse>> aprobarPedidos(
+            @RequestBody @Valid AprobacionPedidosRequest request) {
+        return ResponseEntity.ok(pedidoInsumoService.aprobarPedidos(request.getIdsPedido()));
+    }
+
     // 5. Devolver insumo (Auxiliar)
     @PostMapping("/{id}/devoluciones")
     public ResponseEntity<ReporteProveedorResponse> devolverInsumo(
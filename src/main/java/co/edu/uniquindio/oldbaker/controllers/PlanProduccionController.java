@@ -0,0 +1,57 @@
+package co.edu.uniquindio.oldbaker.controllers;
+
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.SugerenciaHorneadoDTO;
+import co.edu.uniquindio.oldbaker.services.PlanProduccionService;
+import co.edu.uniquindio.oldbaker.services.SugerenciaHorneadoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/aux/produccion")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://old-baker-front.vercel.app", "https://localhost:4200", "http://localhost:4200", "https://www.oldbaker.shop"})
+public class PlanProduccionController {
+
+    private final PlanProduccionService planProduccionService;
+    private final SugerenciaHorneadoService sugerenciaHorneadoService;
+
+    // Plan de horneado de la cocina; sin fechas es el del día, por ejemplo ?desde=2025-04-10&hasta=2025-04-11
+    @GetMapping("/plan")
+    public ResponseEntity<?> plan(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        LocalDate fin = hasta != null ? hasta : inicio;
+        try {
+            PlanProduccionDTO plan = planProduccionService.plan(inicio, fin);
+            return ResponseEntity.ok(plan);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Qué hornear con el stock actual, por ejemplo ?presupuestoMs=3000. Los márgenes son información de
+    // administración: el objetivo MARGEN se pide en /api/admin/costeo/sugerencia-horneado
+    @GetMapping("/sugerencia")
+    public ResponseEntity<?> sugerencia(
+            @RequestParam(required = false) SugerenciaHorneadoService.Objetivo objetivo,
+            @RequestParam(required = false) Long presupuestoMs) {
+        if (objetivo == SugerenciaHorneadoService.Objetivo.MARGEN) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "El objetivo MARGEN solo está disponible para administradores"));
+        }
+        try {
+            SugerenciaHorneadoDTO sugerencia = sugerenciaHorneadoService.sugerir(objetivo, presupuestoMs);
+            return ResponseEntity.ok(sugerencia);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package co.edu.uniquindio.oldbaker.controllers;
+
+import co.edu.uniquindio.oldbaker.dto.PreparacionRequest;
+import co.edu.uniquindio.oldbaker.dto.PreparacionResponse;
+import co.edu.uniquindio.oldbaker.services.PreparacionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/preparaciones")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://old-baker-front.vercel.app", "https://localhost:4200", "http://localhost:4200", "https://www.oldbaker.shop"})
+public class PreparacionController {
+
+    private final PreparacionService preparacionService;
+
+    // Crear preparación intermedia con sus componentes
+    @PostMapping
+    public ResponseEntity<PreparacionResponse> crear(@RequestBody PreparacionRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(preparacionService.crear(request));
+    }
+
+    // Reemplazar los componentes; se rechaza si forman un ciclo
+    @PutMapping("/{id}")
+    public ResponseEntity<PreparacionResponse> actualizar(@PathVariable Long id,
+                                                          @RequestBody PreparacionRequest request) {
+        return ResponseEntity.ok(preparacionService.actualizar(id, request));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<PreparacionResponse>> listar() {
+        return ResponseEntity.ok(preparacionService.listar());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<PreparacionResponse> obtener(@PathVariable Long id) {
+        return ResponseEntity.ok(preparacionService.obtener(id));
+    }
+}
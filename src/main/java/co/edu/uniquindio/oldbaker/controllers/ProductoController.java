@@ -1,12 +1,18 @@
 package co.edu.uniquindio.oldbaker.controllers;
 
-import co.edu.uniquindio.oldbaker.dto.ProductoHomeResponse;
-import co.edu.uniquindio.oldbaker.dto.ProductoRequest;
+import co.edu.uniquindio.oldbaker.dto.CatalogoPaginaResponse;
 import co.edu.uniquindio.oldbaker.dto.ProductoResponse;
+import co.edu.uniquindio.oldbaker.dto.ResultadoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.services.BusquedaProductoService;
+import co.edu.uniquindio.oldbaker.services.CatalogoService;
+import co.edu.uniquindio.oldbaker.services.CatalogoSnapshot;
+import co.edu.uniquindio.oldbaker.services.CatalogoSnapshotService;
 import co.edu.uniquindio.oldbaker.services.ProductoService;
-import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -19,12 +25,69 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final CatalogoSnapshotService catalogoSnapshotService;
+    private final CatalogoService catalogoService;
+    private final BusquedaProductoService busquedaProductoService;
 
-    // Listar productos
-    @GetMapping
-    public ResponseEntity<List<ProductoHomeResponse>> listarProductos() {
-        List<ProductoHomeResponse> productos = productoService.listarProductosHome();
-        return ResponseEntity.ok(productos);
+    // Listar productos: se sirve la instantánea ya serializada; si el cliente tiene la misma versión responde 304.
+    // La variante gzip tiene su propio ETag para que una caché no confunda las dos codificaciones
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> listarProductos(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        CatalogoSnapshot snapshot = catalogoSnapshotService.obtener();
+        // no-cache: el cliente puede guardar la respuesta pero debe revalidarla con el ETag
+        CacheControl cacheControl = CacheControl.noCache().cachePublic();
+        boolean gzip = aceptaGzip(acceptEncoding);
+
+        if (snapshot.coincideCon(ifNoneMatch, gzip)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(snapshot.etag(gzip))
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok()
+                .eTag(snapshot.etag(gzip))
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+
+        if (gzip) {
+            return respuesta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.getJsonGzip());
+        }
+        return respuesta.body(snapshot.getJson());
+    }
+
+    // Navegar el catálogo con filtros, orden y paginación por cursor
+    @GetMapping("/catalogo")
+    public ResponseEntity<CatalogoPaginaResponse> explorarCatalogo(
+            @RequestParam(required = false) Long categoria,
+            @RequestParam(required = false) Double precioMin,
+            @RequestParam(required = false) Double precioMax,
+            @RequestParam(defaultValue = "recientes") String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer limite) {
+        CatalogoPaginaResponse response = catalogoService.explorar(categoria, precioMin, precioMax,
+                CatalogoService.Orden.desde(orden), cursor, limite);
+        return ResponseEntity.ok(response);
+    }
+
+    // Búsqueda de texto por nombre, descripción y categoría, ordenada por relevancia
+    @GetMapping("/buscar")
+    public ResponseEntity<List<ResultadoBusquedaDTO>> buscarProductos(
+            @RequestParam("q") String consulta,
+            @RequestParam(defaultValue = "20") int limite) {
+        return ResponseEntity.ok(busquedaProductoService.buscar(consulta, limite));
+    }
+
+    // Sugerencias mientras el usuario escribe; la última palabra se completa como prefijo
+    @GetMapping("/autocompletar")
+    public ResponseEntity<List<ResultadoBusquedaDTO>> autocompletarProductos(
+            @RequestParam("q") String consulta,
+            @RequestParam(defaultValue = "8") int limite) {
+        return ResponseEntity.ok(busquedaProductoService.autocompletar(consulta, limite));
     }
 
     // Obtener producto por ID
@@ -34,4 +97,17 @@ public class ProductoController {
         ProductoResponse response = productoService.obtenerProductoPorId(id);
         return ResponseEntity.ok(response);
     }
+
+    private static boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacion : acceptEncoding.split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            if (partes[0].trim().equalsIgnoreCase("gzip")) {
+                return partes.length == 1 || !partes[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
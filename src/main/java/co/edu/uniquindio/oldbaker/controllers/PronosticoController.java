@@ -0,0 +1,49 @@
+package co.edu.uniquindio.oldbaker.controllers;
+
+import co.edu.uniquindio.oldbaker.dto.PronosticoInsumoDTO;
+import co.edu.uniquindio.oldbaker.services.PronosticoConsumoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/pronosticos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"https://old-baker-front.vercel.app", "https://localhost:4200", "http://localhost:4200", "https://www.oldbaker.shop"})
+public class PronosticoController {
+
+    private final PronosticoConsumoService pronosticoConsumoService;
+
+    // Consumo pronosticado de todos los insumos para la pantalla de reposición
+    @GetMapping
+    public ResponseEntity<List<PronosticoInsumoDTO>> pronosticar(@RequestParam(defaultValue = "7") int horizonte) {
+        return ResponseEntity.ok(pronosticoConsumoService.pronosticar(horizonte));
+    }
+
+    @GetMapping("/{idInsumo}")
+    public ResponseEntity<PronosticoInsumoDTO> pronosticarInsumo(@PathVariable Long idInsumo,
+                                                                 @RequestParam(defaultValue = "7") int horizonte) {
+        return ResponseEntity.ok(pronosticoConsumoService.pronosticar(idInsumo, horizonte));
+    }
+
+    // Recalcula la serie diaria desde las órdenes pagadas, por ejemplo ?desde=2024-01-01
+    @PostMapping("/reconstruir")
+    public ResponseEntity<?> reconstruir(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        try {
+            int filas = pronosticoConsumoService.reconstruir(desde, hasta);
+            return ResponseEntity.ok(Map.of("filas", filas));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -10,6 +10,9 @@ import co.edu.uniquindio.oldbaker.model.OrdenCompra;
 import co.edu.uniquindio.oldbaker.dto.order.OrdenCompraDTO;
 import co.edu.uniquindio.oldbaker.dto.order.ItemOrdenDTO;
 import co.edu.uniquindio.oldbaker.dto.cart.CartDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartPatchRequest;
+import co.edu.uniquindio.oldbaker.dto.cart.CartQuoteDTO;
+import co.edu.uniquindio.oldbaker.services.CartQuoteService;
 import co.edu.uniquindio.oldbaker.services.CartService;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +36,7 @@ public class UsuarioController {
     private final AuthService authService;
     private final OrdenCompraService ordenCompraService;
     private final CartService cartService;
+    private final CartQuoteService cartQuoteService;
 
     @PostMapping("/{id}/deactivate")
     public ResponseEntity<?> deactivateUser(@PathVariable("id") Long id) {
@@ -77,6 +81,39 @@ public class UsuarioController {
         }
     }
 
+    /**
+     * Cotiza el carrito con precios vigentes y unidades preparables por línea
+     */
+    @GetMapping("/{idUsuario}/cart/quote")
+    public ResponseEntity<?> cotizarCart(@PathVariable Long idUsuario) {
+        try {
+            CartQuoteDTO cotizacion = cartQuoteService.cotizar(idUsuario);
+            if (cotizacion == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(cotizacion);
+        } catch (Exception e) {
+            logger.warn("Error cotizando cart para usuario {}: {}", idUsuario, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "No se pudo cotizar el carrito"));
+        }
+    }
+
+    /**
+     * Aplica operaciones puntuales sobre el carrito (agregar, fijar cantidad, seleccionar, eliminar)
+     */
+    @PatchMapping("/{idUsuario}/cart")
+    public ResponseEntity<?> modificarCart(@PathVariable Long idUsuario, @RequestBody CartPatchRequest request) {
+        try {
+            CartDTO actualizado = cartService.aplicarOperaciones(idUsuario, request);
+            return ResponseEntity.ok(actualizado);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+        } catch (Exception e) {
+            logger.warn("Error modificando cart para usuario {}: {}", idUsuario, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", "No se pudo actualizar el carrito"));
+        }
+    }
+
     /**
      * Obtener órdenes de compra de un usuario por su id.
      * Ejemplo: GET /api/user/orders?idUsuario=123
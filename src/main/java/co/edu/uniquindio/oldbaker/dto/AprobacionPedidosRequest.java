@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AprobacionPedidosRequest {
+
+    @NotEmpty(message = "Debe indicar al menos un pedido")
+    @Size(max = 200, message = "No se pueden aprobar más de 200 pedidos a la vez")
+    private List<Long> idsPedido;
+}
@@ -0,0 +1,26 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página del catálogo navegable.
+ * siguienteCursor es opaco y se envía tal cual para pedir la página siguiente;
+ * las facetas solo se incluyen en la primera página.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CatalogoPaginaResponse {
+    private List<ProductoCatalogoDTO> productos;
+    private String siguienteCursor;
+    private boolean hayMas;
+    private List<FacetaCategoriaDTO> facetas;
+}
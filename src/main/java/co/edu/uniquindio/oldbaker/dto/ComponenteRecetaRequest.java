@@ -0,0 +1,13 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.Receta;
+import lombok.Data;
+
+@Data
+public class ComponenteRecetaRequest {
+    // Exactamente uno de los dos
+    private Long idInsumo;
+    private Long idPreparacion;
+    private Double cantidad; // en unidadMedida
+    private Receta.UnidadMedida unidadMedida; // sin unidad se usa la del componente
+}
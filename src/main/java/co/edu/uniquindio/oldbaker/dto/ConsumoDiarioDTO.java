@@ -0,0 +1,14 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class ConsumoDiarioDTO {
+    private Long idInsumo;
+    private LocalDate fecha;
+    private Double cantidad;
+}
@@ -0,0 +1,12 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CostoInsumoDTO {
+    private Long idInsumo;
+    // Costo por unidad base del insumo (gramo, mililitro o unidad); null si no se ha registrado
+    private Double costoUnitario;
+}
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.OrdenCompra;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DemandaProductoDTO {
+    private Long idProducto;
+    private String nombre;
+    private OrdenCompra.EstadoOrden estado;
+    // Unidades pedidas en las órdenes de ese estado
+    private Long cantidad;
+}
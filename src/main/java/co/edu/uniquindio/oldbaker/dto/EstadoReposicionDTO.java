@@ -0,0 +1,20 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Stock vigente de un insumo junto con sus umbrales de reposición y el proveedor que lo surte.
+ * Saldo y umbrales en milésimas de la unidad base del insumo.
+ */
+@Data
+@AllArgsConstructor
+public class EstadoReposicionDTO {
+    private Long idInsumo;
+    private Long saldo;
+    private Long puntoReorden;
+    private Long nivelObjetivo;
+    private Boolean enReposicion;
+    private Long idInsumoProveedor;
+    private Long idProveedor;
+}
@@ -0,0 +1,12 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FacetaCategoriaDTO {
+    private Long idCategoria;
+    private String nombre;
+    private Long cantidad;
+}
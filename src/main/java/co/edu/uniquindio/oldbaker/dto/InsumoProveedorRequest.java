@@ -1,5 +1,6 @@
 package co.edu.uniquindio.oldbaker.dto;
 
+import co.edu.uniquindio.oldbaker.model.Receta;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -31,6 +32,9 @@ public class InsumoProveedorRequest {
     @PositiveOrZero(message = "La cantidad disponible debe ser cero o mayor")
     private Integer cantidadDisponible;
 
+    // Unidad en que se compra y se cotiza; sin ella el precio no pasa al insumo del inventario
+    private Receta.UnidadMedida unidadMedida;
+
     @NotNull(message = "El ID del proveedor no puede ser nulo")
     private Long idProveedor;
 }
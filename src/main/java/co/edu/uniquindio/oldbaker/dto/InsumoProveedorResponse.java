@@ -1,6 +1,7 @@
 package co.edu.uniquindio.oldbaker.dto;
 
 import co.edu.uniquindio.oldbaker.model.Proveedor;
+import co.edu.uniquindio.oldbaker.model.Receta;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,7 @@ public class InsumoProveedorResponse {
     private Double costoUnitario;
     private LocalDate fechaVencimiento;
     private Integer cantidadDisponible;
+    private Receta.UnidadMedida unidadMedida;
     private Long idProveedor;
 }
 
@@ -1,5 +1,6 @@
 package co.edu.uniquindio.oldbaker.dto;
 
+import co.edu.uniquindio.oldbaker.model.Receta;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,8 +25,19 @@ public class InsumoRequest {
     @Positive(message = "El costo unitario debe ser mayor a cero")
     private Double costoUnitario;
 
+    // Unidad de las cantidades de la solicitud; el stock se lleva en la unidad base de su magnitud.
+    // Sin unidad se asume UNIDADES al crear y la unidad del insumo al actualizar.
+    private Receta.UnidadMedida unidadMedida;
+
     @NotNull(message = "La cantidad disponible no puede ser nula")
     @PositiveOrZero(message = "La cantidad disponible debe ser cero o mayor")
-    private Integer cantidadActual;
+    private Double cantidadActual;
+
+    // Umbrales de reposición opcionales: se envían los dos o ninguno
+    @PositiveOrZero(message = "El punto de reorden debe ser cero o mayor")
+    private Double puntoReorden;
+
+    @Positive(message = "El nivel objetivo debe ser mayor a cero")
+    private Double nivelObjetivo;
 
 }
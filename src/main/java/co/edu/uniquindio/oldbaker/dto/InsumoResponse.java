@@ -1,5 +1,6 @@
 package co.edu.uniquindio.oldbaker.dto;
 
+import co.edu.uniquindio.oldbaker.model.Receta;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,5 +15,9 @@ public class InsumoResponse {
     private String nombre;
     private String descripcion;
     private Double costoUnitario;
-    private Integer cantidadActual;
+    // Cantidades en unidadMedida, la unidad base del insumo
+    private Receta.UnidadMedida unidadMedida;
+    private Double cantidadActual;
+    private Double puntoReorden;
+    private Double nivelObjetivo;
 }
@@ -0,0 +1,25 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Línea de receta sin materializar entidades, para expandir recetas de varios niveles.
+ * La dueña es un producto (rendimiento null: la cantidad es por unidad) o una preparación (la cantidad es por lote
+ * que rinde {@code rendimiento}); el componente es un insumo o una sub-preparación.
+ */
+@Data
+@AllArgsConstructor
+public class LineaRecetaDTO {
+    private Long idPadre;
+    private Long rendimiento;
+    private Long idInsumo;
+    private Long idSubPreparacion;
+    // Milésimas de la unidad base del componente
+    private long cantidad;
+
+    // Línea de la receta de un producto
+    public LineaRecetaDTO(Long idProducto, Long idInsumo, Long idSubPreparacion, long cantidad) {
+        this(idProducto, null, idInsumo, idSubPreparacion, cantidad);
+    }
+}
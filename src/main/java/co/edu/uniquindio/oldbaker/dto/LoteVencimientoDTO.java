@@ -0,0 +1,27 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Lote con existencias que vence dentro del horizonte del reporte de vencimientos, o que ya venció.
+ * La cantidad está en la unidad base del insumo, con decimales.
+ */
+@Data
+@AllArgsConstructor
+public class LoteVencimientoDTO {
+    private Long idLote;
+    private Long idInsumo;
+    private String nombreInsumo;
+    private Double cantidadDisponible;
+    private LocalDate fechaVencimiento;
+
+    // Proyección JPQL: la cantidad llega en milésimas y se convierte con la escala de CantidadFija
+    public LoteVencimientoDTO(Long idLote, Long idInsumo, String nombreInsumo, Long cantidadMilis,
+                              LocalDate fechaVencimiento) {
+        this(idLote, idInsumo, nombreInsumo, CantidadFija.aDecimal(cantidadMilis), fechaVencimiento);
+    }
+}
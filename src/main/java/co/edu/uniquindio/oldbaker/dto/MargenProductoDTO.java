@@ -0,0 +1,23 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Costo de ingredientes de una unidad de producto y su margen frente al precio de venta.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MargenProductoDTO {
+    private Long idProducto;
+    private String nombre;
+    private Double precioVenta;
+    // Suma de costo unitario × cantidad de cada insumo crudo de la receta aplanada
+    private double costoIngredientes;
+    private Double margen; // null si el producto no tiene precio
+    private Double margenPorcentaje; // sobre el precio de venta
+    // Falso si el producto no tiene receta o algún insumo de la receta no tiene costo registrado
+    private boolean costoCompleto;
+}
@@ -0,0 +1,22 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página del historial de pedidos a proveedores, del más reciente al más antiguo.
+ * siguienteCursor es opaco y se envía tal cual, con los mismos filtros, para pedir la página siguiente.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoInsumoPaginaResponse {
+    private List<PedidoInsumoResponse> pedidos;
+    private String siguienteCursor;
+    private boolean hayMas;
+}
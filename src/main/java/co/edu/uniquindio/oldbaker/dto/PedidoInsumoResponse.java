@@ -15,6 +15,7 @@ public class PedidoInsumoResponse {
     private Double costoTotal;
     private LocalDate fechaPedido;
     private PedidoInsumo.EstadoPedido estado;
+    private Boolean reposicionAutomatica;
     private PagoProveedor pago;
     private List<DetalleProveedorPedidoResponse> detalles;
 
@@ -0,0 +1,13 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PrecioProductoDTO {
+    private Long idProducto;
+    private String nombre;
+    // Precio de venta por unidad (Producto.costoUnitario)
+    private Double precioVenta;
+}
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.Receta;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PreparacionRequest {
+    private String nombre;
+    private String descripcion;
+    private Receta.UnidadMedida unidadMedida; // unidad en que se expresa el rendimiento
+    private Double rendimiento; // cuánto rinde un lote de los componentes
+    private List<ComponenteRecetaRequest> componentes;
+}
@@ -0,0 +1,16 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.Receta;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class PreparacionResponse {
+    private Long idPreparacion;
+    private String nombre;
+    private String descripcion;
+    private Receta.UnidadMedida unidadMedida;
+    private Double rendimiento;
+    private List<RecetaDTO> componentes;
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Campos de un producto que alimentan el índice de búsqueda.
+ */
+@Data
+@AllArgsConstructor
+public class ProductoBusquedaDTO {
+    private Long idProducto;
+    private String nombre;
+    private String descripcion;
+    private String categoriaNombre;
+    private Double costoUnitario;
+}
@@ -0,0 +1,33 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Producto resumido para la navegación del catálogo (tarjeta de listado).
+ * Las imágenes se agregan por producto en una consulta aparte para no duplicar filas.
+ */
+@Data
+@NoArgsConstructor
+public class ProductoCatalogoDTO {
+    private Long idProducto;
+    private String nombre;
+    private Double costoUnitario;
+    private int pedidoMinimo;
+    private Long idCategoria;
+    private String categoriaNombre;
+    private boolean disponible;
+    private List<String> imagenes;
+
+    public ProductoCatalogoDTO(Long idProducto, String nombre, Double costoUnitario, int pedidoMinimo,
+                               Long idCategoria, String categoriaNombre) {
+        this.idProducto = idProducto;
+        this.nombre = nombre;
+        this.costoUnitario = costoUnitario;
+        this.pedidoMinimo = pedidoMinimo;
+        this.idCategoria = idCategoria;
+        this.categoriaNombre = categoriaNombre;
+    }
+}
@@ -14,4 +14,12 @@ public class ProductoHomeResponse {
     private String categoriaNombre;
     private String url;
     private int pedidoMinimo;
+    // Si hay stock de insumos para hornear al menos una unidad
+    private boolean disponible;
+
+    // Usado por la proyección JPQL; la disponibilidad se completa después desde DisponibilidadProductoService
+    public ProductoHomeResponse(Long idProducto, String nombre, String descripcion, Double costoUnitario,
+                                int diasVidaUtil, String categoriaNombre, String url, int pedidoMinimo) {
+        this(idProducto, nombre, descripcion, costoUnitario, diasVidaUtil, categoriaNombre, url, pedidoMinimo, true);
+    }
 }
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProductoHorneadoDTO {
+    private Long idProducto;
+    private String nombre;
+    // Precio de venta por unidad (Producto.costoUnitario)
+    private Double precioVenta;
+    // Unidades mínimas por tanda
+    private int pedidoMinimo;
+}
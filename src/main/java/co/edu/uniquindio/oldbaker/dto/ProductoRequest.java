@@ -1,5 +1,6 @@
 package co.edu.uniquindio.oldbaker.dto;
 
+import co.edu.uniquindio.oldbaker.model.Receta;
 import lombok.Data;
 
 @Data
@@ -13,6 +14,7 @@ public class ProductoRequest {
 
     // Receta
     private Long insumoId;
-    private Integer cantidadInsumo; // cuántos insumos necesita cada producto
+    private Double cantidadInsumo; // cuánto insumo necesita cada producto, en unidadMedida
+    private Receta.UnidadMedida unidadMedida; // sin unidad se usa la del insumo
     private Integer cantidadProductos; // cuántos productos se desean crear
 }
@@ -0,0 +1,27 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Pronóstico de consumo de un insumo desde "desde" (mañana del día del cálculo), un valor por día.
+ * Consumo y stock están en la unidad base del insumo, con decimales. diasCobertura es cuántos días del horizonte
+ * alcanza el stock vigente, o null si alcanza para todo el horizonte.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PronosticoInsumoDTO {
+    private Long idInsumo;
+    private LocalDate desde;
+    private List<Double> consumoDiario;
+    private Double consumoTotal;
+    private Double stockActual;
+    private Integer diasCobertura;
+}
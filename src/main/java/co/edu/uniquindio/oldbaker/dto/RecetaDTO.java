@@ -8,6 +8,9 @@ public class RecetaDTO {
     // Receta asociada
     private Long idReceta;
     private String insumoNombre;
+    // Nombre de la sub-preparación cuando el componente no es un insumo
+    private String preparacionNombre;
+    // En la unidad en que se escribió la receta
     private Double cantidadInsumo;
     private Receta.UnidadMedida unidadMedida;
 }
@@ -0,0 +1,21 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.Receta;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Proyección plana de una receta junto al producto al que pertenece.
+ * Permite cargar las recetas de muchos productos en una sola consulta sin materializar entidades.
+ */
+@Data
+@AllArgsConstructor
+public class RecetaProductoDTO {
+    private Long idProducto;
+    private Long idReceta;
+    private String insumoNombre;
+    private String preparacionNombre;
+    // Milésimas de la unidad base del componente
+    private long cantidadInsumo;
+    private Receta.UnidadMedida unidadMedida;
+}
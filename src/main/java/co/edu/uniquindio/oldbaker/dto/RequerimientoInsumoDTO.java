@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Cantidad de un insumo que consume una unidad de producto según su receta, en milésimas de la unidad base del insumo.
+ */
+@Data
+@AllArgsConstructor
+public class RequerimientoInsumoDTO {
+    private Long idProducto;
+    private Long idInsumo;
+    private long cantidadInsumo;
+}
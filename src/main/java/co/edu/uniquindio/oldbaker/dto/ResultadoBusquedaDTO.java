@@ -0,0 +1,14 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ResultadoBusquedaDTO {
+    private Long idProducto;
+    private String nombre;
+    private String categoriaNombre;
+    private Double costoUnitario;
+    private double puntaje;
+}
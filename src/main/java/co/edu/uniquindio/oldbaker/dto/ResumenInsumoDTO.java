@@ -0,0 +1,14 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import co.edu.uniquindio.oldbaker.model.Receta;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ResumenInsumoDTO {
+    private Long idInsumo;
+    private String nombre;
+    // Unidad base en la que se expresan las cantidades del insumo
+    private Receta.UnidadMedida unidadMedida;
+}
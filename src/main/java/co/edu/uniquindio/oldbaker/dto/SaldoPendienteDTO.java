@@ -0,0 +1,18 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Movimientos de un insumo aún no incorporados a su saldo: saldo y último movimiento del snapshot vigente,
+ * suma de las cantidades pendientes y id del último movimiento pendiente.
+ */
+@Data
+@AllArgsConstructor
+public class SaldoPendienteDTO {
+    private Long idInsumo;
+    private Long saldoBase;
+    private Long idUltimoMovimiento;
+    private Long suma;
+    private Long idHasta;
+}
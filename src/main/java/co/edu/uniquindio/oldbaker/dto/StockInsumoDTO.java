@@ -0,0 +1,12 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class StockInsumoDTO {
+    private Long idInsumo;
+    // Milésimas de la unidad base del insumo
+    private Long cantidadActual;
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.oldbaker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Unidades vendidas de un producto en un día.
+ */
+@Data
+@AllArgsConstructor
+public class VentaDiariaDTO {
+    private Long idProducto;
+    private LocalDate fecha;
+    private Long cantidad;
+}
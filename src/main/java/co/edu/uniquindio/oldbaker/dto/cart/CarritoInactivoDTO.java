@@ -0,0 +1,23 @@
+package co.edu.uniquindio.oldbaker.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila del barrido de carritos abandonados: lo necesario para decidir y enviar el recordatorio
+ * sin cargar el carrito ni sus items.
+ */
+@Data
+@AllArgsConstructor
+public class CarritoInactivoDTO {
+    private Long idCart;
+    private String email;
+    private String nombre;
+    private LocalDateTime fechaActualizacion;
+    private LocalDateTime fechaRecordatorio;
+    private Long cantidadItems;
+    // Órdenes del usuario creadas desde la última modificación del carrito
+    private Long ordenesPosteriores;
+}
@@ -0,0 +1,27 @@
+package co.edu.uniquindio.oldbaker.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Operación puntual sobre un item del carrito (PATCH).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperacionDTO {
+    private Tipo tipo;
+    private Long idProducto;
+    // Requerida en AGREGAR y FIJAR_CANTIDAD
+    private Integer cantidad;
+    // Requerido en SELECCIONAR; opcional en AGREGAR
+    private Boolean selected;
+
+    public enum Tipo {
+        AGREGAR,          // Suma la cantidad (crea el item si no existe)
+        FIJAR_CANTIDAD,   // Reemplaza la cantidad; 0 elimina el item
+        SELECCIONAR,      // Marca o desmarca el item para el checkout
+        ELIMINAR          // Quita el item
+    }
+}
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartPatchRequest {
+    // Se aplican en orden dentro de una misma transacción
+    private List<CartOperacionDTO> operaciones;
+}
@@ -0,0 +1,26 @@
+package co.edu.uniquindio.oldbaker.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Cotización del carrito: precios vigentes y disponibilidad calculados antes del checkout.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartQuoteDTO {
+    private Long idCart;
+    private Long revision;
+    private List<CartQuoteLineaDTO> lineas;
+    // Suma de los subtotales de las líneas seleccionadas
+    private BigDecimal totalSeleccionado;
+    // true si todas las líneas seleccionadas se pueden preparar en la cantidad pedida
+    private boolean disponible;
+}
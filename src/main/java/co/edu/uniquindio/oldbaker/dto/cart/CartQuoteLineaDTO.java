@@ -0,0 +1,22 @@
+package co.edu.uniquindio.oldbaker.dto.cart;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartQuoteLineaDTO {
+    private Long idProducto;
+    private String nombre;
+    private Integer cantidad;
+    private Boolean selected;
+    private BigDecimal precioUnitario;
+    private BigDecimal subtotal;
+    // Unidades que se pueden preparar con el stock actual, descontando las líneas seleccionadas anteriores
+    private int maximoPreparable;
+    private boolean disponible;
+}
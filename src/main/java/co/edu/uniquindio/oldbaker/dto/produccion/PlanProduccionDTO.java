@@ -0,0 +1,27 @@
+package co.edu.uniquindio.oldbaker.dto.produccion;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plan de horneado de una ventana de días: qué producir según las órdenes pagadas y qué insumos faltan.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlanProduccionDTO {
+    private LocalDate desde;
+    private LocalDate hasta;
+    private LocalDateTime generado;
+    private List<PlanProduccionProductoDTO> productos;
+    // Insumos de los productos del plan, los que tienen faltante primero
+    private List<PlanProduccionInsumoDTO> insumos;
+    private boolean hayFaltantes;
+}
@@ -0,0 +1,25 @@
+package co.edu.uniquindio.oldbaker.dto.produccion;
+
+import co.edu.uniquindio.oldbaker.model.Receta;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Requerimiento de un insumo en el plan, en su unidad base.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanProduccionInsumoDTO {
+    private Long idInsumo;
+    private String nombre;
+    private Receta.UnidadMedida unidadMedida;
+    // Lo que consumen los productos pagados; el libro de inventario ya lo descontó al confirmarse el pago
+    private double requerido;
+    // Lo que descontarán las órdenes en espera de pago cuando se confirmen
+    private double reservado;
+    // Saldo del libro de inventario; negativo si lo pagado superó el stock
+    private double stock;
+    private double faltante;
+}
@@ -0,0 +1,19 @@
+package co.edu.uniquindio.oldbaker.dto.produccion;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlanProduccionProductoDTO {
+    private Long idProducto;
+    private String nombre;
+    // Unidades de órdenes pagadas: lo que hay que hornear
+    private long cantidadPagada;
+    // Unidades de órdenes que esperan la confirmación del pago
+    private long cantidadReservada;
+    // Sin receta no se sabe qué insumos consume
+    private boolean sinReceta;
+}
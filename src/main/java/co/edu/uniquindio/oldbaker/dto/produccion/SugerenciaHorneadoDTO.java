@@ -0,0 +1,32 @@
+package co.edu.uniquindio.oldbaker.dto.produccion;
+
+import co.edu.uniquindio.oldbaker.services.SugerenciaHorneadoService;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Qué hornear con el stock actual para obtener el mayor ingreso o margen sin pasar de la demanda reciente.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SugerenciaHorneadoDTO {
+    private SugerenciaHorneadoService.Objetivo objetivo;
+    private LocalDateTime generado;
+    // Ingreso o margen total de la sugerencia
+    private double valorObjetivo;
+    // Ningún plan puede superar este valor; igual a valorObjetivo si la sugerencia es óptima
+    private double cotaSuperior;
+    // Falso si se agotó el presupuesto de tiempo y la sugerencia es la mejor encontrada
+    private boolean optima;
+    private long nodos;
+    private long milisegundos;
+    // Productos a hornear, el de mayor aporte primero
+    private List<SugerenciaHorneadoProductoDTO> productos;
+}
@@ -0,0 +1,19 @@
+package co.edu.uniquindio.oldbaker.dto.produccion;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugerenciaHorneadoProductoDTO {
+    private Long idProducto;
+    private String nombre;
+    private int cantidad;
+    // Mayor venta diaria reciente; sin historial es la tanda mínima
+    private int topeDemanda;
+    private int pedidoMinimo;
+    // Ingreso o margen que aporta la cantidad sugerida
+    private double aporte;
+}
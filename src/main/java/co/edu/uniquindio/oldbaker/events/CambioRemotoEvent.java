@@ -0,0 +1,19 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando otro nodo modificó entidades de un tipo.
+ * Las cachés en memoria que dependen de ese tipo deben descartar las claves indicadas.
+ */
+@Getter
+@AllArgsConstructor
+public class CambioRemotoEvent {
+
+    private final CambioEntidad.TipoEntidad entidad;
+    private final Set<Long> ids;
+}
@@ -0,0 +1,17 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambia el costo unitario de uno o más insumos
+ * (edición del insumo o cambio de precio del proveedor que lo surte).
+ */
+@Getter
+@AllArgsConstructor
+public class CostoInsumoModificadoEvent {
+
+    private final Set<Long> idsInsumo;
+}
@@ -0,0 +1,16 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando uno o más productos pasan de disponibles a agotados o viceversa.
+ */
+@Getter
+@AllArgsConstructor
+public class DisponibilidadModificadaEvent {
+
+    private final Set<Long> idsProducto;
+}
@@ -0,0 +1,25 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import co.edu.uniquindio.oldbaker.model.OrdenCompra;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Evento publicado cuando una orden pasa a PAID, con las unidades por producto que la componen.
+ * Lleva el estado y la fecha de actualización anteriores para saber de qué ventanas sale como reserva, y como
+ * fecha de pago la fecha de actualización guardada con el pago, la misma con la que la consulta de la ventana
+ * la encuentra.
+ */
+@Getter
+@AllArgsConstructor
+public class OrdenPagadaEvent {
+
+    private final Long idOrden;
+    private final OrdenCompra.EstadoOrden estadoAnterior;
+    private final LocalDateTime actualizacionAnterior;
+    private final LocalDateTime fechaPago;
+    private final Map<Long, Integer> cantidadPorProducto;
+}
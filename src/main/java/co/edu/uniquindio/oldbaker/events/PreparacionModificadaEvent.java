@@ -0,0 +1,17 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambia la receta de una o más preparaciones intermedias.
+ * Las expansiones de las preparaciones y productos que las usan, directa o indirectamente, dejan de ser válidas.
+ */
+@Getter
+@AllArgsConstructor
+public class PreparacionModificadaEvent {
+
+    private final Set<Long> idsPreparacion;
+}
@@ -0,0 +1,24 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento publicado cuando se crea, modifica o elimina un producto del catálogo.
+ * Los oyentes lo procesan tras el commit para invalidar o actualizar las vistas derivadas del catálogo.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductoModificadoEvent {
+
+    private final Long idProducto;
+    // Categoría del producto al momento del cambio; null si no tiene
+    private final Long idCategoria;
+    private final Tipo tipo;
+
+    public enum Tipo {
+        CREADO,
+        ACTUALIZADO,
+        ELIMINADO
+    }
+}
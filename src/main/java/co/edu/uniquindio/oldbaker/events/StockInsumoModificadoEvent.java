@@ -0,0 +1,17 @@
+package co.edu.uniquindio.oldbaker.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Evento publicado cuando cambia la cantidad disponible de uno o más insumos
+ * (aprobación de pedidos a proveedor, descuento por ventas o edición manual).
+ */
+@Getter
+@AllArgsConstructor
+public class StockInsumoModificadoEvent {
+
+    private final Set<Long> idsInsumo;
+}
@@ -0,0 +1,63 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro compacto de una escritura sobre una entidad (entidad, id, versión).
+ * Cada nodo recorre la tabla por id para invalidar sus cachés en memoria sin un broker externo.
+ */
+@Entity
+@Table(name = "cambios_entidad", indexes = {
+        @Index(name = "idx_cambios_entidad_fecha", columnList = "fecha_registro")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CambioEntidad {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cambio_entidad_seq")
+    @SequenceGenerator(name = "cambio_entidad_seq", sequenceName = "CAMBIO_ENTIDAD_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entidad", nullable = false, length = 30)
+    private TipoEntidad entidad;
+
+    @Column(name = "id_entidad", nullable = false)
+    private Long idEntidad;
+
+    // Marca de tiempo en milisegundos de la escritura; permite quedarse con el cambio más reciente de un lote
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // Nodo que hizo la escritura; ese nodo ya invalidó sus cachés con los eventos locales
+    @Column(name = "nodo", nullable = false, length = 40)
+    private String nodo;
+
+    @Column(name = "fecha_registro", nullable = false)
+    private LocalDateTime fechaRegistro;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaRegistro = LocalDateTime.now();
+    }
+
+    // Se guarda como texto: el orden es el de aplicación de los cambios remotos de un mismo sondeo, y una
+    // preparación va antes que los productos que la usan
+    public enum TipoEntidad {
+        PREPARACION,
+        PRODUCTO,
+        INSUMO,
+        USUARIO,
+        PEDIDO_INSUMO,
+        INSUMO_PROVEEDOR
+    }
+}
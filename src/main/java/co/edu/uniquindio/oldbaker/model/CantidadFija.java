@@ -0,0 +1,153 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Cantidades de inventario en punto fijo: un long con milésimas de la unidad (2,5 g son 2500).
+ *
+ * Recetas, stock, validación y libro de inventario guardan y operan sus cantidades así, en la unidad base de la
+ * magnitud del insumo (gramo, mililitro o unidad). Las operaciones son aritmética entera sobre long, sin crear
+ * objetos, y lanzan ArithmeticException si desbordan en lugar de perder precisión. Solo la conversión desde y
+ * hacia decimales, en el borde del API, pasa por BigDecimal.
+ *
+ * Pasar de una unidad a otra más pequeña de la misma magnitud (kilogramos a gramos) es una multiplicación exacta;
+ * a una más grande (gramos a kilogramos) redondea a la milésima más cercana y solo se usa para mostrar.
+ *
+ * No es un tipo valor con su unidad: el long no sabe en qué unidad está. La unidad la lleva la entidad dueña de
+ * la columna (Insumo.unidadMedida para stock, movimientos, lotes y umbrales; Receta.unidadMedida solo para
+ * mostrar la receta, cuya cantidad también está en la unidad base del insumo). Se prefirió así para que las
+ * columnas sigan siendo un BIGINT y los recorridos del libro de inventario no creen un objeto por cantidad;
+ * quien reciba una cantidad de fuera debe convertirla con {@link #aBase} antes de operar.
+ */
+public final class CantidadFija {
+
+    public static final long ESCALA = 1_000L;
+    private static final int DECIMALES = 3;
+
+    // Tablas de conversión por ordinal [desde][hacia]: multiplicador exacto, o divisor si la unidad destino
+    // es más grande; ambos en 0 si las magnitudes no son compatibles
+    private static final long[][] MULTIPLICADOR;
+    private static final long[][] DIVISOR;
+
+    static {
+        Receta.UnidadMedida[] unidades = Receta.UnidadMedida.values();
+        MULTIPLICADOR = new long[unidades.length][unidades.length];
+        DIVISOR = new long[unidades.length][unidades.length];
+        for (Receta.UnidadMedida desde : unidades) {
+            for (Receta.UnidadMedida hacia : unidades) {
+                if (desde.getMagnitud() != hacia.getMagnitud()) {
+                    continue;
+                }
+                if (desde.getEnBase() >= hacia.getEnBase()) {
+                    MULTIPLICADOR[desde.ordinal()][hacia.ordinal()] = desde.getEnBase() / hacia.getEnBase();
+                } else {
+                    DIVISOR[desde.ordinal()][hacia.ordinal()] = hacia.getEnBase() / desde.getEnBase();
+                }
+            }
+        }
+    }
+
+    private CantidadFija() {
+    }
+
+    /**
+     * Cantidad entera de unidades, por ejemplo lo recibido en un pedido a proveedor.
+     */
+    public static long deUnidades(long unidades) {
+        return Math.multiplyExact(unidades, ESCALA);
+    }
+
+    /**
+     * Cantidad decimal recibida en el API, redondeada a la milésima.
+     */
+    public static long deDecimal(double valor) {
+        return BigDecimal.valueOf(valor).setScale(DECIMALES, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Valor decimal para respuestas y reportes.
+     */
+    public static double aDecimal(long milis) {
+        return BigDecimal.valueOf(milis, DECIMALES).doubleValue();
+    }
+
+    public static String aTexto(long milis) {
+        return BigDecimal.valueOf(milis, DECIMALES).stripTrailingZeros().toPlainString();
+    }
+
+    public static long sumar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long restar(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    /**
+     * Cantidad por unidad multiplicada por un número de unidades, por ejemplo la receta por lo vendido.
+     */
+    public static long multiplicar(long milis, long veces) {
+        return Math.multiplyExact(milis, veces);
+    }
+
+    /**
+     * Parte proporcional {@code milis * numerador / denominador}, redondeada a la milésima más cercana; por ejemplo,
+     * lo que aporta un insumo de una preparación a la porción que usa un producto.
+     */
+    public static long proporcion(long milis, long numerador, long denominador) {
+        if (denominador <= 0) {
+            throw new IllegalArgumentException("El denominador debe ser positivo");
+        }
+        long producto = Math.multiplyExact(milis, numerador);
+        long cociente = Math.floorDiv(producto, denominador);
+        long resto = Math.floorMod(producto, denominador);
+        return resto * 2 >= denominador ? cociente + 1 : cociente;
+    }
+
+    /**
+     * Cuántas veces completas cabe una cantidad en otra; sin límite si la cantidad por vez no es positiva.
+     */
+    public static long vecesQueCabe(long disponible, long porVez) {
+        if (porVez <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return disponible <= 0 ? 0 : disponible / porVez;
+    }
+
+    /**
+     * Unidades enteras que cubren la cantidad, redondeando hacia arriba.
+     */
+    public static long unidadesCompletas(long milis) {
+        return -Math.floorDiv(-milis, ESCALA);
+    }
+
+    /**
+     * Convierte una cantidad entre unidades de la misma magnitud.
+     *
+     * @throws IllegalArgumentException si las unidades son de magnitudes distintas.
+     */
+    public static long convertir(long milis, Receta.UnidadMedida desde, Receta.UnidadMedida hacia) {
+        if (desde == hacia) {
+            return milis;
+        }
+        long multiplicador = MULTIPLICADOR[desde.ordinal()][hacia.ordinal()];
+        if (multiplicador != 0) {
+            return Math.multiplyExact(milis, multiplicador);
+        }
+        long divisor = DIVISOR[desde.ordinal()][hacia.ordinal()];
+        if (divisor == 0) {
+            throw new IllegalArgumentException("No se puede convertir " + desde + " a " + hacia);
+        }
+        long cociente = Math.floorDiv(milis, divisor);
+        long resto = Math.floorMod(milis, divisor);
+        return resto * 2 >= divisor ? cociente + 1 : cociente;
+    }
+
+    /**
+     * Convierte a la unidad base de la magnitud; siempre exacta.
+     */
+    public static long aBase(long milis, Receta.UnidadMedida unidad) {
+        return convertir(milis, unidad, unidad.base());
+    }
+}
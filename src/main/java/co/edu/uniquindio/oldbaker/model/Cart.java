@@ -3,11 +3,14 @@ package co.edu.uniquindio.oldbaker.model;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+        @Index(name = "idx_carts_fecha_actualizacion", columnList = "fecha_actualizacion, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,10 +26,28 @@ public class Cart {
     @JoinColumn(name = "usuario_id", nullable = false, unique = true)
     private Usuario usuario;
 
+    // Se incrementa en cada cambio de items; identifica la versión del carrito para cachear cotizaciones
+    private Long revision;
+
+    // Última modificación de los items; el barrido de carritos abandonados recorre la tabla por esta columna
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    // Último recordatorio de carrito abandonado; solo se vuelve a enviar si el carrito cambió después
+    @Column(name = "fecha_recordatorio")
+    private LocalDateTime fechaRecordatorio;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<CartItem> items = new ArrayList<>();
 
+    @PrePersist
+    protected void onCreate() {
+        if (fechaActualizacion == null) {
+            fechaActualizacion = LocalDateTime.now();
+        }
+    }
+
     public void setItems(List<CartItem> newItems) {
         this.items.clear();
         if (newItems != null) {
@@ -2,8 +2,12 @@ package co.edu.uniquindio.oldbaker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "oldbaker.categoria")
 @Table(name = "categorias")
 @Data
 @NoArgsConstructor
@@ -0,0 +1,41 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Posición de un proceso por lotes que recorre una tabla por clave (fecha, id).
+ * Se actualiza en la misma transacción que cada lote para reanudar desde ahí tras un reinicio.
+ */
+@Entity
+@Table(name = "checkpoints_proceso")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckpointProceso {
+
+    @Id
+    @Column(name = "nombre", length = 60)
+    private String nombre;
+
+    @Column(name = "ultima_fecha", nullable = false)
+    private LocalDateTime ultimaFecha;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Long ultimoId;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        fechaActualizacion = LocalDateTime.now();
+    }
+}
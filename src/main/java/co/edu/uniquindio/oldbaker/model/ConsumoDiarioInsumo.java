@@ -0,0 +1,70 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Consumo de un insumo en un día, derivado de las órdenes pagadas y las recetas de sus productos.
+ * La clave (id_insumo, fecha) permite sumar cada orden pagada con un upsert sin leer la fila.
+ *
+ * La clave es asignada, así que Spring Data no puede saber si la fila es nueva y haría merge (un SELECT por fila).
+ * La reconstrucción solo inserta filas recién creadas sobre un rango borrado: una entidad construida en memoria
+ * se considera nueva y se guarda con persist.
+ */
+@Entity
+@Table(name = "consumos_diarios_insumo", indexes = {
+        @Index(name = "idx_consumos_diarios_insumo_fecha", columnList = "fecha")
+})
+@IdClass(ConsumoDiarioInsumo.Clave.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumoDiarioInsumo implements Persistable<ConsumoDiarioInsumo.Clave> {
+
+    @Id
+    @Column(name = "id_insumo")
+    private Long idInsumo;
+
+    @Id
+    @Column(name = "fecha")
+    private LocalDate fecha;
+
+    @Column(name = "cantidad", nullable = false)
+    private Double cantidad;
+
+    @Transient
+    @Builder.Default
+    private boolean nueva = true;
+
+    @Override
+    public Clave getId() {
+        return new Clave(idInsumo, fecha);
+    }
+
+    @Override
+    public boolean isNew() {
+        return nueva;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarGuardada() {
+        nueva = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        private Long idInsumo;
+        private LocalDate fecha;
+    }
+}
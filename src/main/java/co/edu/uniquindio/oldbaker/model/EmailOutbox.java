@@ -0,0 +1,84 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Correo pendiente de envío (patrón outbox).
+ * Se escribe en la misma transacción que la operación de negocio y un despachador lo envía después.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_estado_proximo", columnList = "estado, proximo_intento")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "EMAIL_OUTBOX_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "destinatario", nullable = false)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false)
+    private String asunto;
+
+    @Column(name = "plantilla", nullable = false, length = 100)
+    private String plantilla;
+
+    @Column(name = "locale", length = 20)
+    private String locale;
+
+    // Variables de la plantilla serializadas como JSON
+    @Column(name = "variables", columnDefinition = "TEXT")
+    private String variables;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoEnvio estado;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    @PrePersist
+    protected void onCreate() {
+        fechaCreacion = LocalDateTime.now();
+        if (estado == null) {
+            estado = EstadoEnvio.PENDIENTE;
+        }
+        if (intentos == null) {
+            intentos = 0;
+        }
+        if (proximoIntento == null) {
+            proximoIntento = fechaCreacion;
+        }
+    }
+
+    public enum EstadoEnvio {
+        PENDIENTE,    // Esperando envío o reintento
+        ENVIADO,      // Entregado al servidor SMTP
+        FALLIDO       // Agotó los reintentos (dead letter)
+    }
+}
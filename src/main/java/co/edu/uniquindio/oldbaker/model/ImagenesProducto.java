@@ -2,9 +2,13 @@ package co.edu.uniquindio.oldbaker.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "oldbaker.imagen-producto")
 @Table(name = "imagenes_productos")
 public class ImagenesProducto {
     @Id
@@ -17,7 +17,24 @@ public class Insumo {
     private String nombre;
     private String descripcion;
     private Double costoUnitario;
-    private Integer cantidadActual;
+    // Unidad base en la que se lleva el stock (GRAMOS, MILILITROS o UNIDADES). Todas las cantidades del
+    // insumo son milésimas de esta unidad (ver CantidadFija); no cambia después del alta.
+    @Enumerated(EnumType.STRING)
+    @Column(name = "unidad_medida", length = 20, updatable = false)
+    private Receta.UnidadMedida unidadMedida;
+    // Saldo al último cierre del libro de inventario; el stock vigente suma los movimientos posteriores
+    // a idUltimoMovimiento. Solo lo escribe el cierre periódico, nunca el guardado de la entidad.
+    @Column(name = "cantidad_actual", updatable = false)
+    private Long cantidadActual;
+    @Column(name = "id_ultimo_movimiento", updatable = false)
+    private Long idUltimoMovimiento;
+    // Reposición: cuando el stock baja a puntoReorden o menos se pide al proveedor hasta nivelObjetivo
+    private Long puntoReorden;
+    private Long nivelObjetivo;
+    // Verdadero desde que el stock cruza el punto de reorden hasta que vuelve a superarlo. Solo lo cambian
+    // las actualizaciones condicionales de ReposicionInsumosService, nunca el guardado de la entidad.
+    @Column(name = "en_reposicion", updatable = false)
+    private Boolean enReposicion;
     @OneToOne
     @JoinColumn(name = "id_insumo_proveedor", nullable = true, unique = true)
     private InsumoProveedor insumoProveedor;
@@ -2,12 +2,16 @@ package co.edu.uniquindio.oldbaker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "oldbaker.insumo-proveedor")
 @Table(name = "insumos_proveedor")
 @Data
 @NoArgsConstructor
@@ -26,6 +30,12 @@ public class InsumoProveedor {
     private LocalDate fechaVencimiento;
     private Integer cantidadDisponible;
 
+    // Unidad de compra: el costo unitario es por una de ellas y cada unidad pedida es una de ellas.
+    // Los registros anteriores no la tienen y se reciben en la unidad base del insumo del inventario
+    @Enumerated(EnumType.STRING)
+    @Column(name = "unidad_medida", length = 20)
+    private Receta.UnidadMedida unidadMedida;
+
     @ManyToOne
     @JoinColumn(name = "id_proveedor")
     private Proveedor proveedor;
@@ -0,0 +1,64 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Lote de un insumo: una entrada de stock con su fecha de vencimiento.
+ * Los consumos se asignan a los lotes que vencen primero (FEFO). La cantidad disponible solo cambia con
+ * UPDATE condicionales, nunca al guardar la entidad, así que dos consumos concurrentes no la pisan. Las cantidades
+ * son milésimas de la unidad base del insumo.
+ */
+@Entity
+@Table(name = "lotes_insumo", indexes = {
+        @Index(name = "idx_lotes_insumo_insumo_vencimiento", columnList = "id_insumo, fecha_vencimiento"),
+        @Index(name = "idx_lotes_insumo_vencimiento", columnList = "fecha_vencimiento")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoteInsumo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lote_insumo_seq")
+    @SequenceGenerator(name = "lote_insumo_seq", sequenceName = "LOTE_INSUMO_SEQ", allocationSize = 1)
+    private Long id;
+
+    // Sin relación JPA, igual que el libro de inventario
+    @Column(name = "id_insumo", nullable = false, updatable = false)
+    private Long idInsumo;
+
+    @Column(name = "cantidad_inicial", nullable = false, updatable = false)
+    private Long cantidadInicial;
+
+    @Column(name = "cantidad_disponible", nullable = false, updatable = false)
+    private Long cantidadDisponible;
+
+    // Nulo si el lote no vence; esos lotes se consumen al final
+    @Column(name = "fecha_vencimiento", updatable = false)
+    private LocalDate fechaVencimiento;
+
+    @Column(name = "fecha_recepcion", nullable = false, updatable = false)
+    private LocalDateTime fechaRecepcion;
+
+    // Origen del lote, por ejemplo "pedido:7" o "apertura"
+    @Column(name = "referencia", length = 100, updatable = false)
+    private String referencia;
+
+    @PrePersist
+    protected void onCreate() {
+        if (fechaRecepcion == null) {
+            fechaRecepcion = LocalDateTime.now();
+        }
+        if (cantidadDisponible == null) {
+            cantidadDisponible = cantidadInicial;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento de inventario inmutable: una fila por cambio de stock de un insumo.
+ * La cantidad lleva signo (positiva para entradas, negativa para salidas) en milésimas de la unidad base del insumo,
+ * y las filas nunca se actualizan ni se borran.
+ */
+@Entity
+@Table(name = "movimientos_inventario", indexes = {
+        @Index(name = "idx_movimientos_inventario_insumo_id", columnList = "id_insumo, id"),
+        @Index(name = "idx_movimientos_inventario_insumo_fecha", columnList = "id_insumo, fecha")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MovimientoInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimiento_inventario_seq")
+    @SequenceGenerator(name = "movimiento_inventario_seq", sequenceName = "MOVIMIENTO_INVENTARIO_SEQ", allocationSize = 1)
+    private Long id;
+
+    // Sin relación JPA: el libro conserva la historia aunque el insumo se elimine
+    @Column(name = "id_insumo", nullable = false, updatable = false)
+    private Long idInsumo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 30, updatable = false)
+    private TipoMovimiento tipo;
+
+    @Column(name = "cantidad", nullable = false, updatable = false)
+    private Long cantidad;
+
+    // Origen del movimiento, por ejemplo "orden:15" o "pedido:7"
+    @Column(name = "referencia", length = 100, updatable = false)
+    private String referencia;
+
+    @Column(name = "fecha", nullable = false, updatable = false)
+    private LocalDateTime fecha;
+
+    // Vencimiento del lote que abre una entrada; no se guarda en el libro, solo en el lote
+    @Transient
+    private LocalDate vencimientoLote;
+
+    @PrePersist
+    protected void onCreate() {
+        if (fecha == null) {
+            fecha = LocalDateTime.now();
+        }
+    }
+
+    public enum TipoMovimiento {
+        VENTA, RECEPCION_COMPRA, AJUSTE_MANUAL, DEVOLUCION, PRODUCCION
+    }
+}
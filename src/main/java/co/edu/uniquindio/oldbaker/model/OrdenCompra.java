@@ -13,7 +13,10 @@ import java.util.List;
 
 @Data
 @Entity
-@Table(name = "orden_compra")
+// La reconstrucción del pronóstico recorre las órdenes pagadas por fecha
+@Table(name = "orden_compra", indexes = {
+        @Index(name = "idx_orden_compra_status_fecha_actualizacion", columnList = "status, fecha_actualizacion")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -9,7 +9,10 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "pedidos_insumos")
+// El listado paginado filtra por estado y rango de fechas y recorre por id descendente
+@Table(name = "pedidos_insumos", indexes = {
+        @Index(name = "idx_pedidos_insumos_estado_id_fecha", columnList = "estado, id_pedido, fecha_pedido")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -28,6 +31,10 @@ public class PedidoInsumo {
     @Enumerated(EnumType.STRING)
     private EstadoPedido estado;
 
+    // Borrador creado por el motor de reposición; reúne los insumos del mismo proveedor mientras siga PENDIENTE
+    @Column(name = "reposicion_automatica")
+    private Boolean reposicionAutomatica;
+
     @OneToOne
     @JoinColumn(name = "id_pago")
     private PagoProveedor pago;
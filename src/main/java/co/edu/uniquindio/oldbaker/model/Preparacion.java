@@ -0,0 +1,33 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Preparación intermedia (masa madre, crema pastelera, glaseado) que varios productos u otras preparaciones
+ * usan como componente de su receta.
+ *
+ * Sus líneas son filas de Receta con esta preparación como dueña. Las cantidades de las líneas corresponden a
+ * un lote que rinde {@code rendimiento} milésimas de la unidad base de la preparación.
+ */
+@Entity
+@Table(name = "preparaciones")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Preparacion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "preparacion_seq")
+    @SequenceGenerator(name = "preparacion_seq", sequenceName = "PREPARACION_SEQ", allocationSize = 1)
+    private Long idPreparacion;
+    private String nombre;
+    private String descripcion;
+    // Unidad base en la que se mide lo que rinde (GRAMOS, MILILITROS o UNIDADES)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "unidad_medida", length = 20, nullable = false)
+    private Receta.UnidadMedida unidadMedida;
+    // Milésimas de unidadMedida que rinde un lote de la receta
+    @Column(name = "rendimiento", nullable = false)
+    private long rendimiento;
+}
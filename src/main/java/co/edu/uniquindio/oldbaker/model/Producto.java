@@ -2,9 +2,17 @@ package co.edu.uniquindio.oldbaker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "productos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "oldbaker.producto")
+@Table(name = "productos", indexes = {
+        @Index(name = "idx_productos_categoria_costo", columnList = "categoria, costo_unitario, id_producto"),
+        @Index(name = "idx_productos_costo", columnList = "costo_unitario, id_producto"),
+        @Index(name = "idx_productos_nombre", columnList = "nombre, id_producto")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -2,8 +2,12 @@ package co.edu.uniquindio.oldbaker.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "oldbaker.receta")
 @Table(name = "recetas")
 @Data
 @NoArgsConstructor
@@ -15,23 +19,73 @@ public class Receta {
     private Long idReceta;
     private String nombre;
     private String descripcion;
-    private double cantidadInsumo;
+    // Cantidad por unidad de producto (o por lote de la preparación dueña) en milésimas de la unidad base del
+    // componente (ver CantidadFija); unidadMedida es la unidad en que se escribió y solo se usa para mostrarla
+    @Column(name = "cantidad_milis", nullable = false)
+    private long cantidadInsumo;
     @Enumerated(EnumType.STRING)
     private UnidadMedida unidadMedida;
+    // Componente: un insumo o una sub-preparación, nunca ambos
     @ManyToOne
     @JoinColumn(name = "id_insumo")
     private Insumo insumo;
     @ManyToOne
+    @JoinColumn(name = "id_sub_preparacion")
+    private Preparacion subPreparacion;
+    // Dueña de la línea: un producto o una preparación
+    @ManyToOne
     @JoinColumn(name = "id_producto")
     private Producto producto;
+    @ManyToOne
+    @JoinColumn(name = "id_preparacion")
+    private Preparacion preparacion;
 
 
     public enum UnidadMedida {
-        GRAMOS,
-        KILOGRAMOS,
-        LITROS,
-        MILILITROS,
-        UNIDADES
+        GRAMOS(Magnitud.MASA, 1),
+        KILOGRAMOS(Magnitud.MASA, 1000),
+        LITROS(Magnitud.VOLUMEN, 1000),
+        MILILITROS(Magnitud.VOLUMEN, 1),
+        UNIDADES(Magnitud.CONTEO, 1);
+
+        private final Magnitud magnitud;
+        // Cuántas unidades base de la magnitud (gramo, mililitro, unidad) hay en una de esta unidad
+        private final long enBase;
+
+        UnidadMedida(Magnitud magnitud, long enBase) {
+            this.magnitud = magnitud;
+            this.enBase = enBase;
+        }
+
+        public Magnitud getMagnitud() {
+            return magnitud;
+        }
+
+        public long getEnBase() {
+            return enBase;
+        }
+
+        /**
+         * Unidad base de la magnitud, en la que se lleva el stock de los insumos.
+         */
+        public UnidadMedida base() {
+            return switch (magnitud) {
+                case MASA -> GRAMOS;
+                case VOLUMEN -> MILILITROS;
+                case CONTEO -> UNIDADES;
+            };
+        }
+
+        /**
+         * Precio por unidad base a partir de un precio por esta unidad (el kilo a 4000 es el gramo a 4).
+         */
+        public double precioEnBase(double precio) {
+            return precio / enBase;
+        }
+
+        public enum Magnitud {
+            MASA, VOLUMEN, CONTEO
+        }
     }
 
 
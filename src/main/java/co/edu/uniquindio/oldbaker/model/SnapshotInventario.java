@@ -0,0 +1,43 @@
+package co.edu.uniquindio.oldbaker.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Saldo de un insumo después de aplicar todos sus movimientos hasta idUltimoMovimiento.
+ * El saldo en un instante es el del último snapshot anterior más los movimientos posteriores a él,
+ * así una consulta histórica lee solo la cola de movimientos desde ese snapshot.
+ */
+@Entity
+@Table(name = "snapshots_inventario", indexes = {
+        @Index(name = "idx_snapshots_inventario_insumo_fecha", columnList = "id_insumo, fecha")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SnapshotInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "snapshot_inventario_seq")
+    @SequenceGenerator(name = "snapshot_inventario_seq", sequenceName = "SNAPSHOT_INVENTARIO_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "id_insumo", nullable = false)
+    private Long idInsumo;
+
+    @Column(name = "saldo", nullable = false)
+    private Long saldo;
+
+    // 0 para el saldo base, anterior al primer movimiento registrado
+    @Column(name = "id_ultimo_movimiento", nullable = false)
+    private Long idUltimoMovimiento;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+}
@@ -13,10 +13,19 @@ import java.time.LocalDateTime;
 
 /**
  * Entidad que representa un código de verificación asociado a un usuario.
+ * El código nunca se guarda en claro: se almacena su hash, indexado de forma única por propósito,
+ * de modo que la búsqueda por código es una sola consulta sobre el índice.
  */
 @Data
 @RequiredArgsConstructor
-@Table(name = "verification_codes")
+@Table(name = "verification_codes",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_verification_codes_purpose_code", columnNames = {"purpose", "code"})
+        },
+        indexes = {
+                @Index(name = "idx_verification_codes_user_purpose", columnList = "user_id, purpose"),
+                @Index(name = "idx_verification_codes_expiration", columnList = "expiration_date")
+        })
 @Builder
 @Entity
 @AllArgsConstructor
@@ -27,9 +36,15 @@ public class VerificationCode {
     @SequenceGenerator(name = "verification_code_seq", sequenceName = "VERIFICATION_CODE_SEQ", allocationSize = 1)
     private Long id;
 
-    @Column(name = "code", nullable = false)
+    // Hash HMAC-SHA256 (hex) del código; reutiliza la columna "code" para no requerir migración
+    @Column(name = "code", nullable = false, length = 64)
     @NotBlank(message = "El código es obligatorio")
-    private String code;
+    private String codeHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "purpose", nullable = false, length = 32)
+    @NotNull(message = "El propósito del código es obligatorio")
+    private Proposito purpose;
 
     @Column(name = "expiration_date", nullable = false)
     private LocalDateTime expirationDate;
@@ -38,4 +53,11 @@ public class VerificationCode {
     @NotNull(message = "El ID de usuario es obligatorio")
     private Long userId;
 
+    /**
+     * Enum que define para qué se emitió el código.
+     */
+    public enum Proposito {
+        REGISTRO, RECUPERACION_PASSWORD
+    }
+
 }
@@ -0,0 +1,38 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CambioEntidadRepository extends JpaRepository<CambioEntidad, Long> {
+
+    // Recorre la tabla por la clave primaria a partir del cursor del nodo
+    @Query("SELECT c FROM CambioEntidad c WHERE c.id > :cursor ORDER BY c.id")
+    List<CambioEntidad> findSiguientes(@Param("cursor") Long cursor, Pageable pageable);
+
+    // Ids que se saltaron en sondeos anteriores porque su transacción aún no había confirmado
+    List<CambioEntidad> findByIdIn(Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CambioEntidad c")
+    Long findUltimoId();
+
+    // Primer cambio registrado desde un instante; recorre el índice de fecha solo sobre las filas recientes
+    @Query("SELECT MIN(c.id) FROM CambioEntidad c WHERE c.fechaRegistro >= :desde")
+    Long findPrimerIdDesde(@Param("desde") LocalDateTime desde);
+
+    // Elimina un lote de cambios ya propagados; cada llamada corre en su propia transacción
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM cambios_entidad WHERE fecha_registro < :limite LIMIT :tamanoLote", nativeQuery = true)
+    int eliminarLoteAnteriorA(@Param("limite") LocalDateTime limite, @Param("tamanoLote") int tamanoLote);
+}
@@ -1,12 +1,60 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
+import co.edu.uniquindio.oldbaker.dto.cart.CarritoInactivoDTO;
 import co.edu.uniquindio.oldbaker.model.Cart;
 import co.edu.uniquindio.oldbaker.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUsuario(Usuario usuario);
-}
 
+    // Carrito con sus items en una sola consulta
+    @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.usuario.id = :idUsuario")
+    Optional<Cart> findByUsuarioIdConItems(@Param("idUsuario") Long idUsuario);
+
+    // Carrito con items y productos, para cotizar en una sola consulta
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.producto WHERE c.usuario.id = :idUsuario")
+    Optional<Cart> findByUsuarioIdConProductos(@Param("idUsuario") Long idUsuario);
+
+    // Revisión actual del carrito; vacío si el usuario no tiene carrito
+    @Query("SELECT COALESCE(c.revision, 0) FROM Cart c WHERE c.usuario.id = :idUsuario")
+    Optional<Long> findRevisionByUsuarioId(@Param("idUsuario") Long idUsuario);
+
+    // Siguiente lote de carritos sin cambios desde antes de :limite, en orden (fecha_actualizacion, id) a partir del cursor
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.cart.CarritoInactivoDTO(
+                c.id, u.email, u.nombre, c.fechaActualizacion, c.fechaRecordatorio,
+                (SELECT COUNT(i) FROM CartItem i WHERE i.cart = c),
+                (SELECT COUNT(o) FROM OrdenCompra o WHERE o.usuario = u AND o.fechaCreacion >= c.fechaActualizacion))
+            FROM Cart c JOIN c.usuario u
+            WHERE c.fechaActualizacion < :limite
+              AND (c.fechaActualizacion > :fechaCursor
+                   OR (c.fechaActualizacion = :fechaCursor AND c.id > :idCursor))
+            ORDER BY c.fechaActualizacion, c.id
+            """)
+    List<CarritoInactivoDTO> findInactivosDesde(@Param("limite") LocalDateTime limite,
+                                                @Param("fechaCursor") LocalDateTime fechaCursor,
+                                                @Param("idCursor") Long idCursor,
+                                                Pageable pageable);
+
+    // Actualización directa: no modifica fecha_actualizacion ni pasa por el dirty checking
+    @Modifying
+    @Query("UPDATE Cart c SET c.fechaRecordatorio = :fecha WHERE c.id IN :ids")
+    int marcarRecordados(@Param("ids") Collection<Long> ids, @Param("fecha") LocalDateTime fecha);
+
+    // Asigna fecha a los carritos creados antes de existir la columna, por lotes
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE carts SET fecha_actualizacion = :fecha WHERE fecha_actualizacion IS NULL LIMIT :tamanoLote", nativeQuery = true)
+    int completarFechaActualizacion(@Param("fecha") LocalDateTime fecha, @Param("tamanoLote") int tamanoLote);
+}
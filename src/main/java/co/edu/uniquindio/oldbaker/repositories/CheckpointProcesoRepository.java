@@ -0,0 +1,20 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CheckpointProcesoRepository extends JpaRepository<CheckpointProceso, String> {
+
+    // Bloquea el checkpoint hasta el commit: dos nodos no procesan el mismo lote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CheckpointProceso c WHERE c.nombre = :nombre")
+    Optional<CheckpointProceso> findParaActualizar(@Param("nombre") String nombre);
+}
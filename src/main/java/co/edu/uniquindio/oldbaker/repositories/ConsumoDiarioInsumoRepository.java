@@ -0,0 +1,44 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.dto.ConsumoDiarioDTO;
+import co.edu.uniquindio.oldbaker.model.ConsumoDiarioInsumo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ConsumoDiarioInsumoRepository extends JpaRepository<ConsumoDiarioInsumo, ConsumoDiarioInsumo.Clave> {
+
+    // Suma al día sin leer la fila: dos órdenes pagadas a la vez no pierden consumo
+    @Modifying
+    @Query(value = """
+            INSERT INTO consumos_diarios_insumo (id_insumo, fecha, cantidad) VALUES (:idInsumo, :fecha, :cantidad)
+            ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad)
+            """, nativeQuery = true)
+    int sumar(@Param("idInsumo") Long idInsumo, @Param("fecha") LocalDate fecha, @Param("cantidad") Double cantidad);
+
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.ConsumoDiarioDTO(c.idInsumo, c.fecha, c.cantidad)
+            FROM ConsumoDiarioInsumo c
+            WHERE c.fecha >= :desde AND c.fecha <= :hasta
+            """)
+    List<ConsumoDiarioDTO> findSerie(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.ConsumoDiarioDTO(c.idInsumo, c.fecha, c.cantidad)
+            FROM ConsumoDiarioInsumo c
+            WHERE c.idInsumo = :idInsumo AND c.fecha >= :desde AND c.fecha <= :hasta
+            """)
+    List<ConsumoDiarioDTO> findSerieByInsumo(@Param("idInsumo") Long idInsumo,
+                                             @Param("desde") LocalDate desde,
+                                             @Param("hasta") LocalDate hasta);
+
+    @Modifying
+    @Query("DELETE FROM ConsumoDiarioInsumo c WHERE c.fecha >= :desde AND c.fecha <= :hasta")
+    int eliminarRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
@@ -0,0 +1,29 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.model.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Reclama un lote de correos vencidos; SKIP LOCKED (-2) evita que dos nodos envíen el mismo correo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EmailOutbox e WHERE e.estado = :estado AND e.proximoIntento <= :ahora ORDER BY e.proximoIntento")
+    List<EmailOutbox> findListosParaEnvio(@Param("estado") EmailOutbox.EstadoEnvio estado,
+                                         @Param("ahora") LocalDateTime ahora,
+                                         Pageable pageable);
+
+    long countByEstado(EmailOutbox.EstadoEnvio estado);
+}
@@ -0,0 +1,20 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.model.ImagenesProducto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImagenesProductoRepository extends JpaRepository<ImagenesProducto, Long> {
+
+    List<ImagenesProducto> findByIdProductoInOrderByIdAsc(Collection<Long> idsProducto);
+
+    // Solo los ids, para invalidar en la caché de segundo nivel las imágenes de unos productos
+    @Query("SELECT i.id FROM ImagenesProducto i WHERE i.idProducto IN :idsProducto")
+    List<Long> findIdsByIdProductoIn(@Param("idsProducto") Collection<Long> idsProducto);
+}
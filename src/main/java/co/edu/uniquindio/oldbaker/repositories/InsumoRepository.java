@@ -1,13 +1,111 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
+import co.edu.uniquindio.oldbaker.dto.CostoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.EstadoReposicionDTO;
+import co.edu.uniquindio.oldbaker.dto.ResumenInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.SaldoPendienteDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
 import co.edu.uniquindio.oldbaker.model.Insumo;
 import co.edu.uniquindio.oldbaker.model.InsumoProveedor;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface InsumoRepository extends JpaRepository<Insumo, Long> {
     Optional<Insumo> findByInsumoProveedor(InsumoProveedor insumoProveedor);
+
+    // Bloquea el insumo hasta el commit: las escrituras que leen el saldo y registran un movimiento calculado
+    // a partir de él se hacen de a una por insumo
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Insumo i WHERE i.idInsumo = :idInsumo")
+    Optional<Insumo> findParaActualizar(@Param("idInsumo") Long idInsumo);
+
+    // Solo el stock vigente, sin cargar el InsumoProveedor asociado: saldo del último cierre más la cola de movimientos
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.StockInsumoDTO(i.idInsumo,
+                CAST(COALESCE(i.cantidadActual, 0) + COALESCE((SELECT SUM(m.cantidad) FROM MovimientoInventario m
+                    WHERE m.idInsumo = i.idInsumo AND m.id > COALESCE(i.idUltimoMovimiento, 0)), 0) AS Long))
+            FROM Insumo i
+            """)
+    List<StockInsumoDTO> findStock();
+
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.StockInsumoDTO(i.idInsumo,
+                CAST(COALESCE(i.cantidadActual, 0) + COALESCE((SELECT SUM(m.cantidad) FROM MovimientoInventario m
+                    WHERE m.idInsumo = i.idInsumo AND m.id > COALESCE(i.idUltimoMovimiento, 0)), 0) AS Long))
+            FROM Insumo i WHERE i.idInsumo IN :ids
+            """)
+    List<StockInsumoDTO> findStockByIds(@Param("ids") Collection<Long> ids);
+
+    // Costo unitario de los insumos para el costeo de productos, sin cargar entidades
+    @Query("SELECT new co.edu.uniquindio.oldbaker.dto.CostoInsumoDTO(i.idInsumo, i.costoUnitario) FROM Insumo i")
+    List<CostoInsumoDTO> findCostos();
+
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.CostoInsumoDTO(i.idInsumo, i.costoUnitario)
+            FROM Insumo i WHERE i.idInsumo IN :ids
+            """)
+    List<CostoInsumoDTO> findCostosByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.ResumenInsumoDTO(i.idInsumo, i.nombre, i.unidadMedida)
+            FROM Insumo i WHERE i.idInsumo IN :ids
+            """)
+    List<ResumenInsumoDTO> findResumenByIds(@Param("ids") Collection<Long> ids);
+
+    // Insumos con movimientos posteriores a su último cierre, hasta el id indicado
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.SaldoPendienteDTO(
+                i.idInsumo, i.cantidadActual, i.idUltimoMovimiento, SUM(m.cantidad), MAX(m.id))
+            FROM Insumo i, MovimientoInventario m
+            WHERE m.idInsumo = i.idInsumo
+              AND m.id > COALESCE(i.idUltimoMovimiento, 0)
+              AND m.id <= :hasta
+            GROUP BY i.idInsumo, i.cantidadActual, i.idUltimoMovimiento
+            """)
+    List<SaldoPendienteDTO> findSaldosPendientes(@Param("hasta") Long hasta);
+
+    // Movimiento más reciente incorporado a algún cierre; todo lo anterior ya se resolvió en ejecuciones previas
+    @Query("SELECT COALESCE(MAX(i.idUltimoMovimiento), 0) FROM Insumo i")
+    long findUltimoMovimientoCerrado();
+
+    // Cierra el saldo solo si nadie lo cerró desde la lectura (otro nodo ejecutando el mismo proceso)
+    @Modifying
+    @Query("""
+            UPDATE Insumo i SET i.cantidadActual = :saldo, i.idUltimoMovimiento = :hasta
+            WHERE i.idInsumo = :idInsumo AND COALESCE(i.idUltimoMovimiento, 0) = :anterior
+            """)
+    int cerrarSaldo(@Param("idInsumo") Long idInsumo,
+                    @Param("saldo") Long saldo,
+                    @Param("hasta") Long hasta,
+                    @Param("anterior") Long anterior);
+
+    // Insumos con umbral o con una reposición en curso, con su stock vigente y el proveedor que los surte
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.EstadoReposicionDTO(i.idInsumo,
+                CAST(COALESCE(i.cantidadActual, 0) + COALESCE((SELECT SUM(m.cantidad) FROM MovimientoInventario m
+                    WHERE m.idInsumo = i.idInsumo AND m.id > COALESCE(i.idUltimoMovimiento, 0)), 0) AS Long),
+                i.puntoReorden, i.nivelObjetivo, i.enReposicion, ip.idInsumo, pr.idProveedor)
+            FROM Insumo i LEFT JOIN i.insumoProveedor ip LEFT JOIN ip.proveedor pr
+            WHERE i.idInsumo IN :ids AND (i.puntoReorden IS NOT NULL OR i.enReposicion = true)
+            """)
+    List<EstadoReposicionDTO> findEstadosReposicion(@Param("ids") Collection<Long> ids);
+
+    // Transiciones de la reposición: solo una de varias evaluaciones concurrentes obtiene 1 y actúa
+    @Modifying
+    @Query("UPDATE Insumo i SET i.enReposicion = true WHERE i.idInsumo = :idInsumo AND COALESCE(i.enReposicion, false) = false")
+    int marcarEnReposicion(@Param("idInsumo") Long idInsumo);
+
+    @Modifying
+    @Query("UPDATE Insumo i SET i.enReposicion = false WHERE i.idInsumo = :idInsumo AND i.enReposicion = true")
+    int rearmarReposicion(@Param("idInsumo") Long idInsumo);
 }
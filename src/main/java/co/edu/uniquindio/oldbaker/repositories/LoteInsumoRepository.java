@@ -0,0 +1,44 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.dto.LoteVencimientoDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
+import co.edu.uniquindio.oldbaker.model.LoteInsumo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface LoteInsumoRepository extends JpaRepository<LoteInsumo, Long> {
+
+    @Query("SELECT l FROM LoteInsumo l WHERE l.idInsumo = :idInsumo AND l.cantidadDisponible > 0")
+    List<LoteInsumo> findDisponibles(@Param("idInsumo") Long idInsumo);
+
+    // Descuenta solo si el lote aún tiene la cantidad: 0 filas indica que otro consumo se adelantó
+    @Modifying
+    @Query("""
+            UPDATE LoteInsumo l SET l.cantidadDisponible = l.cantidadDisponible - :cantidad
+            WHERE l.id = :idLote AND l.cantidadDisponible >= :cantidad
+            """)
+    int consumir(@Param("idLote") Long idLote, @Param("cantidad") long cantidad);
+
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.LoteVencimientoDTO(
+                l.id, l.idInsumo, i.nombre, l.cantidadDisponible, l.fechaVencimiento)
+            FROM LoteInsumo l, Insumo i
+            WHERE i.idInsumo = l.idInsumo AND l.cantidadDisponible > 0 AND l.fechaVencimiento <= :hasta
+            ORDER BY l.fechaVencimiento, i.nombre, l.id
+            """)
+    List<LoteVencimientoDTO> findPorVencer(@Param("hasta") LocalDate hasta);
+
+    // Existencias en lotes por insumo, para conciliarlas con el saldo del libro
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.StockInsumoDTO(l.idInsumo, SUM(l.cantidadDisponible))
+            FROM LoteInsumo l GROUP BY l.idInsumo
+            """)
+    List<StockInsumoDTO> findDisponiblePorInsumo();
+}
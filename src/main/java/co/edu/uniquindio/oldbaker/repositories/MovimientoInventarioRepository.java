@@ -0,0 +1,30 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.model.MovimientoInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MovimientoInventarioRepository extends JpaRepository<MovimientoInventario, Long> {
+
+    // Suma de la cola de movimientos de un insumo después de un snapshot y hasta una fecha
+    @Query("""
+            SELECT COALESCE(SUM(m.cantidad), 0) FROM MovimientoInventario m
+            WHERE m.idInsumo = :idInsumo AND m.id > :idDesde AND m.fecha <= :hasta
+            """)
+    long sumarDesde(@Param("idInsumo") Long idInsumo,
+                    @Param("idDesde") Long idDesde,
+                    @Param("hasta") LocalDateTime hasta);
+
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM MovimientoInventario m WHERE m.fecha < :limite")
+    long findUltimoIdAntesDe(@Param("limite") LocalDateTime limite);
+
+    // Ids confirmados en un tramo de la secuencia; los que faltan son transacciones abiertas o revertidas
+    @Query("SELECT m.id FROM MovimientoInventario m WHERE m.id > :desde AND m.id <= :hasta ORDER BY m.id")
+    List<Long> findIdsEntre(@Param("desde") Long desde, @Param("hasta") Long hasta);
+}
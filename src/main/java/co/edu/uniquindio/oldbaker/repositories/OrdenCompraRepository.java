@@ -1,10 +1,16 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
+import co.edu.uniquindio.oldbaker.dto.DemandaProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.VentaDiariaDTO;
 import co.edu.uniquindio.oldbaker.model.OrdenCompra;
 import co.edu.uniquindio.oldbaker.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,5 +26,34 @@ public interface OrdenCompraRepository extends JpaRepository<OrdenCompra, Long>
     List<OrdenCompra> findByUsuario_IdOrderByFechaCreacionDesc(Long usuarioId);
 
     List<OrdenCompra> findByStatusOrderByFechaCreacionDesc(OrdenCompra.EstadoOrden status);
-}
 
+    // Unidades vendidas por producto y día de las órdenes pagadas en el rango; el consumo de insumos se obtiene
+    // aplanando las recetas de cada producto.
+    // La fecha de pago es la última actualización de la orden, que es cuando pasó a PAID.
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.VentaDiariaDTO(i.producto.idProducto,
+                CAST(o.fechaActualizacion AS LocalDate), SUM(i.cantidad))
+            FROM OrdenCompra o JOIN o.items i
+            WHERE o.status = co.edu.uniquindio.oldbaker.model.OrdenCompra.EstadoOrden.PAID
+              AND o.fechaActualizacion >= :desde AND o.fechaActualizacion < :hasta
+            GROUP BY i.producto.idProducto, CAST(o.fechaActualizacion AS LocalDate)
+            """)
+    List<VentaDiariaDTO> findVentasPagadas(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    // Unidades por producto y estado de las órdenes actualizadas en el rango, para el plan de producción
+    @Query("""
+            SELECT new co.edu.uniquindio.oldbaker.dto.DemandaProductoDTO(p.idProducto, p.nombre, o.status, SUM(i.cantidad))
+            FROM OrdenCompra o JOIN o.items i JOIN i.producto p
+            WHERE o.status IN :estados
+              AND o.fechaActualizacion >= :desde AND o.fechaActualizacion < :hasta
+            GROUP BY p.idProducto, p.nombre, o.status
+            """)
+    List<DemandaProductoDTO> findDemandaPorProducto(@Param("estados") Collection<OrdenCompra.EstadoOrden> estados,
+                                                    @Param("desde") LocalDateTime desde,
+                                                    @Param("hasta") LocalDateTime hasta);
+
+    // Órdenes de un estado actualizadas desde una fecha
+    @Query("SELECT o.id FROM OrdenCompra o WHERE o.status = :estado AND o.fechaActualizacion >= :desde")
+    List<Long> findIdsPorEstadoDesde(@Param("estado") OrdenCompra.EstadoOrden estado,
+                                     @Param("desde") LocalDateTime desde);
+}
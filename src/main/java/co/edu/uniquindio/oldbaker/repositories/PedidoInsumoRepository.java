@@ -1,15 +1,62 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
 import co.edu.uniquindio.oldbaker.model.PedidoInsumo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PedidoInsumoRepository extends JpaRepository<PedidoInsumo, Long> {
     @Query("SELECT DISTINCT d.insumo.proveedor.idProveedor FROM PedidoInsumo p " +
             "JOIN p.detalles d " +
             "WHERE p.idPedido = :idPedido")
     Long findProveedorByPedidoId(@Param("idPedido") Long idPedido);
+
+    // Pedidos con sus detalles, el insumo del proveedor y el insumo de inventario ya mapeado (si existe),
+    // en una sola consulta: sin el fetch de ip.insumo Hibernate lanza un SELECT por cada relación inversa
+    @Query("""
+            SELECT DISTINCT p FROM PedidoInsumo p
+            LEFT JOIN FETCH p.detalles d
+            LEFT JOIN FETCH d.insumo ip
+            LEFT JOIN FETCH ip.proveedor
+            LEFT JOIN FETCH ip.insumo
+            LEFT JOIN FETCH p.pago
+            WHERE p.idPedido IN :ids
+            """)
+    List<PedidoInsumo> findConDetallesByIds(@Param("ids") Collection<Long> ids);
+
+    // Primera consulta del listado paginado: solo los ids de la página, por keyset sobre el id.
+    // El LIMIT va aquí y no en la consulta con JOIN FETCH, donde Hibernate paginaría en memoria
+    @Query("""
+            SELECT p.idPedido FROM PedidoInsumo p
+            WHERE (:estado IS NULL OR p.estado = :estado)
+              AND (:desde IS NULL OR p.fechaPedido >= :desde)
+              AND (:hasta IS NULL OR p.fechaPedido <= :hasta)
+              AND p.idPedido < :idCursor
+            ORDER BY p.idPedido DESC
+            """)
+    List<Long> findIdsPagina(@Param("estado") PedidoInsumo.EstadoPedido estado,
+                             @Param("desde") LocalDate desde,
+                             @Param("hasta") LocalDate hasta,
+                             @Param("idCursor") Long idCursor,
+                             Pageable pageable);
+
+    // Borrador de reposición aún PENDIENTE de un proveedor, con sus detalles
+    @Query("""
+            SELECT DISTINCT p FROM PedidoInsumo p
+            LEFT JOIN FETCH p.detalles d
+            LEFT JOIN FETCH d.insumo
+            WHERE p.reposicionAutomatica = true
+              AND p.estado = co.edu.uniquindio.oldbaker.model.PedidoInsumo.EstadoPedido.PENDIENTE
+              AND EXISTS (SELECT 1 FROM DetalleProveedorPedido x
+                          WHERE x.pedido = p AND x.insumo.proveedor.idProveedor = :idProveedor)
+            ORDER BY p.idPedido
+            """)
+    List<PedidoInsumo> findBorradoresReposicion(@Param("idProveedor") Long idProveedor);
 }
@@ -1,12 +1,21 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
+import co.edu.uniquindio.oldbaker.dto.FacetaCategoriaDTO;
+import co.edu.uniquindio.oldbaker.dto.PrecioProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.ProductoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.dto.ProductoCatalogoDTO;
 import co.edu.uniquindio.oldbaker.dto.ProductoHomeResponse;
+import co.edu.uniquindio.oldbaker.dto.ProductoHorneadoDTO;
 import co.edu.uniquindio.oldbaker.model.Producto;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
@@ -25,7 +34,174 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
         FROM Producto p
         LEFT JOIN Categoria c ON p.categoria.idCategoria = c.idCategoria
         LEFT JOIN ImagenesProducto ip ON p.idProducto = ip.idProducto
+            AND ip.id = (SELECT MIN(ip2.id) FROM ImagenesProducto ip2 WHERE ip2.idProducto = p.idProducto)
         WHERE p.categoria IS NOT NULL
         """)
     List<ProductoHomeResponse> findProductos();
-}
\ No newline at end of file
+
+    // Productos con su categoría en una sola consulta (evita un SELECT por categoría)
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria ORDER BY p.idProducto")
+    List<Producto> findAllConCategoria();
+
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria WHERE p.idProducto = :idProducto")
+    Optional<Producto> findByIdConCategoria(@Param("idProducto") Long idProducto);
+
+    // Navegación por keyset: cada variante continúa después de la última fila (valor de orden, id) de la página anterior.
+    // Los productos sin precio o sin nombre van al final (NULLS LAST); ultimoNulo indica que la última fila ya era
+    // una de ellas, y entonces solo quedan las nulas de id mayor
+
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.ProductoCatalogoDTO(
+            p.idProducto,
+            p.nombre,
+            p.costoUnitario,
+            p.pedidoMinimo,
+            c.idCategoria,
+            c.nombre
+        )
+        FROM Producto p
+        JOIN p.categoria c
+        WHERE (:idCategoria IS NULL OR c.idCategoria = :idCategoria)
+          AND (:precioMin IS NULL OR p.costoUnitario >= :precioMin)
+          AND (:precioMax IS NULL OR p.costoUnitario <= :precioMax)
+          AND ((:ultimoNulo = false AND (p.costoUnitario IS NULL
+                    OR p.costoUnitario > :ultimoPrecio
+                    OR (p.costoUnitario = :ultimoPrecio AND p.idProducto > :ultimoId)))
+            OR (:ultimoNulo = true AND p.costoUnitario IS NULL AND p.idProducto > :ultimoId))
+        ORDER BY p.costoUnitario ASC NULLS LAST, p.idProducto
+        """)
+    List<ProductoCatalogoDTO> findCatalogoPorPrecio(@Param("idCategoria") Long idCategoria,
+                                                    @Param("precioMin") Double precioMin,
+                                                    @Param("precioMax") Double precioMax,
+                                                    @Param("ultimoNulo") boolean ultimoNulo,
+                                                    @Param("ultimoPrecio") Double ultimoPrecio,
+                                                    @Param("ultimoId") Long ultimoId,
+                                                    Pageable pageable);
+
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.ProductoCatalogoDTO(
+            p.idProducto,
+            p.nombre,
+            p.costoUnitario,
+            p.pedidoMinimo,
+            c.idCategoria,
+            c.nombre
+        )
+        FROM Producto p
+        JOIN p.categoria c
+        WHERE (:idCategoria IS NULL OR c.idCategoria = :idCategoria)
+          AND (:precioMin IS NULL OR p.costoUnitario >= :precioMin)
+          AND (:precioMax IS NULL OR p.costoUnitario <= :precioMax)
+          AND ((:ultimoNulo = false AND (p.nombre IS NULL
+                    OR p.nombre > :ultimoNombre
+                    OR (p.nombre = :ultimoNombre AND p.idProducto > :ultimoId)))
+            OR (:ultimoNulo = true AND p.nombre IS NULL AND p.idProducto > :ultimoId))
+        ORDER BY p.nombre ASC NULLS LAST, p.idProducto
+        """)
+    List<ProductoCatalogoDTO> findCatalogoPorNombre(@Param("idCategoria") Long idCategoria,
+                                                    @Param("precioMin") Double precioMin,
+                                                    @Param("precioMax") Double precioMax,
+                                                    @Param("ultimoNulo") boolean ultimoNulo,
+                                                    @Param("ultimoNombre") String ultimoNombre,
+                                                    @Param("ultimoId") Long ultimoId,
+                                                    Pageable pageable);
+
+    // Los IDs salen de una secuencia, así que el ID descendente equivale a "más recientes primero"
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.ProductoCatalogoDTO(
+            p.idProducto,
+            p.nombre,
+            p.costoUnitario,
+            p.pedidoMinimo,
+            c.idCategoria,
+            c.nombre
+        )
+        FROM Producto p
+        JOIN p.categoria c
+        WHERE (:idCategoria IS NULL OR c.idCategoria = :idCategoria)
+          AND (:precioMin IS NULL OR p.costoUnitario >= :precioMin)
+          AND (:precioMax IS NULL OR p.costoUnitario <= :precioMax)
+          AND p.idProducto < :ultimoId
+        ORDER BY p.idProducto DESC
+        """)
+    List<ProductoCatalogoDTO> findCatalogoRecientes(@Param("idCategoria") Long idCategoria,
+                                                    @Param("precioMin") Double precioMin,
+                                                    @Param("precioMax") Double precioMax,
+                                                    @Param("ultimoId") Long ultimoId,
+                                                    Pageable pageable);
+
+    // Conteo de productos por categoría; alimenta el agregado de facetas, no se ejecuta por petición
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.FacetaCategoriaDTO(c.idCategoria, c.nombre, COUNT(p.idProducto))
+        FROM Categoria c
+        LEFT JOIN Producto p ON p.categoria = c
+        GROUP BY c.idCategoria, c.nombre
+        """)
+    List<FacetaCategoriaDTO> contarPorCategoria();
+
+    // Conteo por categoría dentro de un rango de precio; solo cuando la petición filtra por precio
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.FacetaCategoriaDTO(c.idCategoria, c.nombre, COUNT(p.idProducto))
+        FROM Producto p
+        JOIN p.categoria c
+        WHERE (:precioMin IS NULL OR p.costoUnitario >= :precioMin)
+          AND (:precioMax IS NULL OR p.costoUnitario <= :precioMax)
+        GROUP BY c.idCategoria, c.nombre
+        """)
+    List<FacetaCategoriaDTO> contarPorCategoriaEnRango(@Param("precioMin") Double precioMin,
+                                                       @Param("precioMax") Double precioMax);
+
+    // Campos indexables para la búsqueda de texto
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.ProductoBusquedaDTO(
+            p.idProducto,
+            p.nombre,
+            p.descripcion,
+            c.nombre,
+            p.costoUnitario
+        )
+        FROM Producto p
+        LEFT JOIN p.categoria c
+        """)
+    List<ProductoBusquedaDTO> findParaBusqueda();
+
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.ProductoBusquedaDTO(
+            p.idProducto,
+            p.nombre,
+            p.descripcion,
+            c.nombre,
+            p.costoUnitario
+        )
+        FROM Producto p
+        LEFT JOIN p.categoria c
+        WHERE p.idProducto IN :ids
+        """)
+    List<ProductoBusquedaDTO> findParaBusquedaByIds(@Param("ids") Collection<Long> ids);
+
+    // Precio de venta para el costeo de productos
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.PrecioProductoDTO(p.idProducto, p.nombre, p.costoUnitario)
+        FROM Producto p
+        """)
+    List<PrecioProductoDTO> findPrecios();
+
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.PrecioProductoDTO(p.idProducto, p.nombre, p.costoUnitario)
+        FROM Producto p
+        WHERE p.idProducto IN :ids
+        """)
+    List<PrecioProductoDTO> findPreciosByIds(@Param("ids") Collection<Long> ids);
+
+    // Precio y tanda mínima de cada producto, para la sugerencia de horneado
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.ProductoHorneadoDTO(p.idProducto, p.nombre, p.costoUnitario,
+            p.pedidoMinimo)
+        FROM Producto p
+        """)
+    List<ProductoHorneadoDTO> findParaHorneado();
+
+    // Comprueba en una sola consulta qué productos de la lista existen
+    @Query("SELECT p.idProducto FROM Producto p WHERE p.idProducto IN :ids")
+    List<Long> findIdsExistentes(@Param("ids") Collection<Long> ids);
+}
@@ -1,9 +1,20 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
 import co.edu.uniquindio.oldbaker.model.Proveedor;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface ProveedorRepository extends JpaRepository<Proveedor, Long> {
+
+    // Bloquea el proveedor hasta el commit: las reposiciones de un mismo proveedor se arman de a una
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Proveedor p WHERE p.idProveedor = :idProveedor")
+    Optional<Proveedor> findParaActualizar(@Param("idProveedor") Long idProveedor);
 }
@@ -1,15 +1,135 @@
 package co.edu.uniquindio.oldbaker.repositories;
 
+import co.edu.uniquindio.oldbaker.dto.LineaRecetaDTO;
+import co.edu.uniquindio.oldbaker.dto.RecetaProductoDTO;
 import co.edu.uniquindio.oldbaker.model.Producto;
 import co.edu.uniquindio.oldbaker.model.Receta;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface RecetaRepository extends JpaRepository<Receta, Long> {
     List<Receta> findByProducto(Producto producto);
 
+    // Se consulta en cada checkout; el resultado queda en la caché de consultas y se invalida con cualquier escritura en recetas
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "oldbaker.receta-por-producto")
+    })
     List<Receta> findByProducto_IdProducto(Long productId);
+
+    // Solo los ids, para invalidar en la caché de segundo nivel las recetas de unos productos
+    @Query("SELECT r.idReceta FROM Receta r WHERE r.producto.idProducto IN :idsProducto")
+    List<Long> findIdsByProductos(@Param("idsProducto") Collection<Long> idsProducto);
+
+    // Recetas de todos los productos en una sola consulta, ordenadas para agruparlas por producto
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.RecetaProductoDTO(
+            r.producto.idProducto,
+            r.idReceta,
+            i.nombre,
+            sp.nombre,
+            r.cantidadInsumo,
+            r.unidadMedida
+        )
+        FROM Receta r
+        LEFT JOIN r.insumo i
+        LEFT JOIN r.subPreparacion sp
+        WHERE r.producto IS NOT NULL
+        ORDER BY r.producto.idProducto, r.idReceta
+        """)
+    List<RecetaProductoDTO> findResumenRecetas();
+
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.RecetaProductoDTO(
+            r.producto.idProducto,
+            r.idReceta,
+            i.nombre,
+            sp.nombre,
+            r.cantidadInsumo,
+            r.unidadMedida
+        )
+        FROM Receta r
+        LEFT JOIN r.insumo i
+        LEFT JOIN r.subPreparacion sp
+        WHERE r.producto.idProducto = :idProducto
+        ORDER BY r.idReceta
+        """)
+    List<RecetaProductoDTO> findResumenRecetasByProducto(@Param("idProducto") Long idProducto);
+
+    List<Receta> findByPreparacion_IdPreparacion(Long idPreparacion);
+
+    List<Receta> findByPreparacionIsNotNull();
+
+    // Líneas de las recetas de productos (insumos y sub-preparaciones), sin materializar entidades
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.LineaRecetaDTO(
+            r.producto.idProducto,
+            i.idInsumo,
+            sp.idPreparacion,
+            r.cantidadInsumo
+        )
+        FROM Receta r
+        LEFT JOIN r.insumo i
+        LEFT JOIN r.subPreparacion sp
+        WHERE r.producto IS NOT NULL
+        ORDER BY r.idReceta
+        """)
+    List<LineaRecetaDTO> findLineasProductos();
+
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.LineaRecetaDTO(
+            r.producto.idProducto,
+            i.idInsumo,
+            sp.idPreparacion,
+            r.cantidadInsumo
+        )
+        FROM Receta r
+        LEFT JOIN r.insumo i
+        LEFT JOIN r.subPreparacion sp
+        WHERE r.producto.idProducto IN :idsProducto
+        ORDER BY r.idReceta
+        """)
+    List<LineaRecetaDTO> findLineasByProductos(@Param("idsProducto") Collection<Long> idsProducto);
+
+    // Líneas de las preparaciones con el rendimiento del lote al que corresponden
+    @Query("""
+        SELECT new co.edu.uniquindio.oldbaker.dto.LineaRecetaDTO(
+            p.idPreparacion,
+            p.rendimiento,
+            i.idInsumo,
+            sp.idPreparacion,
+            r.cantidadInsumo
+        )
+        FROM Receta r
+        JOIN r.preparacion p
+        LEFT JOIN r.insumo i
+        LEFT JOIN r.subPreparacion sp
+        WHERE p.idPreparacion IN :idsPreparacion
+        ORDER BY r.idReceta
+        """)
+    List<LineaRecetaDTO> findLineasByPreparaciones(@Param("idsPreparacion") Collection<Long> idsPreparacion);
+
+    // Preparaciones que usan directamente alguna de las indicadas como componente
+    @Query("""
+        SELECT DISTINCT r.preparacion.idPreparacion
+        FROM Receta r
+        WHERE r.subPreparacion.idPreparacion IN :idsPreparacion AND r.preparacion IS NOT NULL
+        """)
+    List<Long> findIdsPreparacionesQueUsan(@Param("idsPreparacion") Collection<Long> idsPreparacion);
+
+    @Query("""
+        SELECT DISTINCT r.producto.idProducto
+        FROM Receta r
+        WHERE r.subPreparacion.idPreparacion IN :idsPreparacion AND r.producto IS NOT NULL
+        """)
+    List<Long> findIdsProductosQueUsan(@Param("idsPreparacion") Collection<Long> idsPreparacion);
 }
@@ -0,0 +1,15 @@
+package co.edu.uniquindio.oldbaker.repositories;
+
+import co.edu.uniquindio.oldbaker.model.SnapshotInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SnapshotInventarioRepository extends JpaRepository<SnapshotInventario, Long> {
+
+    // Último snapshot de un insumo en o antes de la fecha, por el índice (id_insumo, fecha)
+    Optional<SnapshotInventario> findFirstByIdInsumoAndFechaLessThanEqualOrderByFechaDesc(Long idInsumo, LocalDateTime fecha);
+}
@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 
@@ -18,12 +20,25 @@ import java.util.Optional;
 @Repository
 public interface VerificationCodeRepository extends JpaRepository<VerificationCode,Long> {
 
-    // Consulta personalizada para encontrar un código de verificación por el ID de usuario
-    Optional<VerificationCode> findByUserId(@NotNull(message = "El ID de usuario es obligatorio") Long idUsuario);
+    // Consulta personalizada para encontrar el código de un usuario para un propósito concreto
+    Optional<VerificationCode> findByUserIdAndPurpose(@NotNull(message = "El ID de usuario es obligatorio") Long idUsuario,
+                                                      VerificationCode.Proposito purpose);
+
+    // Búsqueda por hash del código sobre el índice único (purpose, code)
+    Optional<VerificationCode> findByPurposeAndCodeHash(VerificationCode.Proposito purpose, String codeHash);
+
+    // Método para verificar si un hash ya está en uso para un propósito
+    boolean existsByPurposeAndCodeHash(VerificationCode.Proposito purpose, String codeHash);
 
     // Método para eliminar un código de verificación por el ID de usuario
     @Modifying
     @Query("DELETE FROM VerificationCode v WHERE v.userId = :idUsuario")
     void deleteByIdUser(@Param("idUsuario") Long idUsuario);
 
+    // Elimina un lote de códigos expirados; cada llamada corre en su propia transacción
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM verification_codes WHERE expiration_date < :ahora LIMIT :limite", nativeQuery = true)
+    int deleteExpiredBatch(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
 }
@@ -0,0 +1,97 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Analizador de texto para la búsqueda de productos en español.
+ * Pasa a minúsculas, elimina tildes y diéresis ("Panadería" → "panaderia"), descarta palabras vacías
+ * y aplica un stemming ligero de plurales y género ("galletas" y "galleta" → "gallet").
+ */
+public final class AnalizadorTextoEspanol {
+
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{Alnum}]+");
+
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los", "o",
+            "para", "por", "sin", "su", "sus", "un", "una", "unas", "unos", "y");
+
+    private AnalizadorTextoEspanol() {
+    }
+
+    /**
+     * Normaliza el texto: minúsculas y sin marcas diacríticas.
+     */
+    public static String plegar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("");
+    }
+
+    /**
+     * Divide el texto en palabras plegadas, sin palabras vacías ni stemming.
+     * Se usa para el autocompletado, que compara prefijos contra la palabra tal como se escribe.
+     */
+    public static List<String> palabras(String texto) {
+        List<String> resultado = new ArrayList<>();
+        for (String palabra : SEPARADORES.split(plegar(texto))) {
+            if (!palabra.isEmpty() && !PALABRAS_VACIAS.contains(palabra)) {
+                resultado.add(palabra);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Divide el texto en términos indexables: palabras plegadas y reducidas a su raíz.
+     */
+    public static List<String> terminos(String texto) {
+        List<String> palabras = palabras(texto);
+        List<String> resultado = new ArrayList<>(palabras.size());
+        for (String palabra : palabras) {
+            resultado.add(raiz(palabra));
+        }
+        return resultado;
+    }
+
+    /**
+     * Stemming ligero para español: quita la vocal final de género y las terminaciones de plural.
+     * Las palabras de menos de cinco letras se dejan intactas para no confundir raíces cortas.
+     */
+    static String raiz(String palabra) {
+        int n = palabra.length();
+        if (n < 5) {
+            return palabra;
+        }
+        char ultima = palabra.charAt(n - 1);
+        if (ultima == 'o' || ultima == 'a' || ultima == 'e') {
+            return palabra.substring(0, n - 1);
+        }
+        if (ultima == 's') {
+            char penultima = palabra.charAt(n - 2);
+            // "meses" → "mes"
+            if (penultima == 'e' && palabra.charAt(n - 3) == 's' && palabra.charAt(n - 4) == 'e') {
+                return palabra.substring(0, n - 2);
+            }
+            // "nueces" → "nuez"; solo tras vocal, para que "dulces" siga el caso general y quede como "dulce"
+            if (penultima == 'e' && palabra.charAt(n - 3) == 'c' && esVocal(palabra.charAt(n - 4))) {
+                return palabra.substring(0, n - 3) + 'z';
+            }
+            if (penultima == 'o' || penultima == 'a' || penultima == 'e') {
+                return palabra.substring(0, n - 2);
+            }
+        }
+        return palabra;
+    }
+
+    private static boolean esVocal(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
@@ -8,19 +8,28 @@ import co.edu.uniquindio.oldbaker.model.VerificationCode;
 import co.edu.uniquindio.oldbaker.repositories.BlackTokenRepository;
 import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
 import co.edu.uniquindio.oldbaker.repositories.VerificationCodeRepository;
-import jakarta.mail.MessagingException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Collections;
@@ -45,6 +54,14 @@ public class AuthService {
     private final BlackTokenRepository blackTokenRepository;
     private final MailService mailService;
     private final VerificationCodeRepository verificationCodeRepository;
+    private final UltimaSesionBuffer ultimaSesionBuffer;
+    private final PlatformTransactionManager transactionManager;
+
+    private static final int MAX_INTENTOS_CODIGO = 10;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${verification.code.secret:${jwt.secret}}")
+    private String codeSecret;
 
 
     /**
@@ -61,16 +78,6 @@ public class AuthService {
             throw new IllegalArgumentException("El email ya está registrado");
         }
 
-        String codigo;
-
-        // Enviar código de verificación
-        try {
-            codigo = generarCodigoToken();
-            enviarCodigo(request.getEmail(), codigo);
-        } catch (MessagingException e) {
-            throw new RuntimeException(e);
-        }
-
         var usuario = Usuario.builder()
                 .nombre(request.getNombre())
                 .email(request.getEmail())
@@ -83,13 +90,9 @@ public class AuthService {
 
         usuarioRepository.save(usuario);
 
-        var verificationCode = VerificationCode.builder()
-                .userId(usuario.getId())
-                .code(codigo)
-                .expirationDate(LocalDateTime.now(ZoneId.systemDefault()).plusMinutes(10))
-                .build();
-
-        verificationCodeRepository.save(verificationCode);
+        // Enviar código de verificación
+        String codigo = emitirCodigo(usuario.getId(), VerificationCode.Proposito.REGISTRO);
+        enviarCodigo(request.getEmail(), codigo);
 
         log.info("Usuario registrado exitosamente: {}", usuario.getEmail());
 
@@ -99,16 +102,16 @@ public class AuthService {
 
     /**
      * Envía un código de verificación al email proporcionado.
+     * El correo se encola en el outbox dentro de la transacción actual y se envía después del commit.
      *
      * @param email  El email del usuario.
      * @param codigo El código de verificación a enviar.
-     * @throws MessagingException Si ocurre un error al enviar el email.
      */
     private void enviarCodigo(
             @Email(message = "El formato del email no es válido")
             @NotBlank(message = "El email es obligatorio")
             String email,
-            String codigo) throws MessagingException {
+            String codigo) {
 
         String subject = "Verificación de correo electrónico";
 
@@ -116,13 +119,9 @@ public class AuthService {
         variables.put("codigo", codigo);
         //String body = "Tu código de verificación es: " + codigo;
 
-        try{
-            mailService.sendEmail(email, subject, variables);
-        }catch (MessagingException e) {
-            throw new RuntimeException(e);
-        }
+        mailService.encolarEmail(email, subject, variables);
 
-        log.info("Enviando codigo a {}: {}", email, codigo);
+        log.info("Encolando codigo para {}", email);
     }
 
 
@@ -132,10 +131,83 @@ public class AuthService {
      * @return El código de verificación generado.
      */
     private String generarCodigoToken() {
-        int codigo = (int) (Math.random() * 900000) + 100000;
+        int codigo = random.nextInt(900000) + 100000;
         return String.valueOf(codigo);
     }
 
+    /**
+     * Genera un código que no esté en uso para el propósito indicado y lo guarda para el usuario.
+     * El hash está indexado de forma única por propósito: la comprobación previa es una búsqueda por índice y,
+     * si otra petición guarda el mismo hash entre la comprobación y la inserción, el índice rechaza la fila y se
+     * reintenta con otro código. Cada intento se guarda en su propia transacción para que el rechazo no deje
+     * marcada para rollback la transacción de quien llama. Si esa transacción se revierte después, el código queda
+     * sin usar hasta que VerificationCodeCleanupService lo borra al expirar.
+     *
+     * @param userId    El ID del usuario.
+     * @param proposito El propósito del código.
+     * @return El código de verificación en claro, para enviarlo.
+     */
+    private String emitirCodigo(Long userId, VerificationCode.Proposito proposito) {
+        TransactionTemplate propia = new TransactionTemplate(transactionManager);
+        propia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int intento = 0; intento < MAX_INTENTOS_CODIGO; intento++) {
+            String codigo = generarCodigoToken();
+            String hash = hashCodigo(proposito, codigo);
+            if (verificationCodeRepository.existsByPurposeAndCodeHash(proposito, hash)) {
+                continue;
+            }
+            try {
+                propia.executeWithoutResult(status -> guardarCodigo(userId, proposito, hash));
+                return codigo;
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Código de verificación repetido para {}, se genera otro", proposito);
+            }
+        }
+        throw new IllegalStateException("No fue posible generar un código de verificación único");
+    }
+
+    /**
+     * Calcula el hash HMAC-SHA256 (hex) de un código para el propósito indicado.
+     *
+     * @param proposito El propósito del código.
+     * @param codigo    El código en claro.
+     * @return El hash del código.
+     */
+    private String hashCodigo(VerificationCode.Proposito proposito, String codigo) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(codeSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] hash = mac.doFinal((proposito.name() + ":" + codigo).getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No fue posible calcular el hash del código", e);
+        }
+    }
+
+    /**
+     * Crea o reemplaza el código vigente de un usuario para un propósito.
+     *
+     * @param userId     El ID del usuario.
+     * @param proposito  El propósito del código.
+     * @param hashCodigo El hash del código.
+     */
+    private void guardarCodigo(Long userId, VerificationCode.Proposito proposito, String hashCodigo) {
+        var expiracion = LocalDateTime.now(ZoneId.systemDefault()).plusMinutes(10);
+        var verificationCode = verificationCodeRepository.findByUserIdAndPurpose(userId, proposito)
+                .orElseGet(() -> VerificationCode.builder()
+                        .userId(userId)
+                        .purpose(proposito)
+                        .build());
+        verificationCode.setCodeHash(hashCodigo);
+        verificationCode.setExpirationDate(expiracion);
+        // El flush hace que una colisión en el índice único salga aquí y no al confirmar
+        verificationCodeRepository.saveAndFlush(verificationCode);
+    }
+
     /**
      * Autentica a un usuario y genera tokens JWT.
      *
@@ -168,6 +240,7 @@ public class AuthService {
         var jwtToken = jwtService.generateToken(usuario);
         var refreshToken = jwtService.generateRefreshToken(usuario);
 
+        ultimaSesionBuffer.registrar(usuario.getId());
         log.info("Usuario autenticado exitosamente: {}", usuario.getEmail());
 
         return AuthResponse.builder()
@@ -198,6 +271,7 @@ public class AuthService {
         Usuario usuario;
         if (usuarioExistente.isPresent()) {
             usuario = usuarioExistente.get();
+            ultimaSesionBuffer.registrar(usuario.getId());
             log.info("Usuario OAuth2 procesado exitosamente: {}", usuario.getEmail());
 
             var jwtToken = jwtService.generateToken(usuario);
@@ -219,6 +293,7 @@ public class AuthService {
                     .verificado(true)
                     .tipoAutenticacion(Usuario.TipoAutenticacion.GOOGLE)
                     .activo(true)
+                    .fechaUltimaSesion(LocalDateTime.now(ZoneId.systemDefault()))
                     .build();
             usuarioRepository.save(usuario);
 
@@ -277,7 +352,8 @@ public class AuthService {
 
         blackTokenRepository.save(blackToken);
 
-        usuarioRepository.updateUserLastSesionDate(user.get(), LocalDateTime.now(ZoneId.systemDefault()));
+        // La escritura en usuarios se difiere y se agrupa con las demás en UltimaSesionBuffer
+        ultimaSesionBuffer.registrar(user.get().getId());
 
         return "Cierre de sesión exitoso";
     }
@@ -296,10 +372,10 @@ public class AuthService {
                 .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
 
-        var codigo = verificationCodeRepository.findByUserId(request.getIdUsuario())
+        var codigo = verificationCodeRepository.findByUserIdAndPurpose(request.getIdUsuario(), VerificationCode.Proposito.REGISTRO)
                 .orElseThrow(() -> new IllegalArgumentException("Código de verificación inválido"));
 
-        if (!codigo.getCode().equals(request.getCodigo())) {
+        if (!codigo.getCodeHash().equals(hashCodigo(VerificationCode.Proposito.REGISTRO, request.getCodigo()))) {
             throw new IllegalArgumentException("Código de verificación inválido");
         }
 
@@ -335,29 +411,8 @@ public class AuthService {
             throw new IllegalArgumentException("El usuario ya está verificado");
         }
 
-        String codigo;
-
-        try {
-            codigo = generarCodigoToken();
-            enviarCodigo(email, codigo);
-        } catch (MessagingException e) {
-            throw new RuntimeException(e);
-        }
-
-        var existingCode = verificationCodeRepository.findByUserId(usuario.getId());
-        if (existingCode.isPresent()) {
-            var verificationCode = existingCode.get();
-            verificationCode.setCode(codigo);
-            verificationCode.setExpirationDate(LocalDateTime.now(ZoneId.systemDefault()).plusMinutes(10));
-            verificationCodeRepository.save(verificationCode);
-        } else {
-            var verificationCode = VerificationCode.builder()
-                    .userId(usuario.getId())
-                    .code(codigo)
-                    .expirationDate(LocalDateTime.now(ZoneId.systemDefault()).plusMinutes(10))
-                    .build();
-            verificationCodeRepository.save(verificationCode);
-        }
+        String codigo = emitirCodigo(usuario.getId(), VerificationCode.Proposito.REGISTRO);
+        enviarCodigo(email, codigo);
 
         log.info("Código de verificación reenviado exitosamente a: {}", email);
 
@@ -403,28 +458,8 @@ public class AuthService {
             throw new IllegalArgumentException("El usuario no está verificado");
         }
 
-        String codigo;
-        try {
-            codigo = generarCodigoToken();
-            enviarCodigo(email, codigo);
-        } catch (MessagingException e) {
-            throw new RuntimeException(e);
-        }
-
-        var existingCode = verificationCodeRepository.findByUserId(usuario.getId());
-        if (existingCode.isPresent()) {
-            var verificationCode = existingCode.get();
-            verificationCode.setCode(codigo);
-            verificationCode.setExpirationDate(LocalDateTime.now(ZoneId.systemDefault()).plusMinutes(10));
-            verificationCodeRepository.save(verificationCode);
-        } else {
-            var verificationCode = VerificationCode.builder()
-                    .userId(usuario.getId())
-                    .code(codigo)
-                    .expirationDate(LocalDateTime.now(ZoneId.systemDefault()).plusMinutes(10))
-                    .build();
-            verificationCodeRepository.save(verificationCode);
-        }
+        String codigo = emitirCodigo(usuario.getId(), VerificationCode.Proposito.RECUPERACION_PASSWORD);
+        enviarCodigo(email, codigo);
 
         log.info("Código de recuperación enviado a: {}", email);
     }
@@ -439,13 +474,9 @@ public class AuthService {
     @Transactional
     public String verifyResetCode(String codeTrim) {
         var code = codeTrim == null ? "" : codeTrim.trim();
-        var verificationCode = verificationCodeRepository.findByUserId(
-                        verificationCodeRepository.findAll().stream()
-                                .filter(vc -> vc.getCode().equals(code))
-                                .map(VerificationCode::getUserId)
-                                .findFirst()
-                                .orElseThrow(() -> new IllegalArgumentException("Código de verificación inválido"))
-                )
+        var verificationCode = verificationCodeRepository.findByPurposeAndCodeHash(
+                        VerificationCode.Proposito.RECUPERACION_PASSWORD,
+                        hashCodigo(VerificationCode.Proposito.RECUPERACION_PASSWORD, code))
                 .orElseThrow(() -> new IllegalArgumentException("Código de verificación inválido"));
 
         if (verificationCode.getExpirationDate().isBefore(LocalDateTime.now(ZoneId.systemDefault()))) {
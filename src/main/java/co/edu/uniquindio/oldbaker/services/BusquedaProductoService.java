@@ -0,0 +1,116 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.dto.ResultadoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Búsqueda de texto y autocompletado de productos sobre un índice invertido en memoria.
+ *
+ * Las consultas leen el índice vigente desde una referencia atómica y nunca se bloquean.
+ * Los cambios de productos se acumulan y se aplican por lotes: solo se vuelven a leer y analizar
+ * los productos modificados, el índice nuevo rehace solo las listas de sus términos y comparte el resto con el
+ * anterior, y se publica con un intercambio atómico (copy-on-write).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BusquedaProductoService {
+
+    public static final int LIMITE_MAXIMO = 50;
+
+    private final ProductoRepository productoRepository;
+
+    private final AtomicReference<IndiceBusquedaProductos> indice = new AtomicReference<>(IndiceBusquedaProductos.vacio());
+    // IDs modificados con la secuencia del último evento: permite quitar solo los que no cambiaron durante la lectura
+    private final Map<Long, Long> pendientes = new ConcurrentHashMap<>();
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public List<ResultadoBusquedaDTO> buscar(String consulta, int limite) {
+        return indice.get().buscar(consulta, acotar(limite));
+    }
+
+    public List<ResultadoBusquedaDTO> autocompletar(String consulta, int limite) {
+        return indice.get().autocompletar(consulta, acotar(limite));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        reconstruir();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        pendientes.put(event.getIdProducto(), secuencia.incrementAndGet());
+    }
+
+    /**
+     * Aplica los cambios pendientes leyendo solo los productos afectados.
+     * Los IDs se quitan de pendientes solo después de leerlos: si la lectura falla se reintentan en la próxima
+     * ejecución, y un ID que recibió otro evento durante la lectura se conserva para volver a leerlo.
+     *
+     * @return El número de productos reindexados.
+     */
+    @Scheduled(fixedDelayString = "${busqueda.indice.aplicar-cambios-ms:1000}")
+    public synchronized int aplicarCambios() {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Long> lote = new HashMap<>(pendientes);
+        List<Long> ids = new ArrayList<>(lote.keySet());
+
+        Map<Long, ProductoBusquedaDTO> actuales = new HashMap<>();
+        for (ProductoBusquedaDTO producto : productoRepository.findParaBusquedaByIds(ids)) {
+            actuales.put(producto.getIdProducto(), producto);
+        }
+        lote.forEach(pendientes::remove);
+        List<IndiceBusquedaProductos.Documento> actualizados = new ArrayList<>(actuales.size());
+        List<Long> eliminados = new ArrayList<>();
+        for (Long id : ids) {
+            ProductoBusquedaDTO producto = actuales.get(id);
+            if (producto == null) {
+                eliminados.add(id);
+            } else {
+                actualizados.add(IndiceBusquedaProductos.Documento.analizar(producto));
+            }
+        }
+        indice.set(indice.get().conCambios(actualizados, eliminados));
+        return ids.size();
+    }
+
+    /**
+     * Reconstruye el índice completo desde la base de datos; corrige cambios hechos fuera de la aplicación.
+     */
+    @Scheduled(cron = "${busqueda.indice.reconstruccion-cron:0 0 * * * *}")
+    public synchronized void reconstruir() {
+        long inicio = System.nanoTime();
+        pendientes.clear();
+        List<IndiceBusquedaProductos.Documento> documentos = new ArrayList<>();
+        for (ProductoBusquedaDTO producto : productoRepository.findParaBusqueda()) {
+            documentos.add(IndiceBusquedaProductos.Documento.analizar(producto));
+        }
+        // También compacta las posiciones que dejaron los productos eliminados
+        indice.set(IndiceBusquedaProductos.construir(documentos));
+        log.info("Índice de búsqueda reconstruido: {} productos en {} ms",
+                documentos.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private static int acotar(int limite) {
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+}
@@ -0,0 +1,246 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.events.CambioRemotoEvent;
+import co.edu.uniquindio.oldbaker.events.PreparacionModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.ImagenesProducto;
+import co.edu.uniquindio.oldbaker.model.InsumoProveedor;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.CambioEntidadRepository;
+import co.edu.uniquindio.oldbaker.repositories.ImagenesProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Bus de invalidación entre nodos sin broker externo.
+ *
+ * Las escrituras de productos, insumos, usuarios, pedidos a proveedor e insumos de proveedor agregan una fila (entidad, id, versión)
+ * a cambios_entidad dentro de su propia transacción. Cada nodo recorre la tabla con un cursor sobre la clave
+ * primaria (una consulta indexada por sondeo), ignora sus propias filas y vuelve a publicar los cambios de los
+ * demás nodos como eventos locales, de modo que las cachés en memoria se invalidan igual que tras una escritura local.
+ *
+ * Los ids se asignan antes del commit, así que una transacción lenta puede confirmar un id menor que el cursor;
+ * esos huecos se vuelven a consultar hasta que aparecen o vence la espera (transacción revertida).
+ *
+ * Al arrancar, el cursor se posiciona justo antes del primer cambio registrado desde el arranque menos la espera
+ * de huecos: las cachés del nodo nacen vacías, así que basta con reaplicar lo que pudo escribirse mientras se
+ * cargaban, sin depender de cuándo ocurre el primer sondeo.
+ */
+@Service
+@Slf4j
+public class CambiosEntidadService {
+
+    // Un salto mayor en la secuencia no se rastrea como huecos individuales
+    private static final int MAX_HUECOS_POR_SALTO = 1000;
+
+    private final CambioEntidadRepository cambioEntidadRepository;
+    private final RecetaRepository recetaRepository;
+    private final ImagenesProductoRepository imagenesProductoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String nodo;
+    private final int tamanoLote;
+    private final long esperaHuecosMs;
+    private final int retencionHoras;
+    private final Timer propagacion;
+    private final LocalDateTime arranque = LocalDateTime.now(ZoneId.systemDefault());
+
+    // Último id leído; -1 hasta el primer sondeo, que lo posiciona según el instante de arranque
+    private long cursor = -1;
+    // Ids saltados pendientes de confirmar, con el instante en que se dejan de esperar
+    private final Map<Long, Long> huecos = new HashMap<>();
+
+    public CambiosEntidadService(CambioEntidadRepository cambioEntidadRepository,
+                                 RecetaRepository recetaRepository,
+                                 ImagenesProductoRepository imagenesProductoRepository,
+                                 ApplicationEventPublisher eventPublisher,
+                                 EntityManagerFactory entityManagerFactory,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${cambios.nodo:}") String nodo,
+                                 @Value("${cambios.tamano-lote:500}") int tamanoLote,
+                                 @Value("${cambios.espera-huecos-ms:10000}") long esperaHuecosMs,
+                                 @Value("${cambios.retencion-horas:24}") int retencionHoras) {
+        this.cambioEntidadRepository = cambioEntidadRepository;
+        this.recetaRepository = recetaRepository;
+        this.imagenesProductoRepository = imagenesProductoRepository;
+        this.eventPublisher = eventPublisher;
+        this.entityManagerFactory = entityManagerFactory;
+        this.nodo = nodo == null || nodo.isBlank() ? UUID.randomUUID().toString() : nodo;
+        this.tamanoLote = tamanoLote;
+        this.esperaHuecosMs = esperaHuecosMs;
+        this.retencionHoras = retencionHoras;
+        this.propagacion = Timer.builder("oldbaker.cambios.propagacion")
+                .description("Tiempo entre la escritura en otro nodo y su invalidación en este")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra la modificación de una entidad. Debe llamarse dentro de la transacción de la escritura.
+     *
+     * @param entidad   Tipo de entidad modificada.
+     * @param idEntidad ID de la entidad.
+     */
+    public void registrar(CambioEntidad.TipoEntidad entidad, Long idEntidad) {
+        registrar(entidad, Collections.singleton(idEntidad));
+    }
+
+    /**
+     * Registra la modificación de varias entidades del mismo tipo.
+     *
+     * @param entidad     Tipo de entidad modificada.
+     * @param idsEntidad  IDs de las entidades.
+     */
+    public void registrar(CambioEntidad.TipoEntidad entidad, Collection<Long> idsEntidad) {
+        long version = System.currentTimeMillis();
+        List<CambioEntidad> cambios = idsEntidad.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(id -> CambioEntidad.builder()
+                        .entidad(entidad)
+                        .idEntidad(id)
+                        .version(version)
+                        .nodo(nodo)
+                        .build())
+                .toList();
+        if (!cambios.isEmpty()) {
+            cambioEntidadRepository.saveAll(cambios);
+        }
+    }
+
+    /**
+     * Lee los cambios confirmados desde el último sondeo y aplica los de otros nodos.
+     *
+     * @return El número de cambios remotos aplicados.
+     */
+    @Scheduled(fixedDelayString = "${cambios.sondeo-ms:500}")
+    public synchronized int sondear() {
+        if (cursor < 0) {
+            cursor = posicionInicial();
+        }
+
+        long ahora = System.currentTimeMillis();
+        List<CambioEntidad> leidos = new ArrayList<>();
+        if (!huecos.isEmpty()) {
+            for (CambioEntidad cambio : cambioEntidadRepository.findByIdIn(new ArrayList<>(huecos.keySet()))) {
+                huecos.remove(cambio.getId());
+                leidos.add(cambio);
+            }
+            huecos.values().removeIf(limite -> limite < ahora);
+        }
+
+        for (CambioEntidad cambio : cambioEntidadRepository.findSiguientes(cursor, PageRequest.of(0, tamanoLote))) {
+            long salto = cambio.getId() - cursor - 1;
+            if (salto > 0 && salto <= MAX_HUECOS_POR_SALTO) {
+                for (long id = cursor + 1; id < cambio.getId(); id++) {
+                    huecos.put(id, ahora + esperaHuecosMs);
+                }
+            }
+            cursor = cambio.getId();
+            leidos.add(cambio);
+        }
+        return aplicar(leidos, ahora);
+    }
+
+    // Justo antes del primer cambio desde el arranque (con el margen de huecos), o el final de la tabla si no hay
+    private long posicionInicial() {
+        Long primero = cambioEntidadRepository.findPrimerIdDesde(arranque.minus(Duration.ofMillis(esperaHuecosMs)));
+        return primero != null ? primero - 1 : cambioEntidadRepository.findUltimoId();
+    }
+
+    /**
+     * Elimina los cambios más antiguos que la retención; para entonces todos los nodos ya los leyeron.
+     *
+     * @return El número de filas eliminadas.
+     */
+    @Scheduled(fixedDelayString = "${cambios.purga-ms:3600000}", initialDelayString = "${cambios.purga-ms:3600000}")
+    public int purgar() {
+        LocalDateTime limite = LocalDateTime.now(ZoneId.systemDefault()).minusHours(retencionHoras);
+        int total = 0;
+        int eliminados;
+        do {
+            eliminados = cambioEntidadRepository.eliminarLoteAnteriorA(limite, tamanoLote);
+            total += eliminados;
+        } while (eliminados == tamanoLote);
+
+        if (total > 0) {
+            log.info("Cambios de entidad purgados: {}", total);
+        }
+        return total;
+    }
+
+    private int aplicar(List<CambioEntidad> cambios, long ahora) {
+        Map<CambioEntidad.TipoEntidad, Set<Long>> remotos = new EnumMap<>(CambioEntidad.TipoEntidad.class);
+        for (CambioEntidad cambio : cambios) {
+            if (nodo.equals(cambio.getNodo())) {
+                continue;
+            }
+            remotos.computeIfAbsent(cambio.getEntidad(), k -> new HashSet<>()).add(cambio.getIdEntidad());
+            propagacion.record(Math.max(0, ahora - cambio.getVersion()), TimeUnit.MILLISECONDS);
+        }
+        if (remotos.isEmpty()) {
+            return 0;
+        }
+
+        int aplicados = 0;
+        for (Map.Entry<CambioEntidad.TipoEntidad, Set<Long>> entrada : remotos.entrySet()) {
+            Set<Long> ids = entrada.getValue();
+            try {
+                switch (entrada.getKey()) {
+                    case PREPARACION -> eventPublisher.publishEvent(new PreparacionModificadaEvent(ids));
+                    case PRODUCTO -> invalidarProductos(ids);
+                    case INSUMO -> eventPublisher.publishEvent(new StockInsumoModificadoEvent(ids));
+                    case INSUMO_PROVEEDOR -> invalidarInsumosProveedor(ids);
+                    default -> { }
+                }
+                eventPublisher.publishEvent(new CambioRemotoEvent(entrada.getKey(), ids));
+                aplicados += ids.size();
+            } catch (RuntimeException e) {
+                // Las reconciliaciones periódicas de cada caché corrigen lo que no se pudo invalidar aquí
+                log.warn("No se pudieron aplicar {} cambios remotos de {}: {}", ids.size(), entrada.getKey(), e.getMessage());
+            }
+        }
+        log.debug("Cambios remotos aplicados: {}", remotos);
+        return aplicados;
+    }
+
+    private void invalidarProductos(Set<Long> ids) {
+        // Caché de segundo nivel: el producto y las recetas e imágenes que hoy le pertenecen. Una fila borrada en
+        // otro nodo sigue en su región hasta el TTL, pero ninguna consulta la alcanza: la de recetas se descarta
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        ids.forEach(id -> cache.evictEntityData(Producto.class, id));
+        recetaRepository.findIdsByProductos(ids).forEach(id -> cache.evictEntityData(Receta.class, id));
+        imagenesProductoRepository.findIdsByIdProductoIn(ids).forEach(id -> cache.evictEntityData(ImagenesProducto.class, id));
+        cache.evictQueryRegion("oldbaker.receta-por-producto");
+
+        // Los oyentes locales no conocen la categoría ni el tipo de cambio remoto: tratan el producto como actualizado
+        for (Long id : ids) {
+            eventPublisher.publishEvent(new ProductoModificadoEvent(id, null, ProductoModificadoEvent.Tipo.ACTUALIZADO));
+        }
+    }
+
+    // Solo viven en la caché de segundo nivel; un borrado remoto también se descarta aquí en lugar de esperar al TTL
+    private void invalidarInsumosProveedor(Set<Long> ids) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        ids.forEach(id -> cache.evictEntityData(InsumoProveedor.class, id));
+    }
+}
@@ -0,0 +1,156 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.cart.CarritoInactivoDTO;
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import co.edu.uniquindio.oldbaker.repositories.CartRepository;
+import co.edu.uniquindio.oldbaker.repositories.CheckpointProcesoRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+
+/**
+ * Barrido periódico de carritos abandonados: carritos con items que no cambian desde hace más del umbral
+ * y cuyo usuario no ha creado una orden de compra desde entonces.
+ *
+ * Recorre la tabla carts por el índice (fecha_actualizacion, id) en lotes de tamaño fijo; cada lote se procesa
+ * en su propia transacción que encola los recordatorios en el outbox de correos, marca los carritos y avanza
+ * el checkpoint. La memoria no depende del tamaño de la tabla y un reinicio continúa desde el último lote confirmado.
+ *
+ * El cursor solo avanza: un carrito ya evaluado vuelve a entrar al barrido cuando cambia, porque su
+ * fecha_actualizacion pasa a quedar delante del cursor.
+ */
+@Service
+@Slf4j
+public class CarritosAbandonadosService {
+
+    static final String CHECKPOINT = "carritos-abandonados";
+    static final String PLANTILLA = "carrito-abandonado";
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final CartRepository cartRepository;
+    private final CheckpointProcesoRepository checkpointRepository;
+    private final MailService mailService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Duration umbral;
+    private final int tamanoLote;
+    private final String urlCarrito;
+
+    private final Counter recordatorios;
+
+    public CarritosAbandonadosService(CartRepository cartRepository,
+                                      CheckpointProcesoRepository checkpointRepository,
+                                      MailService mailService,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${cart.abandonado.umbral-horas:24}") long umbralHoras,
+                                      @Value("${cart.abandonado.tamano-lote:200}") int tamanoLote,
+                                      @Value("${cart.abandonado.url-carrito:https://www.oldbaker.shop/cart}") String urlCarrito) {
+        this.cartRepository = cartRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.mailService = mailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.umbral = Duration.ofHours(umbralHoras);
+        this.tamanoLote = tamanoLote;
+        this.urlCarrito = urlCarrito;
+        this.recordatorios = Counter.builder("oldbaker.carritos_abandonados.recordatorios")
+                .description("Recordatorios de carrito abandonado encolados")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Recorre los carritos inactivos desde el checkpoint hasta el umbral actual.
+     *
+     * @return El número de recordatorios encolados en esta ejecución.
+     */
+    @Scheduled(fixedDelayString = "${cart.abandonado.barrido-ms:900000}")
+    public int barrer() {
+        // Carritos anteriores a la columna: toman la fecha actual y entran al barrido cuando superen el umbral
+        LocalDateTime ahora = LocalDateTime.now();
+        int completados;
+        do {
+            completados = cartRepository.completarFechaActualizacion(ahora, tamanoLote);
+        } while (completados == tamanoLote);
+
+        LocalDateTime limite = ahora.minus(umbral);
+        int total = 0;
+        int[] resultado;
+        do {
+            resultado = transactionTemplate.execute(status -> procesarLote(limite));
+            if (resultado == null) {
+                break;
+            }
+            total += resultado[1];
+        } while (resultado[0] == tamanoLote);
+
+        if (total > 0) {
+            log.info("Recordatorios de carrito abandonado encolados: {}", total);
+        }
+        return total;
+    }
+
+    /**
+     * Procesa un lote dentro de la transacción actual.
+     *
+     * @return Filas leídas y recordatorios encolados.
+     */
+    int[] procesarLote(LocalDateTime limite) {
+        CheckpointProceso checkpoint = checkpointRepository.findParaActualizar(CHECKPOINT)
+                .orElseGet(() -> checkpointRepository.save(CheckpointProceso.builder()
+                        .nombre(CHECKPOINT)
+                        .ultimaFecha(INICIO)
+                        .ultimoId(0L)
+                        .build()));
+
+        List<CarritoInactivoDTO> lote = cartRepository.findInactivosDesde(limite,
+                checkpoint.getUltimaFecha(), checkpoint.getUltimoId(), PageRequest.of(0, tamanoLote));
+        if (lote.isEmpty()) {
+            return new int[]{0, 0};
+        }
+
+        List<Long> recordados = new ArrayList<>();
+        for (CarritoInactivoDTO carrito : lote) {
+            if (debeRecordarse(carrito)) {
+                encolarRecordatorio(carrito);
+                recordados.add(carrito.getIdCart());
+            }
+        }
+        if (!recordados.isEmpty()) {
+            cartRepository.marcarRecordados(recordados, LocalDateTime.now());
+            recordatorios.increment(recordados.size());
+        }
+
+        CarritoInactivoDTO ultimo = lote.get(lote.size() - 1);
+        checkpoint.setUltimaFecha(ultimo.getFechaActualizacion());
+        checkpoint.setUltimoId(ultimo.getIdCart());
+        return new int[]{lote.size(), recordados.size()};
+    }
+
+    private boolean debeRecordarse(CarritoInactivoDTO carrito) {
+        return carrito.getCantidadItems() > 0
+                && carrito.getOrdenesPosteriores() == 0
+                && carrito.getEmail() != null
+                && (carrito.getFechaRecordatorio() == null
+                    || carrito.getFechaRecordatorio().isBefore(carrito.getFechaActualizacion()));
+    }
+
+    private void encolarRecordatorio(CarritoInactivoDTO carrito) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("nombre", carrito.getNombre());
+        variables.put("cantidadItems", carrito.getCantidadItems());
+        variables.put("urlCarrito", urlCarrito);
+        mailService.encolarEmail(carrito.getEmail(), "Tu carrito te está esperando", PLANTILLA,
+                Locale.getDefault(), variables);
+    }
+}
@@ -0,0 +1,152 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.cart.CartQuoteDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartQuoteLineaDTO;
+import co.edu.uniquindio.oldbaker.dto.payment.CheckoutItemDTO;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.Cart;
+import co.edu.uniquindio.oldbaker.model.CartItem;
+import co.edu.uniquindio.oldbaker.repositories.CartRepository;
+import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Cotización del carrito antes del checkout: subtotales con el precio vigente, total de lo seleccionado
+ * y unidades preparables por línea con la misma lógica de reserva de StockValidationService.
+ *
+ * Una cotización se calcula con un número fijo de consultas (carrito con productos, recetas, stock) y se guarda
+ * por usuario junto con la revisión del carrito y la versión del stock con que se calculó. Mientras ninguna
+ * cambie, una recarga de la página solo consulta la revisión del carrito.
+ */
+@Service
+@Slf4j
+public class CartQuoteService {
+
+    private record Entrada(long revision, long versionStock, Instant fecha, CartQuoteDTO cotizacion) {
+    }
+
+    private final CartRepository cartRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final StockValidationService stockValidationService;
+    private final Duration ttl;
+
+    // Cambia con cualquier modificación de stock, recetas o precios (locales o de otros nodos)
+    private final AtomicLong versionStock = new AtomicLong();
+    private final Map<Long, Entrada> cache;
+
+    public CartQuoteService(CartRepository cartRepository,
+                            UsuarioRepository usuarioRepository,
+                            StockValidationService stockValidationService,
+                            @Value("${cart.quote.ttl-seconds:60}") long ttlSeconds,
+                            @Value("${cart.quote.cache-max:10000}") int maximoEntradas) {
+        this.cartRepository = cartRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.stockValidationService = stockValidationService;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        // LRU acotado: se descarta el carrito cotizado hace más tiempo
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                return size() > maximoEntradas;
+            }
+        });
+    }
+
+    /**
+     * Cotiza el carrito del usuario.
+     *
+     * @param idUsuario ID del usuario.
+     * @return La cotización, o null si el usuario no existe.
+     */
+    @Transactional(readOnly = true)
+    public CartQuoteDTO cotizar(Long idUsuario) {
+        // Se lee antes de calcular: un cambio de stock durante el cálculo deja la entrada obsoleta
+        long version = versionStock.get();
+        Optional<Long> revision = cartRepository.findRevisionByUsuarioId(idUsuario);
+        if (revision.isEmpty()) {
+            return usuarioRepository.existsById(idUsuario) ? vacia() : null;
+        }
+
+        Entrada entrada = cache.get(idUsuario);
+        if (entrada != null && entrada.revision() == revision.get() && entrada.versionStock() == version
+                && entrada.fecha().plus(ttl).isAfter(Instant.now())) {
+            return entrada.cotizacion();
+        }
+
+        Optional<Cart> cart = cartRepository.findByUsuarioIdConProductos(idUsuario);
+        if (cart.isEmpty()) {
+            return vacia();
+        }
+        CartQuoteDTO cotizacion = calcular(cart.get());
+        long revisionCalculada = cart.get().getRevision() != null ? cart.get().getRevision() : 0L;
+        cache.put(idUsuario, new Entrada(revisionCalculada, version, Instant.now(), cotizacion));
+        return cotizacion;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockInsumoModificado(StockInsumoModificadoEvent event) {
+        versionStock.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        versionStock.incrementAndGet();
+    }
+
+    private CartQuoteDTO calcular(Cart cart) {
+        List<CartItem> items = cart.getItems();
+        // Las líneas no seleccionadas se consultan sin reservar insumos
+        List<CheckoutItemDTO> lineasStock = items.stream()
+                .map(item -> new CheckoutItemDTO(item.getProducto().getIdProducto(),
+                        Boolean.TRUE.equals(item.getSelected()) ? item.getCantidad() : 0))
+                .toList();
+        int[] maximos = stockValidationService.maximosPreparables(lineasStock);
+
+        List<CartQuoteLineaDTO> lineas = new ArrayList<>(items.size());
+        BigDecimal total = BigDecimal.ZERO;
+        boolean disponible = true;
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            Double costo = item.getProducto().getCostoUnitario();
+            BigDecimal precio = BigDecimal.valueOf(costo != null ? costo : 0.0);
+            BigDecimal subtotal = precio.multiply(BigDecimal.valueOf(item.getCantidad()));
+            boolean lineaDisponible = maximos[i] >= item.getCantidad();
+            if (Boolean.TRUE.equals(item.getSelected())) {
+                total = total.add(subtotal);
+                disponible &= lineaDisponible;
+            }
+            lineas.add(new CartQuoteLineaDTO(item.getProducto().getIdProducto(), item.getProducto().getNombre(),
+                    item.getCantidad(), item.getSelected(), precio, subtotal, maximos[i], lineaDisponible));
+        }
+
+        return CartQuoteDTO.builder()
+                .idCart(cart.getId())
+                .revision(cart.getRevision() != null ? cart.getRevision() : 0L)
+                .lineas(lineas)
+                .totalSeleccionado(total)
+                .disponible(disponible)
+                .build();
+    }
+
+    private CartQuoteDTO vacia() {
+        return CartQuoteDTO.builder()
+                .revision(0L)
+                .lineas(List.of())
+                .totalSeleccionado(BigDecimal.ZERO)
+                .disponible(true)
+                .build();
+    }
+}
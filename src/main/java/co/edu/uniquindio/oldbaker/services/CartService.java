@@ -2,6 +2,8 @@ package co.edu.uniquindio.oldbaker.services;
 
 import co.edu.uniquindio.oldbaker.dto.cart.CartDTO;
 import co.edu.uniquindio.oldbaker.dto.cart.CartItemDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartOperacionDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartPatchRequest;
 import co.edu.uniquindio.oldbaker.model.*;
 import co.edu.uniquindio.oldbaker.repositories.CartRepository;
 import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
@@ -11,9 +13,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Gestión del carrito persistido de un usuario.
+ *
+ * Las modificaciones cargan el carrito con sus items en una consulta, validan en otra los productos nuevos
+ * y cambian solo las filas afectadas: el dirty checking de Hibernate actualiza los items modificados,
+ * orphanRemoval borra los quitados y los productos nuevos se enlazan por referencia sin volver a leerlos.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -25,45 +35,251 @@ public class CartService {
 
     @Transactional(readOnly = true)
     public CartDTO obtenerCart(Long idUsuario) {
-        Usuario usuario = usuarioRepository.findById(idUsuario).orElse(null);
-        if (usuario == null) {
-            return null;
+        Optional<Cart> cart = cartRepository.findByUsuarioIdConItems(idUsuario);
+        if (cart.isPresent()) {
+            return toDTO(cart.get(), idUsuario);
         }
-        Cart cart = cartRepository.findByUsuario(usuario).orElse(null);
-        if (cart == null) {
-            return new CartDTO(null, usuario.getId(), List.of());
+        if (!usuarioRepository.existsById(idUsuario)) {
+            return null;
         }
-        return toDTO(cart);
+        return new CartDTO(null, idUsuario, List.of());
     }
 
+    /**
+     * Deja el carrito igual a la lista enviada, tocando solo los items que cambian.
+     * Si un producto aparece varias veces en la lista sus cantidades se suman.
+     */
     @Transactional
     public CartDTO actualizarCart(Long idUsuario, CartDTO cartDTO) {
-        Usuario usuario = usuarioRepository.findById(idUsuario).orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
-        Cart cart = cartRepository.findByUsuario(usuario).orElseGet(() -> Cart.builder().usuario(usuario).build());
-
-        // Reemplazar items
-        List<CartItem> nuevosItems = cartDTO.getItems().stream().map(itemDTO -> {
-            Producto producto = productoRepository.findById(itemDTO.getIdProducto())
-                    .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + itemDTO.getIdProducto()));
-            return CartItem.builder()
-                    .producto(producto)
-                    .cantidad(itemDTO.getCantidad())
-                    .selected(itemDTO.getSelected() != null ? itemDTO.getSelected() : Boolean.TRUE)
-                    .build();
-        }).collect(Collectors.toList());
-
-        cart.setItems(nuevosItems);
-        Cart saved = cartRepository.save(cart);
-        return toDTO(saved);
+        Cart cart = cargarOCrear(idUsuario);
+        List<CartItemDTO> antes = toDTO(cart, idUsuario).getItems();
+
+        Map<Long, CartItemDTO> deseados = new LinkedHashMap<>();
+        List<CartItemDTO> recibidos = cartDTO.getItems() != null ? cartDTO.getItems() : List.of();
+        for (CartItemDTO itemDTO : recibidos) {
+            validarProducto(itemDTO.getIdProducto());
+            validarCantidad(itemDTO.getCantidad());
+            boolean selected = itemDTO.getSelected() != null ? itemDTO.getSelected() : Boolean.TRUE;
+            deseados.merge(itemDTO.getIdProducto(),
+                    new CartItemDTO(itemDTO.getIdProducto(), itemDTO.getCantidad(), selected),
+                    (a, b) -> new CartItemDTO(a.getIdProducto(), a.getCantidad() + b.getCantidad(), b.getSelected()));
+        }
+
+        Map<Long, CartItem> actuales = indexar(cart);
+        validarExistencia(deseados.keySet().stream().filter(id -> !actuales.containsKey(id)).toList());
+
+        // Quitar los que ya no están; orphanRemoval borra solo esas filas
+        cart.getItems().removeIf(item -> !deseados.containsKey(item.getProducto().getIdProducto()));
+
+        for (CartItemDTO deseado : deseados.values()) {
+            CartItem item = actuales.get(deseado.getIdProducto());
+            if (item == null) {
+                cart.addItem(nuevoItem(deseado.getIdProducto(), deseado.getCantidad(), deseado.getSelected()));
+            } else {
+                actualizarItem(item, deseado.getCantidad(), deseado.getSelected());
+            }
+        }
+        return guardar(cart, idUsuario, antes);
+    }
+
+    /**
+     * Aplica operaciones puntuales (agregar, fijar cantidad, seleccionar, eliminar) sobre el carrito.
+     */
+    @Transactional
+    public CartDTO aplicarOperaciones(Long idUsuario, CartPatchRequest request) {
+        List<CartOperacionDTO> operaciones = request != null && request.getOperaciones() != null
+                ? request.getOperaciones() : List.of();
+        Cart cart = cargarOCrear(idUsuario);
+        List<CartItemDTO> antes = toDTO(cart, idUsuario).getItems();
+        Map<Long, CartItem> actuales = indexar(cart);
+
+        // Los productos que se agregan por primera vez se validan juntos antes de aplicar nada
+        Set<Long> nuevos = new LinkedHashSet<>();
+        for (CartOperacionDTO op : operaciones) {
+            if (op.getTipo() == null) {
+                throw new IllegalArgumentException("Tipo de operación requerido");
+            }
+            validarProducto(op.getIdProducto());
+            if (op.getTipo() == CartOperacionDTO.Tipo.AGREGAR && !actuales.containsKey(op.getIdProducto())) {
+                nuevos.add(op.getIdProducto());
+            }
+        }
+        validarExistencia(nuevos);
+
+        for (CartOperacionDTO op : operaciones) {
+            Long idProducto = op.getIdProducto();
+            CartItem item = actuales.get(idProducto);
+            switch (op.getTipo()) {
+                case AGREGAR -> {
+                    validarCantidad(op.getCantidad());
+                    if (item == null) {
+                        boolean selected = op.getSelected() != null ? op.getSelected() : Boolean.TRUE;
+                        CartItem nuevo = nuevoItem(idProducto, op.getCantidad(), selected);
+                        cart.addItem(nuevo);
+                        actuales.put(idProducto, nuevo);
+                    } else {
+                        actualizarItem(item, item.getCantidad() + op.getCantidad(),
+                                op.getSelected() != null ? op.getSelected() : item.getSelected());
+                    }
+                }
+                case FIJAR_CANTIDAD -> {
+                    if (op.getCantidad() == null || op.getCantidad() < 0) {
+                        throw new IllegalArgumentException("Cantidad inválida para el producto " + idProducto);
+                    }
+                    if (op.getCantidad() == 0) {
+                        quitar(cart, actuales, idProducto);
+                    } else {
+                        actualizarItem(requerirItem(item, idProducto), op.getCantidad(), null);
+                    }
+                }
+                case SELECCIONAR -> {
+                    if (op.getSelected() == null) {
+                        throw new IllegalArgumentException("Falta el valor de selección para el producto " + idProducto);
+                    }
+                    actualizarItem(requerirItem(item, idProducto), null, op.getSelected());
+                }
+                case ELIMINAR -> quitar(cart, actuales, idProducto);
+            }
+        }
+        return guardar(cart, idUsuario, antes);
+    }
+
+    /**
+     * Suma al carrito persistido los items de un carrito de invitado al iniciar sesión.
+     * Las cantidades se acumulan sobre las que ya tenía el usuario y la selección del invitado prevalece.
+     * Los productos eliminados mientras estaban en el carrito del invitado se descartan sin error.
+     *
+     * Se hace en una transacción: una consulta para el carrito, otra para validar los productos nuevos
+     * y un único flush con todos los cambios.
+     */
+    @Transactional
+    public CartDTO fusionarInvitado(Long idUsuario, List<CartItemDTO> itemsInvitado) {
+        Cart cart = cargarOCrear(idUsuario);
+        List<CartItemDTO> antes = toDTO(cart, idUsuario).getItems();
+        Map<Long, CartItem> actuales = indexar(cart);
+
+        List<Long> nuevos = itemsInvitado.stream()
+                .map(CartItemDTO::getIdProducto)
+                .filter(id -> id != null && !actuales.containsKey(id))
+                .distinct()
+                .toList();
+        Set<Long> existentes = nuevos.isEmpty()
+                ? Set.of() : new HashSet<>(productoRepository.findIdsExistentes(nuevos));
+
+        for (CartItemDTO invitado : itemsInvitado) {
+            Long idProducto = invitado.getIdProducto();
+            if (idProducto == null || invitado.getCantidad() == null || invitado.getCantidad() <= 0) {
+                continue;
+            }
+            CartItem item = actuales.get(idProducto);
+            if (item != null) {
+                actualizarItem(item, item.getCantidad() + invitado.getCantidad(), invitado.getSelected());
+            } else if (existentes.contains(idProducto)) {
+                boolean selected = invitado.getSelected() != null ? invitado.getSelected() : Boolean.TRUE;
+                CartItem nuevo = nuevoItem(idProducto, invitado.getCantidad(), selected);
+                cart.addItem(nuevo);
+                actuales.put(idProducto, nuevo);
+            } else {
+                log.info("Producto {} del carrito de invitado ya no existe; se descarta al fusionar", idProducto);
+            }
+        }
+        return guardar(cart, idUsuario, antes);
+    }
+
+    private Cart cargarOCrear(Long idUsuario) {
+        return cartRepository.findByUsuarioIdConItems(idUsuario).orElseGet(() -> {
+            if (!usuarioRepository.existsById(idUsuario)) {
+                throw new IllegalArgumentException("Usuario no encontrado");
+            }
+            return Cart.builder().usuario(usuarioRepository.getReferenceById(idUsuario)).build();
+        });
+    }
+
+    private CartDTO guardar(Cart cart, Long idUsuario, List<CartItemDTO> antes) {
+        CartDTO despues = toDTO(cart, idUsuario);
+        if (!despues.getItems().equals(antes)) {
+            cart.setRevision(cart.getRevision() != null ? cart.getRevision() + 1 : 1L);
+            cart.setFechaActualizacion(LocalDateTime.now());
+        }
+        // Un carrito existente es administrado: el flush del commit escribe solo lo que cambió
+        if (cart.getId() == null) {
+            despues.setId(cartRepository.save(cart).getId());
+        }
+        return despues;
     }
 
-    private CartDTO toDTO(Cart cart) {
+    private Map<Long, CartItem> indexar(Cart cart) {
+        Map<Long, CartItem> porProducto = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            porProducto.put(item.getProducto().getIdProducto(), item);
+        }
+        return porProducto;
+    }
+
+    private void validarExistencia(Collection<Long> idsProducto) {
+        if (idsProducto.isEmpty()) {
+            return;
+        }
+        Set<Long> existentes = new HashSet<>(productoRepository.findIdsExistentes(idsProducto));
+        for (Long id : idsProducto) {
+            if (!existentes.contains(id)) {
+                throw new IllegalArgumentException("Producto no encontrado: " + id);
+            }
+        }
+    }
+
+    private CartItem nuevoItem(Long idProducto, Integer cantidad, Boolean selected) {
+        return CartItem.builder()
+                .producto(productoRepository.getReferenceById(idProducto))
+                .cantidad(cantidad)
+                .selected(selected)
+                .build();
+    }
+
+    // Solo asigna los valores distintos para no ensuciar filas sin cambios
+    private void actualizarItem(CartItem item, Integer cantidad, Boolean selected) {
+        if (cantidad != null && !cantidad.equals(item.getCantidad())) {
+            item.setCantidad(cantidad);
+        }
+        if (selected != null && !selected.equals(item.getSelected())) {
+            item.setSelected(selected);
+        }
+    }
+
+    private void quitar(Cart cart, Map<Long, CartItem> actuales, Long idProducto) {
+        CartItem item = actuales.remove(idProducto);
+        if (item != null) {
+            // Por identidad: equals de Lombok recorre la relación con el carrito
+            cart.getItems().removeIf(i -> i == item);
+        }
+    }
+
+    private CartItem requerirItem(CartItem item, Long idProducto) {
+        if (item == null) {
+            throw new IllegalArgumentException("El producto " + idProducto + " no está en el carrito");
+        }
+        return item;
+    }
+
+    private void validarProducto(Long idProducto) {
+        if (idProducto == null) {
+            throw new IllegalArgumentException("Producto requerido");
+        }
+    }
+
+    private void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor que cero");
+        }
+    }
+
+    private CartDTO toDTO(Cart cart, Long idUsuario) {
+        // El id del producto se lee del proxy sin inicializarlo
         List<CartItemDTO> items = cart.getItems().stream().map(ci -> new CartItemDTO(
                 ci.getProducto().getIdProducto(),
                 ci.getCantidad(),
                 ci.getSelected()
         )).collect(Collectors.toList());
-        return new CartDTO(cart.getId(), cart.getUsuario().getId(), items);
+        return new CartDTO(cart.getId(), idUsuario, items);
     }
 }
-
@@ -0,0 +1,157 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.CatalogoPaginaResponse;
+import co.edu.uniquindio.oldbaker.dto.ProductoCatalogoDTO;
+import co.edu.uniquindio.oldbaker.model.ImagenesProducto;
+import co.edu.uniquindio.oldbaker.repositories.ImagenesProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+
+/**
+ * Navegación del catálogo de la tienda: filtros por categoría y rango de precio,
+ * orden por precio, nombre o más recientes, y paginación por keyset (cursor) que no degrada con el número de páginas.
+ */
+@Service
+@RequiredArgsConstructor
+public class CatalogoService {
+
+    public static final int LIMITE_POR_DEFECTO = 20;
+    public static final int LIMITE_MAXIMO = 50;
+
+    private final ProductoRepository productoRepository;
+    private final ImagenesProductoRepository imagenesProductoRepository;
+    private final FacetasCatalogoService facetasCatalogoService;
+    private final DisponibilidadProductoService disponibilidadProductoService;
+
+    public enum Orden {
+        PRECIO,
+        NOMBRE,
+        RECIENTES;
+
+        public static Orden desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return RECIENTES;
+            }
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Orden no soportado: " + valor + ". Use precio, nombre o recientes");
+            }
+        }
+    }
+
+    /**
+     * Obtiene una página del catálogo.
+     *
+     * @param idCategoria Categoría a filtrar, o null para todas.
+     * @param precioMin   Precio mínimo, o null.
+     * @param precioMax   Precio máximo, o null.
+     * @param orden       Criterio de orden.
+     * @param cursor      Cursor devuelto por la página anterior, o null para la primera.
+     * @param limite      Tamaño de página (se acota a LIMITE_MAXIMO).
+     * @return La página con el cursor siguiente y, en la primera página, las facetas por categoría.
+     */
+    public CatalogoPaginaResponse explorar(Long idCategoria, Double precioMin, Double precioMax,
+                                           Orden orden, String cursor, Integer limite) {
+        if (precioMin != null && precioMax != null && precioMin > precioMax) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo");
+        }
+        int tamano = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        Orden ordenEfectivo = orden != null ? orden : Orden.RECIENTES;
+        Cursor posicion = cursor == null || cursor.isBlank() ? null : Cursor.decodificar(cursor, ordenEfectivo);
+
+        // Se pide una fila extra para saber si hay una página siguiente sin hacer un COUNT
+        Pageable pagina = PageRequest.of(0, tamano + 1);
+        List<ProductoCatalogoDTO> filas = switch (ordenEfectivo) {
+            case PRECIO -> productoRepository.findCatalogoPorPrecio(idCategoria, precioMin, precioMax,
+                    posicion != null && posicion.valor() == null,
+                    posicion != null && posicion.valor() != null ? Double.valueOf(posicion.valor()) : -Double.MAX_VALUE,
+                    posicion != null ? posicion.id() : 0L, pagina);
+            case NOMBRE -> productoRepository.findCatalogoPorNombre(idCategoria, precioMin, precioMax,
+                    posicion != null && posicion.valor() == null,
+                    posicion != null && posicion.valor() != null ? posicion.valor() : "",
+                    posicion != null ? posicion.id() : 0L, pagina);
+            case RECIENTES -> productoRepository.findCatalogoRecientes(idCategoria, precioMin, precioMax,
+                    posicion != null ? posicion.id() : Long.MAX_VALUE, pagina);
+        };
+
+        boolean hayMas = filas.size() > tamano;
+        List<ProductoCatalogoDTO> productos = hayMas ? new ArrayList<>(filas.subList(0, tamano)) : filas;
+        agregarImagenes(productos);
+        productos.forEach(p -> p.setDisponible(disponibilidadProductoService.estaDisponible(p.getIdProducto())));
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            ProductoCatalogoDTO ultimo = productos.get(productos.size() - 1);
+            String valor = switch (ordenEfectivo) {
+                case PRECIO -> ultimo.getCostoUnitario() != null ? String.valueOf(ultimo.getCostoUnitario()) : null;
+                case NOMBRE -> ultimo.getNombre();
+                case RECIENTES -> "";
+            };
+            siguienteCursor = new Cursor(ordenEfectivo, ultimo.getIdProducto(), valor).codificar();
+        }
+
+        return CatalogoPaginaResponse.builder()
+                .productos(productos)
+                .siguienteCursor(siguienteCursor)
+                .hayMas(hayMas)
+                .facetas(posicion == null ? facetasCatalogoService.obtenerFacetas(precioMin, precioMax) : null)
+                .build();
+    }
+
+    // Una sola consulta IN para las imágenes de toda la página
+    private void agregarImagenes(List<ProductoCatalogoDTO> productos) {
+        if (productos.isEmpty()) {
+            return;
+        }
+        List<Long> ids = productos.stream().map(ProductoCatalogoDTO::getIdProducto).toList();
+        Map<Long, List<String>> imagenesPorProducto = new HashMap<>();
+        for (ImagenesProducto imagen : imagenesProductoRepository.findByIdProductoInOrderByIdAsc(ids)) {
+            imagenesPorProducto.computeIfAbsent(imagen.getIdProducto(), k -> new ArrayList<>()).add(imagen.getUrl());
+        }
+        productos.forEach(p -> p.setImagenes(imagenesPorProducto.getOrDefault(p.getIdProducto(), List.of())));
+    }
+
+    /**
+     * Posición de la última fila entregada. Se codifica en Base64 URL-safe como "ORDEN|id|V<valor>", o "ORDEN|id|N"
+     * si la fila no tenía valor de orden (precio o nombre nulo); el valor va al final porque un nombre puede
+     * contener el separador.
+     */
+    record Cursor(Orden orden, Long id, String valor) {
+
+        String codificar() {
+            String plano = orden.name() + "|" + id + "|" + (valor == null ? "N" : "V" + valor);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decodificar(String cursor, Orden ordenEsperado) {
+            Cursor resultado;
+            try {
+                String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] partes = plano.split("\\|", 3);
+                String valor = switch (partes[2].isEmpty() ? ' ' : partes[2].charAt(0)) {
+                    case 'N' -> null;
+                    case 'V' -> partes[2].substring(1);
+                    default -> throw new IllegalArgumentException("Cursor inválido");
+                };
+                resultado = new Cursor(Orden.valueOf(partes[0]), Long.valueOf(partes[1]), valor);
+                if (resultado.orden() == Orden.PRECIO && resultado.valor() != null) {
+                    Double.parseDouble(resultado.valor());
+                }
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            if (resultado.orden() != ordenEsperado) {
+                throw new IllegalArgumentException("El cursor no corresponde al orden solicitado");
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Instantánea inmutable del catálogo publicado.
+ * Guarda el JSON ya serializado en UTF-8, su variante gzip y un ETag fuerte calculado sobre el contenido,
+ * de modo que servirla no requiere consultar la base de datos ni volver a serializar.
+ * Cada codificación es una representación distinta con su propio ETag: el de gzip lleva el sufijo "-gzip".
+ */
+@Getter
+public final class CatalogoSnapshot {
+
+    private final byte[] json;
+    private final byte[] jsonGzip;
+    private final String etag;
+    private final String etagGzip;
+    private final long generacion;
+    private final Instant fechaConstruccion;
+
+    public CatalogoSnapshot(byte[] json, long generacion) {
+        this.json = json;
+        this.jsonGzip = comprimir(json);
+        this.etag = calcularEtag(json);
+        this.etagGzip = etag.substring(0, etag.length() - 1) + "-gzip\"";
+        this.generacion = generacion;
+        this.fechaConstruccion = Instant.now();
+    }
+
+    /**
+     * ETag de la representación que se envía.
+     *
+     * @param gzip true para la variante comprimida.
+     */
+    public String etag(boolean gzip) {
+        return gzip ? etagGzip : etag;
+    }
+
+    /**
+     * Indica si el valor de la cabecera If-None-Match corresponde a la representación que se enviaría.
+     * Acepta listas separadas por comas, el comodín "*" y etiquetas débiles (comparación débil, RFC 9110).
+     *
+     * @param ifNoneMatch Valor de la cabecera, puede ser null.
+     * @param gzip        true si se enviaría la variante comprimida.
+     * @return true si el cliente ya tiene esta versión del catálogo en esa codificación.
+     */
+    public boolean coincideCon(String ifNoneMatch, boolean gzip) {
+        String esperado = etag(gzip);
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(esperado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] comprimir(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, datos.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo comprimir el catálogo", e);
+        }
+        return salida.toByteArray();
+    }
+
+    private static String calcularEtag(byte[] datos) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(datos);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
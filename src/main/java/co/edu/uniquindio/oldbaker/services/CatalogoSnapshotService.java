@@ -0,0 +1,124 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoHomeResponse;
+import co.edu.uniquindio.oldbaker.events.DisponibilidadModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Mantiene la instantánea publicada del catálogo que sirve GET /api/productos.
+ * La instantánea se invalida cuando cambia un producto y se reconstruye bajo demanda;
+ * la reconstrucción es de vuelo único: ante una ráfaga de peticiones solo una consulta la base de datos.
+ */
+@Service
+@Slf4j
+public class CatalogoSnapshotService {
+
+    private final ProductoRepository productoRepository;
+    private final DisponibilidadProductoService disponibilidadProductoService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Duration ttl;
+
+    private final AtomicReference<CatalogoSnapshot> actual = new AtomicReference<>();
+    // Se incrementa en cada invalidación; una instantánea de una generación anterior está obsoleta
+    private final AtomicLong generacion = new AtomicLong();
+    private final ReentrantLock reconstruccion = new ReentrantLock();
+
+    public CatalogoSnapshotService(ProductoRepository productoRepository,
+                                   DisponibilidadProductoService disponibilidadProductoService,
+                                   @Value("${catalogo.snapshot.ttl-seconds:300}") long ttlSegundos) {
+        this.productoRepository = productoRepository;
+        this.disponibilidadProductoService = disponibilidadProductoService;
+        this.ttl = Duration.ofSeconds(ttlSegundos);
+    }
+
+    /**
+     * Devuelve la instantánea vigente, reconstruyéndola si hace falta.
+     * Si hay una instantánea obsoleta y otro hilo ya la está reconstruyendo, se sirve la obsoleta en lugar de esperar.
+     *
+     * @return La instantánea del catálogo.
+     */
+    public CatalogoSnapshot obtener() {
+        CatalogoSnapshot snapshot = actual.get();
+        if (vigente(snapshot)) {
+            return snapshot;
+        }
+
+        if (snapshot != null && !reconstruccion.tryLock()) {
+            return snapshot;
+        }
+        if (snapshot == null) {
+            reconstruccion.lock();
+        }
+        try {
+            // Otro hilo pudo haberla reconstruido mientras se esperaba el candado
+            snapshot = actual.get();
+            if (vigente(snapshot)) {
+                return snapshot;
+            }
+            return reconstruir();
+        } finally {
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * Marca la instantánea actual como obsoleta; la siguiente petición la reconstruye.
+     */
+    public void invalidar() {
+        generacion.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        log.debug("Catálogo invalidado por cambio en el producto {}", event.getIdProducto());
+        invalidar();
+    }
+
+    // Se publica desde otro oyente posterior al commit, por eso no es transaccional
+    @EventListener
+    public void onDisponibilidadModificada(DisponibilidadModificadaEvent event) {
+        log.debug("Catálogo invalidado por cambio de disponibilidad en {} productos", event.getIdsProducto().size());
+        invalidar();
+    }
+
+    private boolean vigente(CatalogoSnapshot snapshot) {
+        return snapshot != null
+                && snapshot.getGeneracion() == generacion.get()
+                && snapshot.getFechaConstruccion().plus(ttl).isAfter(Instant.now());
+    }
+
+    private CatalogoSnapshot reconstruir() {
+        // Se lee la generación antes de consultar: un cambio durante la consulta deja la instantánea obsoleta
+        long generacionLeida = generacion.get();
+        long inicio = System.nanoTime();
+        List<ProductoHomeResponse> productos = productoRepository.findProductos();
+        productos.forEach(p -> p.setDisponible(disponibilidadProductoService.estaDisponible(p.getIdProducto())));
+        try {
+            CatalogoSnapshot snapshot = new CatalogoSnapshot(objectMapper.writeValueAsBytes(productos), generacionLeida);
+            actual.set(snapshot);
+            log.info("Catálogo publicado: {} productos, {} bytes ({} gzip), etag {}, {} ms",
+                    productos.size(), snapshot.getJson().length, snapshot.getJsonGzip().length,
+                    snapshot.getEtag(), (System.nanoTime() - inicio) / 1_000_000);
+            return snapshot;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("No se pudo serializar el catálogo", e);
+        }
+    }
+}
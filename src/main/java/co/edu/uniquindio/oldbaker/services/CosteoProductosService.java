@@ -0,0 +1,245 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.CostoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.MargenProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.PrecioProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.CambioRemotoEvent;
+import co.edu.uniquindio.oldbaker.events.CostoInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Costo de ingredientes y margen de cada producto frente a su precio de venta.
+ *
+ * El costo de una unidad es la suma de costo unitario × cantidad de cada insumo crudo de la receta aplanada por
+ * ExpansionRecetasService. Se guardan los requerimientos por producto, el costo por insumo y un índice inverso
+ * insumo → productos, así que un cambio de precio de un insumo solo recalcula los productos que lo usan y el
+ * reporte de márgenes se sirve desde memoria sin unir recetas por petición. La recarga completa calcula los
+ * productos en paralelo.
+ */
+@Service
+@Slf4j
+public class CosteoProductosService {
+
+    // Peor margen primero; sin precio al final
+    private static final Comparator<MargenProductoDTO> ORDEN_REPORTE = Comparator
+            .comparing(MargenProductoDTO::getMargenPorcentaje, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(MargenProductoDTO::getIdProducto);
+
+    private final ExpansionRecetasService expansionRecetasService;
+    private final InsumoRepository insumoRepository;
+    private final ProductoRepository productoRepository;
+    private final int paralelismo;
+
+    // Costo y margen por producto; se lee sin bloqueo desde el reporte
+    private final Map<Long, MargenProductoDTO> margenes = new ConcurrentHashMap<>();
+
+    // Estado interno, solo se modifica bajo el monitor de esta instancia
+    private final Map<Long, PrecioProductoDTO> precioPorProducto = new HashMap<>();
+    private final Map<Long, List<RequerimientoInsumoDTO>> requerimientosPorProducto = new HashMap<>();
+    private final Map<Long, Set<Long>> productosPorInsumo = new HashMap<>();
+    // Solo insumos con costo registrado
+    private final Map<Long, Double> costoPorInsumo = new HashMap<>();
+    private volatile boolean cargado = false;
+
+    public CosteoProductosService(ExpansionRecetasService expansionRecetasService,
+                                  InsumoRepository insumoRepository,
+                                  ProductoRepository productoRepository,
+                                  @Value("${costeo.recarga.paralelismo:4}") int paralelismo) {
+        this.expansionRecetasService = expansionRecetasService;
+        this.insumoRepository = insumoRepository;
+        this.productoRepository = productoRepository;
+        this.paralelismo = Math.max(paralelismo, 1);
+    }
+
+    /**
+     * Costo y margen de todos los productos, del menor margen porcentual al mayor.
+     */
+    public List<MargenProductoDTO> reporte() {
+        if (!cargado) {
+            recargar();
+        }
+        return margenes.values().stream().sorted(ORDEN_REPORTE).toList();
+    }
+
+    public MargenProductoDTO margen(Long idProducto) {
+        if (!cargado) {
+            recargar();
+        }
+        MargenProductoDTO margen = margenes.get(idProducto);
+        if (margen == null) {
+            throw new RuntimeException("Producto no encontrado con ID: " + idProducto);
+        }
+        return margen;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCostoInsumoModificado(CostoInsumoModificadoEvent event) {
+        if (!cargado || event.getIdsInsumo() == null || event.getIdsInsumo().isEmpty()) {
+            return;
+        }
+        actualizarCostos(event.getIdsInsumo());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (!cargado) {
+            return;
+        }
+        actualizarProducto(event.getIdProducto(), event.getTipo() == ProductoModificadoEvent.Tipo.ELIMINADO);
+    }
+
+    // Los cambios remotos de insumos no distinguen costo de stock: se releen los costos y solo se recalcula
+    // lo que use un insumo cuyo costo cambió
+    @EventListener
+    public void onCambioRemoto(CambioRemotoEvent event) {
+        if (cargado && event.getEntidad() == CambioEntidad.TipoEntidad.INSUMO) {
+            actualizarCostos(event.getIds());
+        }
+    }
+
+    /**
+     * Relee el costo de los insumos indicados y recalcula solo los productos que usan alguno cuyo costo cambió.
+     */
+    synchronized void actualizarCostos(Collection<Long> idsInsumo) {
+        Map<Long, Double> leidos = new HashMap<>();
+        for (CostoInsumoDTO costo : insumoRepository.findCostosByIds(idsInsumo)) {
+            if (costo.getCostoUnitario() != null) {
+                leidos.put(costo.getIdInsumo(), costo.getCostoUnitario());
+            }
+        }
+
+        Set<Long> afectados = new HashSet<>();
+        for (Long idInsumo : idsInsumo) {
+            Double nuevo = leidos.get(idInsumo);
+            Double anterior = nuevo != null ? costoPorInsumo.put(idInsumo, nuevo) : costoPorInsumo.remove(idInsumo);
+            if (!Objects.equals(anterior, nuevo)) {
+                afectados.addAll(productosPorInsumo.getOrDefault(idInsumo, Set.of()));
+            }
+        }
+        afectados.forEach(this::recalcular);
+        if (!afectados.isEmpty()) {
+            log.debug("Costo recalculado para {} productos", afectados.size());
+        }
+    }
+
+    /**
+     * Relee el precio y la receta aplanada de un producto y actualiza el índice inverso.
+     */
+    synchronized void actualizarProducto(Long idProducto, boolean eliminado) {
+        List<RequerimientoInsumoDTO> anteriores = requerimientosPorProducto.remove(idProducto);
+        if (anteriores != null) {
+            for (RequerimientoInsumoDTO req : anteriores) {
+                Set<Long> productos = productosPorInsumo.get(req.getIdInsumo());
+                if (productos != null) {
+                    productos.remove(idProducto);
+                }
+            }
+        }
+        precioPorProducto.remove(idProducto);
+        if (!eliminado) {
+            productoRepository.findPreciosByIds(List.of(idProducto))
+                    .forEach(precio -> precioPorProducto.put(precio.getIdProducto(), precio));
+        }
+        if (!precioPorProducto.containsKey(idProducto)) {
+            margenes.remove(idProducto);
+            return;
+        }
+
+        List<RequerimientoInsumoDTO> nuevos = expansionRecetasService.requerimientos(idProducto);
+        indexar(idProducto, nuevos);
+        // La receta puede usar insumos recién creados, que no pasan por el evento de costo
+        if (!nuevos.isEmpty()) {
+            actualizarCostos(nuevos.stream().map(RequerimientoInsumoDTO::getIdInsumo).distinct().toList());
+        }
+        recalcular(idProducto);
+    }
+
+    /**
+     * Reconstruye el costeo completo, calculando los productos en paralelo; también corrige cambios hechos
+     * fuera de la aplicación.
+     */
+    @Scheduled(fixedDelayString = "${costeo.reconciliacion-ms:900000}",
+            initialDelayString = "${costeo.reconciliacion-ms:900000}")
+    public synchronized void recargar() {
+        precioPorProducto.clear();
+        requerimientosPorProducto.clear();
+        productosPorInsumo.clear();
+        costoPorInsumo.clear();
+
+        productoRepository.findPrecios().forEach(precio -> precioPorProducto.put(precio.getIdProducto(), precio));
+        for (CostoInsumoDTO costo : insumoRepository.findCostos()) {
+            if (costo.getCostoUnitario() != null) {
+                costoPorInsumo.put(costo.getIdInsumo(), costo.getCostoUnitario());
+            }
+        }
+        expansionRecetasService.requerimientos(precioPorProducto.keySet()).forEach(this::indexar);
+
+        // Cada producto se calcula por separado sobre un estado que no cambia mientras se tenga el monitor
+        List<Long> ids = new ArrayList<>(precioPorProducto.keySet());
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            List<MargenProductoDTO> calculados = pool.submit(() -> ids.parallelStream().map(this::calcular).toList())
+                    .join();
+            margenes.keySet().retainAll(precioPorProducto.keySet());
+            calculados.forEach(margen -> margenes.put(margen.getIdProducto(), margen));
+        } finally {
+            pool.shutdown();
+        }
+        cargado = true;
+        log.debug("Costeo recalculado para {} productos", ids.size());
+    }
+
+    private void indexar(Long idProducto, List<RequerimientoInsumoDTO> requerimientos) {
+        requerimientosPorProducto.put(idProducto, requerimientos);
+        for (RequerimientoInsumoDTO req : requerimientos) {
+            productosPorInsumo.computeIfAbsent(req.getIdInsumo(), k -> new HashSet<>()).add(idProducto);
+        }
+    }
+
+    private void recalcular(Long idProducto) {
+        if (precioPorProducto.containsKey(idProducto)) {
+            margenes.put(idProducto, calcular(idProducto));
+        }
+    }
+
+    private MargenProductoDTO calcular(Long idProducto) {
+        PrecioProductoDTO precio = precioPorProducto.get(idProducto);
+        List<RequerimientoInsumoDTO> requerimientos = requerimientosPorProducto.getOrDefault(idProducto, List.of());
+        double costo = 0;
+        boolean completo = !requerimientos.isEmpty();
+        for (RequerimientoInsumoDTO req : requerimientos) {
+            Double unitario = costoPorInsumo.get(req.getIdInsumo());
+            if (unitario == null) {
+                completo = false;
+                continue;
+            }
+            costo += CantidadFija.aDecimal(req.getCantidadInsumo()) * unitario;
+        }
+        costo = redondear(costo);
+
+        Double venta = precio.getPrecioVenta();
+        Double margen = venta != null ? redondear(venta - costo) : null;
+        Double porcentaje = venta != null && venta > 0 ? redondear((venta - costo) / venta * 100) : null;
+        return new MargenProductoDTO(idProducto, precio.getNombre(), venta, costo, margen, porcentaje, completo);
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+}
@@ -0,0 +1,190 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.DisponibilidadModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Proyección mantenida de cuántas unidades de cada producto se pueden hornear con el stock actual.
+ *
+ * Guarda las recetas, aplanadas a insumos crudos por ExpansionRecetasService, como requerimientos por producto,
+ * el stock por insumo y un índice inverso insumo → productos.
+ * Cuando cambia el stock de un insumo solo se recalculan los productos cuyas recetas lo usan,
+ * así que el catálogo puede consultar la disponibilidad sin expandir recetas por petición.
+ * El cálculo es el mismo de StockValidationService: mínimo de floor(stock / cantidad por unidad).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DisponibilidadProductoService {
+
+    private final ExpansionRecetasService expansionRecetasService;
+    private final InsumoRepository insumoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Unidades producibles por producto; se lee sin bloqueo desde el catálogo
+    private final Map<Long, Integer> unidadesProducibles = new ConcurrentHashMap<>();
+
+    // Estado interno, solo se modifica bajo el monitor de esta instancia
+    private final Map<Long, List<RequerimientoInsumoDTO>> requerimientosPorProducto = new HashMap<>();
+    private final Map<Long, Set<Long>> productosPorInsumo = new HashMap<>();
+    private final Map<Long, Long> stockPorInsumo = new HashMap<>();
+    private volatile boolean cargado = false;
+
+    /**
+     * Indica si se puede preparar al menos una unidad del producto con el stock actual.
+     * Un producto sin receta no se puede vender (el checkout lo rechaza), así que figura como no disponible.
+     */
+    public boolean estaDisponible(Long idProducto) {
+        return unidadesProducibles(idProducto) > 0;
+    }
+
+    public int unidadesProducibles(Long idProducto) {
+        if (!cargado) {
+            recargar();
+        }
+        return unidadesProducibles.getOrDefault(idProducto, 0);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockInsumoModificado(StockInsumoModificadoEvent event) {
+        if (!cargado || event.getIdsInsumo() == null || event.getIdsInsumo().isEmpty()) {
+            return;
+        }
+        actualizarStock(event.getIdsInsumo());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (!cargado) {
+            return;
+        }
+        actualizarReceta(event.getIdProducto(), event.getTipo() == ProductoModificadoEvent.Tipo.ELIMINADO);
+    }
+
+    /**
+     * Recarga el stock de los insumos indicados y recalcula solo los productos que los usan.
+     */
+    synchronized void actualizarStock(Set<Long> idsInsumo) {
+        Set<Long> sinFila = new HashSet<>(idsInsumo);
+        for (StockInsumoDTO stock : insumoRepository.findStockByIds(idsInsumo)) {
+            stockPorInsumo.put(stock.getIdInsumo(), stock.getCantidadActual() != null ? stock.getCantidadActual() : 0L);
+            sinFila.remove(stock.getIdInsumo());
+        }
+        // Insumos eliminados
+        sinFila.forEach(stockPorInsumo::remove);
+
+        Set<Long> afectados = new HashSet<>();
+        for (Long idInsumo : idsInsumo) {
+            afectados.addAll(productosPorInsumo.getOrDefault(idInsumo, Set.of()));
+        }
+        recalcular(afectados);
+    }
+
+    /**
+     * Recarga la receta de un producto y actualiza el índice inverso.
+     */
+    synchronized void actualizarReceta(Long idProducto, boolean eliminado) {
+        List<RequerimientoInsumoDTO> anteriores = requerimientosPorProducto.remove(idProducto);
+        if (anteriores != null) {
+            for (RequerimientoInsumoDTO req : anteriores) {
+                Set<Long> productos = productosPorInsumo.get(req.getIdInsumo());
+                if (productos != null) {
+                    productos.remove(idProducto);
+                }
+            }
+        }
+
+        List<RequerimientoInsumoDTO> nuevos = eliminado ? List.of() : expansionRecetasService.requerimientos(idProducto);
+        nuevos.forEach(this::indexar);
+        // La creación de un producto descuenta stock de su insumo en la misma transacción, así que se relee
+        if (!nuevos.isEmpty()) {
+            List<Long> idsInsumo = nuevos.stream().map(RequerimientoInsumoDTO::getIdInsumo).distinct().toList();
+            for (StockInsumoDTO stock : insumoRepository.findStockByIds(idsInsumo)) {
+                stockPorInsumo.put(stock.getIdInsumo(), stock.getCantidadActual() != null ? stock.getCantidadActual() : 0L);
+            }
+        }
+
+        Set<Long> afectados = new HashSet<>();
+        afectados.add(idProducto);
+        for (RequerimientoInsumoDTO req : nuevos) {
+            afectados.addAll(productosPorInsumo.getOrDefault(req.getIdInsumo(), Set.of()));
+        }
+        recalcular(afectados);
+        if (eliminado) {
+            unidadesProducibles.remove(idProducto);
+        }
+    }
+
+    /**
+     * Reconstruye la proyección completa; también corrige cambios hechos fuera de la aplicación.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.disponibilidad.reconciliacion-ms:900000}",
+            initialDelayString = "${catalogo.disponibilidad.reconciliacion-ms:900000}")
+    public synchronized void recargar() {
+        requerimientosPorProducto.clear();
+        productosPorInsumo.clear();
+        stockPorInsumo.clear();
+
+        // Las recetas de varios niveles llegan aplanadas a insumos crudos
+        for (List<RequerimientoInsumoDTO> requerimientos : expansionRecetasService.recargar().values()) {
+            requerimientos.forEach(this::indexar);
+        }
+        for (StockInsumoDTO stock : insumoRepository.findStock()) {
+            stockPorInsumo.put(stock.getIdInsumo(), stock.getCantidadActual() != null ? stock.getCantidadActual() : 0L);
+        }
+
+        Set<Long> todos = new HashSet<>(requerimientosPorProducto.keySet());
+        todos.addAll(unidadesProducibles.keySet());
+        recalcular(todos);
+        cargado = true;
+        log.debug("Disponibilidad recalculada para {} productos", requerimientosPorProducto.size());
+    }
+
+    private void indexar(RequerimientoInsumoDTO req) {
+        requerimientosPorProducto.computeIfAbsent(req.getIdProducto(), k -> new ArrayList<>()).add(req);
+        productosPorInsumo.computeIfAbsent(req.getIdInsumo(), k -> new HashSet<>()).add(req.getIdProducto());
+    }
+
+    private void recalcular(Set<Long> idsProducto) {
+        Set<Long> cambiaronDisponibilidad = new HashSet<>();
+        for (Long idProducto : idsProducto) {
+            int nuevas = calcular(requerimientosPorProducto.get(idProducto));
+            Integer anteriores = unidadesProducibles.put(idProducto, nuevas);
+            if ((anteriores != null && anteriores > 0) != (nuevas > 0)) {
+                cambiaronDisponibilidad.add(idProducto);
+            }
+        }
+        // En la carga inicial no hay vistas que invalidar
+        if (cargado && !cambiaronDisponibilidad.isEmpty()) {
+            eventPublisher.publishEvent(new DisponibilidadModificadaEvent(cambiaronDisponibilidad));
+        }
+    }
+
+    private int calcular(List<RequerimientoInsumoDTO> requerimientos) {
+        if (requerimientos == null || requerimientos.isEmpty()) {
+            return 0;
+        }
+        long maximo = Integer.MAX_VALUE;
+        for (RequerimientoInsumoDTO req : requerimientos) {
+            long stock = stockPorInsumo.getOrDefault(req.getIdInsumo(), 0L);
+            maximo = Math.min(maximo, CantidadFija.vecesQueCabe(stock, req.getCantidadInsumo()));
+        }
+        return (int) maximo;
+    }
+}
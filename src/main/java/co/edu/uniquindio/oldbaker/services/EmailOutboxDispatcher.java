@@ -0,0 +1,183 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.model.EmailOutbox;
+import co.edu.uniquindio.oldbaker.repositories.EmailOutboxRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Despachador del outbox de correos.
+ * Reclama lotes de correos pendientes, los entrega usando una sola sesión SMTP por lote
+ * y reintenta con backoff exponencial hasta pasar los fallidos al estado FALLIDO (dead letter).
+ */
+@Service
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final TypeReference<Map<String, Object>> TIPO_VARIABLES = new TypeReference<>() {};
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final MailService mailService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final int tamanoLote;
+    private final int maxIntentos;
+    private final Duration backoffBase;
+    private final Duration backoffMaximo;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 MailService mailService,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${mail.outbox.batch-size:50}") int tamanoLote,
+                                 @Value("${mail.outbox.max-attempts:6}") int maxIntentos,
+                                 @Value("${mail.outbox.backoff-base-seconds:30}") long backoffBaseSegundos,
+                                 @Value("${mail.outbox.backoff-max-seconds:3600}") long backoffMaximoSegundos) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.mailService = mailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maxIntentos = maxIntentos;
+        this.backoffBase = Duration.ofSeconds(backoffBaseSegundos);
+        this.backoffMaximo = Duration.ofSeconds(backoffMaximoSegundos);
+    }
+
+    /**
+     * Drena el outbox lote a lote mientras haya correos vencidos.
+     *
+     * @return El número de correos procesados (enviados o fallidos) en esta ejecución.
+     */
+    @Scheduled(fixedDelayString = "${mail.outbox.fixed-delay-ms:2000}")
+    public int despachar() {
+        int total = 0;
+        int procesados;
+        do {
+            Integer resultado = transactionTemplate.execute(status -> despacharLote());
+            procesados = resultado != null ? resultado : 0;
+            total += procesados;
+        } while (procesados == tamanoLote);
+        return total;
+    }
+
+    /**
+     * Envía un lote dentro de la transacción actual. Las filas quedan bloqueadas (SKIP LOCKED) hasta el commit.
+     */
+    int despacharLote() {
+        List<EmailOutbox> lote = emailOutboxRepository.findListosParaEnvio(
+                EmailOutbox.EstadoEnvio.PENDIENTE, LocalDateTime.now(), PageRequest.of(0, tamanoLote));
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        // Cada correo se renderiza con sus propias variables: lleva datos del destinatario (códigos, enlaces)
+        Map<MimeMessage, EmailOutbox> mensajes = new LinkedHashMap<>();
+
+        for (EmailOutbox email : lote) {
+            try {
+                Locale locale = email.getLocale() != null ? Locale.forLanguageTag(email.getLocale()) : Locale.getDefault();
+                Map<String, Object> variables = email.getVariables() != null
+                        ? objectMapper.readValue(email.getVariables(), TIPO_VARIABLES)
+                        : Map.of();
+                String html = mailService.renderizar(email.getPlantilla(), locale, variables);
+
+                MimeMessage mimeMessage = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
+                helper.setTo(email.getDestinatario());
+                helper.setSubject(email.getAsunto());
+                helper.setText(html, true);
+                mensajes.put(mimeMessage, email);
+            } catch (Exception e) {
+                registrarFallo(email, e);
+            }
+        }
+
+        Set<MimeMessage> fallidos = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (!mensajes.isEmpty()) {
+            try {
+                // Una sola llamada: JavaMailSenderImpl abre una conexión SMTP y la reutiliza para todo el lote
+                mailSender.send(mensajes.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                Map<Object, Exception> errores = e.getFailedMessages();
+                if (errores.isEmpty()) {
+                    mensajes.keySet().forEach(m -> registrarFallo(mensajes.get(m), e));
+                    fallidos.addAll(mensajes.keySet());
+                } else {
+                    errores.forEach((mensaje, error) -> {
+                        EmailOutbox email = mensajes.get(mensaje);
+                        if (email != null) {
+                            registrarFallo(email, error);
+                            fallidos.add((MimeMessage) mensaje);
+                        }
+                    });
+                }
+            } catch (MailException e) {
+                mensajes.keySet().forEach(m -> registrarFallo(mensajes.get(m), e));
+                fallidos.addAll(mensajes.keySet());
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        int enviados = 0;
+        for (Map.Entry<MimeMessage, EmailOutbox> entry : mensajes.entrySet()) {
+            if (fallidos.contains(entry.getKey())) continue;
+            EmailOutbox email = entry.getValue();
+            email.setEstado(EmailOutbox.EstadoEnvio.ENVIADO);
+            email.setIntentos(email.getIntentos() + 1);
+            email.setFechaEnvio(ahora);
+            email.setUltimoError(null);
+            enviados++;
+        }
+
+        long duracionMs = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+        log.info("Outbox de correos: lote={} enviados={} fallidos={} duracionMs={} mensajesPorSegundo={}",
+                lote.size(), enviados, lote.size() - enviados, duracionMs, enviados * 1000L / duracionMs);
+
+        return lote.size();
+    }
+
+    /**
+     * Registra un intento fallido y programa el reintento con backoff exponencial,
+     * o pasa el correo a FALLIDO si agotó los intentos.
+     */
+    private void registrarFallo(EmailOutbox email, Exception error) {
+        int intentos = email.getIntentos() + 1;
+        email.setIntentos(intentos);
+        String mensaje = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        email.setUltimoError(mensaje.length() > 1000 ? mensaje.substring(0, 1000) : mensaje);
+
+        if (intentos >= maxIntentos) {
+            email.setEstado(EmailOutbox.EstadoEnvio.FALLIDO);
+            log.error("Correo {} a {} movido a FALLIDO tras {} intentos: {}",
+                    email.getId(), email.getDestinatario(), intentos, mensaje);
+            return;
+        }
+
+        Duration espera = backoffBase.multipliedBy(1L << Math.min(intentos - 1, 20));
+        if (espera.compareTo(backoffMaximo) > 0) {
+            espera = backoffMaximo;
+        }
+        email.setProximoIntento(LocalDateTime.now().plus(espera));
+        log.warn("Fallo enviando correo {} a {} (intento {}), reintento en {}s: {}",
+                email.getId(), email.getDestinatario(), intentos, espera.toSeconds(), mensaje);
+    }
+}
@@ -0,0 +1,246 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.LineaRecetaDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.PreparacionModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Expansión de recetas de varios niveles (lista de materiales) a requerimientos de insumos crudos.
+ *
+ * La receta de un producto puede usar insumos y preparaciones intermedias, y cada preparación a su vez insumos y
+ * otras preparaciones. Aquí se aplana cada producto a un vector insumo → milésimas por unidad de producto, que
+ * usan la validación de stock, el descuento por ventas y la disponibilidad del catálogo sin recorrer el grafo en
+ * cada petición.
+ *
+ * Los vectores de productos y de preparaciones se memorizan; una preparación compartida se expande una sola vez.
+ * Al memorizar se registra quién usa cada preparación, así que cuando una cambia se descartan, de forma
+ * transitiva, las preparaciones y productos que la usan. Los ciclos se rechazan al escribir (PreparacionService);
+ * si aparece uno en los datos, la expansión falla en lugar de recorrerlo sin fin.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExpansionRecetasService {
+
+    private final RecetaRepository recetaRepository;
+
+    // Vector plano por producto; se lee sin bloqueo desde el checkout
+    private final Map<Long, List<RequerimientoInsumoDTO>> porProducto = new ConcurrentHashMap<>();
+
+    // Estado interno, solo se modifica bajo el monitor de esta instancia
+    private final Map<Long, Expansion> porPreparacion = new HashMap<>();
+    private final Map<Long, Set<Long>> preparacionesQueUsan = new HashMap<>();
+    private final Map<Long, Set<Long>> productosQueUsan = new HashMap<>();
+
+    /**
+     * Insumos crudos que consume una unidad del producto, en milésimas de la unidad base de cada insumo.
+     *
+     * @return Lista vacía si el producto no tiene receta.
+     */
+    public List<RequerimientoInsumoDTO> requerimientos(Long idProducto) {
+        List<RequerimientoInsumoDTO> vector = porProducto.get(idProducto);
+        if (vector != null) {
+            return vector;
+        }
+        return cargarProductos(Set.of(idProducto)).getOrDefault(idProducto, List.of());
+    }
+
+    /**
+     * Vectores de varios productos; los que no están memorizados se cargan con una consulta de recetas por
+     * nivel de preparaciones.
+     *
+     * @return Vector de cada producto indicado, vacío si no tiene receta.
+     */
+    public Map<Long, List<RequerimientoInsumoDTO>> requerimientos(Collection<Long> idsProducto) {
+        Map<Long, List<RequerimientoInsumoDTO>> resultado = new HashMap<>();
+        Set<Long> faltantes = new HashSet<>();
+        for (Long idProducto : idsProducto) {
+            List<RequerimientoInsumoDTO> vector = porProducto.get(idProducto);
+            if (vector != null) {
+                resultado.put(idProducto, vector);
+            } else {
+                faltantes.add(idProducto);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            resultado.putAll(cargarProductos(faltantes));
+        }
+        return resultado;
+    }
+
+    /**
+     * Descarta todo lo memorizado y expande todos los productos con receta; también corrige cambios hechos
+     * fuera de la aplicación.
+     */
+    public synchronized Map<Long, List<RequerimientoInsumoDTO>> recargar() {
+        porProducto.clear();
+        porPreparacion.clear();
+        preparacionesQueUsan.clear();
+        productosQueUsan.clear();
+        return expandirProductos(Set.of(), recetaRepository.findLineasProductos());
+    }
+
+    // Antes que los demás oyentes, que leen los vectores de los productos afectados
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPreparacionModificada(PreparacionModificadaEvent event) {
+        invalidarPreparaciones(event.getIdsPreparacion());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        porProducto.remove(event.getIdProducto());
+    }
+
+    /**
+     * Descarta las preparaciones indicadas y, de forma transitiva, las preparaciones y productos que las usan.
+     */
+    synchronized void invalidarPreparaciones(Collection<Long> idsPreparacion) {
+        Deque<Long> pendientes = new ArrayDeque<>(idsPreparacion);
+        Set<Long> vistas = new HashSet<>();
+        int productos = 0;
+        while (!pendientes.isEmpty()) {
+            Long id = pendientes.poll();
+            if (!vistas.add(id)) {
+                continue;
+            }
+            porPreparacion.remove(id);
+            Set<Long> padres = preparacionesQueUsan.remove(id);
+            if (padres != null) {
+                pendientes.addAll(padres);
+            }
+            Set<Long> usan = productosQueUsan.remove(id);
+            if (usan != null) {
+                usan.forEach(porProducto::remove);
+                productos += usan.size();
+            }
+        }
+        log.debug("Expansiones descartadas: {} preparaciones, {} productos", vistas.size(), productos);
+    }
+
+    private synchronized Map<Long, List<RequerimientoInsumoDTO>> cargarProductos(Set<Long> idsProducto) {
+        return expandirProductos(idsProducto, recetaRepository.findLineasByProductos(idsProducto));
+    }
+
+    // Los productos indicados sin líneas se memorizan con vector vacío para no volver a consultarlos
+    private Map<Long, List<RequerimientoInsumoDTO>> expandirProductos(Set<Long> idsProducto,
+                                                                      List<LineaRecetaDTO> lineas) {
+        Map<Long, List<LineaRecetaDTO>> lineasPorProducto = agrupar(idsProducto, lineas);
+        cargarPreparaciones(subPreparaciones(lineas));
+
+        Map<Long, List<RequerimientoInsumoDTO>> resultado = new HashMap<>();
+        for (Map.Entry<Long, List<LineaRecetaDTO>> entrada : lineasPorProducto.entrySet()) {
+            Long idProducto = entrada.getKey();
+            Map<Long, Long> vector = aplanar(entrada.getValue(), 1L);
+            for (LineaRecetaDTO linea : entrada.getValue()) {
+                if (linea.getIdSubPreparacion() != null) {
+                    productosQueUsan.computeIfAbsent(linea.getIdSubPreparacion(), k -> new HashSet<>()).add(idProducto);
+                }
+            }
+            List<RequerimientoInsumoDTO> requerimientos = new ArrayList<>(vector.size());
+            vector.forEach((idInsumo, cantidad) ->
+                    requerimientos.add(new RequerimientoInsumoDTO(idProducto, idInsumo, cantidad)));
+            List<RequerimientoInsumoDTO> inmutable = Collections.unmodifiableList(requerimientos);
+            porProducto.put(idProducto, inmutable);
+            resultado.put(idProducto, inmutable);
+        }
+        return resultado;
+    }
+
+    // Carga por niveles las líneas de las preparaciones que faltan y de sus sub-preparaciones, y las expande
+    private void cargarPreparaciones(Set<Long> idsPreparacion) {
+        Map<Long, List<LineaRecetaDTO>> lineasPorPreparacion = new HashMap<>();
+        Set<Long> pendientes = new HashSet<>(idsPreparacion);
+        pendientes.removeAll(porPreparacion.keySet());
+        while (!pendientes.isEmpty()) {
+            List<LineaRecetaDTO> lineas = recetaRepository.findLineasByPreparaciones(pendientes);
+            lineasPorPreparacion.putAll(agrupar(pendientes, lineas));
+            Set<Long> siguientes = subPreparaciones(lineas);
+            siguientes.removeAll(porPreparacion.keySet());
+            siguientes.removeAll(lineasPorPreparacion.keySet());
+            pendientes = siguientes;
+        }
+        Set<Long> enCurso = new HashSet<>();
+        for (Long idPreparacion : lineasPorPreparacion.keySet()) {
+            expandirPreparacion(idPreparacion, lineasPorPreparacion, enCurso);
+        }
+    }
+
+    private Expansion expandirPreparacion(Long idPreparacion, Map<Long, List<LineaRecetaDTO>> lineasPorPreparacion,
+                                          Set<Long> enCurso) {
+        Expansion memorizada = porPreparacion.get(idPreparacion);
+        if (memorizada != null) {
+            return memorizada;
+        }
+        if (!enCurso.add(idPreparacion)) {
+            throw new IllegalStateException("La preparación " + idPreparacion + " forma un ciclo en sus recetas");
+        }
+        List<LineaRecetaDTO> lineas = lineasPorPreparacion.getOrDefault(idPreparacion, List.of());
+        for (LineaRecetaDTO linea : lineas) {
+            Long sub = linea.getIdSubPreparacion();
+            if (sub != null) {
+                expandirPreparacion(sub, lineasPorPreparacion, enCurso);
+                preparacionesQueUsan.computeIfAbsent(sub, k -> new HashSet<>()).add(idPreparacion);
+            }
+        }
+        // Sin líneas no consume nada; el rendimiento viene en cada línea
+        long rendimiento = lineas.isEmpty() ? 1L : lineas.get(0).getRendimiento();
+        Expansion expansion = new Expansion(rendimiento, aplanar(lineas, rendimiento));
+        porPreparacion.put(idPreparacion, expansion);
+        enCurso.remove(idPreparacion);
+        return expansion;
+    }
+
+    // Insumo → milésimas para las líneas indicadas; las sub-preparaciones ya están memorizadas
+    private Map<Long, Long> aplanar(List<LineaRecetaDTO> lineas, long rendimiento) {
+        Map<Long, Long> vector = new LinkedHashMap<>();
+        for (LineaRecetaDTO linea : lineas) {
+            if (linea.getIdInsumo() != null) {
+                vector.merge(linea.getIdInsumo(), linea.getCantidad(), CantidadFija::sumar);
+            } else if (linea.getIdSubPreparacion() != null) {
+                Expansion sub = porPreparacion.get(linea.getIdSubPreparacion());
+                // Lo que se usa de la sub-preparación es una fracción de su lote
+                sub.porLote().forEach((idInsumo, porLote) -> vector.merge(idInsumo,
+                        CantidadFija.proporcion(linea.getCantidad(), porLote, sub.rendimiento()), CantidadFija::sumar));
+            }
+        }
+        return vector;
+    }
+
+    private static Map<Long, List<LineaRecetaDTO>> agrupar(Set<Long> ids, List<LineaRecetaDTO> lineas) {
+        Map<Long, List<LineaRecetaDTO>> agrupadas = new LinkedHashMap<>();
+        ids.forEach(id -> agrupadas.put(id, new ArrayList<>()));
+        for (LineaRecetaDTO linea : lineas) {
+            agrupadas.computeIfAbsent(linea.getIdPadre(), k -> new ArrayList<>()).add(linea);
+        }
+        return agrupadas;
+    }
+
+    private static Set<Long> subPreparaciones(List<LineaRecetaDTO> lineas) {
+        Set<Long> ids = new HashSet<>();
+        for (LineaRecetaDTO linea : lineas) {
+            if (linea.getIdSubPreparacion() != null) {
+                ids.add(linea.getIdSubPreparacion());
+            }
+        }
+        return ids;
+    }
+
+    // Insumos crudos de un lote de una preparación y lo que rinde ese lote
+    private record Expansion(long rendimiento, Map<Long, Long> porLote) {
+    }
+}
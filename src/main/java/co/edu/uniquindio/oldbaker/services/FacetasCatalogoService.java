@@ -0,0 +1,121 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.FacetaCategoriaDTO;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Agregado en memoria con el número de productos por categoría.
+ * Se carga con una consulta GROUP BY y luego se mantiene con los eventos de producto,
+ * de modo que servir las facetas no requiere un COUNT por petición.
+ * Una reconciliación periódica absorbe los cambios hechos fuera de la aplicación.
+ *
+ * Si la petición filtra por precio, el agregado no sirve: se cuenta con una consulta agrupada sobre el rango.
+ * El filtro de categoría no se aplica a las facetas, para que sigan mostrando a qué otras categorías se puede pasar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FacetasCatalogoService {
+
+    private static final Comparator<FacetaCategoriaDTO> POR_NOMBRE =
+            Comparator.comparing(FacetaCategoriaDTO::getNombre, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final ProductoRepository productoRepository;
+
+    private final Map<Long, String> nombres = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> conteos = new ConcurrentHashMap<>();
+    private volatile boolean cargado = false;
+
+    /**
+     * Devuelve las categorías con al menos un producto, ordenadas por nombre.
+     *
+     * @return Lista de facetas con su conteo.
+     */
+    public List<FacetaCategoriaDTO> obtenerFacetas() {
+        if (!cargado) {
+            recargar();
+        }
+        return conteos.entrySet().stream()
+                .filter(e -> e.getValue().get() > 0)
+                .map(e -> new FacetaCategoriaDTO(e.getKey(), nombres.get(e.getKey()), e.getValue().get()))
+                .sorted(POR_NOMBRE)
+                .toList();
+    }
+
+    /**
+     * Devuelve las categorías con al menos un producto dentro del rango de precio, ordenadas por nombre.
+     *
+     * @param precioMin Precio mínimo, o null.
+     * @param precioMax Precio máximo, o null.
+     * @return Lista de facetas con su conteo.
+     */
+    public List<FacetaCategoriaDTO> obtenerFacetas(Double precioMin, Double precioMax) {
+        if (precioMin == null && precioMax == null) {
+            return obtenerFacetas();
+        }
+        return productoRepository.contarPorCategoriaEnRango(precioMin, precioMax).stream()
+                .filter(f -> f.getCantidad() > 0)
+                .sorted(POR_NOMBRE)
+                .toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        if (!cargado) {
+            return;
+        }
+        Long idCategoria = event.getIdCategoria();
+        switch (event.getTipo()) {
+            case CREADO -> {
+                if (idCategoria == null) return;
+                // Una categoría nueva aún no tiene nombre en el agregado: se recarga completo
+                if (!nombres.containsKey(idCategoria)) {
+                    cargado = false;
+                    return;
+                }
+                conteos.computeIfAbsent(idCategoria, k -> new AtomicLong()).incrementAndGet();
+            }
+            case ELIMINADO -> {
+                if (idCategoria == null) return;
+                AtomicLong conteo = conteos.get(idCategoria);
+                if (conteo != null) {
+                    conteo.updateAndGet(v -> Math.max(0, v - 1));
+                }
+            }
+            // Una modificación puede mover el producto de categoría: se recalcula en la próxima lectura
+            case ACTUALIZADO -> cargado = false;
+        }
+    }
+
+    /**
+     * Recalcula el agregado desde la base de datos.
+     */
+    @Scheduled(fixedDelayString = "${catalogo.facetas.reconciliacion-ms:600000}",
+            initialDelayString = "${catalogo.facetas.reconciliacion-ms:600000}")
+    public synchronized void recargar() {
+        List<FacetaCategoriaDTO> facetas = productoRepository.contarPorCategoria();
+        for (FacetaCategoriaDTO faceta : facetas) {
+            nombres.put(faceta.getIdCategoria(), faceta.getNombre() != null ? faceta.getNombre() : "");
+            conteos.computeIfAbsent(faceta.getIdCategoria(), k -> new AtomicLong()).set(faceta.getCantidad());
+        }
+        // Categorías que ya no existen
+        conteos.keySet().removeIf(id -> facetas.stream().noneMatch(f -> f.getIdCategoria().equals(id)));
+        nombres.keySet().retainAll(conteos.keySet());
+        cargado = true;
+        log.debug("Facetas del catálogo recalculadas: {} categorías", facetas.size());
+    }
+}
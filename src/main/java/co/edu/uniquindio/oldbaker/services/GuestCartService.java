@@ -0,0 +1,396 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.auth.AuthResponse;
+import co.edu.uniquindio.oldbaker.dto.cart.CartDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartItemDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartOperacionDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartPatchRequest;
+import co.edu.uniquindio.oldbaker.model.Usuario;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+
+/**
+ * Carritos de visitantes anónimos, guardados solo en memoria e identificados por un token opaco en una cookie.
+ *
+ * Navegar y llenar el carrito como invitado nunca consulta la base de datos: los productos no se validan aquí
+ * sino al fusionar el carrito con el del usuario al iniciar sesión. Cada carrito es un par de arreglos primitivos
+ * (id de producto y cantidad) más una máscara de bits para la selección. El almacén es un LRU acotado en número
+ * de carritos y los que llevan más del TTL sin usarse se descartan.
+ *
+ * Al ser memoria local, un carrito de invitado solo existe en el nodo que lo creó; con varios nodos el balanceador
+ * debe mantener afinidad por la cookie. Si se pierde (reinicio o expulsión) el invitado empieza un carrito vacío.
+ */
+@Service
+@Slf4j
+public class GuestCartService {
+
+    public static final String COOKIE = "OLDBAKER_GUEST_CART";
+
+    // 16 bytes aleatorios en base64url sin relleno
+    private static final Pattern FORMATO_TOKEN = Pattern.compile("[A-Za-z0-9_-]{22}");
+    private static final int MAXIMO_CANTIDAD = 999;
+
+    /**
+     * Resultado de una modificación: el token (nuevo si el invitado no tenía carrito) y el carrito resultante.
+     */
+    public record Resultado(String token, CartDTO cart) {
+    }
+
+    private final CartService cartService;
+    private final Duration ttl;
+    private final int maximoItems;
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    // Orden de acceso: el primero es el usado hace más tiempo. Protegido por el monitor de este servicio.
+    private final LinkedHashMap<String, Carrito> carritos;
+
+    private final Counter expulsados;
+    private final Counter fusionados;
+
+    public GuestCartService(CartService cartService,
+                            MeterRegistry meterRegistry,
+                            @Value("${cart.guest.max-carritos:50000}") int maximoCarritos,
+                            @Value("${cart.guest.ttl-minutes:1440}") long ttlMinutos,
+                            @Value("${cart.guest.max-items:50}") int maximoItems) {
+        this.cartService = cartService;
+        this.ttl = Duration.ofMinutes(ttlMinutos);
+        // La selección se guarda en un long: un bit por item
+        this.maximoItems = Math.min(maximoItems, Long.SIZE);
+        this.expulsados = Counter.builder("oldbaker.guest_cart.evicted")
+                .description("Carritos de invitado descartados por tamaño del almacén")
+                .register(meterRegistry);
+        this.fusionados = Counter.builder("oldbaker.guest_cart.merged")
+                .description("Carritos de invitado fusionados con el carrito de un usuario")
+                .register(meterRegistry);
+        this.carritos = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Carrito> eldest) {
+                if (size() > maximoCarritos) {
+                    expulsados.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("oldbaker.guest_cart.size", this, GuestCartService::tamano)
+                .description("Carritos de invitado en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Carrito del invitado; vacío si no tiene token o si su carrito expiró.
+     */
+    public synchronized CartDTO obtener(String token) {
+        Carrito carrito = vigente(token);
+        return carrito != null ? carrito.toDTO() : new CartDTO(null, null, List.of());
+    }
+
+    /**
+     * Deja el carrito del invitado igual a la lista enviada.
+     * Si un producto aparece varias veces en la lista sus cantidades se suman.
+     */
+    public synchronized Resultado reemplazar(String token, CartDTO cartDTO) {
+        Carrito nuevo = new Carrito(4);
+        List<CartItemDTO> recibidos = cartDTO != null && cartDTO.getItems() != null ? cartDTO.getItems() : List.of();
+        for (CartItemDTO item : recibidos) {
+            validarProducto(item.getIdProducto());
+            validarCantidad(item.getCantidad());
+            agregar(nuevo, item.getIdProducto(), item.getCantidad(), item.getSelected());
+        }
+        return guardar(token, nuevo);
+    }
+
+    /**
+     * Aplica operaciones puntuales con la misma semántica que el PATCH del carrito persistido.
+     * Se aplican sobre una copia: si una falla el carrito queda como estaba.
+     */
+    public synchronized Resultado aplicarOperaciones(String token, CartPatchRequest request) {
+        List<CartOperacionDTO> operaciones = request != null && request.getOperaciones() != null
+                ? request.getOperaciones() : List.of();
+        Carrito actual = vigente(token);
+        Carrito copia = actual != null ? actual.copia() : new Carrito(4);
+
+        for (CartOperacionDTO op : operaciones) {
+            if (op.getTipo() == null) {
+                throw new IllegalArgumentException("Tipo de operación requerido");
+            }
+            validarProducto(op.getIdProducto());
+            long idProducto = op.getIdProducto();
+            int indice = copia.indice(idProducto);
+            switch (op.getTipo()) {
+                case AGREGAR -> {
+                    validarCantidad(op.getCantidad());
+                    agregar(copia, idProducto, op.getCantidad(), op.getSelected());
+                }
+                case FIJAR_CANTIDAD -> {
+                    if (op.getCantidad() == null || op.getCantidad() < 0 || op.getCantidad() > MAXIMO_CANTIDAD) {
+                        throw new IllegalArgumentException("Cantidad inválida para el producto " + idProducto);
+                    }
+                    if (op.getCantidad() == 0) {
+                        copia.quitar(indice);
+                    } else {
+                        copia.cantidades[requerirItem(indice, idProducto)] = op.getCantidad();
+                    }
+                }
+                case SELECCIONAR -> {
+                    if (op.getSelected() == null) {
+                        throw new IllegalArgumentException("Falta el valor de selección para el producto " + idProducto);
+                    }
+                    copia.seleccionar(requerirItem(indice, idProducto), op.getSelected());
+                }
+                case ELIMINAR -> copia.quitar(indice);
+            }
+        }
+        return guardar(token, copia);
+    }
+
+    /**
+     * Descarta el carrito del invitado.
+     */
+    public synchronized void eliminar(String token) {
+        if (token != null) {
+            carritos.remove(token);
+        }
+    }
+
+    /**
+     * Fusiona el carrito del invitado con el del usuario que acaba de autenticarse.
+     * Solo aplica a clientes; un fallo se registra y no interrumpe el inicio de sesión.
+     *
+     * @param token   Token de la cookie del invitado, puede ser null.
+     * @param usuario Usuario autenticado.
+     * @return true si el carrito del invitado se consumió y la cookie debe borrarse.
+     */
+    public boolean fusionarAlIniciarSesion(String token, AuthResponse.UserResponse usuario) {
+        if (token == null || usuario == null || usuario.getId() == null
+                || !Usuario.Rol.CLIENTE.name().equals(usuario.getRol())) {
+            return false;
+        }
+        Carrito carrito;
+        synchronized (this) {
+            carrito = vigente(token);
+            carritos.remove(token);
+        }
+        if (carrito == null || carrito.tamano == 0) {
+            return true;
+        }
+        // La escritura en base de datos se hace fuera del monitor para no bloquear a los demás invitados
+        try {
+            cartService.fusionarInvitado(usuario.getId(), carrito.toDTO().getItems());
+            fusionados.increment();
+            return true;
+        } catch (Exception e) {
+            log.warn("No se pudo fusionar el carrito de invitado con el del usuario {}: {}", usuario.getId(), e.getMessage());
+            synchronized (this) {
+                carritos.putIfAbsent(token, carrito);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Descarta los carritos que superaron el TTL sin usarse. Recorre desde el menos reciente
+     * y se detiene en el primero vigente.
+     */
+    @Scheduled(fixedDelayString = "${cart.guest.purga-ms:60000}")
+    public synchronized int purgarExpirados() {
+        long limite = System.currentTimeMillis() - ttl.toMillis();
+        int eliminados = 0;
+        Iterator<Carrito> it = carritos.values().iterator();
+        while (it.hasNext() && it.next().ultimoAcceso < limite) {
+            it.remove();
+            eliminados++;
+        }
+        if (eliminados > 0) {
+            log.debug("Carritos de invitado expirados: {}", eliminados);
+        }
+        return eliminados;
+    }
+
+    /**
+     * Cookie que identifica el carrito del invitado.
+     */
+    public ResponseCookie cookie(String token) {
+        return construirCookie(token, ttl);
+    }
+
+    /**
+     * Cookie vacía que le indica al navegador que borre la del carrito de invitado.
+     */
+    public ResponseCookie cookieEliminada() {
+        return construirCookie("", Duration.ZERO);
+    }
+
+    public synchronized int tamano() {
+        return carritos.size();
+    }
+
+    private ResponseCookie construirCookie(String valor, Duration duracion) {
+        // SameSite=None: el frontend se sirve desde otro dominio y envía la cookie en peticiones con credenciales
+        return ResponseCookie.from(COOKIE, valor)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("None")
+                .path("/")
+                .maxAge(duracion)
+                .build();
+    }
+
+    // Carrito del token si existe y no expiró; marca el acceso
+    private Carrito vigente(String token) {
+        if (token == null || !FORMATO_TOKEN.matcher(token).matches()) {
+            return null;
+        }
+        Carrito carrito = carritos.get(token);
+        if (carrito == null) {
+            return null;
+        }
+        long ahora = System.currentTimeMillis();
+        if (carrito.ultimoAcceso < ahora - ttl.toMillis()) {
+            carritos.remove(token);
+            return null;
+        }
+        carrito.ultimoAcceso = ahora;
+        return carrito;
+    }
+
+    private Resultado guardar(String token, Carrito carrito) {
+        // Un token desconocido no se reutiliza: siempre se emite uno generado por el servidor
+        String efectivo = token != null && carritos.containsKey(token) ? token : nuevoToken();
+        carrito.ultimoAcceso = System.currentTimeMillis();
+        carritos.put(efectivo, carrito);
+        return new Resultado(efectivo, carrito.toDTO());
+    }
+
+    private String nuevoToken() {
+        byte[] bytes = new byte[16];
+        aleatorio.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private void agregar(Carrito carrito, long idProducto, int cantidad, Boolean selected) {
+        int indice = carrito.indice(idProducto);
+        if (indice < 0) {
+            if (carrito.tamano >= maximoItems) {
+                throw new IllegalArgumentException("El carrito admite como máximo " + maximoItems + " productos");
+            }
+            indice = carrito.anexar(idProducto);
+            carrito.seleccionar(indice, selected == null || selected);
+        } else if (selected != null) {
+            carrito.seleccionar(indice, selected);
+        }
+        int total = carrito.cantidades[indice] + cantidad;
+        if (total > MAXIMO_CANTIDAD) {
+            throw new IllegalArgumentException("Cantidad inválida para el producto " + idProducto);
+        }
+        carrito.cantidades[indice] = total;
+    }
+
+    private int requerirItem(int indice, long idProducto) {
+        if (indice < 0) {
+            throw new IllegalArgumentException("El producto " + idProducto + " no está en el carrito");
+        }
+        return indice;
+    }
+
+    private void validarProducto(Long idProducto) {
+        if (idProducto == null) {
+            throw new IllegalArgumentException("Producto requerido");
+        }
+    }
+
+    private void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0 || cantidad > MAXIMO_CANTIDAD) {
+            throw new IllegalArgumentException("La cantidad debe estar entre 1 y " + MAXIMO_CANTIDAD);
+        }
+    }
+
+    /**
+     * Carrito compacto: arreglos paralelos de producto y cantidad en orden de inserción.
+     * El bit i de noSeleccionados indica que el item i no está seleccionado.
+     */
+    static final class Carrito {
+
+        private long[] productos;
+        private int[] cantidades;
+        private long noSeleccionados;
+        private int tamano;
+        private long ultimoAcceso;
+
+        Carrito(int capacidad) {
+            this.productos = new long[capacidad];
+            this.cantidades = new int[capacidad];
+        }
+
+        int indice(long idProducto) {
+            for (int i = 0; i < tamano; i++) {
+                if (productos[i] == idProducto) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int anexar(long idProducto) {
+            if (tamano == productos.length) {
+                productos = Arrays.copyOf(productos, tamano * 2);
+                cantidades = Arrays.copyOf(cantidades, tamano * 2);
+            }
+            productos[tamano] = idProducto;
+            cantidades[tamano] = 0;
+            return tamano++;
+        }
+
+        void seleccionar(int indice, boolean selected) {
+            if (selected) {
+                noSeleccionados &= ~(1L << indice);
+            } else {
+                noSeleccionados |= 1L << indice;
+            }
+        }
+
+        void quitar(int indice) {
+            if (indice < 0) {
+                return;
+            }
+            int siguientes = tamano - indice - 1;
+            System.arraycopy(productos, indice + 1, productos, indice, siguientes);
+            System.arraycopy(cantidades, indice + 1, cantidades, indice, siguientes);
+            // Los bits por encima del item quitado bajan una posición
+            long bajos = noSeleccionados & ((1L << indice) - 1);
+            long altos = indice + 1 < Long.SIZE ? (noSeleccionados >>> (indice + 1)) << indice : 0L;
+            noSeleccionados = bajos | altos;
+            tamano--;
+        }
+
+        Carrito copia() {
+            Carrito copia = new Carrito(Math.max(productos.length, 4));
+            System.arraycopy(productos, 0, copia.productos, 0, tamano);
+            System.arraycopy(cantidades, 0, copia.cantidades, 0, tamano);
+            copia.noSeleccionados = noSeleccionados;
+            copia.tamano = tamano;
+            copia.ultimoAcceso = ultimoAcceso;
+            return copia;
+        }
+
+        CartDTO toDTO() {
+            List<CartItemDTO> items = new ArrayList<>(tamano);
+            for (int i = 0; i < tamano; i++) {
+                items.add(new CartItemDTO(productos[i], cantidades[i], (noSeleccionados & (1L << i)) == 0));
+            }
+            return new CartDTO(null, null, items);
+        }
+    }
+}
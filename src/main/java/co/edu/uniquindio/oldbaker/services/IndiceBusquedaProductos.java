@@ -0,0 +1,593 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.dto.ResultadoBusquedaDTO;
+
+import java.util.*;
+
+/**
+ * Índice invertido inmutable sobre el catálogo de productos.
+ *
+ * Los términos (raíces) se guardan en un arreglo ordenado con sus listas de documentos y frecuencias,
+ * y las palabras completas en un segundo diccionario ordenado que funciona como un trie compacto:
+ * todas las palabras con un prefijo dado ocupan un rango contiguo que se ubica con dos búsquedas binarias.
+ * Al ser inmutable, las consultas no necesitan sincronización; los cambios producen un índice nuevo.
+ *
+ * Cada producto ocupa una posición fija. {@link #conCambios} arma el índice nuevo de un lote de cambios
+ * rehaciendo solo las listas de los términos y palabras de los productos cambiados y compartiendo con el
+ * anterior todas las demás; un producto eliminado deja su posición vacía hasta la próxima reconstrucción.
+ */
+public final class IndiceBusquedaProductos {
+
+    // Parámetros estándar de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Pesos por campo: una coincidencia en el nombre vale más que en la descripción
+    private static final int PESO_NOMBRE = 3;
+    private static final int PESO_CATEGORIA = 2;
+    private static final int PESO_DESCRIPCION = 1;
+
+    // Máximo de palabras que se expanden para un prefijo en el autocompletado
+    private static final int MAX_EXPANSION_PREFIJO = 128;
+
+    private static final IndiceBusquedaProductos VACIO = construir(List.of());
+
+    // Documentos por posición; una posición vacía es un producto eliminado
+    private final Documento[] documentos;
+    private final long[] ids;
+    private final String[] nombres;
+    private final String[] categorias;
+    private final Double[] costos;
+    private final int[] longitudes;
+    private final Map<Long, Integer> posiciones;
+    private final int activos;
+    private final long longitudTotal;
+    private final double longitudPromedio;
+
+    // Diccionario de raíces → postings
+    private final Diccionario raices;
+
+    // Diccionario de palabras completas (trie compacto) → documentos
+    private final Diccionario vocabulario;
+
+    private IndiceBusquedaProductos(Documento[] documentos, long[] ids, String[] nombres, String[] categorias,
+                                    Double[] costos, int[] longitudes, Map<Long, Integer> posiciones, int activos,
+                                    long longitudTotal, Diccionario raices, Diccionario vocabulario) {
+        this.documentos = documentos;
+        this.ids = ids;
+        this.nombres = nombres;
+        this.categorias = categorias;
+        this.costos = costos;
+        this.longitudes = longitudes;
+        this.posiciones = posiciones;
+        this.activos = activos;
+        this.longitudTotal = longitudTotal;
+        this.longitudPromedio = activos == 0 ? 1.0 : Math.max(1.0, (double) longitudTotal / activos);
+        this.raices = raices;
+        this.vocabulario = vocabulario;
+    }
+
+    public static IndiceBusquedaProductos vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Producto ya analizado. Se conserva en el índice para saber qué listas tocar cuando el producto cambia,
+     * sin volver a tokenizar el catálogo completo.
+     */
+    public static final class Documento {
+        final ProductoBusquedaDTO producto;
+        final Map<String, Integer> frecuencias;
+        final Set<String> palabras;
+        final int longitud;
+
+        private Documento(ProductoBusquedaDTO producto, Map<String, Integer> frecuencias, Set<String> palabras, int longitud) {
+            this.producto = producto;
+            this.frecuencias = frecuencias;
+            this.palabras = palabras;
+            this.longitud = longitud;
+        }
+
+        public static Documento analizar(ProductoBusquedaDTO producto) {
+            Map<String, Integer> frecuencias = new HashMap<>();
+            int longitud = 0;
+            longitud += acumular(frecuencias, producto.getNombre(), PESO_NOMBRE);
+            longitud += acumular(frecuencias, producto.getCategoriaNombre(), PESO_CATEGORIA);
+            longitud += acumular(frecuencias, producto.getDescripcion(), PESO_DESCRIPCION);
+
+            Set<String> palabras = new HashSet<>(AnalizadorTextoEspanol.palabras(producto.getNombre()));
+            palabras.addAll(AnalizadorTextoEspanol.palabras(producto.getCategoriaNombre()));
+            palabras.addAll(AnalizadorTextoEspanol.palabras(producto.getDescripcion()));
+            return new Documento(producto, frecuencias, palabras, longitud);
+        }
+
+        private static int acumular(Map<String, Integer> frecuencias, String texto, int peso) {
+            List<String> terminos = AnalizadorTextoEspanol.terminos(texto);
+            for (String termino : terminos) {
+                frecuencias.merge(termino, peso, Integer::sum);
+            }
+            return terminos.size() * peso;
+        }
+
+        public Long getIdProducto() {
+            return producto.getIdProducto();
+        }
+    }
+
+    /**
+     * Construye un índice a partir de documentos ya analizados.
+     */
+    public static IndiceBusquedaProductos construir(Collection<Documento> documentos) {
+        List<Documento> docs = new ArrayList<>(documentos);
+        docs.sort(Comparator.comparing(Documento::getIdProducto));
+        int n = docs.size();
+
+        Documento[] porPosicion = docs.toArray(new Documento[0]);
+        long[] ids = new long[n];
+        String[] nombres = new String[n];
+        String[] categorias = new String[n];
+        Double[] costos = new Double[n];
+        int[] longitudes = new int[n];
+        Map<Long, Integer> posiciones = new HashMap<>(Math.max(16, n * 2));
+        long longitudTotal = 0;
+
+        // TreeMap para obtener los diccionarios ya ordenados; los documentos se recorren en orden, así que
+        // cada lista de postings queda ordenada por posición
+        TreeMap<String, List<int[]>> postings = new TreeMap<>();
+        TreeMap<String, List<int[]>> docsPorPalabra = new TreeMap<>();
+        for (int i = 0; i < n; i++) {
+            Documento doc = docs.get(i);
+            ubicar(doc, i, ids, nombres, categorias, costos, longitudes);
+            posiciones.put(doc.getIdProducto(), i);
+            longitudTotal += doc.longitud;
+            listar(doc, i, postings, docsPorPalabra);
+        }
+
+        return new IndiceBusquedaProductos(porPosicion, ids, nombres, categorias, costos, longitudes, posiciones, n,
+                longitudTotal, Diccionario.de(postings, true), Diccionario.de(docsPorPalabra, false));
+    }
+
+    /**
+     * Índice nuevo con un lote de cambios aplicado sobre este, que no se modifica.
+     * Solo se rehacen las listas de los términos y palabras que tenían o tienen los productos del lote.
+     *
+     * @param actualizados Productos nuevos o modificados, ya analizados.
+     * @param eliminados   IDs de productos que ya no existen.
+     */
+    public IndiceBusquedaProductos conCambios(Collection<Documento> actualizados, Collection<Long> eliminados) {
+        Map<Long, Integer> nuevasPosiciones = posiciones;
+        int total = ids.length;
+        for (Documento doc : actualizados) {
+            if (!nuevasPosiciones.containsKey(doc.getIdProducto())) {
+                if (nuevasPosiciones == posiciones) {
+                    nuevasPosiciones = new HashMap<>(posiciones);
+                }
+                nuevasPosiciones.put(doc.getIdProducto(), total++);
+            }
+        }
+        Documento[] docs = Arrays.copyOf(documentos, total);
+        long[] nuevosIds = Arrays.copyOf(ids, total);
+        String[] nuevosNombres = Arrays.copyOf(nombres, total);
+        String[] nuevasCategorias = Arrays.copyOf(categorias, total);
+        Double[] nuevosCostos = Arrays.copyOf(costos, total);
+        int[] nuevasLongitudes = Arrays.copyOf(longitudes, total);
+        int nuevosActivos = activos;
+        long nuevaLongitud = longitudTotal;
+
+        // Posiciones cambiadas y, por cada término o palabra que tenían o tienen, sus entradas nuevas
+        Set<Integer> cambiadas = new HashSet<>();
+        TreeMap<String, List<int[]>> terminosTocados = new TreeMap<>();
+        TreeMap<String, List<int[]>> palabrasTocadas = new TreeMap<>();
+        for (Long id : eliminados) {
+            Integer pos = nuevasPosiciones.get(id);
+            if (pos == null || docs[pos] == null) {
+                continue;
+            }
+            tocar(docs[pos], pos, cambiadas, terminosTocados, palabrasTocadas);
+            nuevaLongitud -= docs[pos].longitud;
+            nuevosActivos--;
+            docs[pos] = null;
+            nuevosNombres[pos] = null;
+            nuevasCategorias[pos] = null;
+            nuevosCostos[pos] = null;
+            nuevasLongitudes[pos] = 0;
+        }
+        for (Documento doc : actualizados) {
+            int pos = nuevasPosiciones.get(doc.getIdProducto());
+            if (docs[pos] != null) {
+                tocar(docs[pos], pos, cambiadas, terminosTocados, palabrasTocadas);
+                nuevaLongitud -= docs[pos].longitud;
+                nuevosActivos--;
+            }
+            cambiadas.add(pos);
+            listar(doc, pos, terminosTocados, palabrasTocadas);
+            docs[pos] = doc;
+            ubicar(doc, pos, nuevosIds, nuevosNombres, nuevasCategorias, nuevosCostos, nuevasLongitudes);
+            nuevaLongitud += doc.longitud;
+            nuevosActivos++;
+        }
+
+        return new IndiceBusquedaProductos(docs, nuevosIds, nuevosNombres, nuevasCategorias, nuevosCostos,
+                nuevasLongitudes, nuevasPosiciones, nuevosActivos, nuevaLongitud,
+                raices.conCambios(terminosTocados, cambiadas), vocabulario.conCambios(palabrasTocadas, cambiadas));
+    }
+
+    private static void ubicar(Documento doc, int pos, long[] ids, String[] nombres, String[] categorias,
+                               Double[] costos, int[] longitudes) {
+        ids[pos] = doc.producto.getIdProducto();
+        nombres[pos] = doc.producto.getNombre();
+        categorias[pos] = doc.producto.getCategoriaNombre();
+        costos[pos] = doc.producto.getCostoUnitario();
+        longitudes[pos] = doc.longitud;
+    }
+
+    // Agrega las entradas del documento en su posición a las listas de sus términos y palabras
+    private static void listar(Documento doc, int pos, Map<String, List<int[]>> terminos,
+                               Map<String, List<int[]>> palabras) {
+        for (Map.Entry<String, Integer> entry : doc.frecuencias.entrySet()) {
+            terminos.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(new int[]{pos, entry.getValue()});
+        }
+        for (String palabra : doc.palabras) {
+            palabras.computeIfAbsent(palabra, k -> new ArrayList<>()).add(new int[]{pos, 0});
+        }
+    }
+
+    // Marca para rehacer las listas del documento anterior de una posición, sin entradas nuevas
+    private static void tocar(Documento anterior, int pos, Set<Integer> cambiadas, Map<String, List<int[]>> terminos,
+                              Map<String, List<int[]>> palabras) {
+        cambiadas.add(pos);
+        for (String termino : anterior.frecuencias.keySet()) {
+            terminos.computeIfAbsent(termino, k -> new ArrayList<>());
+        }
+        for (String palabra : anterior.palabras) {
+            palabras.computeIfAbsent(palabra, k -> new ArrayList<>());
+        }
+    }
+
+    /**
+     * Diccionario ordenado de claves con la lista de posiciones de cada una y, para los términos, sus frecuencias.
+     */
+    private record Diccionario(String[] claves, int[][] docs, int[][] frecuencias) {
+
+        static Diccionario de(SortedMap<String, List<int[]>> listas, boolean conFrecuencias) {
+            String[] claves = listas.keySet().toArray(new String[0]);
+            int[][] docs = new int[claves.length][];
+            int[][] frecuencias = conFrecuencias ? new int[claves.length][] : null;
+            int k = 0;
+            for (List<int[]> lista : listas.values()) {
+                llenar(lista, docs, frecuencias, k++);
+            }
+            return new Diccionario(claves, docs, frecuencias);
+        }
+
+        /**
+         * Diccionario con las listas de las claves tocadas rehechas: se quitan las posiciones cambiadas y se
+         * agregan las entradas nuevas. Las demás listas se comparten; una clave sin documentos desaparece.
+         */
+        Diccionario conCambios(SortedMap<String, List<int[]>> tocadas, Set<Integer> cambiadas) {
+            if (tocadas.isEmpty()) {
+                return this;
+            }
+            int capacidad = claves.length + tocadas.size();
+            List<String> nuevasClaves = new ArrayList<>(capacidad);
+            List<int[]> nuevosDocs = new ArrayList<>(capacidad);
+            List<int[]> nuevasFrecuencias = frecuencias != null ? new ArrayList<>(capacidad) : null;
+            int i = 0;
+            for (Map.Entry<String, List<int[]>> tocada : tocadas.entrySet()) {
+                String clave = tocada.getKey();
+                while (i < claves.length && claves[i].compareTo(clave) < 0) {
+                    copiar(i++, nuevasClaves, nuevosDocs, nuevasFrecuencias);
+                }
+                List<int[]> lista = new ArrayList<>(tocada.getValue());
+                if (i < claves.length && claves[i].equals(clave)) {
+                    for (int j = 0; j < docs[i].length; j++) {
+                        if (!cambiadas.contains(docs[i][j])) {
+                            lista.add(new int[]{docs[i][j], frecuencias != null ? frecuencias[i][j] : 0});
+                        }
+                    }
+                    i++;
+                }
+                if (lista.isEmpty()) {
+                    continue;
+                }
+                lista.sort(Comparator.comparingInt(entrada -> entrada[0]));
+                int[][] docsClave = new int[1][];
+                int[][] frecuenciasClave = frecuencias != null ? new int[1][] : null;
+                llenar(lista, docsClave, frecuenciasClave, 0);
+                nuevasClaves.add(clave);
+                nuevosDocs.add(docsClave[0]);
+                if (nuevasFrecuencias != null) {
+                    nuevasFrecuencias.add(frecuenciasClave[0]);
+                }
+            }
+            while (i < claves.length) {
+                copiar(i++, nuevasClaves, nuevosDocs, nuevasFrecuencias);
+            }
+            return new Diccionario(nuevasClaves.toArray(new String[0]), nuevosDocs.toArray(new int[0][]),
+                    nuevasFrecuencias != null ? nuevasFrecuencias.toArray(new int[0][]) : null);
+        }
+
+        private void copiar(int i, List<String> nuevasClaves, List<int[]> nuevosDocs, List<int[]> nuevasFrecuencias) {
+            nuevasClaves.add(claves[i]);
+            nuevosDocs.add(docs[i]);
+            if (nuevasFrecuencias != null) {
+                nuevasFrecuencias.add(frecuencias[i]);
+            }
+        }
+
+        private static void llenar(List<int[]> lista, int[][] docs, int[][] frecuencias, int k) {
+            docs[k] = new int[lista.size()];
+            if (frecuencias != null) {
+                frecuencias[k] = new int[lista.size()];
+            }
+            for (int j = 0; j < lista.size(); j++) {
+                docs[k][j] = lista.get(j)[0];
+                if (frecuencias != null) {
+                    frecuencias[k][j] = lista.get(j)[1];
+                }
+            }
+        }
+    }
+
+    public int tamano() {
+        return activos;
+    }
+
+    /**
+     * Búsqueda de texto completo con ranking BM25. Un producto aparece si contiene al menos uno de los términos;
+     * los que contienen más términos, o términos más raros, quedan primero.
+     */
+    public List<ResultadoBusquedaDTO> buscar(String consulta, int limite) {
+        List<String> consultaTerminos = AnalizadorTextoEspanol.terminos(consulta);
+        if (consultaTerminos.isEmpty() || activos == 0) {
+            return List.of();
+        }
+        Espacio espacio = Espacio.para(ids.length);
+        for (String termino : new LinkedHashSet<>(consultaTerminos)) {
+            int t = Arrays.binarySearch(raices.claves(), termino);
+            if (t >= 0) {
+                sumarBm25(t, espacio, true);
+            }
+        }
+        return mejores(espacio, limite);
+    }
+
+    /**
+     * Autocompletado: las palabras completas de la consulta deben aparecer en el producto
+     * y la última palabra se trata como prefijo.
+     */
+    public List<ResultadoBusquedaDTO> autocompletar(String consulta, int limite) {
+        List<String> entrada = AnalizadorTextoEspanol.palabras(consulta);
+        if (entrada.isEmpty() || activos == 0) {
+            return List.of();
+        }
+        String prefijo = entrada.get(entrada.size() - 1);
+
+        // Rango del prefijo en el diccionario de palabras: [desde, hasta)
+        String[] palabras = vocabulario.claves();
+        int[][] palabrasDocs = vocabulario.docs();
+        int desde = limiteInferior(palabras, prefijo);
+        int hasta = limiteInferior(palabras, prefijo + Character.MAX_VALUE);
+        if (desde >= hasta) {
+            return List.of();
+        }
+
+        // Las palabras previas al prefijo se resuelven primero: si alguna no existe no hay resultados
+        Set<String> previas = new LinkedHashSet<>();
+        for (String palabra : entrada.subList(0, entrada.size() - 1)) {
+            previas.add(AnalizadorTextoEspanol.raiz(palabra));
+        }
+        int[] terminosPrevios = new int[previas.size()];
+        int k = 0;
+        for (String raiz : previas) {
+            int t = Arrays.binarySearch(raices.claves(), raiz);
+            if (t < 0) {
+                return List.of();
+            }
+            terminosPrevios[k++] = t;
+        }
+
+        Espacio espacio = Espacio.para(ids.length);
+        int fin = Math.min(hasta, desde + MAX_EXPANSION_PREFIJO);
+        for (int w = desde; w < fin; w++) {
+            // Palabras raras (más específicas) pesan más; la exacta recibe un extra
+            double peso = idf(palabrasDocs[w].length) + (palabras[w].length() == prefijo.length() ? 1.0 : 0.0);
+            for (int doc : palabrasDocs[w]) {
+                espacio.tocar(doc);
+                if (peso > espacio.puntajes[doc]) {
+                    espacio.puntajes[doc] = peso;
+                }
+            }
+        }
+
+        // Filtro AND por cada palabra previa, que además suma su BM25
+        for (int t : terminosPrevios) {
+            espacio.iniciarFiltro();
+            sumarBm25(t, espacio, false);
+            espacio.conservarFiltrados();
+        }
+        return mejores(espacio, limite);
+    }
+
+    /**
+     * Suma la contribución BM25 del término t. Con agregar=false solo se puntúan los candidatos existentes
+     * y se marcan como presentes para el filtro AND.
+     */
+    private void sumarBm25(int t, Espacio espacio, boolean agregar) {
+        int[] docs = raices.docs()[t];
+        int[] frecuencias = raices.frecuencias()[t];
+        double idf = idf(docs.length);
+        for (int j = 0; j < docs.length; j++) {
+            int doc = docs[j];
+            if (agregar) {
+                espacio.tocar(doc);
+            } else if (!espacio.esCandidato(doc)) {
+                continue;
+            } else {
+                espacio.marcarPresente(doc);
+            }
+            double tf = frecuencias[j];
+            double normalizacion = K1 * (1 - B + B * longitudes[doc] / longitudPromedio);
+            espacio.puntajes[doc] += idf * (tf * (K1 + 1)) / (tf + normalizacion);
+        }
+    }
+
+    private double idf(int frecuenciaDocumento) {
+        return Math.log(1 + (activos - frecuenciaDocumento + 0.5) / (frecuenciaDocumento + 0.5));
+    }
+
+    // Top-k con un montículo mínimo acotado de enteros; empates por nombre más corto y luego por ID menor
+    private List<ResultadoBusquedaDTO> mejores(Espacio espacio, int limite) {
+        double[] puntajes = espacio.puntajes;
+        int[] monticulo = new int[limite];
+        int tamano = 0;
+        for (int c = 0; c < espacio.numCandidatos; c++) {
+            int doc = espacio.candidatos[c];
+            if (tamano < limite) {
+                monticulo[tamano] = doc;
+                subir(monticulo, tamano++, puntajes);
+            } else if (mejorQue(doc, monticulo[0], puntajes)) {
+                monticulo[0] = doc;
+                bajar(monticulo, tamano, puntajes);
+            }
+        }
+        ResultadoBusquedaDTO[] resultado = new ResultadoBusquedaDTO[tamano];
+        for (int i = tamano - 1; i >= 0; i--) {
+            int doc = monticulo[0];
+            resultado[i] = new ResultadoBusquedaDTO(ids[doc], nombres[doc], categorias[doc], costos[doc], puntajes[doc]);
+            monticulo[0] = monticulo[i];
+            bajar(monticulo, i, puntajes);
+        }
+        return Arrays.asList(resultado);
+    }
+
+    private boolean mejorQue(int a, int b, double[] puntajes) {
+        if (puntajes[a] != puntajes[b]) {
+            return puntajes[a] > puntajes[b];
+        }
+        if (longitudNombre(a) != longitudNombre(b)) {
+            return longitudNombre(a) < longitudNombre(b);
+        }
+        return ids[a] < ids[b];
+    }
+
+    private void subir(int[] monticulo, int i, double[] puntajes) {
+        while (i > 0) {
+            int padre = (i - 1) / 2;
+            if (!mejorQue(monticulo[padre], monticulo[i], puntajes)) {
+                return;
+            }
+            intercambiar(monticulo, i, padre);
+            i = padre;
+        }
+    }
+
+    private void bajar(int[] monticulo, int tamano, double[] puntajes) {
+        int i = 0;
+        while (true) {
+            int peor = i;
+            int izquierdo = 2 * i + 1;
+            int derecho = izquierdo + 1;
+            if (izquierdo < tamano && mejorQue(monticulo[peor], monticulo[izquierdo], puntajes)) {
+                peor = izquierdo;
+            }
+            if (derecho < tamano && mejorQue(monticulo[peor], monticulo[derecho], puntajes)) {
+                peor = derecho;
+            }
+            if (peor == i) {
+                return;
+            }
+            intercambiar(monticulo, i, peor);
+            i = peor;
+        }
+    }
+
+    private static void intercambiar(int[] arreglo, int i, int j) {
+        int tmp = arreglo[i];
+        arreglo[i] = arreglo[j];
+        arreglo[j] = tmp;
+    }
+
+    private int longitudNombre(int doc) {
+        return nombres[doc] == null ? Integer.MAX_VALUE : nombres[doc].length();
+    }
+
+    /**
+     * Arreglos de trabajo reutilizados por hilo para no reservar memoria proporcional al catálogo en cada consulta.
+     * Las marcas por generación evitan tener que limpiar los arreglos entre consultas.
+     */
+    private static final class Espacio {
+        private static final ThreadLocal<Espacio> POR_HILO = ThreadLocal.withInitial(Espacio::new);
+
+        double[] puntajes = new double[0];
+        int[] marcas = new int[0];
+        int[] presentes = new int[0];
+        int[] candidatos = new int[0];
+        int numCandidatos;
+        int generacion;
+        int generacionFiltro;
+
+        static Espacio para(int documentos) {
+            Espacio espacio = POR_HILO.get();
+            if (espacio.puntajes.length < documentos) {
+                espacio.puntajes = new double[documentos];
+                espacio.marcas = new int[documentos];
+                espacio.presentes = new int[documentos];
+                espacio.candidatos = new int[documentos];
+                espacio.generacion = 0;
+                espacio.generacionFiltro = 0;
+            }
+            if (espacio.generacion == Integer.MAX_VALUE) {
+                Arrays.fill(espacio.marcas, 0);
+                espacio.generacion = 0;
+            }
+            espacio.generacion++;
+            espacio.numCandidatos = 0;
+            return espacio;
+        }
+
+        void tocar(int doc) {
+            if (marcas[doc] != generacion) {
+                marcas[doc] = generacion;
+                puntajes[doc] = 0;
+                candidatos[numCandidatos++] = doc;
+            }
+        }
+
+        boolean esCandidato(int doc) {
+            return marcas[doc] == generacion;
+        }
+
+        void iniciarFiltro() {
+            if (generacionFiltro == Integer.MAX_VALUE) {
+                Arrays.fill(presentes, 0);
+                generacionFiltro = 0;
+            }
+            generacionFiltro++;
+        }
+
+        void marcarPresente(int doc) {
+            presentes[doc] = generacionFiltro;
+        }
+
+        // Descarta los candidatos que no fueron marcados en el filtro actual
+        void conservarFiltrados() {
+            int j = 0;
+            for (int c = 0; c < numCandidatos; c++) {
+                int doc = candidatos[c];
+                if (presentes[doc] == generacionFiltro) {
+                    candidatos[j++] = doc;
+                } else {
+                    marcas[doc] = 0;
+                }
+            }
+            numCandidatos = j;
+        }
+    }
+
+    private static int limiteInferior(String[] ordenado, String clave) {
+        int pos = Arrays.binarySearch(ordenado, clave);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+}
@@ -2,9 +2,15 @@ package co.edu.uniquindio.oldbaker.services;
 
 import co.edu.uniquindio.oldbaker.dto.InsumoProveedorRequest;
 import co.edu.uniquindio.oldbaker.dto.InsumoProveedorResponse;
+import co.edu.uniquindio.oldbaker.events.CostoInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.Insumo;
 import co.edu.uniquindio.oldbaker.model.InsumoProveedor;
+import co.edu.uniquindio.oldbaker.model.Receta;
 import co.edu.uniquindio.oldbaker.repositories.InsumoProveedorRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
 import co.edu.uniquindio.oldbaker.repositories.ProveedorRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +18,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,10 +28,18 @@ public class InsumoProveedorService {
 
     private final InsumoProveedorRepository insumoProveedorRepository;
     private final ProveedorRepository proveedorRepository;
+    private final InsumoRepository insumoRepository;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public InsumoProveedorService(InsumoProveedorRepository insumoProveedorRepository, ProveedorRepository proveedorRepository) {
+    public InsumoProveedorService(InsumoProveedorRepository insumoProveedorRepository, ProveedorRepository proveedorRepository,
+                                  InsumoRepository insumoRepository, CambiosEntidadService cambiosEntidadService,
+                                  ApplicationEventPublisher eventPublisher) {
         this.insumoProveedorRepository = insumoProveedorRepository;
         this.proveedorRepository = proveedorRepository;
+        this.insumoRepository = insumoRepository;
+        this.cambiosEntidadService = cambiosEntidadService;
+        this.eventPublisher = eventPublisher;
     }
 
     // Paginación de insumos
@@ -58,24 +74,48 @@ public class InsumoProveedorService {
 
     // Crear un nuevo insumo
     public InsumoProveedorResponse crearInsumo(InsumoProveedorRequest request) {
-        InsumoProveedor insumo = toEntity(request);
-        return toDTO(insumoProveedorRepository.save(insumo));
+        InsumoProveedor guardado = insumoProveedorRepository.save(toEntity(request));
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, guardado.getIdInsumo());
+        return toDTO(guardado);
     }
 
     // Actualizar un insumo existente
     public InsumoProveedorResponse actualizarInsumo(Long id, InsumoProveedorRequest request) {
         InsumoProveedor insumo = insumoProveedorRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Insumo no encontrado con ID: " + id));
+        Receta.UnidadMedida unidadCompra = request.getUnidadMedida() != null
+                ? request.getUnidadMedida() : insumo.getUnidadMedida();
+        Insumo inventario = insumo.getInsumo();
+        if (inventario != null && unidadCompra != null
+                && unidadCompra.getMagnitud() != unidadBase(inventario).getMagnitud()) {
+            throw new IllegalArgumentException("El insumo se mide en " + unidadBase(inventario)
+                    + ", no se puede comprar en " + unidadCompra);
+        }
 
         insumo.setNombre(request.getNombre());
         insumo.setDescripcion(request.getDescripcion());
         insumo.setCostoUnitario(request.getCostoUnitario());
         insumo.setFechaVencimiento(request.getFechaVencimiento());
         insumo.setCantidadDisponible(request.getCantidadDisponible());
+        insumo.setUnidadMedida(unidadCompra);
         insumo.setProveedor(proveedorRepository.findById(request.getIdProveedor())
                 .orElseThrow(() -> new RuntimeException("Proveedor no encontrado con ID: " + request.getIdProveedor())));
 
-        return toDTO(insumoProveedorRepository.save(insumo));
+        // El nuevo precio del proveedor pasa, por unidad base, al insumo del inventario que surte y con él al
+        // costeo de productos. Sin unidad de compra no se sabe a cuánto equivale y el inventario conserva su costo
+        if (inventario != null && unidadCompra != null) {
+            Double costo = unidadCompra.precioEnBase(request.getCostoUnitario());
+            if (!Objects.equals(inventario.getCostoUnitario(), costo)) {
+                inventario.setCostoUnitario(costo);
+                insumoRepository.save(inventario);
+                cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, inventario.getIdInsumo());
+                eventPublisher.publishEvent(new CostoInsumoModificadoEvent(Set.of(inventario.getIdInsumo())));
+            }
+        }
+
+        InsumoProveedor guardado = insumoProveedorRepository.save(insumo);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, id);
+        return toDTO(guardado);
     }
 
     // Eliminar un insumo
@@ -84,6 +124,12 @@ public class InsumoProveedorService {
             throw new RuntimeException("Insumo no encontrado con ID: " + id);
         }
         insumoProveedorRepository.deleteById(id);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, id);
+    }
+
+    // Los insumos creados antes de registrar unidades se cuentan por unidades
+    private static Receta.UnidadMedida unidadBase(Insumo insumo) {
+        return insumo.getUnidadMedida() != null ? insumo.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
     }
 
     // Convertir entidad a DTO
@@ -95,6 +141,7 @@ public class InsumoProveedorService {
                 .costoUnitario(insumo.getCostoUnitario())
                 .fechaVencimiento(insumo.getFechaVencimiento())
                 .cantidadDisponible(insumo.getCantidadDisponible())
+                .unidadMedida(insumo.getUnidadMedida())
                 .idProveedor(insumo.getProveedor().getIdProveedor())
                 .build();
     }
@@ -107,6 +154,7 @@ public class InsumoProveedorService {
                 .costoUnitario(request.getCostoUnitario())
                 .fechaVencimiento(request.getFechaVencimiento())
                 .cantidadDisponible(request.getCantidadDisponible())
+                .unidadMedida(request.getUnidadMedida())
                 .proveedor(proveedorRepository.findById(request.getIdProveedor())
                         .orElseThrow(() -> new RuntimeException("Proveedor no encontrado con ID: " + request.getIdProveedor())))
                 .build();
@@ -3,14 +3,26 @@ package co.edu.uniquindio.oldbaker.services;
 
 import co.edu.uniquindio.oldbaker.dto.InsumoRequest;
 import co.edu.uniquindio.oldbaker.dto.InsumoResponse;
+import co.edu.uniquindio.oldbaker.events.CostoInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
 import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.MovimientoInventario;
+import co.edu.uniquindio.oldbaker.model.Receta;
 import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,34 +30,81 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class InsumoService {
     private final InsumoRepository insumoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final InventarioService inventarioService;
 
     public InsumoResponse crearInsumo(InsumoRequest request) {
-        Insumo insumo = toEntity(request);
-        return toDTO(insumoRepository.save(insumo));
+        validarUmbrales(request);
+        Receta.UnidadMedida unidad = request.getUnidadMedida() != null
+                ? request.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
+        Insumo insumo = toEntity(request, unidad);
+        Insumo guardado = insumoRepository.save(insumo);
+        // El stock inicial entra por el libro de inventario
+        long inicial = aMilis(request.getCantidadActual(), unidad, 0L);
+        inventarioService.registrar(guardado.getIdInsumo(), MovimientoInventario.TipoMovimiento.AJUSTE_MANUAL,
+                inicial, "alta");
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, guardado.getIdInsumo());
+        eventPublisher.publishEvent(new StockInsumoModificadoEvent(Set.of(guardado.getIdInsumo())));
+        return toDTO(guardado, inicial);
     }
 
     public InsumoResponse obtenerInsumoPorId(Long id) {
-        return toDTO(insumoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con ID: " + id)));
+        Insumo insumo = insumoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con ID: " + id));
+        return toDTO(insumo, inventarioService.saldo(id));
     }
 
     public List<InsumoResponse> listarInsumos() {
+        Map<Long, Long> saldos = new HashMap<>();
+        insumoRepository.findStock().forEach(s -> saldos.put(s.getIdInsumo(), s.getCantidadActual()));
         return insumoRepository.findAll()
                 .stream()
-                .map(this::toDTO)
+                .map(insumo -> toDTO(insumo, saldos.get(insumo.getIdInsumo())))
                 .collect(Collectors.toList());
     }
 
-    public InsumoResponse actualizarInsumo(Long id, InsumoRequest request) {
+    /**
+     * Insumo con su stock en un instante, calculado desde el libro de inventario.
+     */
+    public InsumoResponse obtenerStockEn(Long id, LocalDateTime fecha) {
         Insumo insumo = insumoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Insumo no encontrado con ID: " + id));
+        return toDTO(insumo, inventarioService.saldoEn(id, fecha));
+    }
+
+    public InsumoResponse actualizarInsumo(Long id, InsumoRequest request) {
+        validarUmbrales(request);
+        // Bloqueado hasta el commit: el ajuste se calcula con el saldo leído y dos ajustes a la vez lo duplicarían
+        Insumo insumo = insumoRepository.findParaActualizar(id)
+                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con ID: " + id));
+
+        Receta.UnidadMedida unidad = request.getUnidadMedida() != null ? request.getUnidadMedida() : unidadBase(insumo);
+        if (unidad.getMagnitud() != unidadBase(insumo).getMagnitud()) {
+            throw new IllegalArgumentException("El insumo se mide en " + unidadBase(insumo) + ", no en " + unidad);
+        }
 
+        Double costo = costoEnBase(request.getCostoUnitario(), unidad);
+        boolean cambioCosto = !Objects.equals(insumo.getCostoUnitario(), costo);
         insumo.setNombre(request.getNombre());
         insumo.setDescripcion(request.getDescripcion());
-        insumo.setCostoUnitario(request.getCostoUnitario());
-        insumo.setCantidadActual(request.getCantidadActual());
+        insumo.setCostoUnitario(costo);
+        insumo.setPuntoReorden(aMilis(request.getPuntoReorden(), unidad, null));
+        insumo.setNivelObjetivo(aMilis(request.getNivelObjetivo(), unidad, null));
+        Insumo guardado = insumoRepository.save(insumo);
 
-        return toDTO(insumoRepository.save(insumo));
+        // El stock enviado es absoluto: se registra la diferencia con el saldo vigente como ajuste
+        long saldo = inventarioService.saldo(id);
+        long nuevo = aMilis(request.getCantidadActual(), unidad, saldo);
+        inventarioService.registrar(id, MovimientoInventario.TipoMovimiento.AJUSTE_MANUAL, nuevo - saldo, "ajuste");
+
+        InsumoResponse response = toDTO(guardado, nuevo);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, id);
+        eventPublisher.publishEvent(new StockInsumoModificadoEvent(Set.of(id)));
+        if (cambioCosto) {
+            eventPublisher.publishEvent(new CostoInsumoModificadoEvent(Set.of(id)));
+        }
+        return response;
     }
 
     public void eliminarInsumo(Long id) {
@@ -53,24 +112,61 @@ public class InsumoService {
             throw new RuntimeException("Insumo no encontrado con ID: " + id);
         }
         insumoRepository.deleteById(id);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, id);
+    }
+
+    // El nivel objetivo es hasta donde se repone: debe quedar por encima del punto de reorden
+    private void validarUmbrales(InsumoRequest request) {
+        if ((request.getPuntoReorden() == null) != (request.getNivelObjetivo() == null)) {
+            throw new IllegalArgumentException("El punto de reorden y el nivel objetivo se definen juntos");
+        }
+        if (request.getPuntoReorden() != null && request.getNivelObjetivo() <= request.getPuntoReorden()) {
+            throw new IllegalArgumentException("El nivel objetivo debe ser mayor que el punto de reorden");
+        }
+    }
+
+    // Cantidad de la solicitud, en la unidad indicada, a milésimas de la unidad base del insumo
+    private static Long aMilis(Double cantidad, Receta.UnidadMedida unidad, Long porDefecto) {
+        return cantidad != null ? CantidadFija.aBase(CantidadFija.deDecimal(cantidad), unidad) : porDefecto;
+    }
+
+    // Costo de la solicitud, por la unidad indicada, a costo por unidad base: el costeo lo multiplica por milésimas
+    // de la unidad base
+    private static Double costoEnBase(Double costo, Receta.UnidadMedida unidad) {
+        return costo != null ? unidad.precioEnBase(costo) : null;
+    }
+
+    private static Double aDecimal(Long milis) {
+        return milis != null ? CantidadFija.aDecimal(milis) : null;
+    }
+
+    // Los insumos creados antes de registrar unidades se cuentan por unidades
+    private static Receta.UnidadMedida unidadBase(Insumo insumo) {
+        return insumo.getUnidadMedida() != null ? insumo.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
     }
 
-    private InsumoResponse toDTO(Insumo insumo) {
+    private InsumoResponse toDTO(Insumo insumo, Long cantidadActual) {
         return InsumoResponse.builder()
                 .idInsumo(insumo.getIdInsumo())
                 .nombre(insumo.getNombre())
                 .descripcion(insumo.getDescripcion())
                 .costoUnitario(insumo.getCostoUnitario())
-                .cantidadActual(insumo.getCantidadActual())
+                .unidadMedida(unidadBase(insumo))
+                .cantidadActual(aDecimal(cantidadActual))
+                .puntoReorden(aDecimal(insumo.getPuntoReorden()))
+                .nivelObjetivo(aDecimal(insumo.getNivelObjetivo()))
                 .build();
     }
 
-    private Insumo toEntity(InsumoRequest request) {
+    private Insumo toEntity(InsumoRequest request, Receta.UnidadMedida unidad) {
         return Insumo.builder()
                 .nombre(request.getNombre())
                 .descripcion(request.getDescripcion())
-                .costoUnitario(request.getCostoUnitario())
-                .cantidadActual(request.getCantidadActual())
+                .costoUnitario(costoEnBase(request.getCostoUnitario(), unidad))
+                .unidadMedida(unidad.base())
+                .cantidadActual(0L)
+                .puntoReorden(aMilis(request.getPuntoReorden(), unidad, null))
+                .nivelObjetivo(aMilis(request.getNivelObjetivo(), unidad, null))
                 .insumoProveedor(null)
                 .build();
     }
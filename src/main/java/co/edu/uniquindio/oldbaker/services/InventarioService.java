@@ -0,0 +1,304 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.SaldoPendienteDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.LoteInsumo;
+import co.edu.uniquindio.oldbaker.model.MovimientoInventario;
+import co.edu.uniquindio.oldbaker.model.SnapshotInventario;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.MovimientoInventarioRepository;
+import co.edu.uniquindio.oldbaker.repositories.SnapshotInventarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+
+/**
+ * Libro de inventario de insumos.
+ *
+ * Cada cambio de stock se registra como un movimiento inmutable; las operaciones de negocio solo insertan filas
+ * y nunca leen ni reescriben el saldo del insumo, así que no hay actualizaciones perdidas entre transacciones
+ * concurrentes. El stock vigente es el saldo del último cierre guardado en el insumo más la cola de movimientos
+ * posteriores. Un proceso periódico cierra esa cola: guarda un snapshot histórico y mueve el saldo del insumo.
+ *
+ * El cierre solo incorpora movimientos con más de un margen de antigüedad y nunca pasa de un hueco en la
+ * secuencia de ids: un id que falta es una transacción que aún no confirma o que se revirtió. El cierre se
+ * detiene justo antes del hueco hasta que el movimiento aparece o vence la espera, así una transacción lenta
+ * con un id menor no queda fuera del saldo.
+ *
+ * Cada entrada abre además un lote y cada salida se descuenta de los lotes en orden FEFO (ver LoteInsumoService).
+ * Todas las cantidades son milésimas de la unidad base del insumo (ver CantidadFija).
+ */
+@Service
+@Slf4j
+public class InventarioService {
+
+    // Fecha del saldo base: el stock que tenía el insumo antes de su primer movimiento registrado
+    private static final LocalDateTime INICIO_LIBRO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    // Un salto mayor en la secuencia no se rastrea como huecos individuales
+    private static final int MAX_HUECOS_POR_SALTO = 1000;
+
+    private final MovimientoInventarioRepository movimientoRepository;
+    private final SnapshotInventarioRepository snapshotRepository;
+    private final InsumoRepository insumoRepository;
+    private final LoteInsumoService loteInsumoService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration margen;
+    private final Duration esperaHuecos;
+
+    // Ids que faltan en la secuencia, con el instante a partir del cual se dan por revertidos
+    private final Map<Long, LocalDateTime> huecos = new HashMap<>();
+    // Tramo de la secuencia sin huecos pendientes; -1 hasta la primera ejecución
+    private long resueltoHasta = -1;
+
+    public InventarioService(MovimientoInventarioRepository movimientoRepository,
+                             SnapshotInventarioRepository snapshotRepository,
+                             InsumoRepository insumoRepository,
+                             LoteInsumoService loteInsumoService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${inventario.snapshot.margen-segundos:60}") long margenSegundos,
+                             @Value("${inventario.snapshot.espera-huecos-segundos:1800}") long esperaHuecosSegundos) {
+        this.movimientoRepository = movimientoRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.insumoRepository = insumoRepository;
+        this.loteInsumoService = loteInsumoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.margen = Duration.ofSeconds(margenSegundos);
+        this.esperaHuecos = Duration.ofSeconds(esperaHuecosSegundos);
+    }
+
+    /**
+     * Registra un movimiento de stock en la transacción actual.
+     *
+     * @param idInsumo   ID del insumo.
+     * @param tipo       Tipo de movimiento.
+     * @param cantidad   Cantidad con signo en milésimas: positiva para entradas, negativa para salidas.
+     * @param referencia Origen del movimiento.
+     */
+    @Transactional
+    public void registrar(Long idInsumo, MovimientoInventario.TipoMovimiento tipo, long cantidad, String referencia) {
+        registrar(List.of(movimiento(idInsumo, tipo, cantidad, referencia)));
+    }
+
+    /**
+     * Registra varios movimientos en la transacción actual. Los de cantidad cero se descartan.
+     * Las entradas abren un lote y las salidas se asignan a los lotes que vencen primero.
+     * Una venta que los lotes vigentes no cubren se registra igual y se avisa; otra salida sin lote se rechaza.
+     *
+     * @throws IllegalStateException Si los lotes no cubren una salida que no es una venta.
+     */
+    @Transactional
+    public void registrar(Collection<MovimientoInventario> movimientos) {
+        List<MovimientoInventario> validos = movimientos.stream()
+                .filter(m -> m.getCantidad() != null && m.getCantidad() != 0)
+                .toList();
+        if (validos.isEmpty()) {
+            return;
+        }
+        movimientoRepository.saveAll(validos);
+
+        List<LoteInsumo> entradas = new ArrayList<>();
+        List<MovimientoInventario> salidas = new ArrayList<>();
+        for (MovimientoInventario movimiento : validos) {
+            if (movimiento.getCantidad() > 0) {
+                entradas.add(LoteInsumo.builder()
+                        .idInsumo(movimiento.getIdInsumo())
+                        .cantidadInicial(movimiento.getCantidad())
+                        .fechaVencimiento(movimiento.getVencimientoLote())
+                        .referencia(movimiento.getReferencia())
+                        .build());
+            } else {
+                salidas.add(movimiento);
+            }
+        }
+        loteInsumoService.recibir(entradas);
+        // Siempre en el mismo orden de insumo, para que dos salidas concurrentes no se bloqueen en cruz
+        salidas.sort(Comparator.comparing(MovimientoInventario::getIdInsumo));
+        Map<Long, Long> ventasSinLote = new LinkedHashMap<>();
+        Set<String> referencias = new LinkedHashSet<>();
+        for (MovimientoInventario salida : salidas) {
+            long sinLote = loteInsumoService.consumir(salida.getIdInsumo(), -salida.getCantidad(),
+                    admiteVencidos(salida.getTipo()));
+            if (sinLote == 0) {
+                continue;
+            }
+            // Una venta ya está pagada: se confirma igual y la diferencia queda como stock sin lote con un aviso.
+            // Las demás salidas se deciden en el momento y se rechazan
+            if (salida.getTipo() != MovimientoInventario.TipoMovimiento.VENTA) {
+                throw new IllegalStateException(String.format("Los lotes del insumo %d no cubren la salida de %s: faltan %s",
+                        salida.getIdInsumo(), CantidadFija.aTexto(-salida.getCantidad()), CantidadFija.aTexto(sinLote)));
+            }
+            ventasSinLote.merge(salida.getIdInsumo(), sinLote, Long::sum);
+            referencias.add(salida.getReferencia());
+        }
+        loteInsumoService.alertarSinLote(ventasSinLote, String.join(", ", referencias));
+    }
+
+    /**
+     * Construye un movimiento sin guardarlo, para registrarlo junto con otros.
+     */
+    public static MovimientoInventario movimiento(Long idInsumo, MovimientoInventario.TipoMovimiento tipo,
+                                                  long cantidad, String referencia) {
+        return MovimientoInventario.builder()
+                .idInsumo(idInsumo)
+                .tipo(tipo)
+                .cantidad(cantidad)
+                .referencia(referencia)
+                .build();
+    }
+
+    /**
+     * Construye la entrada de un lote con su fecha de vencimiento, sin guardarla.
+     */
+    public static MovimientoInventario recepcion(Long idInsumo, long cantidad, String referencia,
+                                                 LocalDate vencimiento) {
+        MovimientoInventario movimiento = movimiento(idInsumo, MovimientoInventario.TipoMovimiento.RECEPCION_COMPRA,
+                cantidad, referencia);
+        movimiento.setVencimientoLote(vencimiento);
+        return movimiento;
+    }
+
+    /**
+     * Stock vigente de un insumo.
+     */
+    @Transactional(readOnly = true)
+    public long saldo(Long idInsumo) {
+        return saldos(List.of(idInsumo)).getOrDefault(idInsumo, 0L);
+    }
+
+    /**
+     * Stock vigente de varios insumos en una consulta.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Long> saldos(Collection<Long> idsInsumo) {
+        Map<Long, Long> saldos = new HashMap<>();
+        if (idsInsumo.isEmpty()) {
+            return saldos;
+        }
+        for (StockInsumoDTO stock : insumoRepository.findStockByIds(idsInsumo)) {
+            saldos.put(stock.getIdInsumo(), stock.getCantidadActual() != null ? stock.getCantidadActual() : 0L);
+        }
+        return saldos;
+    }
+
+    /**
+     * Stock de un insumo en un instante: último snapshot anterior a la fecha más los movimientos
+     * registrados después de él y hasta la fecha.
+     *
+     * @param idInsumo ID del insumo.
+     * @param fecha    Instante consultado.
+     * @return El saldo en ese instante.
+     */
+    @Transactional(readOnly = true)
+    public long saldoEn(Long idInsumo, LocalDateTime fecha) {
+        Optional<SnapshotInventario> snapshot =
+                snapshotRepository.findFirstByIdInsumoAndFechaLessThanEqualOrderByFechaDesc(idInsumo, fecha);
+        if (snapshot.isPresent()) {
+            return snapshot.get().getSaldo()
+                    + movimientoRepository.sumarDesde(idInsumo, snapshot.get().getIdUltimoMovimiento(), fecha);
+        }
+        // Sin snapshots el insumo nunca se ha cerrado: su saldo guardado sigue siendo el base
+        Insumo insumo = insumoRepository.findById(idInsumo)
+                .orElseThrow(() -> new IllegalArgumentException("Insumo no encontrado con ID: " + idInsumo));
+        long base = insumo.getCantidadActual() != null ? insumo.getCantidadActual() : 0L;
+        long desde = insumo.getIdUltimoMovimiento() != null ? insumo.getIdUltimoMovimiento() : 0L;
+        return base + movimientoRepository.sumarDesde(idInsumo, desde, fecha);
+    }
+
+    /**
+     * Cierra la cola de movimientos de los insumos que tienen movimientos nuevos.
+     *
+     * @return El número de insumos cerrados.
+     */
+    @Scheduled(fixedDelayString = "${inventario.snapshot-ms:300000}")
+    public synchronized int cerrarSaldos() {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (resueltoHasta < 0) {
+            resueltoHasta = insumoRepository.findUltimoMovimientoCerrado();
+        }
+        long hasta = resolverHasta(movimientoRepository.findUltimoIdAntesDe(ahora.minus(margen)), ahora);
+        if (hasta == 0) {
+            return 0;
+        }
+        Integer cerrados = transactionTemplate.execute(status -> {
+            List<SnapshotInventario> snapshots = new ArrayList<>();
+            int total = 0;
+            for (SaldoPendienteDTO pendiente : insumoRepository.findSaldosPendientes(hasta)) {
+                long base = pendiente.getSaldoBase() != null ? pendiente.getSaldoBase() : 0L;
+                long anterior = pendiente.getIdUltimoMovimiento() != null ? pendiente.getIdUltimoMovimiento() : 0L;
+                long saldo = base + pendiente.getSuma();
+                if (insumoRepository.cerrarSaldo(pendiente.getIdInsumo(), saldo, pendiente.getIdHasta(), anterior) == 0) {
+                    continue;
+                }
+                if (pendiente.getIdUltimoMovimiento() == null) {
+                    // Primer cierre: se conserva el saldo previo al libro para las consultas históricas
+                    snapshots.add(snapshot(pendiente.getIdInsumo(), base, 0L, INICIO_LIBRO));
+                }
+                snapshots.add(snapshot(pendiente.getIdInsumo(), saldo, pendiente.getIdHasta(), ahora));
+                total++;
+            }
+            snapshotRepository.saveAll(snapshots);
+            return total;
+        });
+        resueltoHasta = hasta;
+        huecos.keySet().removeIf(id -> id <= hasta);
+        if (cerrados != null && cerrados > 0) {
+            log.debug("Saldos de inventario cerrados: {}", cerrados);
+        }
+        return cerrados != null ? cerrados : 0;
+    }
+
+    /**
+     * Último id hasta el que se puede cerrar: el tope, o el id anterior al primer hueco que aún se espera.
+     * Los huecos nuevos del tramo se registran con su plazo; los vencidos se dan por revertidos.
+     */
+    private long resolverHasta(long tope, LocalDateTime ahora) {
+        if (tope <= resueltoHasta) {
+            return resueltoHasta;
+        }
+        long hasta = tope;
+        long esperado = resueltoHasta + 1;
+        for (Long id : movimientoRepository.findIdsEntre(resueltoHasta, tope)) {
+            if (id - esperado <= MAX_HUECOS_POR_SALTO) {
+                for (long hueco = esperado; hueco < id; hueco++) {
+                    LocalDateTime limite = huecos.computeIfAbsent(hueco, h -> ahora.plus(esperaHuecos));
+                    if (limite.isAfter(ahora) && hueco - 1 < hasta) {
+                        hasta = hueco - 1;
+                    }
+                }
+            }
+            huecos.remove(id);
+            esperado = id + 1;
+        }
+        if (hasta < tope) {
+            log.debug("Cierre de inventario detenido en {}: el movimiento {} aún no confirma", hasta, hasta + 1);
+        }
+        return hasta;
+    }
+
+    // Ventas y producción no usan insumo vencido; los ajustes y devoluciones sí, para dar de baja esos lotes
+    private static boolean admiteVencidos(MovimientoInventario.TipoMovimiento tipo) {
+        return tipo != MovimientoInventario.TipoMovimiento.VENTA
+                && tipo != MovimientoInventario.TipoMovimiento.PRODUCCION;
+    }
+
+    private SnapshotInventario snapshot(Long idInsumo, long saldo, Long idUltimoMovimiento, LocalDateTime fecha) {
+        return SnapshotInventario.builder()
+                .idInsumo(idInsumo)
+                .saldo(saldo)
+                .idUltimoMovimiento(idUltimoMovimiento)
+                .fecha(fecha)
+                .build();
+    }
+}
@@ -0,0 +1,406 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.LoteVencimientoDTO;
+import co.edu.uniquindio.oldbaker.dto.ResumenInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.CambioRemotoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import co.edu.uniquindio.oldbaker.model.LoteInsumo;
+import co.edu.uniquindio.oldbaker.repositories.CheckpointProcesoRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.LoteInsumoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Lotes de insumos con asignación FEFO (primero en vencer, primero en salir).
+ *
+ * Cada entrada de stock crea un lote con su fecha de vencimiento y cada salida se reparte entre los lotes que
+ * vencen primero. Los lotes disponibles de cada insumo se mantienen en memoria en una cola de prioridad, cargada
+ * la primera vez que se usa el insumo; así la asignación no consulta todos los lotes en cada venta. La base
+ * de datos sigue siendo la fuente de verdad: cada descuento es un UPDATE condicional y, si falla porque la cola
+ * estaba desactualizada (otro nodo consumió o recibió), la cola se recarga y se reintenta lo que falta.
+ *
+ * La cola es compartida por todas las transacciones, así que se lee en una transacción propia READ_COMMITTED:
+ * dentro de la transacción del llamador (SERIALIZABLE al pagar) la lectura quedaría fija en una foto vieja y
+ * tomaría bloqueos de rango. Entre lotes que vencen el mismo día se empieza por uno al azar, para que las
+ * ventas concurrentes no se encolen todas en la fila del mismo lote.
+ *
+ * Los lotes son un detalle del libro de inventario: el saldo de cada insumo sigue siendo la suma de sus
+ * movimientos, y los lotes indican de qué entradas sale ese saldo. Una salida que los lotes no cubren queda
+ * registrada completa en el libro y la parte sin lote se informa al llamador, que decide si la rechaza.
+ */
+@Service
+@Slf4j
+public class LoteInsumoService {
+
+    private static final String CHECKPOINT_APERTURA = "lotes-apertura";
+    private static final String CHECKPOINT_REPORTE = "reporte-vencimientos";
+    private static final String PLANTILLA_REPORTE = "vencimientos-insumos";
+    private static final String PLANTILLA_SIN_LOTE = "salidas-sin-lote";
+    private static final int MAX_INTENTOS = 3;
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Sin vencimiento al final; a igual vencimiento, el lote más antiguo primero
+    private static final Comparator<LoteDisponible> ORDEN_FEFO = Comparator
+            .comparing((LoteDisponible l) -> l.vencimiento, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(l -> l.idLote);
+
+    private final LoteInsumoRepository loteRepository;
+    private final InsumoRepository insumoRepository;
+    private final CheckpointProcesoRepository checkpointRepository;
+    private final MailService mailService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate lecturaCola;
+    private final int diasReporte;
+    private final String destinatarioReporte;
+
+    private final Map<Long, PriorityQueue<LoteDisponible>> disponibles = new ConcurrentHashMap<>();
+
+    public LoteInsumoService(LoteInsumoRepository loteRepository,
+                             InsumoRepository insumoRepository,
+                             CheckpointProcesoRepository checkpointRepository,
+                             MailService mailService,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${lotes.reporte-vencimiento.dias:3}") int diasReporte,
+                             @Value("${lotes.reporte-vencimiento.destinatario:}") String destinatarioReporte) {
+        this.loteRepository = loteRepository;
+        this.insumoRepository = insumoRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.mailService = mailService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lecturaCola = new TransactionTemplate(transactionManager);
+        this.lecturaCola.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lecturaCola.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.lecturaCola.setReadOnly(true);
+        this.diasReporte = diasReporte;
+        this.destinatarioReporte = destinatarioReporte;
+    }
+
+    /**
+     * Guarda lotes nuevos en la transacción actual y los agrega a las colas ya cargadas.
+     */
+    @Transactional
+    public void recibir(Collection<LoteInsumo> lotes) {
+        if (lotes.isEmpty()) {
+            return;
+        }
+        List<LoteInsumo> guardados = loteRepository.saveAll(lotes);
+        Set<Long> insumos = new HashSet<>();
+        for (LoteInsumo lote : guardados) {
+            insumos.add(lote.getIdInsumo());
+            // La cola se lee fuera de esta transacción y no vería el lote recién insertado: se agrega a mano
+            PriorityQueue<LoteDisponible> cola = disponibles.get(lote.getIdInsumo());
+            if (cola == null) {
+                cola = cargar(lote.getIdInsumo());
+            }
+            synchronized (cola) {
+                cola.add(new LoteDisponible(lote.getId(), lote.getFechaVencimiento(), lote.getCantidadDisponible()));
+            }
+        }
+        descartarSiSeRevierte(insumos);
+    }
+
+    /**
+     * Descuenta una salida de los lotes del insumo en orden FEFO, dentro de la transacción actual.
+     *
+     * @param idInsumo        ID del insumo.
+     * @param cantidad        Cantidad a descontar en milésimas, positiva.
+     * @param incluirVencidos Si la salida puede tomar lotes vencidos (mermas y ajustes); las ventas y la
+     *                        producción los omiten.
+     * @return Lo que los lotes no cubrieron, en milésimas; 0 si la salida quedó asignada completa.
+     */
+    @Transactional
+    public long consumir(Long idInsumo, long cantidad, boolean incluirVencidos) {
+        if (cantidad <= 0) {
+            return 0;
+        }
+        descartarSiSeRevierte(Set.of(idInsumo));
+        LocalDate hoy = LocalDate.now();
+        long pendiente = cantidad;
+        // Lo descontado en esta llamada: la relectura corre en otra transacción y aún no lo ve
+        Map<Long, Long> descontado = new HashMap<>();
+        for (int intento = 0; intento < MAX_INTENTOS && pendiente > 0; intento++) {
+            PriorityQueue<LoteDisponible> cola = disponibles.get(idInsumo);
+            boolean recienCargada = cola == null;
+            if (recienCargada) {
+                cola = cargar(idInsumo, descontado);
+            }
+
+            Map<Long, Long> plan = planificar(cola, pendiente, incluirVencidos, hoy);
+            boolean conflicto = false;
+            for (Map.Entry<Long, Long> asignacion : plan.entrySet()) {
+                if (loteRepository.consumir(asignacion.getKey(), asignacion.getValue()) == 1) {
+                    pendiente -= asignacion.getValue();
+                    descontado.merge(asignacion.getKey(), asignacion.getValue(), Long::sum);
+                } else {
+                    conflicto = true;
+                }
+            }
+            if (!conflicto && (pendiente == 0 || recienCargada)) {
+                // Completo, o la vista recién leída de la base tampoco alcanza: recargar no cambiaría nada
+                break;
+            }
+            // La cola estaba desactualizada: se relee de la base
+            disponibles.remove(idInsumo);
+        }
+
+        if (pendiente > 0) {
+            log.warn("Los lotes {}del insumo {} no cubren la salida de {}: faltan {}",
+                    incluirVencidos ? "" : "vigentes ", idInsumo, CantidadFija.aTexto(cantidad),
+                    CantidadFija.aTexto(pendiente));
+        }
+        return pendiente;
+    }
+
+    /**
+     * Avisa de salidas ya confirmadas (ventas pagadas) que quedaron sin lote: el stock físico no respalda lo que
+     * dice el libro, por ejemplo porque solo quedaban lotes vencidos. Se registra en el log y, si hay destinatario
+     * configurado, se encola un correo en la transacción del llamador, de modo que el aviso existe solo si la salida
+     * se confirma.
+     *
+     * @param sinLote    Cantidad sin lote por insumo, en milésimas.
+     * @param referencia Origen de las salidas.
+     */
+    @Transactional
+    public void alertarSinLote(Map<Long, Long> sinLote, String referencia) {
+        if (sinLote.isEmpty()) {
+            return;
+        }
+        log.error("Salidas sin lote en {}: {}", referencia, sinLote);
+        if (destinatarioReporte == null || destinatarioReporte.isBlank()) {
+            return;
+        }
+        Map<Long, String> nombres = new HashMap<>();
+        for (ResumenInsumoDTO insumo : insumoRepository.findResumenByIds(sinLote.keySet())) {
+            nombres.put(insumo.getIdInsumo(), insumo.getNombre());
+        }
+        List<Map<String, Object>> filas = new ArrayList<>();
+        for (Map.Entry<Long, Long> faltante : sinLote.entrySet()) {
+            filas.add(Map.of(
+                    "insumo", nombres.getOrDefault(faltante.getKey(), "Insumo " + faltante.getKey()),
+                    "cantidad", CantidadFija.aTexto(faltante.getValue())));
+        }
+        mailService.encolarEmail(destinatarioReporte, "Salidas sin lote - OldBaker", PLANTILLA_SIN_LOTE,
+                Locale.getDefault(), Map.of("referencia", referencia, "insumos", filas));
+    }
+
+    /**
+     * Lotes con existencias que vencen dentro de los próximos días, incluidos los ya vencidos.
+     */
+    @Transactional(readOnly = true)
+    public List<LoteVencimientoDTO> porVencer(int dias) {
+        if (dias < 0) {
+            throw new IllegalArgumentException("Los días del reporte no pueden ser negativos");
+        }
+        return loteRepository.findPorVencer(LocalDate.now().plusDays(dias));
+    }
+
+    /**
+     * Reporte nocturno de vencimientos. Se registra en el log y, si hay destinatario configurado, se encola un
+     * correo. El checkpoint bloqueado evita que varios nodos envíen el reporte del mismo día.
+     *
+     * @return El número de lotes reportados.
+     */
+    @Scheduled(cron = "${lotes.reporte-vencimiento.cron:0 0 5 * * *}")
+    public int reportarVencimientos() {
+        Integer reportados = transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            CheckpointProceso checkpoint = checkpointRepository.findParaActualizar(CHECKPOINT_REPORTE)
+                    .orElseGet(() -> checkpointRepository.save(CheckpointProceso.builder()
+                            .nombre(CHECKPOINT_REPORTE)
+                            .ultimaFecha(INICIO)
+                            .ultimoId(0L)
+                            .build()));
+            if (!checkpoint.getUltimaFecha().toLocalDate().isBefore(ahora.toLocalDate())) {
+                return 0;
+            }
+            checkpoint.setUltimaFecha(ahora);
+
+            List<LoteVencimientoDTO> lotes = porVencer(diasReporte);
+            if (lotes.isEmpty()) {
+                return 0;
+            }
+            LocalDate hoy = ahora.toLocalDate();
+            for (LoteVencimientoDTO lote : lotes) {
+                log.info("Lote {} de {}: {} {} {}", lote.getIdLote(), lote.getNombreInsumo(),
+                        lote.getCantidadDisponible(),
+                        lote.getFechaVencimiento().isBefore(hoy) ? "vencidas desde" : "vencen el",
+                        lote.getFechaVencimiento());
+            }
+            if (destinatarioReporte != null && !destinatarioReporte.isBlank()) {
+                mailService.encolarEmail(destinatarioReporte, "Insumos por vencer - OldBaker", PLANTILLA_REPORTE,
+                        Locale.getDefault(), variablesReporte(lotes, hoy));
+            }
+            return lotes.size();
+        });
+        return reportados != null ? reportados : 0;
+    }
+
+    /**
+     * Crea un lote de apertura sin vencimiento para el stock que no está cubierto por lotes, una sola vez: el
+     * stock anterior a los lotes no tiene fecha conocida. Corre al arrancar y no hace nada si otro nodo ya la hizo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void abrirLotesIniciales() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (checkpointRepository.findParaActualizar(CHECKPOINT_APERTURA).isPresent()) {
+                    return;
+                }
+                checkpointRepository.save(CheckpointProceso.builder()
+                        .nombre(CHECKPOINT_APERTURA)
+                        .ultimaFecha(LocalDateTime.now())
+                        .ultimoId(0L)
+                        .build());
+
+                Map<Long, Long> enLotes = new HashMap<>();
+                for (StockInsumoDTO stock : loteRepository.findDisponiblePorInsumo()) {
+                    enLotes.put(stock.getIdInsumo(), stock.getCantidadActual());
+                }
+                List<LoteInsumo> apertura = new ArrayList<>();
+                for (StockInsumoDTO stock : insumoRepository.findStock()) {
+                    long sinLote = stock.getCantidadActual() - enLotes.getOrDefault(stock.getIdInsumo(), 0L);
+                    if (sinLote > 0) {
+                        apertura.add(LoteInsumo.builder()
+                                .idInsumo(stock.getIdInsumo())
+                                .cantidadInicial(sinLote)
+                                .referencia("apertura")
+                                .build());
+                    }
+                }
+                recibir(apertura);
+                log.info("Lotes de apertura creados: {}", apertura.size());
+            });
+        } catch (RuntimeException e) {
+            // Otro nodo creó el checkpoint al mismo tiempo y su transacción hace la apertura
+            log.warn("No se crearon los lotes de apertura: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCambioRemoto(CambioRemotoEvent event) {
+        if (event.getEntidad() == CambioEntidad.TipoEntidad.INSUMO) {
+            event.getIds().forEach(disponibles::remove);
+        }
+    }
+
+    // Toma de la cola lo que cubre la cantidad y descuenta en memoria de forma tentativa
+    private Map<Long, Long> planificar(PriorityQueue<LoteDisponible> cola, long cantidad,
+                                          boolean incluirVencidos, LocalDate hoy) {
+        Map<Long, Long> plan = new LinkedHashMap<>();
+        synchronized (cola) {
+            List<LoteDisponible> devolver = new ArrayList<>();
+            long restante = cantidad;
+            while (restante > 0 && !cola.isEmpty()) {
+                LoteDisponible primero = cola.poll();
+                if (!incluirVencidos && primero.vencidoEn(hoy)) {
+                    devolver.add(primero);
+                    continue;
+                }
+                // Los lotes que vencen el mismo día son intercambiables para FEFO: se empieza por uno al azar
+                List<LoteDisponible> mismoDia = new ArrayList<>(List.of(primero));
+                while (!cola.isEmpty() && Objects.equals(cola.peek().vencimiento, primero.vencimiento)) {
+                    mismoDia.add(cola.poll());
+                }
+                Collections.rotate(mismoDia, ThreadLocalRandom.current().nextInt(mismoDia.size()));
+                for (LoteDisponible lote : mismoDia) {
+                    long tomado = Math.min(lote.cantidad, restante);
+                    if (tomado > 0) {
+                        lote.cantidad -= tomado;
+                        restante -= tomado;
+                        plan.put(lote.idLote, tomado);
+                    }
+                    if (lote.cantidad > 0) {
+                        devolver.add(lote);
+                    }
+                }
+            }
+            cola.addAll(devolver);
+        }
+        return plan;
+    }
+
+    private PriorityQueue<LoteDisponible> cargar(Long idInsumo) {
+        return cargar(idInsumo, Map.of());
+    }
+
+    // Lee los lotes con lo último confirmado, sin tocar la transacción del llamador; "descontado" es lo que el
+    // llamador ya descontó y la lectura todavía no ve
+    private PriorityQueue<LoteDisponible> cargar(Long idInsumo, Map<Long, Long> descontado) {
+        List<LoteInsumo> lotes = lecturaCola.execute(status -> loteRepository.findDisponibles(idInsumo));
+        PriorityQueue<LoteDisponible> cola = new PriorityQueue<>(ORDEN_FEFO);
+        for (LoteInsumo lote : lotes != null ? lotes : List.<LoteInsumo>of()) {
+            long cantidad = lote.getCantidadDisponible() - descontado.getOrDefault(lote.getId(), 0L);
+            if (cantidad > 0) {
+                cola.add(new LoteDisponible(lote.getId(), lote.getFechaVencimiento(), cantidad));
+            }
+        }
+        PriorityQueue<LoteDisponible> previa = disponibles.putIfAbsent(idInsumo, cola);
+        return previa != null ? previa : cola;
+    }
+
+    // Los descuentos en memoria son tentativos: si la transacción no confirma, las colas se vuelven a leer
+    private void descartarSiSeRevierte(Set<Long> idsInsumo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    idsInsumo.forEach(disponibles::remove);
+                }
+            }
+        });
+    }
+
+    private Map<String, Object> variablesReporte(List<LoteVencimientoDTO> lotes, LocalDate hoy) {
+        List<Map<String, Object>> filas = new ArrayList<>();
+        for (LoteVencimientoDTO lote : lotes) {
+            filas.add(Map.of(
+                    "insumo", lote.getNombreInsumo(),
+                    "lote", lote.getIdLote(),
+                    "cantidad", lote.getCantidadDisponible(),
+                    "vencimiento", lote.getFechaVencimiento().toString(),
+                    "vencido", lote.getFechaVencimiento().isBefore(hoy)));
+        }
+        return Map.of("fecha", hoy.toString(), "dias", diasReporte, "lotes", filas);
+    }
+
+    private static final class LoteDisponible {
+        private final Long idLote;
+        private final LocalDate vencimiento;
+        private long cantidad;
+
+        private LoteDisponible(Long idLote, LocalDate vencimiento, long cantidad) {
+            this.idLote = idLote;
+            this.vencimiento = vencimiento;
+            this.cantidad = cantidad;
+        }
+
+        // Un lote se puede usar hasta su fecha de vencimiento inclusive
+        private boolean vencidoEn(LocalDate fecha) {
+            return vencimiento != null && vencimiento.isBefore(fecha);
+        }
+    }
+}
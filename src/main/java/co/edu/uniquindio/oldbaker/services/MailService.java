@@ -1,11 +1,12 @@
 package co.edu.uniquindio.oldbaker.services;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import co.edu.uniquindio.oldbaker.model.EmailOutbox;
+import co.edu.uniquindio.oldbaker.repositories.EmailOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
@@ -16,37 +17,65 @@ import java.util.Map;
 
 /**
  * Servicio para el envío de correos electrónicos utilizando plantillas Thymeleaf.
- * Proporciona un método asíncrono para enviar correos electrónicos con contenido HTML generado a partir de una plantilla y variables dinámicas.
+ * Los correos se encolan en el outbox dentro de la transacción del llamador; {@link EmailOutboxDispatcher}
+ * se encarga de renderizarlos y entregarlos por lotes.
  */
 @Service
+@RequiredArgsConstructor
 public class MailService {
 
-    private final JavaMailSender mailSender;
-    private  final TemplateEngine templateEngine;
+    public static final String PLANTILLA_POR_DEFECTO = "email-template";
 
-    // Constructor para inyectar las dependencias necesarias
-    public MailService(JavaMailSender mailSender, TemplateEngine templateEngine) {
-        this.mailSender = mailSender;
-        this.templateEngine = templateEngine;
-    }
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final TemplateEngine templateEngine;
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /** Encola un correo electrónico con la plantilla por defecto.
+     *
+     * @param to        La dirección de correo electrónico del destinatario.
+     * @param subject   El asunto del correo electrónico.
+     * @param variables Un mapa de variables que se utilizarán para rellenar la plantilla del correo.
+     */
+    @Transactional
+    public void encolarEmail(String to, String subject, Map<String, Object> variables) {
+        encolarEmail(to, subject, PLANTILLA_POR_DEFECTO, Locale.getDefault(), variables);
+    }
 
-    /** Envía un correo electrónico de manera asíncrona.
+    /** Encola un correo electrónico en el outbox dentro de la transacción actual.
      *
      * @param to        La dirección de correo electrónico del destinatario.
      * @param subject   El asunto del correo electrónico.
+     * @param plantilla El nombre de la plantilla Thymeleaf.
+     * @param locale    El locale con el que se renderiza la plantilla.
      * @param variables Un mapa de variables que se utilizarán para rellenar la plantilla del correo.
-     * @throws MessagingException Si ocurre un error al crear o enviar el correo electrónico.
      */
-    @Async
-    public void sendEmail(String to, String subject, Map<String, Object> variables) throws MessagingException {
-        MimeMessage mimeMessage = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, "UTF-8");
-        helper.setTo(to);
-        helper.setSubject(subject);
-        String html = templateEngine.process("email-template", new Context(Locale.getDefault(), variables));
-        helper.setText(html, true);
-        mailSender.send(mimeMessage);
+    @Transactional
+    public void encolarEmail(String to, String subject, String plantilla, Locale locale, Map<String, Object> variables) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Variables de correo no serializables", e);
+        }
+
+        emailOutboxRepository.save(EmailOutbox.builder()
+                .destinatario(to)
+                .asunto(subject)
+                .plantilla(plantilla)
+                .locale(locale.toLanguageTag())
+                .variables(json)
+                .build());
+    }
+
+    /** Renderiza una plantilla con sus variables.
+     *
+     * @param plantilla El nombre de la plantilla Thymeleaf.
+     * @param locale    El locale con el que se renderiza la plantilla.
+     * @param variables Las variables de la plantilla.
+     * @return El HTML generado.
+     */
+    public String renderizar(String plantilla, Locale locale, Map<String, Object> variables) {
+        return templateEngine.process(plantilla, new Context(locale, variables));
     }
 
 }
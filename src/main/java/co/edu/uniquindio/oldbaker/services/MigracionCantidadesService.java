@@ -0,0 +1,185 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.CheckpointProcesoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Migración única de las cantidades de inventario a punto fijo (ver CantidadFija).
+ *
+ * Antes las cantidades eran enteros en la unidad de la receta del insumo y las recetas un decimal en su propia
+ * unidad. El esquema se actualiza con ddl-auto=update, que agrega columnas pero no cambia tipos ni borra
+ * columnas, así que al arrancar esta clase:
+ * <ol>
+ *     <li>Amplía a BIGINT las columnas de cantidad que siguen siendo INT.</li>
+ *     <li>Una sola vez en todo el clúster (checkpoint "cantidades-milis"), fija la unidad base de cada insumo
+ *     según la unidad de su primera receta y pasa stock, movimientos, snapshots, lotes y umbrales a milésimas
+ *     de esa unidad; las recetas pasan a milésimas de la unidad base y la serie de consumo a la unidad base.</li>
+ *     <li>Borra la columna decimal anterior de las recetas, que ya no se escribe.</li>
+ *     <li>Una sola vez (checkpoint "costos-unidad-base"), pasa el costo unitario de cada insumo a precio por unidad
+ *     base, dividiéndolo por el factor de la unidad de su primera receta, en la que se había cargado.</li>
+ * </ol>
+ * Corre antes de que la aplicación empiece a atender y después de que Hibernate actualizó el esquema.
+ * El nodo que inserta cada checkpoint convierte en la misma transacción; los demás chocan con su clave y siguen.
+ * Cualquier otro error revierte la conversión completa y hace fallar el arranque.
+ */
+@Service
+@Slf4j
+@DependsOn("entityManagerFactory")
+public class MigracionCantidadesService {
+
+    private static final String CHECKPOINT = "cantidades-milis";
+    private static final String CHECKPOINT_COSTOS = "costos-unidad-base";
+
+    // Columnas de cantidad por insumo: tabla, columna, nulable
+    private static final String[][] COLUMNAS = {
+            {"insumos", "cantidad_actual", "NULL"},
+            {"insumos", "punto_reorden", "NULL"},
+            {"insumos", "nivel_objetivo", "NULL"},
+            {"movimientos_inventario", "cantidad", "NOT NULL"},
+            {"snapshots_inventario", "saldo", "NOT NULL"},
+            {"lotes_insumo", "cantidad_inicial", "NOT NULL"},
+            {"lotes_insumo", "cantidad_disponible", "NOT NULL"}
+    };
+
+    // Unidad de la primera receta de cada insumo: en ella se llevaba su stock
+    private static final String PRIMERA_RECETA = """
+            SELECT r.id_insumo, r.unidad_medida
+            FROM recetas r
+            JOIN (SELECT id_insumo, MIN(id_receta) AS id_receta
+                  FROM recetas WHERE id_insumo IS NOT NULL GROUP BY id_insumo) p ON p.id_receta = r.id_receta
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CheckpointProcesoRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public MigracionCantidadesService(JdbcTemplate jdbcTemplate,
+                                      CheckpointProcesoRepository checkpointRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void migrar() {
+        // El DDL de MySQL confirma la transacción en curso: los cambios de tipo van fuera de ella
+        for (String[] columna : COLUMNAS) {
+            if (tieneTipo(columna[0], columna[1], "int")) {
+                jdbcTemplate.execute("ALTER TABLE " + columna[0] + " MODIFY " + columna[1] + " BIGINT " + columna[2]);
+                log.info("Columna {}.{} ampliada a BIGINT", columna[0], columna[1]);
+            }
+        }
+        if (unaVez(CHECKPOINT, this::convertir) && existeColumna("recetas", "cantidad_insumo")) {
+            jdbcTemplate.execute("ALTER TABLE recetas DROP COLUMN cantidad_insumo");
+            log.info("Columna recetas.cantidad_insumo eliminada");
+        }
+        unaVez(CHECKPOINT_COSTOS, this::convertirCostos);
+    }
+
+    // Convierte en la transacción que inserta el checkpoint; false si otro nodo lo insertó y hace la conversión
+    private boolean unaVez(String checkpoint, Runnable conversion) {
+        Boolean hecho = transactionTemplate.execute(status -> {
+            if (checkpointRepository.existsById(checkpoint)) {
+                return true;
+            }
+            try {
+                checkpointRepository.saveAndFlush(CheckpointProceso.builder()
+                        .nombre(checkpoint)
+                        .ultimaFecha(LocalDateTime.now())
+                        .ultimoId(0L)
+                        .build());
+            } catch (DataIntegrityViolationException e) {
+                // Otro nodo creó el checkpoint al mismo tiempo y su transacción hace la conversión
+                log.info("Otro nodo está ejecutando la migración {}", checkpoint);
+                status.setRollbackOnly();
+                return false;
+            }
+            // Cualquier error de la conversión revierte el checkpoint y detiene el arranque
+            conversion.run();
+            return true;
+        });
+        return Boolean.TRUE.equals(hecho);
+    }
+
+    private void convertir() {
+        // Sin la columna decimal de las recetas la base ya nació con cantidades en milésimas
+        if (!existeColumna("recetas", "cantidad_insumo")) {
+            return;
+        }
+
+        // Recetas: de decimal en su unidad a milésimas de la unidad base; sin unidad se toman como unidades
+        for (Receta.UnidadMedida unidad : Receta.UnidadMedida.values()) {
+            jdbcTemplate.update("UPDATE recetas SET cantidad_milis = ROUND(cantidad_insumo * ?) WHERE unidad_medida = ?",
+                    unidad.getEnBase() * CantidadFija.ESCALA, unidad.name());
+        }
+        jdbcTemplate.update("UPDATE recetas SET cantidad_milis = ROUND(cantidad_insumo * ?) WHERE unidad_medida IS NULL",
+                CantidadFija.ESCALA);
+
+        // Cantidades por insumo: de enteros en la unidad de la receta a milésimas de la unidad base
+        for (String[] columna : COLUMNAS) {
+            jdbcTemplate.update("UPDATE " + columna[0] + " SET " + columna[1] + " = " + columna[1] + " * ?",
+                    CantidadFija.ESCALA);
+        }
+        jdbcTemplate.update("UPDATE insumos SET unidad_medida = ?", Receta.UnidadMedida.UNIDADES.name());
+        for (Receta.UnidadMedida unidad : Receta.UnidadMedida.values()) {
+            jdbcTemplate.update("UPDATE insumos i JOIN (" + PRIMERA_RECETA + ") u ON u.id_insumo = i.id_insumo"
+                    + " SET i.unidad_medida = ? WHERE u.unidad_medida = ?", unidad.base().name(), unidad.name());
+            if (unidad.getEnBase() == 1) {
+                continue;
+            }
+            for (String[] columna : COLUMNAS) {
+                jdbcTemplate.update("UPDATE " + columna[0] + " t JOIN (" + PRIMERA_RECETA + ") u ON u.id_insumo = t.id_insumo"
+                        + " SET t." + columna[1] + " = t." + columna[1] + " * ? WHERE u.unidad_medida = ?",
+                        unidad.getEnBase(), unidad.name());
+            }
+            // La serie de consumo es decimal: solo cambia de unidad
+            jdbcTemplate.update("UPDATE consumos_diarios_insumo t JOIN (" + PRIMERA_RECETA + ") u"
+                    + " ON u.id_insumo = t.id_insumo SET t.cantidad = t.cantidad * ? WHERE u.unidad_medida = ?",
+                    unidad.getEnBase(), unidad.name());
+        }
+        log.info("Cantidades de inventario convertidas a milésimas de la unidad base");
+    }
+
+    private void convertirCostos() {
+        // El costo se cargaba por unidad de la receta (el kilo a 4000) y el costeo lo multiplica por milésimas de
+        // la unidad base: pasa a precio por gramo, mililitro o unidad. Los insumos sin receta no tenían unidad
+        for (Receta.UnidadMedida unidad : Receta.UnidadMedida.values()) {
+            if (unidad.getEnBase() == 1) {
+                continue;
+            }
+            jdbcTemplate.update("UPDATE insumos i JOIN (" + PRIMERA_RECETA + ") u ON u.id_insumo = i.id_insumo"
+                    + " SET i.costo_unitario = i.costo_unitario / ? WHERE u.unidad_medida = ?",
+                    unidad.getEnBase(), unidad.name());
+        }
+        log.info("Costos de insumos convertidos a precio por unidad base");
+    }
+
+    private boolean existeColumna(String tabla, String columna) {
+        Integer filas = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+                """, Integer.class, tabla, columna);
+        return filas != null && filas > 0;
+    }
+
+    private boolean tieneTipo(String tabla, String columna, String tipo) {
+        Integer filas = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ? AND DATA_TYPE = ?
+                """, Integer.class, tabla, columna, tipo);
+        return filas != null && filas > 0;
+    }
+}
@@ -0,0 +1,383 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Programa entero del horneado: maximizar Σ valor[p]·x[p] sujeto a Σ consumo[i][p]·x[p] ≤ stock[i] para cada
+ * insumo, con x[p] = 0 o minimo[p] ≤ x[p] ≤ tope[p] entero para cada producto.
+ *
+ * Se resuelve por ramificación y acotamiento. La cota de cada nodo es su relajación lineal, resuelta con un
+ * símplex de tableau denso: los consumos y el stock no son negativos, así que la base de holguras ya es factible
+ * y no hace falta fase 1. Cada relajación se redondea hacia abajo y se completa de forma voraz para tener pronto
+ * una solución entera con la que podar. Los nodos se reparten en un ForkJoinPool y comparten la mejor solución;
+ * al agotar el presupuesto de tiempo o de nodos se devuelve la mejor encontrada, marcada como no óptima.
+ *
+ * No depende de Spring ni de la base de datos.
+ */
+public final class OptimizadorHorneado {
+
+    private static final double EPS = 1e-9;
+    private static final double EPS_ENTERO = 1e-6;
+    private static final long MAX_NODOS = 200_000;
+
+    private final double[] valor;
+    // Consumo por insumo y producto, escalado por fila para que el símplex trabaje con magnitudes cercanas a 1
+    private final double[][] consumo;
+    private final double[] stock;
+    private final int[] minimo;
+    private final int[] tope;
+    private final int productos;
+
+    private final long limiteNanos;
+    private final AtomicLong nodos = new AtomicLong();
+    private final AtomicBoolean agotado = new AtomicBoolean(false);
+    private volatile Solucion mejor;
+
+    private OptimizadorHorneado(double[] valor, long[][] consumo, long[] stock, int[] minimo, int[] tope,
+                                long presupuestoMs) {
+        this.productos = valor.length;
+        this.valor = valor.clone();
+        this.minimo = new int[productos];
+        this.tope = new int[productos];
+        for (int p = 0; p < productos; p++) {
+            this.minimo[p] = Math.max(minimo[p], 1);
+            // Nunca conviene hornear algo que no suma
+            this.tope[p] = valor[p] > 0 && tope[p] >= this.minimo[p] ? tope[p] : 0;
+        }
+        this.consumo = new double[consumo.length][];
+        this.stock = new double[stock.length];
+        for (int i = 0; i < consumo.length; i++) {
+            long disponible = Math.max(stock[i], 0);
+            double escala = disponible;
+            for (long c : consumo[i]) {
+                escala = Math.max(escala, c);
+            }
+            escala = escala > 0 ? escala : 1;
+            this.consumo[i] = new double[productos];
+            for (int p = 0; p < productos; p++) {
+                this.consumo[i][p] = consumo[i][p] / escala;
+            }
+            this.stock[i] = disponible / escala;
+        }
+        this.limiteNanos = System.nanoTime() + presupuestoMs * 1_000_000L;
+        this.mejor = new Solucion(new int[productos], 0);
+    }
+
+    /**
+     * Cantidades por producto que maximizan el valor total con el stock disponible.
+     *
+     * @param valor        Aporte de una unidad de cada producto (precio o margen).
+     * @param consumo      Milésimas de cada insumo (fila) que consume una unidad de cada producto (columna).
+     * @param stock        Milésimas disponibles de cada insumo.
+     * @param minimo       Unidades mínimas por tanda de cada producto, si se hornea.
+     * @param tope         Unidades máximas de cada producto (demanda esperada).
+     * @param paralelismo  Hilos de la búsqueda, en un pool propio que se cierra al terminar.
+     * @param presupuestoMs Tiempo máximo de la búsqueda.
+     */
+    public static Resultado resolver(double[] valor, long[][] consumo, long[] stock, int[] minimo, int[] tope,
+                                     int paralelismo, long presupuestoMs) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(paralelismo, 1));
+        try {
+            return resolver(valor, consumo, stock, minimo, tope, pool, presupuestoMs);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Resuelve el programa en un pool compartido: búsquedas simultáneas se reparten sus hilos en lugar de sumar
+     * hilos nuevos.
+     *
+     * @param pool          Pool donde corren los nodos; no se cierra.
+     * @param presupuestoMs Tiempo máximo de la búsqueda.
+     */
+    public static Resultado resolver(double[] valor, long[][] consumo, long[] stock, int[] minimo, int[] tope,
+                                     ForkJoinPool pool, long presupuestoMs) {
+        OptimizadorHorneado optimizador = new OptimizadorHorneado(valor, consumo, stock, minimo, tope, presupuestoMs);
+        int[] inf = new int[optimizador.productos];
+        int[] sup = optimizador.tope.clone();
+        Relajacion raiz = optimizador.relajar(inf, sup);
+        if (raiz == null) {
+            return new Resultado(new int[optimizador.productos], 0, 0, true, 0);
+        }
+        // Aunque el presupuesto no alcance para ramificar, la raíz redondeada ya es una respuesta
+        optimizador.ofrecer(optimizador.completar(optimizador.redondear(raiz.x())));
+        pool.invoke(optimizador.new Nodo(inf, sup, raiz));
+        Solucion mejor = optimizador.mejor;
+        boolean optimo = !optimizador.agotado.get() || mejor.valor() >= raiz.valor() - EPS_ENTERO;
+        // Sin terminar, la relajación de la raíz sigue siendo una cota válida del óptimo
+        double cota = optimo ? mejor.valor() : raiz.valor();
+        return new Resultado(mejor.cantidades(), mejor.valor(), cota, optimo, optimizador.nodos.get());
+    }
+
+    private final class Nodo extends RecursiveAction {
+        private final int[] inf;
+        private final int[] sup;
+        // Relajación ya resuelta por quien creó el nodo, o null
+        private Relajacion relajacion;
+
+        private Nodo(int[] inf, int[] sup, Relajacion relajacion) {
+            this.inf = inf;
+            this.sup = sup;
+            this.relajacion = relajacion;
+        }
+
+        @Override
+        protected void compute() {
+            if (System.nanoTime() > limiteNanos || nodos.incrementAndGet() > MAX_NODOS) {
+                agotado.set(true);
+                return;
+            }
+            Relajacion r = relajacion != null ? relajacion : relajar(inf, sup);
+            relajacion = null;
+            if (r == null || r.valor() <= mejor.valor() + EPS_ENTERO) {
+                return;
+            }
+            ofrecer(completar(redondear(r.x())));
+
+            int p = variableParaRamificar(r.x());
+            if (p < 0) {
+                return;
+            }
+            double v = r.x()[p];
+            List<Nodo> hijos = new ArrayList<>(2);
+            if (inf[p] == 0 && v < minimo[p] - EPS_ENTERO) {
+                // Por debajo de la tanda mínima: o no se hornea o se hornea al menos la tanda
+                hijos.add(hijo(p, 0, 0));
+                if (minimo[p] <= sup[p]) {
+                    hijos.add(hijo(p, minimo[p], sup[p]));
+                }
+            } else {
+                hijos.add(hijo(p, (int) Math.ceil(v), sup[p]));
+                hijos.add(hijo(p, inf[p], (int) Math.floor(v)));
+            }
+            invokeAll(hijos);
+        }
+
+        private Nodo hijo(int p, int nuevoInf, int nuevoSup) {
+            int[] i = inf.clone();
+            int[] s = sup.clone();
+            i[p] = nuevoInf;
+            s[p] = nuevoSup;
+            return new Nodo(i, s, null);
+        }
+
+        // Primera variable fraccionaria o en el hueco (0, minimo); -1 si la relajación ya es entera y válida
+        private int variableParaRamificar(double[] x) {
+            int elegida = -1;
+            double mayorFraccion = 0;
+            for (int p = 0; p < productos; p++) {
+                if (inf[p] == 0 && x[p] > EPS_ENTERO && x[p] < minimo[p] - EPS_ENTERO) {
+                    return p;
+                }
+                double fraccion = x[p] - Math.floor(x[p]);
+                double distancia = Math.min(fraccion, 1 - fraccion);
+                if (distancia > EPS_ENTERO && distancia > mayorFraccion) {
+                    mayorFraccion = distancia;
+                    elegida = p;
+                }
+            }
+            return elegida;
+        }
+    }
+
+    /**
+     * Relajación lineal con inf ≤ x ≤ sup: se sustituye x = inf + y y se resuelve para y ≥ 0.
+     *
+     * @return null si los mínimos ya exceden el stock.
+     */
+    Relajacion relajar(int[] inf, int[] sup) {
+        double[] residual = stock.clone();
+        for (int i = 0; i < consumo.length; i++) {
+            for (int p = 0; p < productos; p++) {
+                residual[i] -= consumo[i][p] * inf[p];
+            }
+            if (residual[i] < -EPS_ENTERO) {
+                return null;
+            }
+            residual[i] = Math.max(residual[i], 0);
+        }
+        double[] holgura = new double[productos];
+        for (int p = 0; p < productos; p++) {
+            holgura[p] = sup[p] - inf[p];
+        }
+        double[] y = simplex(residual, holgura);
+        double[] x = new double[productos];
+        double total = 0;
+        for (int p = 0; p < productos; p++) {
+            x[p] = inf[p] + y[p];
+            total += valor[p] * x[p];
+        }
+        return new Relajacion(x, total);
+    }
+
+    // max valor·y sujeto a consumo·y ≤ b y 0 ≤ y ≤ u, con la regla de Bland para no ciclar
+    private double[] simplex(double[] b, double[] u) {
+        int[] columnas = new int[productos];
+        int n = 0;
+        for (int p = 0; p < productos; p++) {
+            if (u[p] > EPS) {
+                columnas[n++] = p;
+            }
+        }
+        double[] y = new double[productos];
+        if (n == 0) {
+            return y;
+        }
+        int filasInsumo = consumo.length;
+        int filas = filasInsumo + n;
+        int ancho = n + filas + 1;
+        double[][] t = new double[filas + 1][ancho];
+        for (int i = 0; i < filasInsumo; i++) {
+            for (int j = 0; j < n; j++) {
+                t[i][j] = consumo[i][columnas[j]];
+            }
+            t[i][n + i] = 1;
+            t[i][ancho - 1] = b[i];
+        }
+        for (int j = 0; j < n; j++) {
+            int fila = filasInsumo + j;
+            t[fila][j] = 1;
+            t[fila][n + fila] = 1;
+            t[fila][ancho - 1] = u[columnas[j]];
+            t[filas][j] = -valor[columnas[j]];
+        }
+        int[] base = new int[filas];
+        for (int i = 0; i < filas; i++) {
+            base[i] = n + i;
+        }
+
+        while (true) {
+            int entra = -1;
+            for (int j = 0; j < ancho - 1; j++) {
+                if (t[filas][j] < -EPS) {
+                    entra = j;
+                    break;
+                }
+            }
+            if (entra < 0) {
+                break;
+            }
+            int sale = -1;
+            double menor = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < filas; i++) {
+                if (t[i][entra] > EPS) {
+                    double razon = t[i][ancho - 1] / t[i][entra];
+                    if (razon < menor - EPS || (razon <= menor + EPS && sale >= 0 && base[i] < base[sale])) {
+                        menor = razon;
+                        sale = i;
+                    }
+                }
+            }
+            // Cada variable tiene su fila de cota, así que siempre hay una que sale
+            pivotear(t, sale, entra);
+            base[sale] = entra;
+        }
+
+        for (int i = 0; i < filas; i++) {
+            if (base[i] < n) {
+                y[columnas[base[i]]] = Math.max(t[i][ancho - 1], 0);
+            }
+        }
+        return y;
+    }
+
+    private static void pivotear(double[][] t, int fila, int columna) {
+        double[] pivote = t[fila];
+        double factor = pivote[columna];
+        for (int j = 0; j < pivote.length; j++) {
+            pivote[j] /= factor;
+        }
+        for (int i = 0; i < t.length; i++) {
+            if (i == fila) {
+                continue;
+            }
+            double coef = t[i][columna];
+            if (Math.abs(coef) <= EPS) {
+                continue;
+            }
+            double[] filaI = t[i];
+            for (int j = 0; j < filaI.length; j++) {
+                filaI[j] -= coef * pivote[j];
+            }
+        }
+    }
+
+    // Hacia abajo siempre cabe (los consumos no son negativos); lo que queda bajo la tanda mínima no se hornea
+    private int[] redondear(double[] x) {
+        int[] entero = new int[productos];
+        for (int p = 0; p < productos; p++) {
+            int v = (int) Math.floor(x[p] + EPS_ENTERO);
+            entero[p] = v >= minimo[p] ? Math.min(v, tope[p]) : 0;
+        }
+        return entero;
+    }
+
+    // Usa el stock que sobra en los productos de mayor valor, de a tandas completas
+    private int[] completar(int[] x) {
+        double[] residual = stock.clone();
+        for (int i = 0; i < consumo.length; i++) {
+            for (int p = 0; p < productos; p++) {
+                residual[i] -= consumo[i][p] * x[p];
+            }
+        }
+        Integer[] orden = new Integer[productos];
+        for (int p = 0; p < productos; p++) {
+            orden[p] = p;
+        }
+        Arrays.sort(orden, (a, b) -> Double.compare(valor[b], valor[a]));
+        for (int p : orden) {
+            long caben = tope[p] - x[p];
+            for (int i = 0; i < consumo.length && caben > 0; i++) {
+                if (consumo[i][p] > EPS) {
+                    caben = Math.min(caben, (long) Math.floor(Math.max(residual[i], 0) / consumo[i][p] + EPS_ENTERO));
+                }
+            }
+            if (caben <= 0 || (x[p] == 0 && caben < minimo[p])) {
+                continue;
+            }
+            x[p] += (int) caben;
+            for (int i = 0; i < consumo.length; i++) {
+                residual[i] -= consumo[i][p] * caben;
+            }
+        }
+        return x;
+    }
+
+    private void ofrecer(int[] cantidades) {
+        double total = 0;
+        for (int p = 0; p < productos; p++) {
+            total += valor[p] * cantidades[p];
+        }
+        if (total <= mejor.valor() + EPS_ENTERO) {
+            return;
+        }
+        synchronized (this) {
+            if (total > mejor.valor() + EPS_ENTERO) {
+                mejor = new Solucion(cantidades, total);
+            }
+        }
+    }
+
+    record Relajacion(double[] x, double valor) {
+    }
+
+    private record Solucion(int[] cantidades, double valor) {
+    }
+
+    /**
+     * @param cantidades Unidades sugeridas por producto.
+     * @param valor      Valor total de la sugerencia.
+     * @param cota       Cota superior del óptimo; igual al valor si la búsqueda terminó.
+     * @param optimo     Falso si se agotó el presupuesto y la sugerencia es la mejor encontrada.
+     * @param nodos      Nodos explorados.
+     */
+    public record Resultado(int[] cantidades, double valor, double cota, boolean optimo, long nodos) {
+    }
+}
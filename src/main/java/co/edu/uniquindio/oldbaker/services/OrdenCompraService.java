@@ -1,19 +1,25 @@
 package co.edu.uniquindio.oldbaker.services;
 
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
 import co.edu.uniquindio.oldbaker.dto.payment.CheckoutItemDTO;
 import co.edu.uniquindio.oldbaker.dto.payment.CheckoutRequestDTO;
+import co.edu.uniquindio.oldbaker.events.OrdenPagadaEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
 import co.edu.uniquindio.oldbaker.model.*;
 import co.edu.uniquindio.oldbaker.repositories.*;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.UUID;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -25,7 +31,11 @@ public class OrdenCompraService {
     private final ProductRepository productRepository;
     private final UsuarioRepository usuarioRepository;
     private final InsumoRepository insumoRepository;
-    private final RecetaRepository recetaRepository;
+    private final ExpansionRecetasService expansionRecetasService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final InventarioService inventarioService;
+    private final PronosticoConsumoService pronosticoConsumoService;
 
     /**
      * Crea una orden en estado PENDING antes de redirigir a MercadoPago.
@@ -110,13 +120,24 @@ public class OrdenCompraService {
 
         logger.info("Iniciando proceso de pago para orden {}: PENDING/IN_PROCESS -> PAID", orden.getId());
 
+        OrdenCompra.EstadoOrden estadoAnterior = orden.getStatus();
+        LocalDateTime actualizacionAnterior = orden.getFechaActualizacion();
         orden.setStatus(OrdenCompra.EstadoOrden.PAID);
         orden.setPaymentId(paymentId);
 
         // Descontar stock de insumos (en la misma transacción)
         descontarStock(orden);
 
-        ordenCompraRepository.save(orden);
+        // El flush dispara @PreUpdate: el evento lleva la fecha de actualización que queda guardada
+        OrdenCompra guardada = ordenCompraRepository.saveAndFlush(orden);
+
+        // El plan de producción suma la orden sin volver a agrupar las órdenes de su ventana
+        Map<Long, Integer> cantidadPorProducto = new HashMap<>();
+        for (ItemOrden item : orden.getItems()) {
+            cantidadPorProducto.merge(item.getProducto().getIdProducto(), item.getCantidad(), Integer::sum);
+        }
+        eventPublisher.publishEvent(new OrdenPagadaEvent(orden.getId(), estadoAnterior, actualizacionAnterior,
+                guardada.getFechaActualizacion(), cantidadPorProducto));
         logger.info("Orden {} marcada como PAID exitosamente, stock descontado, paymentId={}",
                 orden.getId(), paymentId);
     }
@@ -192,37 +213,48 @@ public class OrdenCompraService {
      * garantizando atomicidad (todo o nada).
      */
     private void descontarStock(OrdenCompra orden) {
+        // Consumo total por insumo en milésimas, exacto: un movimiento por insumo y orden
+        // Los vectores aplanados ya incluyen los insumos de las preparaciones intermedias
+        Map<Long, Long> consumoPorInsumo = new LinkedHashMap<>();
         for (ItemOrden item : orden.getItems()) {
             Long productoId = item.getProducto().getIdProducto();
             int cantidad = item.getCantidad();
 
-            List<Receta> recetas = recetaRepository.findByProducto_IdProducto(productoId);
+            List<RequerimientoInsumoDTO> requerimientos = expansionRecetasService.requerimientos(productoId);
 
-            if (recetas.isEmpty()) {
+            if (requerimientos.isEmpty()) {
                 logger.warn("Producto {} no tiene recetas, no se descuenta stock", productoId);
                 continue;
             }
 
-            for (Receta receta : recetas) {
-                Insumo insumo = receta.getInsumo();
-                double cantidadPorProducto = receta.getCantidadInsumo();
-                double totalNecesario = cantidadPorProducto * cantidad;
-
-                int stockActual = insumo.getCantidadActual() != null ? insumo.getCantidadActual() : 0;
-                int nuevoStock = (int) Math.round(stockActual - totalNecesario);
-
-                if (nuevoStock < 0) {
-                    logger.error("ALERTA: Stock negativo para insumo {} ({}): actual={} necesario={} nuevo={}",
-                            insumo.getIdInsumo(), insumo.getNombre(), stockActual, totalNecesario, nuevoStock);
-                }
-
-                insumo.setCantidadActual(nuevoStock);
-                insumoRepository.save(insumo);
-
-                logger.info("Stock descontado: insumo={} producto={} cantidad={} stockAnterior={} stockNuevo={}",
-                        insumo.getNombre(), item.getProducto().getNombre(), totalNecesario, stockActual, nuevoStock);
+            for (RequerimientoInsumoDTO requerimiento : requerimientos) {
+                long totalNecesario = CantidadFija.multiplicar(requerimiento.getCantidadInsumo(), cantidad);
+                consumoPorInsumo.merge(requerimiento.getIdInsumo(), totalNecesario, CantidadFija::sumar);
             }
         }
+        if (consumoPorInsumo.isEmpty()) {
+            return;
+        }
+
+        // Solo se insertan movimientos: leer el saldo aquí tomaría bloqueos de rango dentro de la transacción
+        // SERIALIZABLE del pago sin cambiar lo que se descuenta. Si los lotes vigentes no cubren la venta, el pago
+        // se confirma igual y el faltante queda como stock sin lote con un aviso
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        for (Map.Entry<Long, Long> consumo : consumoPorInsumo.entrySet()) {
+            Long idInsumo = consumo.getKey();
+            long descontar = consumo.getValue();
+            movimientos.add(InventarioService.movimiento(idInsumo, MovimientoInventario.TipoMovimiento.VENTA,
+                    -descontar, "orden:" + orden.getId()));
+
+            logger.info("Stock descontado: insumo={} orden={} cantidad={}",
+                    idInsumo, orden.getId(), CantidadFija.aTexto(descontar));
+        }
+        inventarioService.registrar(movimientos);
+        // La serie diaria del pronóstico se actualiza con el mismo consumo, en la misma transacción
+        pronosticoConsumoService.registrarConsumo(LocalDate.now(), consumoPorInsumo);
+
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, consumoPorInsumo.keySet());
+        eventPublisher.publishEvent(new StockInsumoModificadoEvent(new HashSet<>(consumoPorInsumo.keySet())));
     }
 
     /**
@@ -1,33 +1,47 @@
 package co.edu.uniquindio.oldbaker.services;
 
 import co.edu.uniquindio.oldbaker.dto.*;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
 import co.edu.uniquindio.oldbaker.model.*;
 import co.edu.uniquindio.oldbaker.repositories.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional
 public class PedidoInsumoService {
 
+    private static final int LIMITE_POR_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+
     private final PedidoInsumoRepository pedidoInsumoRepository;
     private final InsumoRepository insumoRepository;
     private final PagoProveedorRepository pagoProveedorRepository;
     private final InsumoProveedorRepository insumoProveedorRepository;
     private final ReporteProveedorRepository reporteProveedorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final InventarioService inventarioService;
 
     public PedidoInsumoService(PedidoInsumoRepository pedidoInsumoRepository,
                                InsumoRepository insumoRepository,
-                               PagoProveedorRepository pagoProveedorRepository, InsumoProveedorRepository insumoProveedorRepository, ReporteProveedorRepository reporteProveedorRepository) {
+                               PagoProveedorRepository pagoProveedorRepository, InsumoProveedorRepository insumoProveedorRepository, ReporteProveedorRepository reporteProveedorRepository,
+                               ApplicationEventPublisher eventPublisher, CambiosEntidadService cambiosEntidadService,
+                               InventarioService inventarioService) {
         this.pedidoInsumoRepository = pedidoInsumoRepository;
         this.insumoRepository = insumoRepository;
         this.pagoProveedorRepository = pagoProveedorRepository;
         this.insumoProveedorRepository = insumoProveedorRepository;
         this.reporteProveedorRepository = reporteProveedorRepository;
+        this.eventPublisher = eventPublisher;
+        this.cambiosEntidadService = cambiosEntidadService;
+        this.inventarioService = inventarioService;
     }
 
     public Long obtenerProveedorPorPedido(Long idPedido) {
@@ -75,6 +89,7 @@ public class PedidoInsumoService {
         pedido.setCostoTotal(total[0]);
 
         PedidoInsumo guardado = pedidoInsumoRepository.save(pedido);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, guardado.getIdPedido());
 
         return mapToResponse(guardado);
     }
@@ -118,6 +133,7 @@ public class PedidoInsumoService {
 
         pedido.setCostoTotal(nuevoTotal);
         pedidoInsumoRepository.save(pedido);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, idPedido);
 
         // Respuesta
         ReporteProveedorResponse response = new ReporteProveedorResponse();
@@ -134,11 +150,68 @@ public class PedidoInsumoService {
 
 
 
-    // Listar todos los pedidos
-    public List<PedidoInsumoResponse> listarPedidos() {
-        return pedidoInsumoRepository.findAll().stream()
+    /**
+     * Lista los pedidos del más reciente al más antiguo, por páginas.
+     *
+     * Cada página cuesta dos consultas: los ids de la página por keyset sobre el índice
+     * (estado, id_pedido, fecha_pedido) y los pedidos con sus detalles, insumos y pago en un JOIN FETCH.
+     * La memoria depende del tamaño de página y no del historial.
+     *
+     * @param estado Estado a filtrar, o null para todos.
+     * @param desde  Fecha mínima del pedido (inclusive), o null.
+     * @param hasta  Fecha máxima del pedido (inclusive), o null.
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera.
+     * @param limite Tamaño de página (se acota a LIMITE_MAXIMO).
+     * @return La página con el cursor siguiente.
+     */
+    @Transactional(readOnly = true)
+    public PedidoInsumoPaginaResponse listarPedidos(PedidoInsumo.EstadoPedido estado, LocalDate desde, LocalDate hasta,
+                                                    String cursor, Integer limite) {
+        if (desde != null && hasta != null && desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la final");
+        }
+        int tamano = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        long idCursor = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : decodificarCursor(cursor);
+
+        // Se pide una fila extra para saber si hay una página siguiente sin hacer un COUNT
+        List<Long> ids = pedidoInsumoRepository.findIdsPagina(estado, desde, hasta, idCursor,
+                PageRequest.of(0, tamano + 1));
+        boolean hayMas = ids.size() > tamano;
+        if (hayMas) {
+            ids = ids.subList(0, tamano);
+        }
+
+        Map<Long, PedidoInsumo> pedidos = new HashMap<>();
+        if (!ids.isEmpty()) {
+            for (PedidoInsumo pedido : pedidoInsumoRepository.findConDetallesByIds(ids)) {
+                pedidos.put(pedido.getIdPedido(), pedido);
+            }
+        }
+        List<PedidoInsumoResponse> pagina = ids.stream()
+                .map(pedidos::get)
+                .filter(Objects::nonNull)
                 .map(this::mapToResponse)
                 .toList();
+
+        return PedidoInsumoPaginaResponse.builder()
+                .pedidos(pagina)
+                .siguienteCursor(hayMas ? codificarCursor(ids.get(ids.size() - 1)) : null)
+                .hayMas(hayMas)
+                .build();
+    }
+
+    // El cursor es el último id entregado, en Base64 URL-safe para que el cliente lo trate como opaco
+    private static String codificarCursor(Long idPedido) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(idPedido).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodificarCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
     }
 
     // Buscar pedido por id
@@ -192,6 +265,7 @@ public class PedidoInsumoService {
         pedido.setCostoTotal(total[0]);
 
         PedidoInsumo actualizado = pedidoInsumoRepository.save(pedido);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, id);
         return mapToResponse(actualizado);
     }
 
@@ -202,42 +276,102 @@ public class PedidoInsumoService {
             throw new RuntimeException("Pedido no encontrado");
         }
         pedidoInsumoRepository.deleteById(id);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, id);
     }
 
     // Aprobar pedido (Auxiliar)
     public PedidoInsumoResponse aprobarPedido(Long idPedido) {
-        PedidoInsumo pedido = pedidoInsumoRepository.findById(idPedido)
-                .orElseThrow(() -> new RuntimeException("Pedido no encontrado"));
+        return aprobarPedidos(List.of(idPedido)).get(0);
+    }
 
-        if (pedido.getEstado() != PedidoInsumo.EstadoPedido.PENDIENTE) {
-            throw new RuntimeException("Solo se pueden aprobar pedidos en estado PENDIENTE");
+    /**
+     * Aprueba varios pedidos en una transacción; si alguno no existe o no está PENDIENTE no se aprueba ninguno.
+     *
+     * Los pedidos, sus detalles y los insumos ya mapeados se leen en una consulta. Los insumos nuevos se
+     * insertan juntos y las recepciones se registran en el libro de inventario como un lote de movimientos,
+     * de modo que Hibernate agrupa los INSERT y los UPDATE de estado en lotes JDBC (hibernate.jdbc.batch_size).
+     *
+     * @param idsPedido IDs de los pedidos a aprobar.
+     * @return Los pedidos aprobados, en el orden recibido.
+     */
+    public List<PedidoInsumoResponse> aprobarPedidos(List<Long> idsPedido) {
+        List<Long> ids = idsPedido.stream().distinct().toList();
+        Map<Long, PedidoInsumo> pedidos = new HashMap<>();
+        for (PedidoInsumo pedido : pedidoInsumoRepository.findConDetallesByIds(ids)) {
+            pedidos.put(pedido.getIdPedido(), pedido);
+        }
+        for (Long id : ids) {
+            PedidoInsumo pedido = pedidos.get(id);
+            if (pedido == null) {
+                throw new RuntimeException("Pedido no encontrado: " + id);
+            }
+            if (pedido.getEstado() != PedidoInsumo.EstadoPedido.PENDIENTE) {
+                throw new RuntimeException("Solo se pueden aprobar pedidos en estado PENDIENTE: " + id);
+            }
         }
 
-        pedido.setEstado(PedidoInsumo.EstadoPedido.APROBADO);
-
-        // Mapear insumos del proveedor al inventario de la empresa
-        for (DetalleProveedorPedido detalle : pedido.getDetalles()) {
-            InsumoProveedor insumoProveedor = detalle.getInsumo();
-
-            Optional<Insumo> existente = insumoRepository.findByInsumoProveedor(insumoProveedor);
-
-            if (existente.isPresent()) {
-                Insumo insumo = existente.get();
-                insumo.setCantidadActual(insumo.getCantidadActual() + detalle.getCantidadInsumo());
-                insumoRepository.save(insumo);
-            } else {
-                Insumo nuevo = new Insumo();
-                nuevo.setNombre(insumoProveedor.getNombre());
-                nuevo.setDescripcion(insumoProveedor.getDescripcion());
-                nuevo.setCostoUnitario(insumoProveedor.getCostoUnitario());
-                nuevo.setCantidadActual(detalle.getCantidadInsumo());
-                nuevo.setInsumoProveedor(insumoProveedor);
-                insumoRepository.save(nuevo);
+        // Mapear insumos del proveedor al inventario de la empresa; un mismo insumo repetido en varios
+        // pedidos del lote se crea una sola vez
+        List<Insumo> nuevos = new ArrayList<>();
+        for (Long id : ids) {
+            for (DetalleProveedorPedido detalle : pedidos.get(id).getDetalles()) {
+                InsumoProveedor insumoProveedor = detalle.getInsumo();
+                if (insumoProveedor.getInsumo() == null) {
+                    Insumo nuevo = new Insumo();
+                    nuevo.setNombre(insumoProveedor.getNombre());
+                    nuevo.setDescripcion(insumoProveedor.getDescripcion());
+                    // Se lleva en la unidad base de la unidad de compra, con el precio por esa unidad base
+                    Receta.UnidadMedida unidadCompra = insumoProveedor.getUnidadMedida() != null
+                            ? insumoProveedor.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
+                    nuevo.setCostoUnitario(insumoProveedor.getCostoUnitario() != null
+                            ? unidadCompra.precioEnBase(insumoProveedor.getCostoUnitario()) : null);
+                    nuevo.setCantidadActual(0L);
+                    nuevo.setUnidadMedida(unidadCompra.base());
+                    nuevo.setInsumoProveedor(insumoProveedor);
+                    insumoProveedor.setInsumo(nuevo);
+                    nuevos.add(nuevo);
+                }
             }
         }
+        insumoRepository.saveAll(nuevos);
+
+        // El stock entra como recepción en el libro: un movimiento por insumo y pedido
+        Set<Long> insumosModificados = new HashSet<>();
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        for (Long id : ids) {
+            PedidoInsumo pedido = pedidos.get(id);
+            Map<Long, Long> recibido = new LinkedHashMap<>();
+            Map<Long, LocalDate> vencimientos = new HashMap<>();
+            for (DetalleProveedorPedido detalle : pedido.getDetalles()) {
+                Long idInsumo = detalle.getInsumo().getInsumo().getIdInsumo();
+                recibido.merge(idInsumo, recibidoEnBase(detalle), CantidadFija::sumar);
+                vencimientos.put(idInsumo, detalle.getInsumo().getFechaVencimiento());
+            }
+            // Cada insumo recibido en el pedido es un lote con el vencimiento del insumo del proveedor
+            recibido.forEach((idInsumo, cantidad) -> movimientos.add(InventarioService.recepcion(idInsumo,
+                    cantidad, "pedido:" + id, vencimientos.get(idInsumo))));
+            insumosModificados.addAll(recibido.keySet());
+            // El pedido es administrado: el flush del commit escribe el cambio de estado
+            pedido.setEstado(PedidoInsumo.EstadoPedido.APROBADO);
+        }
+        inventarioService.registrar(movimientos);
+        eventPublisher.publishEvent(new StockInsumoModificadoEvent(insumosModificados));
 
-        PedidoInsumo actualizado = pedidoInsumoRepository.save(pedido);
-        return mapToResponse(actualizado);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, insumosModificados);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, ids);
+        return ids.stream().map(id -> mapToResponse(pedidos.get(id))).toList();
+    }
+
+    // Cantidad recibida en milésimas de la unidad base del insumo del inventario; sin unidad de compra cada unidad
+    // pedida es una unidad base
+    private static long recibidoEnBase(DetalleProveedorPedido detalle) {
+        long milis = CantidadFija.deUnidades(detalle.getCantidadInsumo());
+        Receta.UnidadMedida unidadCompra = detalle.getInsumo().getUnidadMedida();
+        if (unidadCompra == null) {
+            return milis;
+        }
+        Receta.UnidadMedida base = detalle.getInsumo().getInsumo().getUnidadMedida();
+        return CantidadFija.convertir(milis, unidadCompra, base != null ? base : Receta.UnidadMedida.UNIDADES);
     }
 
     // Pagar pedido (Admin)
@@ -260,6 +394,7 @@ public class PedidoInsumoService {
         pedido.setEstado(PedidoInsumo.EstadoPedido.PAGADO);
 
         PedidoInsumo actualizado = pedidoInsumoRepository.save(pedido);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, idPedido);
         return mapToResponse(actualizado);
     }
 
@@ -272,6 +407,7 @@ public class PedidoInsumoService {
         response.setCostoTotal(pedido.getCostoTotal());
         response.setFechaPedido(pedido.getFechaPedido());
         response.setEstado(pedido.getEstado());
+        response.setReposicionAutomatica(Boolean.TRUE.equals(pedido.getReposicionAutomatica()));
         response.setPago(pedido.getPago());
 
         if (pedido.getDetalles() != null) {
@@ -290,6 +426,7 @@ public class PedidoInsumoService {
                             insumoResp.setDescripcion(insumoProveedor.getDescripcion());
                             insumoResp.setCostoUnitario(insumoProveedor.getCostoUnitario());
                             insumoResp.setFechaVencimiento(insumoProveedor.getFechaVencimiento());
+                            insumoResp.setUnidadMedida(insumoProveedor.getUnidadMedida());
                             detalleResponse.setInsumo(insumoResp);
                         }
 
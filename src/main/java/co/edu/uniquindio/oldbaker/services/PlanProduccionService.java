@@ -0,0 +1,289 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.DemandaProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.ResumenInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionProductoDTO;
+import co.edu.uniquindio.oldbaker.events.CambioRemotoEvent;
+import co.edu.uniquindio.oldbaker.events.OrdenPagadaEvent;
+import co.edu.uniquindio.oldbaker.events.PreparacionModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.OrdenCompra;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Plan de producción: qué hornear en una ventana de días según las órdenes pagadas, cuántos insumos consume
+ * y qué falta frente al stock y a las órdenes que esperan la confirmación del pago.
+ *
+ * La demanda de cada ventana sale de una sola consulta agrupada por producto y estado, y se guarda como
+ * contadores (pagadas, reservadas) por producto. Cada orden que se paga suma sus unidades a las ventanas en
+ * memoria sin volver a consultar, salvo si la consulta de la ventana ya la vio pagada. El plan se arma reduciendo los vectores aplanados de ExpansionRecetasService
+ * sobre arreglos de milésimas y se sirve desde memoria hasta que cambian la demanda, el stock o las recetas.
+ *
+ * Las órdenes pagadas en otros nodos se ven cuando llega su cambio de insumos o al vencer la demanda (ttl),
+ * que también recoge las órdenes nuevas, fallidas o canceladas.
+ */
+@Service
+@Slf4j
+public class PlanProduccionService {
+
+    private static final Set<OrdenCompra.EstadoOrden> EN_ESPERA =
+            EnumSet.of(OrdenCompra.EstadoOrden.PENDING, OrdenCompra.EstadoOrden.IN_PROCESS);
+    private static final Set<OrdenCompra.EstadoOrden> EN_PLAN =
+            EnumSet.of(OrdenCompra.EstadoOrden.PAID, OrdenCompra.EstadoOrden.PENDING, OrdenCompra.EstadoOrden.IN_PROCESS);
+    private static final int PAGADAS = 0;
+    private static final int RESERVADAS = 1;
+    private static final int MAX_VENTANAS = 16;
+
+    private final OrdenCompraRepository ordenCompraRepository;
+    private final ExpansionRecetasService expansionRecetasService;
+    private final InventarioService inventarioService;
+    private final InsumoRepository insumoRepository;
+    private final ProductoRepository productoRepository;
+    private final TransactionTemplate lecturaDemanda;
+    private final long ttlMillis;
+
+    // Demanda por ventana consultada, la menos usada sale primero; solo se modifica bajo el monitor
+    private final Map<Ventana, Demanda> demandas = new LinkedHashMap<>(MAX_VENTANAS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Ventana, Demanda> eldest) {
+            return size() > MAX_VENTANAS;
+        }
+    };
+
+    public PlanProduccionService(OrdenCompraRepository ordenCompraRepository,
+                                 ExpansionRecetasService expansionRecetasService,
+                                 InventarioService inventarioService,
+                                 InsumoRepository insumoRepository,
+                                 ProductoRepository productoRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${produccion.plan.ttl-seconds:300}") long ttlSegundos) {
+        this.ordenCompraRepository = ordenCompraRepository;
+        this.expansionRecetasService = expansionRecetasService;
+        this.inventarioService = inventarioService;
+        this.insumoRepository = insumoRepository;
+        this.productoRepository = productoRepository;
+        // La demanda agrupada y las órdenes pagadas que contó se leen de la misma instantánea
+        this.lecturaDemanda = new TransactionTemplate(transactionManager);
+        this.lecturaDemanda.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.lecturaDemanda.setReadOnly(true);
+        this.ttlMillis = ttlSegundos * 1000;
+    }
+
+    /**
+     * Plan de producción de las órdenes actualizadas entre dos días.
+     *
+     * @param desde Primer día (inclusive).
+     * @param hasta Último día (inclusive).
+     * @throws IllegalArgumentException si el rango está invertido.
+     */
+    public synchronized PlanProduccionDTO plan(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null || desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("Rango de fechas inválido");
+        }
+        Ventana ventana = new Ventana(desde, hasta);
+        Demanda demanda = demandas.get(ventana);
+        long ahora = System.currentTimeMillis();
+        if (demanda == null || ahora - demanda.cargada > ttlMillis) {
+            demanda = cargar(ventana, ahora);
+            demandas.put(ventana, demanda);
+        }
+        if (demanda.plan == null) {
+            demanda.plan = generar(ventana, demanda);
+        }
+        return demanda.plan;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onOrdenPagada(OrdenPagadaEvent event) {
+        LocalDate diaPago = event.getFechaPago().toLocalDate();
+        // Solo deja de ser reserva donde se contaba como tal: en espera y actualizada dentro de la ventana
+        LocalDate diaEspera = EN_ESPERA.contains(event.getEstadoAnterior()) && event.getActualizacionAnterior() != null
+                ? event.getActualizacionAnterior().toLocalDate() : null;
+        for (Map.Entry<Ventana, Demanda> entrada : demandas.entrySet()) {
+            boolean pagada = entrada.getKey().contiene(diaPago);
+            boolean reservada = diaEspera != null && entrada.getKey().contiene(diaEspera);
+            Demanda demanda = entrada.getValue();
+            // La ventana se cargó después del commit del pago: la consulta ya la vio pagada
+            if ((!pagada && !reservada) || !demanda.pagadas.add(event.getIdOrden())) {
+                continue;
+            }
+            event.getCantidadPorProducto().forEach((idProducto, cantidad) -> {
+                long[] contadores = demanda.porProducto.computeIfAbsent(idProducto, k -> new long[2]);
+                if (pagada) {
+                    contadores[PAGADAS] += cantidad;
+                }
+                if (reservada) {
+                    contadores[RESERVADAS] = Math.max(0, contadores[RESERVADAS] - cantidad);
+                }
+            });
+            demanda.plan = null;
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockInsumoModificado(StockInsumoModificadoEvent event) {
+        descartarPlanes();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductoModificado(ProductoModificadoEvent event) {
+        descartarPlanes();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPreparacionModificada(PreparacionModificadaEvent event) {
+        descartarPlanes();
+    }
+
+    // Cada venta registra un cambio de insumos: si viene de otro nodo pudo pagarse una orden que no se sumó aquí
+    @EventListener
+    public synchronized void onCambioRemoto(CambioRemotoEvent event) {
+        if (event.getEntidad() == CambioEntidad.TipoEntidad.INSUMO) {
+            demandas.clear();
+        }
+    }
+
+    // El stock o las recetas cambiaron: la demanda sigue valiendo, el plan se vuelve a reducir
+    private synchronized void descartarPlanes() {
+        demandas.values().forEach(demanda -> demanda.plan = null);
+    }
+
+    private Demanda cargar(Ventana ventana, long ahora) {
+        Demanda demanda = new Demanda(ahora);
+        LocalDateTime desde = ventana.desde().atStartOfDay();
+        LocalDateTime hasta = ventana.hasta().plusDays(1).atStartOfDay();
+        List<DemandaProductoDTO> filas = lecturaDemanda.execute(status -> {
+            // Pagadas dentro de la ventana o después: la consulta ya las contó como pagadas o ya no como reserva
+            demanda.pagadas.addAll(ordenCompraRepository.findIdsPorEstadoDesde(OrdenCompra.EstadoOrden.PAID, desde));
+            return ordenCompraRepository.findDemandaPorProducto(EN_PLAN, desde, hasta);
+        });
+        for (DemandaProductoDTO fila : filas) {
+            long[] contadores = demanda.porProducto.computeIfAbsent(fila.getIdProducto(), k -> new long[2]);
+            contadores[fila.getEstado() == OrdenCompra.EstadoOrden.PAID ? PAGADAS : RESERVADAS] += fila.getCantidad();
+            demanda.nombres.put(fila.getIdProducto(), fila.getNombre());
+        }
+        log.debug("Demanda de producción cargada para {}: {} productos", ventana, demanda.porProducto.size());
+        return demanda;
+    }
+
+    private PlanProduccionDTO generar(Ventana ventana, Demanda demanda) {
+        Map<Long, List<RequerimientoInsumoDTO>> vectores = expansionRecetasService.requerimientos(demanda.porProducto.keySet());
+
+        // Posición de cada insumo en los arreglos de la reducción
+        Map<Long, Integer> posicion = new HashMap<>();
+        List<Long> insumos = new ArrayList<>();
+        for (List<RequerimientoInsumoDTO> vector : vectores.values()) {
+            for (RequerimientoInsumoDTO req : vector) {
+                if (posicion.putIfAbsent(req.getIdInsumo(), insumos.size()) == null) {
+                    insumos.add(req.getIdInsumo());
+                }
+            }
+        }
+        long[] requerido = new long[insumos.size()];
+        long[] reservado = new long[insumos.size()];
+        List<PlanProduccionProductoDTO> productos = new ArrayList<>();
+        completarNombres(demanda);
+        for (Map.Entry<Long, long[]> entrada : demanda.porProducto.entrySet()) {
+            long[] contadores = entrada.getValue();
+            if (contadores[PAGADAS] == 0 && contadores[RESERVADAS] == 0) {
+                continue;
+            }
+            List<RequerimientoInsumoDTO> vector = vectores.getOrDefault(entrada.getKey(), List.of());
+            for (RequerimientoInsumoDTO req : vector) {
+                int i = posicion.get(req.getIdInsumo());
+                requerido[i] = CantidadFija.sumar(requerido[i], CantidadFija.multiplicar(req.getCantidadInsumo(), contadores[PAGADAS]));
+                reservado[i] = CantidadFija.sumar(reservado[i], CantidadFija.multiplicar(req.getCantidadInsumo(), contadores[RESERVADAS]));
+            }
+            productos.add(new PlanProduccionProductoDTO(entrada.getKey(), demanda.nombres.get(entrada.getKey()),
+                    contadores[PAGADAS], contadores[RESERVADAS], vector.isEmpty()));
+        }
+        productos.sort(Comparator.comparingLong(PlanProduccionProductoDTO::getCantidadPagada).reversed()
+                .thenComparing(PlanProduccionProductoDTO::getIdProducto));
+
+        // El libro ya descontó lo pagado: falta lo que las reservas piden por encima del saldo
+        Map<Long, Long> saldos = inventarioService.saldos(insumos);
+        Map<Long, ResumenInsumoDTO> resumen = new HashMap<>();
+        if (!insumos.isEmpty()) {
+            insumoRepository.findResumenByIds(insumos).forEach(r -> resumen.put(r.getIdInsumo(), r));
+        }
+        List<PlanProduccionInsumoDTO> lineas = new ArrayList<>(insumos.size());
+        boolean hayFaltantes = false;
+        for (int i = 0; i < insumos.size(); i++) {
+            Long idInsumo = insumos.get(i);
+            if (requerido[i] == 0 && reservado[i] == 0) {
+                continue;
+            }
+            long saldo = saldos.getOrDefault(idInsumo, 0L);
+            long faltante = Math.max(0, CantidadFija.restar(reservado[i], saldo));
+            hayFaltantes |= faltante > 0;
+            ResumenInsumoDTO datos = resumen.get(idInsumo);
+            lineas.add(new PlanProduccionInsumoDTO(idInsumo,
+                    datos != null ? datos.getNombre() : null,
+                    datos != null ? datos.getUnidadMedida() : null,
+                    CantidadFija.aDecimal(requerido[i]), CantidadFija.aDecimal(reservado[i]),
+                    CantidadFija.aDecimal(saldo), CantidadFija.aDecimal(faltante)));
+        }
+        lineas.sort(Comparator.comparingDouble(PlanProduccionInsumoDTO::getFaltante).reversed()
+                .thenComparing(PlanProduccionInsumoDTO::getIdInsumo));
+
+        return PlanProduccionDTO.builder()
+                .desde(ventana.desde())
+                .hasta(ventana.hasta())
+                .generado(LocalDateTime.now())
+                .productos(productos)
+                .insumos(lineas)
+                .hayFaltantes(hayFaltantes)
+                .build();
+    }
+
+    // Las órdenes sumadas por evento pueden traer productos que la consulta de la ventana no vio
+    private void completarNombres(Demanda demanda) {
+        Set<Long> sinNombre = new HashSet<>(demanda.porProducto.keySet());
+        sinNombre.removeAll(demanda.nombres.keySet());
+        if (!sinNombre.isEmpty()) {
+            productoRepository.findPreciosByIds(sinNombre)
+                    .forEach(precio -> demanda.nombres.put(precio.getIdProducto(), precio.getNombre()));
+        }
+    }
+
+    private record Ventana(LocalDate desde, LocalDate hasta) {
+        boolean contiene(LocalDate dia) {
+            return !dia.isBefore(desde) && !dia.isAfter(hasta);
+        }
+    }
+
+    // Contadores (pagadas, reservadas) por producto, las órdenes cuyo pago ya reflejan y el plan armado con
+    // ellos, null si hay que rearmarlo
+    private static final class Demanda {
+        private final long cargada;
+        private final Map<Long, long[]> porProducto = new HashMap<>();
+        private final Set<Long> pagadas = new HashSet<>();
+        private final Map<Long, String> nombres = new HashMap<>();
+        private PlanProduccionDTO plan;
+
+        private Demanda(long cargada) {
+            this.cargada = cargada;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ComponenteRecetaRequest;
+import co.edu.uniquindio.oldbaker.dto.PreparacionRequest;
+import co.edu.uniquindio.oldbaker.dto.PreparacionResponse;
+import co.edu.uniquindio.oldbaker.dto.RecetaDTO;
+import co.edu.uniquindio.oldbaker.events.PreparacionModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.Preparacion;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.PreparacionRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Preparaciones intermedias (sub-recetas) que los productos y otras preparaciones usan como componente.
+ *
+ * Al cambiar los componentes de una preparación se rechaza cualquier componente que ya la use, directa o
+ * indirectamente, así el grafo de recetas nunca tiene ciclos. Los productos que dependen de la preparación se
+ * anuncian como actualizados para que las vistas derivadas (disponibilidad, cotizaciones) se recalculen.
+ */
+@Service
+@RequiredArgsConstructor
+public class PreparacionService {
+
+    private final PreparacionRepository preparacionRepository;
+    private final RecetaRepository recetaRepository;
+    private final InsumoRepository insumoRepository;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional
+    public PreparacionResponse crear(PreparacionRequest request) {
+        Receta.UnidadMedida unidad = request.getUnidadMedida() != null
+                ? request.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
+        Preparacion preparacion = new Preparacion();
+        preparacion.setUnidadMedida(unidad.base());
+        aplicar(preparacion, request, unidad);
+        Preparacion guardada = preparacionRepository.save(preparacion);
+
+        // Una preparación nueva no la usa nadie: sus componentes no pueden formar un ciclo
+        List<Receta> lineas = lineas(request.getComponentes());
+        lineas.forEach(linea -> linea.setPreparacion(guardada));
+        recetaRepository.saveAll(lineas);
+
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PREPARACION, guardada.getIdPreparacion());
+        return toResponse(guardada, lineas);
+    }
+
+    /**
+     * Reemplaza los datos y componentes de una preparación.
+     *
+     * @throws IllegalArgumentException si un componente usa esta preparación (ciclo) o cambia la magnitud.
+     */
+    @Transactional
+    public PreparacionResponse actualizar(Long id, PreparacionRequest request) {
+        Preparacion preparacion = preparacionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Preparación no encontrada"));
+        // Quienes la usan guardan sus cantidades en la unidad base actual
+        Receta.UnidadMedida unidad = request.getUnidadMedida() != null
+                ? request.getUnidadMedida() : preparacion.getUnidadMedida();
+        if (unidad.getMagnitud() != preparacion.getUnidadMedida().getMagnitud()) {
+            throw new IllegalArgumentException("La preparación se mide en " + preparacion.getUnidadMedida()
+                    + ", no en " + unidad);
+        }
+        aplicar(preparacion, request, unidad);
+
+        List<Receta> lineas = lineas(request.getComponentes());
+        Set<Long> queLaUsan = queUsan(id);
+        for (Receta linea : lineas) {
+            if (linea.getSubPreparacion() != null && queLaUsan.contains(linea.getSubPreparacion().getIdPreparacion())) {
+                throw new IllegalArgumentException("La preparación '" + linea.getSubPreparacion().getNombre()
+                        + "' usa '" + preparacion.getNombre() + "': no puede ser su componente");
+            }
+        }
+        recetaRepository.deleteAll(recetaRepository.findByPreparacion_IdPreparacion(id));
+        lineas.forEach(linea -> linea.setPreparacion(preparacion));
+        recetaRepository.saveAll(lineas);
+
+        List<Long> productos = recetaRepository.findIdsProductosQueUsan(queLaUsan);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PREPARACION, id);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PRODUCTO, productos);
+        eventPublisher.publishEvent(new PreparacionModificadaEvent(Set.of(id)));
+        for (Long idProducto : productos) {
+            eventPublisher.publishEvent(new ProductoModificadoEvent(idProducto, null, ProductoModificadoEvent.Tipo.ACTUALIZADO));
+        }
+        return toResponse(preparacion, lineas);
+    }
+
+    public List<PreparacionResponse> listar() {
+        Map<Long, List<Receta>> lineasPorPreparacion = new HashMap<>();
+        for (Receta linea : recetaRepository.findByPreparacionIsNotNull()) {
+            lineasPorPreparacion.computeIfAbsent(linea.getPreparacion().getIdPreparacion(), k -> new ArrayList<>()).add(linea);
+        }
+        return preparacionRepository.findAll().stream()
+                .map(p -> toResponse(p, lineasPorPreparacion.getOrDefault(p.getIdPreparacion(), List.of())))
+                .toList();
+    }
+
+    public PreparacionResponse obtener(Long id) {
+        Preparacion preparacion = preparacionRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Preparación no encontrada"));
+        return toResponse(preparacion, recetaRepository.findByPreparacion_IdPreparacion(id));
+    }
+
+    /**
+     * Líneas de receta sin dueña para los componentes indicados, con la cantidad en milésimas de la unidad base
+     * de cada componente. Las usan tanto las preparaciones como las recetas de productos.
+     *
+     * @throws IllegalArgumentException si un componente no indica exactamente un insumo o una preparación, o si
+     *                                  su unidad no es de la misma magnitud que la del componente.
+     */
+    public List<Receta> lineas(List<ComponenteRecetaRequest> componentes) {
+        if (componentes == null || componentes.isEmpty()) {
+            throw new IllegalArgumentException("La receta debe tener al menos un componente");
+        }
+        List<Receta> lineas = new ArrayList<>(componentes.size());
+        for (ComponenteRecetaRequest componente : componentes) {
+            if ((componente.getIdInsumo() == null) == (componente.getIdPreparacion() == null)) {
+                throw new IllegalArgumentException("Cada componente debe ser un insumo o una preparación");
+            }
+            Receta linea = new Receta();
+            Receta.UnidadMedida unidadComponente;
+            if (componente.getIdInsumo() != null) {
+                Insumo insumo = insumoRepository.findById(componente.getIdInsumo())
+                        .orElseThrow(() -> new RuntimeException("Insumo no encontrado"));
+                linea.setInsumo(insumo);
+                linea.setNombre(insumo.getNombre());
+                unidadComponente = insumo.getUnidadMedida() != null ? insumo.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
+            } else {
+                Preparacion sub = preparacionRepository.findById(componente.getIdPreparacion())
+                        .orElseThrow(() -> new RuntimeException("Preparación no encontrada"));
+                linea.setSubPreparacion(sub);
+                linea.setNombre(sub.getNombre());
+                unidadComponente = sub.getUnidadMedida();
+            }
+            Receta.UnidadMedida unidad = componente.getUnidadMedida() != null ? componente.getUnidadMedida() : unidadComponente;
+            if (unidad.getMagnitud() != unidadComponente.getMagnitud()) {
+                throw new IllegalArgumentException("'" + linea.getNombre() + "' se mide en " + unidadComponente
+                        + ", no en " + unidad);
+            }
+            double cantidad = componente.getCantidad() != null ? componente.getCantidad() : 0.0;
+            linea.setCantidadInsumo(CantidadFija.aBase(CantidadFija.deDecimal(cantidad), unidad));
+            linea.setUnidadMedida(unidad);
+            lineas.add(linea);
+        }
+        return lineas;
+    }
+
+    /**
+     * La preparación indicada y todas las que la usan, directa o indirectamente: un nivel del grafo por consulta.
+     */
+    Set<Long> queUsan(Long idPreparacion) {
+        Set<Long> encontradas = new HashSet<>();
+        encontradas.add(idPreparacion);
+        Set<Long> nivel = Set.of(idPreparacion);
+        while (!nivel.isEmpty()) {
+            Set<Long> siguiente = new HashSet<>(recetaRepository.findIdsPreparacionesQueUsan(nivel));
+            siguiente.removeAll(encontradas);
+            encontradas.addAll(siguiente);
+            nivel = siguiente;
+        }
+        return encontradas;
+    }
+
+    private void aplicar(Preparacion preparacion, PreparacionRequest request, Receta.UnidadMedida unidad) {
+        long rendimiento = CantidadFija.aBase(
+                CantidadFija.deDecimal(request.getRendimiento() != null ? request.getRendimiento() : 0.0), unidad);
+        if (rendimiento <= 0) {
+            throw new IllegalArgumentException("El rendimiento debe ser positivo");
+        }
+        preparacion.setNombre(request.getNombre());
+        preparacion.setDescripcion(request.getDescripcion());
+        preparacion.setRendimiento(rendimiento);
+    }
+
+    private PreparacionResponse toResponse(Preparacion preparacion, List<Receta> lineas) {
+        PreparacionResponse response = new PreparacionResponse();
+        response.setIdPreparacion(preparacion.getIdPreparacion());
+        response.setNombre(preparacion.getNombre());
+        response.setDescripcion(preparacion.getDescripcion());
+        response.setUnidadMedida(preparacion.getUnidadMedida());
+        response.setRendimiento(CantidadFija.aDecimal(preparacion.getRendimiento()));
+        response.setComponentes(lineas.stream().map(PreparacionService::toRecetaDTO).toList());
+        return response;
+    }
+
+    private static RecetaDTO toRecetaDTO(Receta linea) {
+        RecetaDTO dto = new RecetaDTO();
+        dto.setIdReceta(linea.getIdReceta());
+        dto.setInsumoNombre(linea.getInsumo() != null ? linea.getInsumo().getNombre() : null);
+        dto.setPreparacionNombre(linea.getSubPreparacion() != null ? linea.getSubPreparacion().getNombre() : null);
+        Receta.UnidadMedida unidad = linea.getUnidadMedida();
+        long cantidad = unidad != null
+                ? CantidadFija.convertir(linea.getCantidadInsumo(), unidad.base(), unidad)
+                : linea.getCantidadInsumo();
+        dto.setCantidadInsumo(CantidadFija.aDecimal(cantidad));
+        dto.setUnidadMedida(unidad);
+        return dto;
+    }
+}
@@ -1,11 +1,18 @@
 package co.edu.uniquindio.oldbaker.services;
 
+import co.edu.uniquindio.oldbaker.dto.ComponenteRecetaRequest;
 import co.edu.uniquindio.oldbaker.dto.ProductoHomeResponse;
 import co.edu.uniquindio.oldbaker.dto.ProductoRequest;
 import co.edu.uniquindio.oldbaker.dto.ProductoResponse;
 import co.edu.uniquindio.oldbaker.dto.RecetaDTO;
+import co.edu.uniquindio.oldbaker.dto.RecetaProductoDTO;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
 import co.edu.uniquindio.oldbaker.model.Categoria;
 import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.MovimientoInventario;
 import co.edu.uniquindio.oldbaker.model.Producto;
 import co.edu.uniquindio.oldbaker.model.Receta;
 import co.edu.uniquindio.oldbaker.repositories.CategoriaRepository;
@@ -14,9 +21,14 @@ import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
 import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,23 +38,34 @@ public class ProductoService {
     private final RecetaRepository recetaRepository;
     private final InsumoRepository insumoRepository;
     private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final InventarioService inventarioService;
+    private final PreparacionService preparacionService;
 
     @Transactional
     public ProductoResponse crearProductoConReceta(ProductoRequest request) {
-        // Validar insumo
-        Insumo insumo = insumoRepository.findById(request.getInsumoId())
+        // Validar insumo, bloqueado hasta el commit para que dos altas no validen el mismo saldo. Las ventas y
+        // recepciones solo agregan movimientos y no lo toman: una venta confirmada entre la validación y el
+        // descuento puede dejar el saldo por debajo de lo validado, y eso se acepta
+        Insumo insumo = insumoRepository.findParaActualizar(request.getInsumoId())
                 .orElseThrow(() -> new RuntimeException("Insumo no encontrado"));
 
-        int insumosNecesarios = request.getCantidadInsumo() * request.getCantidadProductos();
-        if (insumo.getCantidadActual() < insumosNecesarios) {
+        // La receta se guarda en la unidad base del insumo; la unidad en que se escribió queda para mostrarla
+        Receta.UnidadMedida unidadInsumo = insumo.getUnidadMedida() != null
+                ? insumo.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
+        Receta.UnidadMedida unidadReceta = request.getUnidadMedida() != null ? request.getUnidadMedida() : unidadInsumo;
+        if (unidadReceta.getMagnitud() != unidadInsumo.getMagnitud()) {
+            throw new IllegalArgumentException("El insumo se mide en " + unidadInsumo + ", no en " + unidadReceta);
+        }
+        long porProducto = CantidadFija.aBase(CantidadFija.deDecimal(request.getCantidadInsumo()), unidadReceta);
+        long insumosNecesarios = CantidadFija.multiplicar(porProducto, request.getCantidadProductos());
+        long disponibles = inventarioService.saldo(insumo.getIdInsumo());
+        if (disponibles < insumosNecesarios) {
             throw new RuntimeException("No hay insumos suficientes. Disponibles: "
-                    + insumo.getCantidadActual() + ", requeridos: " + insumosNecesarios);
+                    + CantidadFija.aTexto(disponibles) + ", requeridos: " + CantidadFija.aTexto(insumosNecesarios));
         }
 
-        // Descontar insumos
-        insumo.setCantidadActual(insumo.getCantidadActual() - insumosNecesarios);
-        insumoRepository.save(insumo);
-
         // Buscar categoría
         Categoria categoria = categoriaRepository.findById(request.getCategoriaId())
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
@@ -61,11 +84,22 @@ public class ProductoService {
         Receta receta = new Receta();
         receta.setNombre("Receta de " + producto.getNombre());
         receta.setDescripcion("Receta automática para " + producto.getNombre());
-        receta.setCantidadInsumo(request.getCantidadInsumo());
+        receta.setCantidadInsumo(porProducto);
+        receta.setUnidadMedida(unidadReceta);
         receta.setInsumo(insumo);
         receta.setProducto(productoGuardado);
         recetaRepository.save(receta);
 
+        // Descontar insumos
+        inventarioService.registrar(insumo.getIdInsumo(), MovimientoInventario.TipoMovimiento.PRODUCCION,
+                -insumosNecesarios, "producto:" + productoGuardado.getIdProducto());
+
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.INSUMO, insumo.getIdInsumo());
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PRODUCTO, productoGuardado.getIdProducto());
+        eventPublisher.publishEvent(new StockInsumoModificadoEvent(Set.of(insumo.getIdInsumo())));
+        eventPublisher.publishEvent(new ProductoModificadoEvent(productoGuardado.getIdProducto(),
+                categoria.getIdCategoria(), ProductoModificadoEvent.Tipo.CREADO));
+
         // Respuesta
         ProductoResponse response = new ProductoResponse();
         response.setIdProducto(productoGuardado.getIdProducto());
@@ -82,8 +116,24 @@ public class ProductoService {
         return response;
     }
 
+    /**
+     * Lista los productos para administración con un número fijo de consultas:
+     * una para productos y categorías y otra para todas las recetas, sin importar el tamaño del catálogo.
+     */
     public List<ProductoResponse> listarProductos() {
-        return productoRepository.findAll().stream().map(this::mapToResponse).toList();
+        List<Producto> productos = productoRepository.findAllConCategoria();
+        if (productos.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<RecetaDTO>> recetasPorProducto = new HashMap<>();
+        for (RecetaProductoDTO receta : recetaRepository.findResumenRecetas()) {
+            recetasPorProducto.computeIfAbsent(receta.getIdProducto(), k -> new ArrayList<>()).add(mapToRecetaDTO(receta));
+        }
+
+        return productos.stream()
+                .map(p -> mapToResponse(p, recetasPorProducto.getOrDefault(p.getIdProducto(), List.of())))
+                .toList();
     }
 
     public List<ProductoHomeResponse> listarProductosHome() {
@@ -91,9 +141,35 @@ public class ProductoService {
     }
 
     public ProductoResponse obtenerProductoPorId(Long id) {
+        Producto producto = productoRepository.findByIdConCategoria(id)
+                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        List<RecetaDTO> recetas = recetaRepository.findResumenRecetasByProducto(id).stream()
+                .map(this::mapToRecetaDTO)
+                .toList();
+        return mapToResponse(producto, recetas);
+    }
+
+    /**
+     * Reemplaza la receta de un producto; sus componentes pueden ser insumos o preparaciones intermedias.
+     * No descuenta stock: la receta solo define lo que consume cada unidad vendida.
+     */
+    @Transactional
+    public ProductoResponse actualizarReceta(Long id, List<ComponenteRecetaRequest> componentes) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        return mapToResponse(producto);
+        List<Receta> lineas = preparacionService.lineas(componentes);
+        recetaRepository.deleteAll(recetaRepository.findByProducto(producto));
+        for (Receta linea : lineas) {
+            linea.setDescripcion("Receta de " + producto.getNombre());
+            linea.setProducto(producto);
+        }
+        recetaRepository.saveAll(lineas);
+
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PRODUCTO, id);
+        eventPublisher.publishEvent(new ProductoModificadoEvent(id,
+                producto.getCategoria() != null ? producto.getCategoria().getIdCategoria() : null,
+                ProductoModificadoEvent.Tipo.ACTUALIZADO));
+        return obtenerProductoPorId(id);
     }
 
     @Transactional
@@ -101,10 +177,14 @@ public class ProductoService {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
         productoRepository.delete(producto);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PRODUCTO, id);
+        eventPublisher.publishEvent(new ProductoModificadoEvent(id,
+                producto.getCategoria() != null ? producto.getCategoria().getIdCategoria() : null,
+                ProductoModificadoEvent.Tipo.ELIMINADO));
     }
 
     // Mapper reutilizable
-    private ProductoResponse mapToResponse(Producto producto) {
+    private ProductoResponse mapToResponse(Producto producto, List<RecetaDTO> recetas) {
         ProductoResponse response = new ProductoResponse();
         response.setIdProducto(producto.getIdProducto());
         response.setNombre(producto.getNombre());
@@ -112,24 +192,24 @@ public class ProductoService {
         response.setCostoUnitario(producto.getCostoUnitario());
         response.setVidaUtilDias(producto.getVidaUtilDias());
         response.setPedidoMinimo(producto.getPedidoMinimo());
-        response.setCategoriaNombre(producto.getCategoria().getNombre());
-
-        // Buscar receta por producto
-        List<Receta> recetas = recetaRepository.findByProducto(producto);
-        if (recetas != null) {
-
-            response.setReceta(recetas.stream().map(r -> {;
-                RecetaDTO dto = new RecetaDTO();
-                dto.setIdReceta(r.getIdReceta());
-                dto.setCantidadInsumo(r.getCantidadInsumo());
-                dto.setInsumoNombre(r.getInsumo().getNombre());
-                dto.setUnidadMedida(r.getUnidadMedida());
-                return dto;
-            }).toList());
-        }
-
+        response.setCategoriaNombre(producto.getCategoria() != null ? producto.getCategoria().getNombre() : null);
+        response.setReceta(recetas);
         return response;
     }
 
+    private RecetaDTO mapToRecetaDTO(RecetaProductoDTO receta) {
+        RecetaDTO dto = new RecetaDTO();
+        dto.setIdReceta(receta.getIdReceta());
+        Receta.UnidadMedida unidad = receta.getUnidadMedida();
+        long cantidad = unidad != null
+                ? CantidadFija.convertir(receta.getCantidadInsumo(), unidad.base(), unidad)
+                : receta.getCantidadInsumo();
+        dto.setCantidadInsumo(CantidadFija.aDecimal(cantidad));
+        dto.setInsumoNombre(receta.getInsumoNombre());
+        dto.setPreparacionNombre(receta.getPreparacionNombre());
+        dto.setUnidadMedida(receta.getUnidadMedida());
+        return dto;
+    }
+
 }
 
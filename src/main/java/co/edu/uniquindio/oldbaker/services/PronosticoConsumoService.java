@@ -0,0 +1,325 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ConsumoDiarioDTO;
+import co.edu.uniquindio.oldbaker.dto.PronosticoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.VentaDiariaDTO;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.ConsumoDiarioInsumo;
+import co.edu.uniquindio.oldbaker.repositories.ConsumoDiarioInsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+
+/**
+ * Pronóstico de consumo de insumos a partir de las órdenes pagadas.
+ *
+ * Mantiene una serie diaria por insumo (consumos_diarios_insumo) que se actualiza con un upsert en la misma
+ * transacción que marca cada orden como PAID, sin recalcular la historia. La reconstrucción completa, para
+ * cargar el histórico o corregirlo, divide el rango de fechas en particiones que se calculan en paralelo
+ * con fork/join, cada una en su propia transacción.
+ *
+ * El pronóstico usa suavizado exponencial de Holt-Winters aditivo con estacionalidad semanal sobre los días
+ * completos (hasta ayer). Como esos datos no cambian durante el día, la serie pronosticada se guarda en memoria
+ * hasta que cambia la fecha; el stock y los días de cobertura cambian con cada venta y se calculan en cada consulta.
+ *
+ * La serie es estadística, no contable: guarda el consumo en la unidad base del insumo con decimales, y las
+ * milésimas exactas del libro se convierten al registrarlas.
+ */
+@Service
+@Slf4j
+public class PronosticoConsumoService {
+
+    static final int TEMPORADA = 7;
+    private static final int HORIZONTE_MAXIMO = 28;
+
+    private final ConsumoDiarioInsumoRepository consumoRepository;
+    private final OrdenCompraRepository ordenCompraRepository;
+    private final InventarioService inventarioService;
+    private final ExpansionRecetasService expansionRecetasService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final double alfa;
+    private final double beta;
+    private final double gamma;
+    private final int historiaDias;
+    private final int paralelismo;
+    private final int particionDias;
+
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean(false);
+
+    // Series pronosticadas por horizonte, válidas solo durante diaCache
+    private final Map<Integer, Pronosticos> cache = new HashMap<>();
+    private LocalDate diaCache;
+
+    public PronosticoConsumoService(ConsumoDiarioInsumoRepository consumoRepository,
+                                    OrdenCompraRepository ordenCompraRepository,
+                                    InventarioService inventarioService,
+                                    ExpansionRecetasService expansionRecetasService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${pronostico.alfa:0.3}") double alfa,
+                                    @Value("${pronostico.beta:0.05}") double beta,
+                                    @Value("${pronostico.gamma:0.2}") double gamma,
+                                    @Value("${pronostico.historia-dias:112}") int historiaDias,
+                                    @Value("${pronostico.reconstruccion.paralelismo:4}") int paralelismo,
+                                    @Value("${pronostico.reconstruccion.particion-dias:31}") int particionDias) {
+        this.consumoRepository = consumoRepository;
+        this.ordenCompraRepository = ordenCompraRepository;
+        this.inventarioService = inventarioService;
+        this.expansionRecetasService = expansionRecetasService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.alfa = alfa;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.historiaDias = Math.max(historiaDias, 2 * TEMPORADA);
+        this.paralelismo = Math.max(paralelismo, 1);
+        this.particionDias = Math.max(particionDias, 1);
+    }
+
+    /**
+     * Suma al día el consumo de una orden pagada, dentro de la transacción que la marca como PAID.
+     *
+     * @param fecha   Día del pago.
+     * @param consumo Consumo por insumo de la orden, en milésimas.
+     */
+    @Transactional
+    public void registrarConsumo(LocalDate fecha, Map<Long, Long> consumo) {
+        consumo.forEach((idInsumo, cantidad) -> {
+            if (cantidad != null && cantidad != 0) {
+                consumoRepository.sumar(idInsumo, fecha, CantidadFija.aDecimal(cantidad));
+            }
+        });
+    }
+
+    /**
+     * Recalcula la serie diaria de un rango de fechas desde las órdenes pagadas.
+     * El rango se acota a ayer: el día en curso lo sigue acumulando el registro incremental.
+     *
+     * @param desde Primer día (inclusive).
+     * @param hasta Último día (inclusive).
+     * @return El número de filas (insumo, día) escritas.
+     */
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        LocalDate ayer = LocalDate.now().minusDays(1);
+        LocalDate fin = hasta == null || hasta.isAfter(ayer) ? ayer : hasta;
+        if (desde == null || desde.isAfter(fin)) {
+            throw new IllegalArgumentException("Rango de fechas inválido: debe terminar a más tardar ayer");
+        }
+        if (!reconstruyendo.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una reconstrucción en curso");
+        }
+        ForkJoinPool pool = new ForkJoinPool(paralelismo);
+        try {
+            int filas = pool.invoke(new Reconstruccion(desde, fin));
+            log.info("Serie de consumo reconstruida entre {} y {}: {} filas", desde, fin, filas);
+            limpiarCache();
+            return filas;
+        } finally {
+            pool.shutdown();
+            reconstruyendo.set(false);
+        }
+    }
+
+    /**
+     * Divide el rango por la mitad hasta que cabe en una partición; cada partición se reemplaza completa
+     * en una transacción, así que una partición fallida deja su rango como estaba.
+     */
+    private class Reconstruccion extends RecursiveTask<Integer> {
+
+        private final LocalDate desde;
+        private final LocalDate hasta;
+
+        Reconstruccion(LocalDate desde, LocalDate hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Integer compute() {
+            long dias = ChronoUnit.DAYS.between(desde, hasta) + 1;
+            if (dias <= particionDias) {
+                return reconstruirParticion(desde, hasta);
+            }
+            LocalDate mitad = desde.plusDays(dias / 2 - 1);
+            Reconstruccion izquierda = new Reconstruccion(desde, mitad);
+            izquierda.fork();
+            int derecha = new Reconstruccion(mitad.plusDays(1), hasta).compute();
+            return izquierda.join() + derecha;
+        }
+    }
+
+    int reconstruirParticion(LocalDate desde, LocalDate hasta) {
+        Integer filas = transactionTemplate.execute(status -> {
+            consumoRepository.eliminarRango(desde, hasta);
+            List<VentaDiariaDTO> ventas = ordenCompraRepository
+                    .findVentasPagadas(desde.atStartOfDay(), hasta.plusDays(1).atStartOfDay());
+            // Las ventas se aplanan con las recetas vigentes, incluidas las preparaciones intermedias
+            Map<Long, List<RequerimientoInsumoDTO>> vectores = expansionRecetasService.requerimientos(
+                    ventas.stream().map(VentaDiariaDTO::getIdProducto).collect(Collectors.toSet()));
+            Map<LocalDate, Map<Long, Long>> consumoPorDia = new TreeMap<>();
+            for (VentaDiariaDTO venta : ventas) {
+                Map<Long, Long> delDia = consumoPorDia.computeIfAbsent(venta.getFecha(), k -> new HashMap<>());
+                for (RequerimientoInsumoDTO req : vectores.getOrDefault(venta.getIdProducto(), List.of())) {
+                    delDia.merge(req.getIdInsumo(),
+                            CantidadFija.multiplicar(req.getCantidadInsumo(), venta.getCantidad()), CantidadFija::sumar);
+                }
+            }
+            List<ConsumoDiarioInsumo> serie = new ArrayList<>();
+            consumoPorDia.forEach((fecha, delDia) -> delDia.forEach((idInsumo, cantidad) ->
+                    serie.add(ConsumoDiarioInsumo.builder()
+                            .idInsumo(idInsumo)
+                            .fecha(fecha)
+                            .cantidad(CantidadFija.aDecimal(cantidad))
+                            .build())));
+            // Filas nuevas tras el borrado del rango: persist sin SELECT previo, agrupado por hibernate.jdbc.batch_size
+            consumoRepository.saveAll(serie);
+            return serie.size();
+        });
+        return filas != null ? filas : 0;
+    }
+
+    /**
+     * Pronóstico de todos los insumos con consumo en la ventana de historia.
+     *
+     * @param horizonte Días a pronosticar desde mañana (se acota a HORIZONTE_MAXIMO).
+     */
+    public List<PronosticoInsumoDTO> pronosticar(int horizonte) {
+        Pronosticos pronosticos = pronosticos(horizonte);
+        if (pronosticos.porInsumo().isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Long> saldos = inventarioService.saldos(pronosticos.porInsumo().keySet());
+        List<PronosticoInsumoDTO> resultado = new ArrayList<>(pronosticos.porInsumo().size());
+        pronosticos.porInsumo().forEach((idInsumo, diario) -> resultado.add(pronostico(idInsumo, pronosticos.desde(),
+                diario, CantidadFija.aDecimal(saldos.getOrDefault(idInsumo, 0L)))));
+        return resultado;
+    }
+
+    /**
+     * Pronóstico de un insumo; sin consumo en la ventana de historia el pronóstico es cero.
+     */
+    public PronosticoInsumoDTO pronosticar(Long idInsumo, int horizonte) {
+        Pronosticos pronosticos = pronosticos(horizonte);
+        double[] diario = pronosticos.porInsumo().get(idInsumo);
+        return pronostico(idInsumo, pronosticos.desde(), diario != null ? diario : new double[pronosticos.dias()],
+                CantidadFija.aDecimal(inventarioService.saldo(idInsumo)));
+    }
+
+    private synchronized Pronosticos pronosticos(int horizonte) {
+        int dias = Math.max(1, Math.min(horizonte, HORIZONTE_MAXIMO));
+        LocalDate hoy = LocalDate.now();
+        if (!hoy.equals(diaCache)) {
+            cache.clear();
+            diaCache = hoy;
+        }
+        return cache.computeIfAbsent(dias, d -> calcular(hoy, d));
+    }
+
+    // Serie pronosticada por insumo desde mañana; los arreglos se comparten entre consultas y no se modifican
+    private record Pronosticos(LocalDate desde, int dias, Map<Long, double[]> porInsumo) {
+    }
+
+    public synchronized void limpiarCache() {
+        cache.clear();
+        diaCache = null;
+    }
+
+    private Pronosticos calcular(LocalDate hoy, int horizonte) {
+        LocalDate inicio = hoy.minusDays(historiaDias);
+        LocalDate fin = hoy.minusDays(1);
+        // Serie densa: los días sin ventas cuentan como consumo cero
+        Map<Long, double[]> series = new TreeMap<>();
+        for (ConsumoDiarioDTO consumo : consumoRepository.findSerie(inicio, fin)) {
+            int dia = (int) ChronoUnit.DAYS.between(inicio, consumo.getFecha());
+            series.computeIfAbsent(consumo.getIdInsumo(), k -> new double[historiaDias])[dia] += consumo.getCantidad();
+        }
+        Map<Long, double[]> pronosticos = new TreeMap<>();
+        series.forEach((idInsumo, serie) ->
+                pronosticos.put(idInsumo, holtWinters(serie, TEMPORADA, horizonte, alfa, beta, gamma)));
+        return new Pronosticos(hoy.plusDays(1), horizonte, Collections.unmodifiableMap(pronosticos));
+    }
+
+    private PronosticoInsumoDTO pronostico(Long idInsumo, LocalDate desde, double[] diario, double stock) {
+        List<Double> consumoDiario = new ArrayList<>(diario.length);
+        double total = 0;
+        Integer cobertura = null;
+        for (int i = 0; i < diario.length; i++) {
+            double valor = Math.round(diario[i] * 100) / 100.0;
+            consumoDiario.add(valor);
+            total += diario[i];
+            if (cobertura == null && total > stock) {
+                cobertura = i;
+            }
+        }
+        return PronosticoInsumoDTO.builder()
+                .idInsumo(idInsumo)
+                .desde(desde)
+                .consumoDiario(consumoDiario)
+                .consumoTotal(Math.round(total * 100) / 100.0)
+                .stockActual(stock)
+                .diasCobertura(cobertura)
+                .build();
+    }
+
+    /**
+     * Holt-Winters aditivo: nivel, tendencia y un componente estacional por posición en la temporada.
+     * Se inicializa con las dos primeras temporadas; con menos datos se repite el promedio de la serie.
+     *
+     * @param serie     Observaciones diarias, la última es ayer.
+     * @param temporada Longitud de la temporada (7 para la semana).
+     * @param horizonte Número de valores a pronosticar.
+     * @return Los valores pronosticados, nunca negativos.
+     */
+    static double[] holtWinters(double[] serie, int temporada, int horizonte,
+                                double alfa, double beta, double gamma) {
+        int n = serie.length;
+        double[] pronostico = new double[horizonte];
+        if (n < 2 * temporada) {
+            double promedio = n == 0 ? 0 : Arrays.stream(serie).average().orElse(0);
+            Arrays.fill(pronostico, Math.max(promedio, 0));
+            return pronostico;
+        }
+
+        double primera = 0;
+        double segunda = 0;
+        for (int i = 0; i < temporada; i++) {
+            primera += serie[i];
+            segunda += serie[temporada + i];
+        }
+        primera /= temporada;
+        segunda /= temporada;
+
+        double nivel = primera;
+        double tendencia = (segunda - primera) / temporada;
+        double[] estacion = new double[temporada];
+        for (int i = 0; i < temporada; i++) {
+            estacion[i] = serie[i] - primera;
+        }
+
+        for (int t = temporada; t < n; t++) {
+            int posicion = t % temporada;
+            double anterior = nivel;
+            nivel = alfa * (serie[t] - estacion[posicion]) + (1 - alfa) * (nivel + tendencia);
+            tendencia = beta * (nivel - anterior) + (1 - beta) * tendencia;
+            estacion[posicion] = gamma * (serie[t] - nivel) + (1 - gamma) * estacion[posicion];
+        }
+
+        for (int k = 1; k <= horizonte; k++) {
+            pronostico[k - 1] = Math.max(nivel + k * tendencia + estacion[(n + k - 1) % temporada], 0);
+        }
+        return pronostico;
+    }
+}
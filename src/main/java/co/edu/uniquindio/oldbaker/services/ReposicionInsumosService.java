@@ -0,0 +1,207 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.EstadoReposicionDTO;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.*;
+import co.edu.uniquindio.oldbaker.repositories.InsumoProveedorRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.PedidoInsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProveedorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+
+/**
+ * Motor de reposición de insumos.
+ *
+ * Se activa con los cambios de stock ya confirmados y solo evalúa los insumos que cambiaron, en un hilo aparte
+ * del checkout. Un insumo pasa a "en reposición" cuando su stock baja al punto de reorden o menos; esa transición
+ * es un UPDATE condicional, así que entre varias evaluaciones concurrentes (o varios nodos) solo una la gana y
+ * pide el insumo. Cuando el stock vuelve a superar el punto de reorden el insumo se rearma.
+ *
+ * Los insumos que cruzan el umbral se agrupan por proveedor en un único borrador de PedidoInsumo PENDIENTE;
+ * mientras ese borrador no se apruebe, los cruces siguientes del mismo proveedor se suman a él. Cada proveedor
+ * se procesa en su propia transacción con su fila bloqueada.
+ */
+@Service
+@Slf4j
+public class ReposicionInsumosService {
+
+    private final InsumoRepository insumoRepository;
+    private final InsumoProveedorRepository insumoProveedorRepository;
+    private final PedidoInsumoRepository pedidoInsumoRepository;
+    private final ProveedorRepository proveedorRepository;
+    private final CambiosEntidadService cambiosEntidadService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter insumosSolicitados;
+
+    public ReposicionInsumosService(InsumoRepository insumoRepository,
+                                    InsumoProveedorRepository insumoProveedorRepository,
+                                    PedidoInsumoRepository pedidoInsumoRepository,
+                                    ProveedorRepository proveedorRepository,
+                                    CambiosEntidadService cambiosEntidadService,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.insumoRepository = insumoRepository;
+        this.insumoProveedorRepository = insumoProveedorRepository;
+        this.pedidoInsumoRepository = pedidoInsumoRepository;
+        this.proveedorRepository = proveedorRepository;
+        this.cambiosEntidadService = cambiosEntidadService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.insumosSolicitados = Counter.builder("oldbaker.reposicion.insumos_solicitados")
+                .description("Insumos agregados a un borrador de reposición al cruzar su punto de reorden")
+                .register(meterRegistry);
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockInsumoModificado(StockInsumoModificadoEvent event) {
+        if (event.getIdsInsumo() == null || event.getIdsInsumo().isEmpty()) {
+            return;
+        }
+        evaluar(event.getIdsInsumo());
+    }
+
+    /**
+     * Evalúa los umbrales de los insumos indicados con su stock vigente.
+     *
+     * @param idsInsumo Insumos cuyo stock cambió.
+     * @return El número de insumos agregados a un borrador de reposición.
+     */
+    public int evaluar(Collection<Long> idsInsumo) {
+        Map<Long, List<EstadoReposicionDTO>> cruzadosPorProveedor = new LinkedHashMap<>();
+        List<Long> rearmar = new ArrayList<>();
+        List<Long> sinProveedor = new ArrayList<>();
+        for (EstadoReposicionDTO estado : insumoRepository.findEstadosReposicion(idsInsumo)) {
+            boolean bajoUmbral = estado.getPuntoReorden() != null && estado.getSaldo() <= estado.getPuntoReorden();
+            boolean enReposicion = Boolean.TRUE.equals(estado.getEnReposicion());
+            if (bajoUmbral && !enReposicion) {
+                if (estado.getIdProveedor() == null) {
+                    sinProveedor.add(estado.getIdInsumo());
+                } else {
+                    cruzadosPorProveedor.computeIfAbsent(estado.getIdProveedor(), k -> new ArrayList<>()).add(estado);
+                }
+            } else if (!bajoUmbral && enReposicion) {
+                rearmar.add(estado.getIdInsumo());
+            }
+        }
+
+        if (!rearmar.isEmpty() || !sinProveedor.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                rearmar.forEach(insumoRepository::rearmarReposicion);
+                // Sin proveedor no hay a quién pedir: se marca para avisar una sola vez por cruce
+                for (Long idInsumo : sinProveedor) {
+                    if (insumoRepository.marcarEnReposicion(idInsumo) == 1) {
+                        log.warn("Insumo {} bajo su punto de reorden sin proveedor asociado; no se genera pedido", idInsumo);
+                    }
+                }
+            });
+        }
+
+        int total = 0;
+        for (Map.Entry<Long, List<EstadoReposicionDTO>> entrada : cruzadosPorProveedor.entrySet()) {
+            try {
+                Integer agregados = transactionTemplate.execute(status ->
+                        reponer(entrada.getKey(), entrada.getValue()));
+                total += agregados != null ? agregados : 0;
+            } catch (RuntimeException e) {
+                // La transacción del proveedor se revierte con sus marcas: el próximo cambio de stock lo reintenta
+                log.error("No se pudo generar la reposición del proveedor {}: {}", entrada.getKey(), e.getMessage());
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Marca los insumos del proveedor y los agrega a su borrador de reposición, dentro de la transacción actual.
+     */
+    int reponer(Long idProveedor, List<EstadoReposicionDTO> cruzados) {
+        Proveedor proveedor = proveedorRepository.findParaActualizar(idProveedor)
+                .orElseThrow(() -> new RuntimeException("Proveedor no encontrado: " + idProveedor));
+
+        List<EstadoReposicionDTO> ganados = cruzados.stream()
+                .filter(c -> insumoRepository.marcarEnReposicion(c.getIdInsumo()) == 1)
+                .toList();
+        if (ganados.isEmpty()) {
+            return 0;
+        }
+
+        PedidoInsumo borrador = pedidoInsumoRepository.findBorradoresReposicion(idProveedor).stream()
+                .findFirst()
+                .orElseGet(() -> nuevoBorrador(proveedor));
+        Map<Long, DetalleProveedorPedido> detalles = new HashMap<>();
+        for (DetalleProveedorPedido detalle : borrador.getDetalles()) {
+            detalles.put(detalle.getInsumo().getIdInsumo(), detalle);
+        }
+        Map<Long, InsumoProveedor> insumosProveedor = new HashMap<>();
+        insumoProveedorRepository.findAllById(ganados.stream().map(EstadoReposicionDTO::getIdInsumoProveedor).toList())
+                .forEach(ip -> insumosProveedor.put(ip.getIdInsumo(), ip));
+
+        for (EstadoReposicionDTO cruzado : ganados) {
+            InsumoProveedor insumoProveedor = insumosProveedor.get(cruzado.getIdInsumoProveedor());
+            int cantidad = cantidadAPedir(cruzado, insumoProveedor);
+            DetalleProveedorPedido detalle = detalles.get(cruzado.getIdInsumoProveedor());
+            if (detalle == null) {
+                detalle = new DetalleProveedorPedido();
+                detalle.setCantidadInsumo(cantidad);
+                detalle.setEsDevuelto(false);
+                detalle.setInsumo(insumoProveedor);
+                detalle.setPedido(borrador);
+                borrador.getDetalles().add(detalle);
+                detalles.put(cruzado.getIdInsumoProveedor(), detalle);
+            } else {
+                // El insumo volvió a cruzar mientras el borrador seguía pendiente: se pide lo que falta ahora
+                detalle.setCantidadInsumo(Math.max(detalle.getCantidadInsumo(), cantidad));
+            }
+            detalle.setCostoSubtotal(detalle.getCantidadInsumo() * insumoProveedor.getCostoUnitario());
+        }
+        borrador.setCostoTotal(borrador.getDetalles().stream()
+                .filter(d -> !Boolean.TRUE.equals(d.getEsDevuelto()))
+                .mapToDouble(DetalleProveedorPedido::getCostoSubtotal)
+                .sum());
+
+        PedidoInsumo guardado = pedidoInsumoRepository.save(borrador);
+        cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, guardado.getIdPedido());
+        insumosSolicitados.increment(ganados.size());
+        log.info("Reposición: {} insumo(s) agregados al borrador {} del proveedor {}",
+                ganados.size(), guardado.getIdPedido(), idProveedor);
+        return ganados.size();
+    }
+
+    // Hasta el nivel objetivo; sin nivel objetivo, hasta el punto de reorden. Al menos una unidad.
+    // Saldo y umbrales están en la unidad base del insumo, pero el detalle se pide (y se recibe y se cobra) en la
+    // unidad de compra del proveedor: lo que falta se convierte y se redondea hacia arriba a unidades enteras
+    private int cantidadAPedir(EstadoReposicionDTO estado, InsumoProveedor insumoProveedor) {
+        long objetivo = estado.getNivelObjetivo() != null ? estado.getNivelObjetivo() : estado.getPuntoReorden();
+        long falta = objetivo - estado.getSaldo();
+        Receta.UnidadMedida unidadCompra = insumoProveedor.getUnidadMedida();
+        if (unidadCompra != null) {
+            Insumo inventario = insumoProveedor.getInsumo();
+            Receta.UnidadMedida base = inventario != null && inventario.getUnidadMedida() != null
+                    ? inventario.getUnidadMedida() : Receta.UnidadMedida.UNIDADES;
+            falta = CantidadFija.convertir(falta, base, unidadCompra);
+        }
+        return (int) Math.max(CantidadFija.unidadesCompletas(falta), 1);
+    }
+
+    private PedidoInsumo nuevoBorrador(Proveedor proveedor) {
+        PedidoInsumo pedido = new PedidoInsumo();
+        pedido.setNombre("Reposición automática - " + proveedor.getNombre());
+        pedido.setDescripcion("Borrador generado al cruzar el punto de reorden de uno o más insumos");
+        pedido.setFechaPedido(LocalDate.now());
+        pedido.setEstado(PedidoInsumo.EstadoPedido.PENDIENTE);
+        pedido.setReposicionAutomatica(true);
+        return pedido;
+    }
+}
@@ -1,19 +1,22 @@
 package co.edu.uniquindio.oldbaker.services;
 
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
 import co.edu.uniquindio.oldbaker.dto.payment.CheckoutItemDTO;
 import co.edu.uniquindio.oldbaker.dto.payment.CheckoutRequestDTO;
-import co.edu.uniquindio.oldbaker.model.Insumo;
-import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.model.CantidadFija;
+import co.edu.uniquindio.oldbaker.model.Producto;
 import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
-import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
 import lombok.RequiredArgsConstructor;
- import org.slf4j.Logger;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -23,8 +26,9 @@ public class StockValidationService {
 
     private static final Logger logger = LoggerFactory.getLogger(StockValidationService.class);
 
-    private final RecetaRepository recetaRepository;
+    private final ExpansionRecetasService expansionRecetasService;
     private final InsumoRepository insumoRepository;
+    private final ProductoRepository productoRepository;
 
     /**
      * Valida que para los items de checkout exista receta y haya stock suficiente de insumos.
@@ -36,43 +40,23 @@ public class StockValidationService {
             return new StockCheckResult(true, null);
         }
 
-        // Cargar todas las recetas necesarias y construir conjunto de insumos a consultar
-        // Primero, recolectar todos los productos del pedido para obtener recetas
-        Map<Long, List<Receta>> recetasPorProducto = new HashMap<>();
-        for (CheckoutItemDTO item : request.getItems()) {
-            if (item == null || item.getProductId() == null) continue;
-            Long productId = item.getProductId();
-            if (!recetasPorProducto.containsKey(productId)) {
-                List<Receta> recetaItems = recetaRepository.findByProducto_IdProducto(productId);
-                recetasPorProducto.put(productId, recetaItems);
-            }
-        }
+        // Vectores aplanados (insumos crudos por unidad) de los productos del pedido, ya expandidos y memorizados
+        Set<Long> idsProducto = request.getItems().stream()
+                .filter(item -> item != null && item.getProductId() != null)
+                .map(CheckoutItemDTO::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, List<RequerimientoInsumoDTO>> requerimientosPorProducto = expansionRecetasService.requerimientos(idsProducto);
 
         // Verificar que todos los productos tengan receta
-        for (Map.Entry<Long, List<Receta>> e : recetasPorProducto.entrySet()) {
-            Long pid = e.getKey();
-            List<Receta> recs = e.getValue();
-            if (recs == null || recs.isEmpty()) {
+        for (Long pid : idsProducto) {
+            List<RequerimientoInsumoDTO> requerimientos = requerimientosPorProducto.get(pid);
+            if (requerimientos == null || requerimientos.isEmpty()) {
                 return new StockCheckResult(false, "Producto " + pid + " no tiene receta definida.");
             }
         }
 
-        // Construir mapa de insumoId -> disponible (double), cargando solo los insumos implicados
-        Set<Long> insumoIds = recetasPorProducto.values().stream()
-                .flatMap(List::stream)
-                .filter(r -> r.getInsumo() != null)
-                .map(r -> r.getInsumo().getIdInsumo())
-                .collect(Collectors.toSet());
-
-        Map<Long, Double> availableMap = new HashMap<>();
-        if (!insumoIds.isEmpty()) {
-            List<Insumo> insumos = insumoRepository.findAllById(insumoIds);
-            for (Insumo ins : insumos) {
-                if (ins == null) continue;
-                double cant = ins.getCantidadActual() != null ? ins.getCantidadActual() : 0.0;
-                availableMap.put(ins.getIdInsumo(), cant);
-            }
-        }
+        // Construir mapa de insumoId -> disponible en milésimas, cargando solo los insumos implicados
+        Map<Long, Long> availableMap = disponibles(requerimientosPorProducto);
 
         StringBuilder mensaje = new StringBuilder();
         boolean allOk = true;
@@ -84,69 +68,25 @@ public class StockValidationService {
             int requestedQty = item.getQuantity() != null ? item.getQuantity() : 0;
             if (productId == null || requestedQty <= 0) continue;
 
-            List<Receta> recetaItems = recetasPorProducto.get(productId);
-            if (recetaItems == null || recetaItems.isEmpty()) {
-                // ya verificado antes, pero por seguridad
-                return new StockCheckResult(false, "Producto " + productId + " no tiene receta definida.");
-            }
-
-            // Calcular la máxima cantidad de este producto que se puede preparar con el stock disponible actual
-            double maxPossible = Double.POSITIVE_INFINITY;
-            for (Receta r : recetaItems) {
-                if (r == null || r.getInsumo() == null) continue;
-                Long insumoId = r.getInsumo().getIdInsumo();
-                // convertir de forma segura la cantidad por producto (soporta primitives y wrappers)
-                Number cantidadObj = r.getCantidadInsumo();
-                double needPerProduct = cantidadObj != null ? cantidadObj.doubleValue() : 0.0;
-                if (needPerProduct <= 0) continue; // si no consume este insumo, no limita
-                double avail = availableMap.getOrDefault(insumoId, 0.0);
-                double possibleForThisInsumo = Math.floor(avail / needPerProduct);
-                if (possibleForThisInsumo < maxPossible) maxPossible = possibleForThisInsumo;
-            }
-
-            if (maxPossible == Double.POSITIVE_INFINITY) {
-                // No insumos limitantes (receta vacía o solo insumos con cantidad 0)
-                maxPossible = Integer.MAX_VALUE;
-            }
-
-            int maxUnits = (int) Math.max(0, Math.floor(maxPossible));
+            List<RequerimientoInsumoDTO> requerimientos = requerimientosPorProducto.get(productId);
+            int maxUnits = maximoPreparable(requerimientos, availableMap);
 
             if (maxUnits >= requestedQty) {
                 // Reservar los insumos necesarios para la cantidad solicitada
-                for (Receta r : recetaItems) {
-                    if (r == null || r.getInsumo() == null) continue;
-                    Long insumoId = r.getInsumo().getIdInsumo();
-                    Number cantidadObj = r.getCantidadInsumo();
-                    double needPerProduct = cantidadObj != null ? cantidadObj.doubleValue() : 0.0;
-                    double totalNeed = needPerProduct * requestedQty;
-                    double remaining = availableMap.getOrDefault(insumoId, 0.0) - totalNeed;
-                    availableMap.put(insumoId, Math.max(0.0, remaining));
-                }
+                reservar(requerimientos, availableMap, requestedQty);
             } else {
                 // No se puede preparar la cantidad solicitada; indicar cuántas se sí pueden preparar
                 allOk = false;
-                String nombreProducto = "producto id=" + productId;
-                // intentar obtener nombre desde la receta (producto relacionado)
-                if (!recetaItems.isEmpty() && recetaItems.get(0).getProducto() != null
-                        && recetaItems.get(0).getProducto().getNombre() != null) {
-                    nombreProducto = recetaItems.get(0).getProducto().getNombre();
-                }
+                // El nombre solo se consulta cuando hay que informar el faltante
+                String nombreProducto = productoRepository.findById(productId)
+                        .map(Producto::getNombre)
+                        .orElse("producto id=" + productId);
                 mensaje.append("Producto '").append(nombreProducto).append("' no se puede preparar en la cantidad solicitada (")
                         .append(requestedQty).append("). Se puede preparar hasta ")
                         .append(maxUnits).append(" unidades. ");
 
                 // Reservar los insumos para las unidades que sí se pueden preparar (maxUnits)
-                if (maxUnits > 0) {
-                    for (Receta r : recetaItems) {
-                        if (r == null || r.getInsumo() == null) continue;
-                        Long insumoId = r.getInsumo().getIdInsumo();
-                        Number cantidadObj = r.getCantidadInsumo();
-                        double needPerProduct = cantidadObj != null ? cantidadObj.doubleValue() : 0.0;
-                        double totalNeed = needPerProduct * maxUnits;
-                        double remaining = availableMap.getOrDefault(insumoId, 0.0) - totalNeed;
-                        availableMap.put(insumoId, Math.max(0.0, remaining));
-                    }
-                }
+                reservar(requerimientos, availableMap, maxUnits);
             }
         }
 
@@ -157,4 +97,78 @@ public class StockValidationService {
 
         return new StockCheckResult(true, null);
     }
+
+    /**
+     * Calcula cuántas unidades de cada línea se pueden preparar, reservando insumos en orden igual que
+     * checkAvailability. Las recetas salen de los vectores memorizados y el stock de todas las líneas se carga en una consulta.
+     * Una línea con cantidad 0 solo se consulta: informa su máximo sin reservar insumos.
+     *
+     * @param lineas Líneas (producto, cantidad) en el orden del carrito.
+     * @return Máximo preparable de cada línea, en el mismo orden; 0 si el producto no tiene receta.
+     */
+    public int[] maximosPreparables(List<CheckoutItemDTO> lineas) {
+        int[] maximos = new int[lineas.size()];
+        Set<Long> idsProducto = lineas.stream()
+                .map(CheckoutItemDTO::getProductId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (idsProducto.isEmpty()) {
+            return maximos;
+        }
+
+        Map<Long, List<RequerimientoInsumoDTO>> requerimientosPorProducto = expansionRecetasService.requerimientos(idsProducto);
+        Map<Long, Long> disponible = disponibles(requerimientosPorProducto);
+
+        for (int i = 0; i < lineas.size(); i++) {
+            CheckoutItemDTO linea = lineas.get(i);
+            List<RequerimientoInsumoDTO> requerimientos = requerimientosPorProducto.get(linea.getProductId());
+            if (requerimientos == null || requerimientos.isEmpty()) {
+                continue;
+            }
+            int maximo = maximoPreparable(requerimientos, disponible);
+            maximos[i] = maximo;
+            int solicitada = linea.getQuantity() != null ? linea.getQuantity() : 0;
+            if (solicitada > 0) {
+                reservar(requerimientos, disponible, Math.min(maximo, solicitada));
+            }
+        }
+        return maximos;
+    }
+
+    // Stock vigente según el libro de inventario de los insumos que usan los productos, en una consulta
+    private Map<Long, Long> disponibles(Map<Long, List<RequerimientoInsumoDTO>> requerimientosPorProducto) {
+        Set<Long> idsInsumo = requerimientosPorProducto.values().stream()
+                .flatMap(List::stream)
+                .map(RequerimientoInsumoDTO::getIdInsumo)
+                .collect(Collectors.toSet());
+        Map<Long, Long> disponible = new HashMap<>();
+        if (!idsInsumo.isEmpty()) {
+            for (StockInsumoDTO stock : insumoRepository.findStockByIds(idsInsumo)) {
+                disponible.put(stock.getIdInsumo(), stock.getCantidadActual() != null ? stock.getCantidadActual() : 0L);
+            }
+        }
+        return disponible;
+    }
+
+    // Máxima cantidad del producto que se puede preparar con el stock disponible actual, en aritmética entera
+    private int maximoPreparable(List<RequerimientoInsumoDTO> requerimientos, Map<Long, Long> disponible) {
+        // Sin insumos limitantes (receta vacía o solo insumos con cantidad 0) no hay tope
+        long maxPossible = Integer.MAX_VALUE;
+        for (RequerimientoInsumoDTO req : requerimientos) {
+            long avail = disponible.getOrDefault(req.getIdInsumo(), 0L);
+            maxPossible = Math.min(maxPossible, CantidadFija.vecesQueCabe(avail, req.getCantidadInsumo()));
+        }
+        return (int) maxPossible;
+    }
+
+    private void reservar(List<RequerimientoInsumoDTO> requerimientos, Map<Long, Long> disponible, int unidades) {
+        if (unidades <= 0) {
+            return;
+        }
+        for (RequerimientoInsumoDTO req : requerimientos) {
+            long totalNeed = CantidadFija.multiplicar(req.getCantidadInsumo(), unidades);
+            long remaining = disponible.getOrDefault(req.getIdInsumo(), 0L) - totalNeed;
+            disponible.put(req.getIdInsumo(), Math.max(0L, remaining));
+        }
+    }
 }
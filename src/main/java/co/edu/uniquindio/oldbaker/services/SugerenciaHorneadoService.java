@@ -0,0 +1,187 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.MargenProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.ProductoHorneadoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.VentaDiariaDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.SugerenciaHorneadoDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.SugerenciaHorneadoProductoDTO;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Sugerencia de horneado: cuántas unidades de cada producto hornear con el stock actual para obtener el mayor
+ * ingreso o margen.
+ *
+ * Cada producto aporta su precio (o su margen según CosteoProductosService) y consume los insumos de su receta
+ * aplanada por ExpansionRecetasService. Si se hornea, es al menos su pedido mínimo y como mucho la mayor venta
+ * diaria de los últimos días, para no sugerir más de lo que se vende; sin ventas recientes el tope es la tanda
+ * mínima. El programa entero lo resuelve OptimizadorHorneado en paralelo dentro de un presupuesto de tiempo.
+ *
+ * Todas las sugerencias comparten un mismo pool de hilos acotado: peticiones simultáneas se reparten esos hilos
+ * en lugar de abrir cada una un pool con todos los núcleos, y el presupuesto por petición es corto.
+ */
+@Service
+@Slf4j
+public class SugerenciaHorneadoService {
+
+    private static final long PRESUPUESTO_MAXIMO_MS = 5_000;
+
+    private final ProductoRepository productoRepository;
+    private final OrdenCompraRepository ordenCompraRepository;
+    private final ExpansionRecetasService expansionRecetasService;
+    private final InventarioService inventarioService;
+    private final CosteoProductosService costeoProductosService;
+    private final ForkJoinPool pool;
+    private final long presupuestoMs;
+    private final int diasDemanda;
+
+    public enum Objetivo { INGRESO, MARGEN }
+
+    public SugerenciaHorneadoService(ProductoRepository productoRepository,
+                                     OrdenCompraRepository ordenCompraRepository,
+                                     ExpansionRecetasService expansionRecetasService,
+                                     InventarioService inventarioService,
+                                     CosteoProductosService costeoProductosService,
+                                     @Value("${produccion.sugerencia.paralelismo:0}") int paralelismo,
+                                     @Value("${produccion.sugerencia.presupuesto-ms:2000}") long presupuestoMs,
+                                     @Value("${produccion.sugerencia.demanda-dias:28}") int diasDemanda) {
+        this.productoRepository = productoRepository;
+        this.ordenCompraRepository = ordenCompraRepository;
+        this.expansionRecetasService = expansionRecetasService;
+        this.inventarioService = inventarioService;
+        this.costeoProductosService = costeoProductosService;
+        // Por defecto la mitad de los núcleos: la búsqueda no debe quitarle la CPU a las peticiones web
+        this.pool = new ForkJoinPool(paralelismo > 0 ? paralelismo
+                : Math.max(Runtime.getRuntime().availableProcessors() / 2, 1));
+        this.presupuestoMs = presupuestoMs;
+        this.diasDemanda = Math.max(diasDemanda, 1);
+    }
+
+    /**
+     * @param objetivo      Qué maximizar; por defecto el ingreso.
+     * @param presupuestoMs Tiempo máximo de búsqueda; por defecto el configurado.
+     */
+    public SugerenciaHorneadoDTO sugerir(Objetivo objetivo, Long presupuestoMs) {
+        Objetivo meta = objetivo != null ? objetivo : Objetivo.INGRESO;
+        long presupuesto = presupuestoMs != null ? presupuestoMs : this.presupuestoMs;
+        if (presupuesto <= 0 || presupuesto > PRESUPUESTO_MAXIMO_MS) {
+            throw new IllegalArgumentException("El presupuesto debe estar entre 1 y " + PRESUPUESTO_MAXIMO_MS + " ms");
+        }
+        long inicio = System.currentTimeMillis();
+
+        Map<Long, Double> valorPorProducto = new HashMap<>();
+        Map<Long, ProductoHorneadoDTO> productoPorId = new HashMap<>();
+        Map<Long, Double> margenes = meta == Objetivo.MARGEN ? margenes() : Map.of();
+        for (ProductoHorneadoDTO producto : productoRepository.findParaHorneado()) {
+            Double valor = meta == Objetivo.MARGEN ? margenes.get(producto.getIdProducto()) : producto.getPrecioVenta();
+            if (valor != null && valor > 0) {
+                valorPorProducto.put(producto.getIdProducto(), valor);
+                productoPorId.put(producto.getIdProducto(), producto);
+            }
+        }
+
+        // Sin receta no se sabe qué consume: no entra en la sugerencia
+        Map<Long, List<RequerimientoInsumoDTO>> recetas = new HashMap<>(
+                expansionRecetasService.requerimientos(valorPorProducto.keySet()));
+        recetas.keySet().retainAll(valorPorProducto.keySet());
+        recetas.values().removeIf(List::isEmpty);
+        List<Long> ids = recetas.keySet().stream().sorted().toList();
+        List<Long> insumos = recetas.values().stream().flatMap(List::stream)
+                .map(RequerimientoInsumoDTO::getIdInsumo).distinct().sorted().toList();
+
+        Map<Long, Integer> topes = topesDemanda();
+        Map<Long, Long> saldos = inventarioService.saldos(insumos);
+
+        int n = ids.size();
+        double[] valor = new double[n];
+        int[] minimo = new int[n];
+        int[] tope = new int[n];
+        long[][] consumo = new long[insumos.size()][n];
+        long[] stock = new long[insumos.size()];
+        Map<Long, Integer> fila = new HashMap<>();
+        for (int i = 0; i < insumos.size(); i++) {
+            fila.put(insumos.get(i), i);
+            stock[i] = Math.max(saldos.getOrDefault(insumos.get(i), 0L), 0L);
+        }
+        for (int p = 0; p < n; p++) {
+            Long id = ids.get(p);
+            valor[p] = valorPorProducto.get(id);
+            minimo[p] = Math.max(productoPorId.get(id).getPedidoMinimo(), 1);
+            tope[p] = Math.max(topes.getOrDefault(id, 0), minimo[p]);
+            for (RequerimientoInsumoDTO req : recetas.get(id)) {
+                consumo[fila.get(req.getIdInsumo())][p] += req.getCantidadInsumo();
+            }
+        }
+
+        OptimizadorHorneado.Resultado resultado = OptimizadorHorneado.resolver(valor, consumo, stock, minimo, tope,
+                pool, presupuesto);
+
+        List<SugerenciaHorneadoProductoDTO> lineas = new ArrayList<>();
+        for (int p = 0; p < n; p++) {
+            int cantidad = resultado.cantidades()[p];
+            if (cantidad > 0) {
+                ProductoHorneadoDTO producto = productoPorId.get(ids.get(p));
+                lineas.add(new SugerenciaHorneadoProductoDTO(producto.getIdProducto(), producto.getNombre(), cantidad,
+                        tope[p], minimo[p], redondear(valor[p] * cantidad)));
+            }
+        }
+        lineas.sort(Comparator.comparingDouble(SugerenciaHorneadoProductoDTO::getAporte).reversed()
+                .thenComparing(SugerenciaHorneadoProductoDTO::getIdProducto));
+
+        long milisegundos = System.currentTimeMillis() - inicio;
+        log.debug("Sugerencia de horneado ({}) con {} productos: {} nodos en {} ms, óptima={}",
+                meta, n, resultado.nodos(), milisegundos, resultado.optimo());
+        return SugerenciaHorneadoDTO.builder()
+                .objetivo(meta)
+                .generado(LocalDateTime.now())
+                .valorObjetivo(redondear(resultado.valor()))
+                .cotaSuperior(redondear(resultado.cota()))
+                .optima(resultado.optimo())
+                .nodos(resultado.nodos())
+                .milisegundos(milisegundos)
+                .productos(lineas)
+                .build();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        pool.shutdownNow();
+    }
+
+    private Map<Long, Double> margenes() {
+        Map<Long, Double> margenes = new HashMap<>();
+        for (MargenProductoDTO margen : costeoProductosService.reporte()) {
+            // Con costo incompleto el margen sale inflado; mejor no sugerirlo
+            if (margen.getMargen() != null && margen.isCostoCompleto()) {
+                margenes.put(margen.getIdProducto(), margen.getMargen());
+            }
+        }
+        return margenes;
+    }
+
+    // Mayor venta diaria de cada producto en los últimos días
+    private Map<Long, Integer> topesDemanda() {
+        LocalDateTime hasta = LocalDateTime.now();
+        LocalDateTime desde = LocalDate.now().minusDays(diasDemanda).atStartOfDay();
+        Map<Long, Integer> topes = new HashMap<>();
+        for (VentaDiariaDTO venta : ordenCompraRepository.findVentasPagadas(desde, hasta)) {
+            int unidades = (int) Math.min(venta.getCantidad() != null ? venta.getCantidad() : 0L, Integer.MAX_VALUE);
+            topes.merge(venta.getIdProducto(), unidades, Math::max);
+        }
+        return topes;
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+}
@@ -0,0 +1,140 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Buffer write-behind para la fecha de última sesión de los usuarios.
+ * Los eventos de autenticación solo actualizan un mapa en memoria que conserva la marca más reciente por usuario;
+ * un proceso programado vuelca el mapa a la tabla usuarios con una única actualización JDBC por lotes.
+ */
+@Service
+@Slf4j
+public class UltimaSesionBuffer {
+
+    // Nunca retrocede la fecha: si otro nodo escribió una marca más reciente se conserva
+    static final String SQL_ACTUALIZAR =
+            "UPDATE usuarios SET fecha_ultima_sesion = ? " +
+            "WHERE id = ? AND (fecha_ultima_sesion IS NULL OR fecha_ultima_sesion < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+
+    private final Timer tiempoVolcado;
+    private final Counter filasVolcadas;
+
+    public UltimaSesionBuffer(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        Gauge.builder("oldbaker.ultima_sesion.buffer.size", pendientes, ConcurrentHashMap::size)
+                .description("Usuarios con fecha de última sesión pendiente de escribir")
+                .register(meterRegistry);
+        this.tiempoVolcado = Timer.builder("oldbaker.ultima_sesion.flush")
+                .description("Duración de cada volcado del buffer a la base de datos")
+                .register(meterRegistry);
+        this.filasVolcadas = Counter.builder("oldbaker.ultima_sesion.flushed")
+                .description("Fechas de última sesión escritas en la base de datos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra actividad del usuario en el instante actual.
+     *
+     * @param usuarioId ID del usuario.
+     */
+    public void registrar(Long usuarioId) {
+        registrar(usuarioId, LocalDateTime.now(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Registra actividad del usuario; si ya había una marca pendiente se queda la más reciente.
+     *
+     * @param usuarioId ID del usuario.
+     * @param fecha     Fecha de la actividad.
+     */
+    public void registrar(Long usuarioId, LocalDateTime fecha) {
+        if (usuarioId == null || fecha == null) {
+            return;
+        }
+        pendientes.merge(usuarioId, fecha, (actual, nueva) -> nueva.isAfter(actual) ? nueva : actual);
+    }
+
+    /**
+     * Número de usuarios con una marca pendiente de escribir.
+     */
+    public int pendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Vuelca las marcas pendientes en una sola actualización por lotes.
+     * Si la escritura falla, las marcas se devuelven al buffer para el siguiente intento.
+     *
+     * @return El número de usuarios volcados.
+     */
+    @Scheduled(fixedDelayString = "${auth.ultima-sesion.flush-delay-ms:10000}")
+    public int volcar() {
+        if (pendientes.isEmpty()) {
+            return 0;
+        }
+
+        // Se retira cada entrada de forma atómica: una marca que llegue durante el volcado queda para el siguiente
+        List<Object[]> lote = new ArrayList<>(pendientes.size());
+        for (Long usuarioId : pendientes.keySet()) {
+            LocalDateTime fecha = pendientes.remove(usuarioId);
+            if (fecha != null) {
+                Timestamp ts = Timestamp.valueOf(fecha);
+                lote.add(new Object[]{ts, usuarioId, ts});
+            }
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, lote);
+        } catch (RuntimeException e) {
+            for (Object[] fila : lote) {
+                registrar((Long) fila[1], ((Timestamp) fila[0]).toLocalDateTime());
+            }
+            log.warn("No se pudo volcar la fecha de última sesión de {} usuarios, se reintentará: {}",
+                    lote.size(), e.getMessage());
+            return 0;
+        } finally {
+            tiempoVolcado.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+
+        filasVolcadas.increment(lote.size());
+        log.debug("Fecha de última sesión volcada para {} usuarios", lote.size());
+        return lote.size();
+    }
+
+    /**
+     * Vacía el buffer al detener la aplicación para no perder las marcas pendientes.
+     */
+    @PreDestroy
+    public void drenar() {
+        int volcados = volcar();
+        if (!pendientes.isEmpty()) {
+            log.warn("Se descartan {} fechas de última sesión al apagar", pendientes.size());
+        } else if (volcados > 0) {
+            log.info("Buffer de última sesión drenado al apagar: {} usuarios", volcados);
+        }
+    }
+}
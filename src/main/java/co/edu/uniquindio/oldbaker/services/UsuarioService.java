@@ -1,6 +1,7 @@
 package co.edu.uniquindio.oldbaker.services;
 
 import co.edu.uniquindio.oldbaker.dto.DireccionResponseDTO;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
 import co.edu.uniquindio.oldbaker.model.Direccion;
 import co.edu.uniquindio.oldbaker.model.Usuario;
 import co.edu.uniquindio.oldbaker.repositories.DireccionRepository;
@@ -27,6 +28,7 @@ public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
     private final DireccionRepository direccionRepository;
+    private final CambiosEntidadService cambiosEntidadService;
 
     // Método para encontrar un usuario activo por su email
     public Usuario findByEmailAndActivoTrue(String userEmail) {
@@ -47,6 +49,7 @@ public class UsuarioService {
     public boolean deactivateUser(Long id) {
         int updated = usuarioRepository.deactivateById(id);
         if (updated > 0) {
+            cambiosEntidadService.registrar(CambioEntidad.TipoEntidad.USUARIO, id);
             log.info("Usuario id={} desactivado", id);
             return true;
         } else {
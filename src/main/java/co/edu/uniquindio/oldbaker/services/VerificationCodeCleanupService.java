@@ -0,0 +1,49 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.repositories.VerificationCodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+
+/**
+ * Servicio en segundo plano que elimina los códigos de verificación expirados.
+ * Borra por lotes para no bloquear la tabla y mantenerla pequeña, de modo que las búsquedas por índice sigan siendo baratas.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VerificationCodeCleanupService {
+
+    private final VerificationCodeRepository verificationCodeRepository;
+
+    @Value("${verification.cleanup.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Elimina los códigos expirados en lotes hasta que no quede ninguno.
+     *
+     * @return El número total de códigos eliminados.
+     */
+    @Scheduled(fixedDelayString = "${verification.cleanup.fixed-delay-ms:300000}",
+            initialDelayString = "${verification.cleanup.initial-delay-ms:60000}")
+    public int eliminarCodigosExpirados() {
+        var ahora = LocalDateTime.now(ZoneId.systemDefault());
+        int total = 0;
+        int eliminados;
+        do {
+            eliminados = verificationCodeRepository.deleteExpiredBatch(ahora, batchSize);
+            total += eliminados;
+        } while (eliminados == batchSize);
+
+        if (total > 0) {
+            log.info("Códigos de verificación expirados eliminados: {}", total);
+        }
+        return total;
+    }
+}
@@ -56,7 +56,7 @@ class AdminControllerTest {
         productoRequest.setCategoriaId(1L);
         productoRequest.setPedidoMinimo(10);
         productoRequest.setInsumoId(1L);
-        productoRequest.setCantidadInsumo(100);
+        productoRequest.setCantidadInsumo(100.0);
         productoRequest.setCantidadProductos(20);
 
         productoResponse = new ProductoResponse();
@@ -3,6 +3,7 @@ package co.edu.uniquindio.oldbaker.controllers;
 import co.edu.uniquindio.oldbaker.dto.api.ApiResponse;
 import co.edu.uniquindio.oldbaker.dto.auth.*;
 import co.edu.uniquindio.oldbaker.services.AuthService;
+import co.edu.uniquindio.oldbaker.services.GuestCartService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -34,6 +35,9 @@ class AuthControllerTest {
     @Mock
     private AuthService authService;
 
+    @Mock
+    private GuestCartService guestCartService;
+
     @InjectMocks
     private AuthController authController;
 
@@ -138,7 +142,7 @@ class AuthControllerTest {
         when(authService.authenticate(any(LoginRequest.class))).thenReturn(authResponse);
 
         // When
-        ResponseEntity<ApiResponse<AuthResponse>> response = authController.authenticate(loginRequest);
+        ResponseEntity<ApiResponse<AuthResponse>> response = authController.authenticate(loginRequest, null);
 
         // Then
         assertNotNull(response);
@@ -165,7 +169,7 @@ class AuthControllerTest {
                 .thenThrow(new IllegalArgumentException("Credenciales inválidas"));
 
         // When
-        ResponseEntity<ApiResponse<AuthResponse>> response = authController.authenticate(loginRequest);
+        ResponseEntity<ApiResponse<AuthResponse>> response = authController.authenticate(loginRequest, null);
 
         // Then
         assertNotNull(response);
@@ -2,6 +2,7 @@ package co.edu.uniquindio.oldbaker.controllers;
 
 import co.edu.uniquindio.oldbaker.dto.DetalleProveedorPedidoRequest;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoRequest;
+import co.edu.uniquindio.oldbaker.dto.PedidoInsumoPaginaResponse;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoResponse;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorRequest;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorResponse;
@@ -119,9 +120,9 @@ class PedidoInsumoAdminControllerTest {
      * Verifica que el endpoint de listado de pedidos funcione correctamente.
      *
      * Este test valida que:
-     * - El controlador obtiene la lista completa de pedidos del servicio
+     * - El controlador obtiene del servicio la página de pedidos con los filtros recibidos
      * - Retorna un código HTTP 200 (OK)
-     * - La lista contiene el número correcto de pedidos
+     * - La página contiene el número correcto de pedidos y el cursor siguiente
      * - El servicio es invocado exactamente una vez
      */
     @Test
@@ -134,44 +135,53 @@ class PedidoInsumoAdminControllerTest {
         pedido2.setCostoTotal(150000.0);
 
         List<PedidoInsumoResponse> pedidos = Arrays.asList(pedidoInsumoResponse, pedido2);
-        when(pedidoInsumoService.listarPedidos()).thenReturn(pedidos);
+        PedidoInsumoPaginaResponse pagina = PedidoInsumoPaginaResponse.builder()
+                .pedidos(pedidos).siguienteCursor("Mg").hayMas(true).build();
+        when(pedidoInsumoService.listarPedidos(PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2))
+                .thenReturn(pagina);
 
         // When
-        ResponseEntity<List<PedidoInsumoResponse>> response = pedidoInsumoAdminController.obtenerPedidos();
+        ResponseEntity<PedidoInsumoPaginaResponse> response =
+                pedidoInsumoAdminController.obtenerPedidos(PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2);
 
         // Then
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertEquals("Pedido de Harina", response.getBody().get(0).getNombre());
-        assertEquals("Pedido de Azúcar", response.getBody().get(1).getNombre());
-        verify(pedidoInsumoService, times(1)).listarPedidos();
+        assertEquals(2, response.getBody().getPedidos().size());
+        assertEquals("Pedido de Harina", response.getBody().getPedidos().get(0).getNombre());
+        assertEquals("Pedido de Azúcar", response.getBody().getPedidos().get(1).getNombre());
+        assertTrue(response.getBody().isHayMas());
+        assertEquals("Mg", response.getBody().getSiguienteCursor());
+        verify(pedidoInsumoService, times(1)).listarPedidos(PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2);
     }
 
     /**
-     * Verifica que el endpoint retorne una lista vacía cuando no hay pedidos.
+     * Verifica que el endpoint retorne una página vacía cuando no hay pedidos.
      *
      * Este test valida que:
-     * - El controlador maneja correctamente el caso de lista vacía
+     * - El controlador maneja correctamente el caso de página vacía
      * - Retorna un código HTTP 200 (OK)
-     * - La lista está vacía
+     * - La página está vacía y sin cursor siguiente
      */
     @Test
     @DisplayName("Test listar pedidos cuando no hay registros")
     void testObtenerPedidosVacio() {
         // Given
-        when(pedidoInsumoService.listarPedidos()).thenReturn(Collections.emptyList());
+        when(pedidoInsumoService.listarPedidos(null, null, null, null, 20))
+                .thenReturn(PedidoInsumoPaginaResponse.builder().pedidos(Collections.emptyList()).build());
 
         // When
-        ResponseEntity<List<PedidoInsumoResponse>> response = pedidoInsumoAdminController.obtenerPedidos();
+        ResponseEntity<PedidoInsumoPaginaResponse> response = pedidoInsumoAdminController.obtenerPedidos(null, null, null, null, 20);
 
         // Then
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(0, response.getBody().size());
-        verify(pedidoInsumoService, times(1)).listarPedidos();
+        assertEquals(0, response.getBody().getPedidos().size());
+        assertFalse(response.getBody().isHayMas());
+        assertNull(response.getBody().getSiguienteCursor());
+        verify(pedidoInsumoService, times(1)).listarPedidos(null, null, null, null, 20);
     }
 
     /**
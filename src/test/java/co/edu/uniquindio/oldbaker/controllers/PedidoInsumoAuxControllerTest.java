@@ -1,5 +1,7 @@
 package co.edu.uniquindio.oldbaker.controllers;
 
+import co.edu.uniquindio.oldbaker.dto.AprobacionPedidosRequest;
+import co.edu.uniquindio.oldbaker.dto.PedidoInsumoPaginaResponse;
 import co.edu.uniquindio.oldbaker.dto.PedidoInsumoResponse;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorRequest;
 import co.edu.uniquindio.oldbaker.dto.ReporteProveedorResponse;
@@ -76,9 +78,9 @@ class PedidoInsumoAuxControllerTest {
      * Verifica que el endpoint de listado de pedidos funcione correctamente.
      *
      * Este test valida que:
-     * - El controlador obtiene la lista completa de pedidos del servicio
+     * - El controlador obtiene del servicio la página de pedidos con los filtros recibidos
      * - Retorna un código HTTP 200 (OK)
-     * - La lista contiene el número correcto de pedidos
+     * - La página contiene el número correcto de pedidos y el cursor siguiente
      * - El servicio es invocado exactamente una vez
      */
     @Test
@@ -91,44 +93,53 @@ class PedidoInsumoAuxControllerTest {
         pedido2.setCostoTotal(150000.0);
 
         List<PedidoInsumoResponse> pedidos = Arrays.asList(pedidoInsumoResponse, pedido2);
-        when(pedidoInsumoService.listarPedidos()).thenReturn(pedidos);
+        PedidoInsumoPaginaResponse pagina = PedidoInsumoPaginaResponse.builder()
+                .pedidos(pedidos).siguienteCursor("Mg").hayMas(true).build();
+        when(pedidoInsumoService.listarPedidos(PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2))
+                .thenReturn(pagina);
 
         // When
-        ResponseEntity<List<PedidoInsumoResponse>> response = pedidoInsumoAuxController.obtenerPedidos();
+        ResponseEntity<PedidoInsumoPaginaResponse> response =
+                pedidoInsumoAuxController.obtenerPedidos(PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2);
 
         // Then
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertEquals("Pedido de Harina", response.getBody().get(0).getNombre());
-        assertEquals("Pedido de Azúcar", response.getBody().get(1).getNombre());
-        verify(pedidoInsumoService, times(1)).listarPedidos();
+        assertEquals(2, response.getBody().getPedidos().size());
+        assertEquals("Pedido de Harina", response.getBody().getPedidos().get(0).getNombre());
+        assertEquals("Pedido de Azúcar", response.getBody().getPedidos().get(1).getNombre());
+        assertTrue(response.getBody().isHayMas());
+        assertEquals("Mg", response.getBody().getSiguienteCursor());
+        verify(pedidoInsumoService, times(1)).listarPedidos(PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2);
     }
 
     /**
-     * Verifica que el endpoint retorne una lista vacía cuando no hay pedidos.
+     * Verifica que el endpoint retorne una página vacía cuando no hay pedidos.
      *
      * Este test valida que:
-     * - El controlador maneja correctamente el caso de lista vacía
+     * - El controlador maneja correctamente el caso de página vacía
      * - Retorna un código HTTP 200 (OK)
-     * - La lista está vacía
+     * - La página está vacía y sin cursor siguiente
      */
     @Test
     @DisplayName("Test listar pedidos cuando no hay registros")
     void testObtenerPedidosVacio() {
         // Given
-        when(pedidoInsumoService.listarPedidos()).thenReturn(Collections.emptyList());
+        when(pedidoInsumoService.listarPedidos(null, null, null, null, 20))
+                .thenReturn(PedidoInsumoPaginaResponse.builder().pedidos(Collections.emptyList()).build());
 
         // When
-        ResponseEntity<List<PedidoInsumoResponse>> response = pedidoInsumoAuxController.obtenerPedidos();
+        ResponseEntity<PedidoInsumoPaginaResponse> response = pedidoInsumoAuxController.obtenerPedidos(null, null, null, null, 20);
 
         // Then
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(0, response.getBody().size());
-        verify(pedidoInsumoService, times(1)).listarPedidos();
+        assertEquals(0, response.getBody().getPedidos().size());
+        assertFalse(response.getBody().isHayMas());
+        assertNull(response.getBody().getSiguienteCursor());
+        verify(pedidoInsumoService, times(1)).listarPedidos(null, null, null, null, 20);
     }
 
     /**
@@ -210,6 +221,29 @@ class PedidoInsumoAuxControllerTest {
         verify(pedidoInsumoService, times(1)).aprobarPedido(pedidoId);
     }
 
+    /**
+     * Verifica que el endpoint de aprobación masiva delegue todos los IDs al servicio en una llamada.
+     */
+    @Test
+    @DisplayName("Test aprobar varios pedidos")
+    void testAprobarPedidos() {
+        // Given
+        AprobacionPedidosRequest request = new AprobacionPedidosRequest();
+        request.setIdsPedido(List.of(1L, 2L));
+        pedidoInsumoResponse.setEstado(PedidoInsumo.EstadoPedido.APROBADO);
+        when(pedidoInsumoService.aprobarPedidos(List.of(1L, 2L)))
+                .thenReturn(List.of(pedidoInsumoResponse, pedidoInsumoResponse));
+
+        // When
+        ResponseEntity<List<PedidoInsumoResponse>> response = pedidoInsumoAuxController.aprobarPedidos(request);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+        verify(pedidoInsumoService, times(1)).aprobarPedidos(List.of(1L, 2L));
+        verify(pedidoInsumoService, never()).aprobarPedido(any());
+    }
+
     /**
      * Verifica que el endpoint de devolución de insumo funcione correctamente.
      *
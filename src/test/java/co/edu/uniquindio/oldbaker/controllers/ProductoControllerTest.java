@@ -1,8 +1,16 @@
 package co.edu.uniquindio.oldbaker.controllers;
 
+import co.edu.uniquindio.oldbaker.dto.CatalogoPaginaResponse;
 import co.edu.uniquindio.oldbaker.dto.ProductoHomeResponse;
 import co.edu.uniquindio.oldbaker.dto.ProductoResponse;
+import co.edu.uniquindio.oldbaker.dto.ResultadoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.services.BusquedaProductoService;
+import co.edu.uniquindio.oldbaker.services.CatalogoService;
+import co.edu.uniquindio.oldbaker.services.CatalogoSnapshot;
+import co.edu.uniquindio.oldbaker.services.CatalogoSnapshotService;
 import co.edu.uniquindio.oldbaker.services.ProductoService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,12 +18,17 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,6 +48,17 @@ class ProductoControllerTest {
     @Mock
     private ProductoService productoService;
 
+    @Mock
+    private CatalogoSnapshotService catalogoSnapshotService;
+
+    @Mock
+    private CatalogoService catalogoService;
+
+    @Mock
+    private BusquedaProductoService busquedaProductoService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ProductoController productoController;
 
@@ -92,24 +116,82 @@ class ProductoControllerTest {
      */
     @Test
     @DisplayName("Test listar productos para home")
-    void testListarProductos() {
+    void testListarProductos() throws IOException {
         // Given
-        List<ProductoHomeResponse> productos = Arrays.asList(productoHomeResponse1, productoHomeResponse2);
-        when(productoService.listarProductosHome()).thenReturn(productos);
+        CatalogoSnapshot snapshot = snapshotDe(Arrays.asList(productoHomeResponse1, productoHomeResponse2));
+        when(catalogoSnapshotService.obtener()).thenReturn(snapshot);
 
         // When
-        ResponseEntity<List<ProductoHomeResponse>> response = productoController.listarProductos();
+        ResponseEntity<byte[]> response = productoController.listarProductos(null, null);
 
         // Then
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertEquals("Pan Integral", response.getBody().get(0).getNombre());
-        assertEquals(3500.0, response.getBody().get(0).getCostoUnitario());
-        assertEquals("Croissant", response.getBody().get(1).getNombre());
-        assertEquals(4000.0, response.getBody().get(1).getCostoUnitario());
-        verify(productoService, times(1)).listarProductosHome();
+        assertEquals(snapshot.getEtag(), response.getHeaders().getETag());
+        List<ProductoHomeResponse> productos = leer(response.getBody());
+        assertEquals(2, productos.size());
+        assertEquals("Pan Integral", productos.get(0).getNombre());
+        assertEquals(3500.0, productos.get(0).getCostoUnitario());
+        assertEquals("Croissant", productos.get(1).getNombre());
+        assertEquals(4000.0, productos.get(1).getCostoUnitario());
+        verify(catalogoSnapshotService, times(1)).obtener();
+        verifyNoInteractions(productoService);
+    }
+
+    /**
+     * Verifica que una petición condicional con el ETag vigente reciba 304 sin cuerpo.
+     *
+     * Este test valida que:
+     * - El controlador compara If-None-Match con el ETag de la instantánea
+     * - Retorna un código HTTP 304 (Not Modified) sin cuerpo
+     * - No se consulta el servicio de productos
+     */
+    @Test
+    @DisplayName("Test listar productos con If-None-Match vigente")
+    void testListarProductosNoModificado() {
+        // Given
+        CatalogoSnapshot snapshot = snapshotDe(Arrays.asList(productoHomeResponse1, productoHomeResponse2));
+        when(catalogoSnapshotService.obtener()).thenReturn(snapshot);
+
+        // When
+        ResponseEntity<byte[]> response = productoController.listarProductos(snapshot.etag(true), "gzip");
+
+        // Then
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals(snapshot.etag(true), response.getHeaders().getETag());
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaders().getFirst(HttpHeaders.VARY));
+        verifyNoInteractions(productoService);
+    }
+
+    /**
+     * Verifica que se sirva la variante comprimida cuando el cliente acepta gzip.
+     *
+     * Este test valida que:
+     * - La respuesta incluye Content-Encoding: gzip
+     * - El cuerpo descomprimido corresponde al catálogo
+     * - Un ETag distinto al vigente no produce 304
+     * - La variante comprimida lleva su propio ETag
+     */
+    @Test
+    @DisplayName("Test listar productos comprimido con gzip")
+    void testListarProductosGzip() throws IOException {
+        // Given
+        CatalogoSnapshot snapshot = snapshotDe(Arrays.asList(productoHomeResponse1, productoHomeResponse2));
+        when(catalogoSnapshotService.obtener()).thenReturn(snapshot);
+
+        // When
+        ResponseEntity<byte[]> response = productoController.listarProductos("\"otra-version\"", "gzip, deflate, br");
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(snapshot.etag(true), response.getHeaders().getETag());
+        assertNotEquals(snapshot.getEtag(), response.getHeaders().getETag());
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertEquals(2, leer(gzip.readAllBytes()).size());
+        }
     }
 
     /**
@@ -123,19 +205,19 @@ class ProductoControllerTest {
      */
     @Test
     @DisplayName("Test listar productos cuando no hay registros")
-    void testListarProductosVacio() {
+    void testListarProductosVacio() throws IOException {
         // Given
-        when(productoService.listarProductosHome()).thenReturn(Collections.emptyList());
+        when(catalogoSnapshotService.obtener()).thenReturn(snapshotDe(Collections.emptyList()));
 
         // When
-        ResponseEntity<List<ProductoHomeResponse>> response = productoController.listarProductos();
+        ResponseEntity<byte[]> response = productoController.listarProductos(null, null);
 
         // Then
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(0, response.getBody().size());
-        verify(productoService, times(1)).listarProductosHome();
+        assertEquals(0, leer(response.getBody()).size());
+        verify(catalogoSnapshotService, times(1)).obtener();
     }
 
     /**
@@ -204,13 +286,95 @@ class ProductoControllerTest {
     @DisplayName("Test listar productos con error en el servicio")
     void testListarProductosConError() {
         // Given
-        when(productoService.listarProductosHome())
+        when(catalogoSnapshotService.obtener())
                 .thenThrow(new RuntimeException("Error en base de datos"));
 
         // When & Then
         assertThrows(RuntimeException.class, () ->
-            productoController.listarProductos()
+            productoController.listarProductos(null, null)
         );
-        verify(productoService, times(1)).listarProductosHome();
+        verify(catalogoSnapshotService, times(1)).obtener();
+    }
+
+    /**
+     * Verifica que el endpoint de navegación delegue filtros, orden y cursor al servicio.
+     *
+     * Este test valida que:
+     * - El orden recibido como texto se convierte sin importar mayúsculas
+     * - Retorna un código HTTP 200 (OK) con la página del servicio
+     * - Un orden desconocido se rechaza con IllegalArgumentException
+     */
+    @Test
+    @DisplayName("Test explorar catálogo paginado")
+    void testExplorarCatalogo() {
+        // Given
+        CatalogoPaginaResponse pagina = CatalogoPaginaResponse.builder()
+                .productos(Collections.emptyList())
+                .hayMas(false)
+                .build();
+        when(catalogoService.explorar(1L, 1000.0, 5000.0, CatalogoService.Orden.PRECIO, null, 20)).thenReturn(pagina);
+
+        // When
+        ResponseEntity<CatalogoPaginaResponse> response =
+                productoController.explorarCatalogo(1L, 1000.0, 5000.0, "Precio", null, 20);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(pagina, response.getBody());
+        assertThrows(IllegalArgumentException.class, () ->
+            productoController.explorarCatalogo(null, null, null, "popularidad", null, 20)
+        );
+        verify(catalogoService, times(1)).explorar(1L, 1000.0, 5000.0, CatalogoService.Orden.PRECIO, null, 20);
+    }
+
+    /**
+     * Verifica que los endpoints de búsqueda y autocompletado deleguen en el índice.
+     *
+     * Este test valida que:
+     * - Retornan un código HTTP 200 (OK) con los resultados del servicio
+     * - El servicio recibe la consulta y el límite sin modificar
+     */
+    @Test
+    @DisplayName("Test buscar y autocompletar productos")
+    void testBuscarYAutocompletar() {
+        // Given
+        List<ResultadoBusquedaDTO> resultados = List.of(
+                new ResultadoBusquedaDTO(1L, "Pan Integral", "Panadería", 3500.0, 2.4));
+        when(busquedaProductoService.buscar("pan integral", 20)).thenReturn(resultados);
+        when(busquedaProductoService.autocompletar("pan inte", 8)).thenReturn(resultados);
+
+        // When
+        ResponseEntity<List<ResultadoBusquedaDTO>> busqueda = productoController.buscarProductos("pan integral", 20);
+        ResponseEntity<List<ResultadoBusquedaDTO>> sugerencias = productoController.autocompletarProductos("pan inte", 8);
+
+        // Then
+        assertEquals(HttpStatus.OK, busqueda.getStatusCode());
+        assertEquals("Pan Integral", busqueda.getBody().get(0).getNombre());
+        assertEquals(HttpStatus.OK, sugerencias.getStatusCode());
+        assertEquals(1, sugerencias.getBody().size());
+        verify(busquedaProductoService, times(1)).buscar("pan integral", 20);
+        verify(busquedaProductoService, times(1)).autocompletar("pan inte", 8);
+    }
+
+    private CatalogoSnapshot snapshotDe(List<ProductoHomeResponse> productos) {
+        try {
+            return new CatalogoSnapshot(objectMapper.writeValueAsBytes(productos), 0L);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<ProductoHomeResponse> leer(byte[] json) throws IOException {
+        return objectMapper.readValue(json, new TypeReference<List<Map<String, Object>>>() {}).stream()
+                .map(m -> new ProductoHomeResponse(
+                        ((Number) m.get("idProducto")).longValue(),
+                        (String) m.get("nombre"),
+                        (String) m.get("descripcion"),
+                        ((Number) m.get("costoUnitario")).doubleValue(),
+                        ((Number) m.get("diasVidaUtil")).intValue(),
+                        (String) m.get("categoriaNombre"),
+                        (String) m.get("url"),
+                        ((Number) m.get("pedidoMinimo")).intValue()))
+                .toList();
     }
 }
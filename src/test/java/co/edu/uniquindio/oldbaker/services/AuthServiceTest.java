@@ -0,0 +1,135 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.model.Usuario;
+import co.edu.uniquindio.oldbaker.model.VerificationCode;
+import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
+import co.edu.uniquindio.oldbaker.repositories.VerificationCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para los códigos de verificación de AuthService.
+ *
+ * Verifican que el código se guarda como hash y se busca por ese hash, que un código expirado se rechaza y que
+ * una colisión en el índice único se reintenta con otro código en lugar de fallar la petición.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private MailService mailService;
+
+    @Mock
+    private VerificationCodeRepository verificationCodeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private AuthService authService;
+
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(authService, "codeSecret", "secreto-de-prueba");
+        usuario = Usuario.builder()
+                .id(5L)
+                .email("ana@oldbaker.test")
+                .nombre("Ana")
+                .rol(Usuario.Rol.CLIENTE)
+                .verificado(true)
+                .build();
+        when(usuarioRepository.findByEmail("ana@oldbaker.test")).thenReturn(Optional.of(usuario));
+        when(verificationCodeRepository.findByUserIdAndPurpose(5L, VerificationCode.Proposito.RECUPERACION_PASSWORD))
+                .thenReturn(Optional.empty());
+    }
+
+    @Test
+    @DisplayName("Guarda el hash del código y lo resuelve con una búsqueda por ese hash")
+    void testCodigoRecuperacion_BuscaPorHash() {
+        authService.initiatePasswordReset("ana@oldbaker.test");
+
+        VerificationCode guardado = capturarGuardado();
+        String codigo = codigoEnviado();
+        assertEquals(5L, guardado.getUserId());
+        assertEquals(64, guardado.getCodeHash().length());
+        assertNotEquals(codigo, guardado.getCodeHash());
+
+        when(verificationCodeRepository.findByPurposeAndCodeHash(VerificationCode.Proposito.RECUPERACION_PASSWORD,
+                guardado.getCodeHash())).thenReturn(Optional.of(guardado));
+        when(usuarioRepository.findById(5L)).thenReturn(Optional.of(usuario));
+        when(jwtService.generateToken(usuario)).thenReturn("jwt");
+
+        assertEquals("jwt", authService.verifyResetCode(" " + codigo + " "));
+        verify(verificationCodeRepository).delete(guardado);
+        verify(verificationCodeRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Rechaza un código de recuperación expirado")
+    void testCodigoRecuperacion_Expirado() {
+        authService.initiatePasswordReset("ana@oldbaker.test");
+        VerificationCode guardado = capturarGuardado();
+        guardado.setExpirationDate(LocalDateTime.now().minusMinutes(1));
+        when(verificationCodeRepository.findByPurposeAndCodeHash(any(), eq(guardado.getCodeHash())))
+                .thenReturn(Optional.of(guardado));
+
+        assertThrows(IllegalArgumentException.class, () -> authService.verifyResetCode(codigoEnviado()));
+        verify(verificationCodeRepository, never()).delete(any(VerificationCode.class));
+    }
+
+    @Test
+    @DisplayName("Si otra petición guarda el mismo código, reintenta con otro en lugar de fallar")
+    void testColisionEnIndiceUnico_Reintenta() {
+        when(verificationCodeRepository.saveAndFlush(any(VerificationCode.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_verification_codes_purpose_code"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertDoesNotThrow(() -> authService.initiatePasswordReset("ana@oldbaker.test"));
+
+        verify(verificationCodeRepository, times(2)).saveAndFlush(any(VerificationCode.class));
+        // Solo se envía el código que quedó guardado
+        verify(mailService, times(1)).encolarEmail(eq("ana@oldbaker.test"), anyString(), anyMap());
+        // Cada intento corre en su propia transacción
+        verify(transactionManager, times(2)).getTransaction(any());
+    }
+
+    private VerificationCode capturarGuardado() {
+        ArgumentCaptor<VerificationCode> captor = ArgumentCaptor.forClass(VerificationCode.class);
+        verify(verificationCodeRepository).saveAndFlush(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String codigoEnviado() {
+        ArgumentCaptor<Map<String, Object>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(mailService).encolarEmail(eq("ana@oldbaker.test"), anyString(), captor.capture());
+        return (String) captor.getValue().get("codigo");
+    }
+}
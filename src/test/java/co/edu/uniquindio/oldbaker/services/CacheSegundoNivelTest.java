@@ -0,0 +1,243 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.payment.CheckoutItemDTO;
+import co.edu.uniquindio.oldbaker.dto.payment.CheckoutRequestDTO;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.Categoria;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.OrdenCompra;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.model.Usuario;
+import co.edu.uniquindio.oldbaker.repositories.CategoriaRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la caché de segundo nivel sobre H2, con la configuración de ehcache.xml.
+ *
+ * Comparan una lectura en frío con la misma lectura en caliente usando las estadísticas de Hibernate:
+ * la segunda debe resolverse desde la caché sin volver a la base de datos.
+ * Cada lectura corre en su propia transacción, como en una petición real; por eso la prueba no es transaccional.
+ * El camino completo del checkout (validación de stock y creación de la orden) se mide igual, en frío y en caliente.
+ *
+ * @author OldBaker Team
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenCompraService.class, StockValidationService.class, ExpansionRecetasService.class})
+class CacheSegundoNivelTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSegundoNivelTest.class);
+    private static final int REPETICIONES = 50;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private InsumoRepository insumoRepository;
+
+    @Autowired
+    private RecetaRepository recetaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private OrdenCompraRepository ordenCompraRepository;
+
+    @Autowired
+    private OrdenCompraService ordenCompraService;
+
+    @Autowired
+    private StockValidationService stockValidationService;
+
+    @Autowired
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CambiosEntidadService cambiosEntidadService;
+
+    @MockitoBean
+    private InventarioService inventarioService;
+
+    @MockitoBean
+    private PronosticoConsumoService pronosticoConsumoService;
+
+    private Statistics estadisticas;
+    private Producto producto;
+    private Usuario cliente;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Panadería", null));
+        Insumo harina = insumoRepository.save(Insumo.builder()
+                .nombre("Harina")
+                .costoUnitario(4.0)
+                .unidadMedida(Receta.UnidadMedida.GRAMOS)
+                .cantidadActual(1_000_000_000L)
+                .build());
+        cliente = usuarioRepository.save(Usuario.builder()
+                .email("cliente@oldbaker.co")
+                .nombre("Cliente")
+                .rol(Usuario.Rol.CLIENTE)
+                .tipoAutenticacion(Usuario.TipoAutenticacion.EMAIL)
+                .verificado(true)
+                .activo(true)
+                .build());
+        producto = new Producto();
+        producto.setNombre("Pan de queso");
+        producto.setCostoUnitario(1500.0);
+        producto.setPedidoMinimo(1);
+        producto.setCategoria(categoria);
+        producto = productoRepository.save(producto);
+        Receta receta = new Receta();
+        receta.setCantidadInsumo(100_000L);
+        receta.setUnidadMedida(Receta.UnidadMedida.GRAMOS);
+        receta.setInsumo(harina);
+        receta.setProducto(producto);
+        recetaRepository.save(receta);
+
+        // Se parte de una caché vacía para medir la lectura en frío
+        entityManagerFactory.getCache().evictAll();
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ordenCompraRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        recetaRepository.deleteAll();
+        productoRepository.deleteAll();
+        insumoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Un producto leído en frío queda en caché y la segunda lectura no consulta la base de datos")
+    void testProducto_FrioVsCaliente() {
+        assertTrue(productoRepository.findById(producto.getIdProducto()).isPresent());
+        long sentenciasEnFrio = estadisticas.getPrepareStatementCount();
+        assertTrue(sentenciasEnFrio > 0);
+        assertTrue(estadisticas.getSecondLevelCacheMissCount() > 0);
+        assertTrue(estadisticas.getSecondLevelCachePutCount() > 0);
+
+        estadisticas.clear();
+        Producto enCaliente = productoRepository.findById(producto.getIdProducto()).orElseThrow();
+
+        assertEquals("Pan de queso", enCaliente.getNombre());
+        assertEquals("Panadería", enCaliente.getCategoria().getNombre());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertTrue(estadisticas.getDomainDataRegionStatistics("oldbaker.producto").getHitCount() > 0);
+        assertTrue(estadisticas.getDomainDataRegionStatistics("oldbaker.categoria").getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("La consulta de recetas por producto se resuelve desde la caché de consultas en la segunda lectura")
+    void testRecetasPorProducto_CacheDeConsultas() {
+        assertEquals(1, recetaRepository.findByProducto_IdProducto(producto.getIdProducto()).size());
+        assertEquals(1, estadisticas.getQueryCacheMissCount());
+        assertEquals(1, estadisticas.getQueryExecutionCount());
+
+        estadisticas.clear();
+        List<Receta> enCaliente = recetaRepository.findByProducto_IdProducto(producto.getIdProducto());
+
+        assertEquals(1, enCaliente.size());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+        assertEquals(0, estadisticas.getQueryExecutionCount());
+        assertTrue(estadisticas.getDomainDataRegionStatistics("oldbaker.receta").getHitCount() > 0);
+    }
+
+    @Test
+    @DisplayName("Modificar un producto por JPA invalida su entrada y la siguiente lectura ve el cambio")
+    void testProducto_EscrituraInvalida() {
+        productoRepository.findById(producto.getIdProducto());
+        Producto modificado = productoRepository.findById(producto.getIdProducto()).orElseThrow();
+        modificado.setNombre("Pan de bono");
+        productoRepository.save(modificado);
+
+        assertEquals("Pan de bono", productoRepository.findById(producto.getIdProducto()).orElseThrow().getNombre());
+    }
+
+    @Test
+    @DisplayName("El checkout en caliente valida stock y crea la orden con menos sentencias que en frío")
+    void testCheckout_FrioVsCaliente() {
+        CheckoutRequestDTO carrito = new CheckoutRequestDTO();
+        carrito.setItems(List.of(new CheckoutItemDTO(producto.getIdProducto(), 3)));
+        carrito.setPayerEmail("cliente@oldbaker.co");
+
+        enFrio();
+        checkout(carrito);
+        long sentenciasEnFrio = estadisticas.getPrepareStatementCount();
+
+        estadisticas.clear();
+        checkout(carrito);
+        long sentenciasEnCaliente = estadisticas.getPrepareStatementCount();
+
+        assertTrue(sentenciasEnCaliente < sentenciasEnFrio,
+                "en caliente " + sentenciasEnCaliente + " sentencias, en frío " + sentenciasEnFrio);
+        assertTrue(estadisticas.getDomainDataRegionStatistics("oldbaker.producto").getHitCount() > 0);
+
+        // Tiempo medio de cada escenario; el frío vacía la caché y la expansión de recetas antes de cada checkout
+        long nanosEnFrio = 0;
+        long nanosEnCaliente = 0;
+        for (int i = 0; i < REPETICIONES; i++) {
+            enFrio();
+            nanosEnFrio += checkout(carrito);
+            nanosEnCaliente += checkout(carrito);
+        }
+        logger.info("Checkout en frío: {} sentencias, {} µs de media; en caliente: {} sentencias, {} µs de media",
+                sentenciasEnFrio, nanosEnFrio / REPETICIONES / 1_000,
+                sentenciasEnCaliente, nanosEnCaliente / REPETICIONES / 1_000);
+        assertEquals(2L * REPETICIONES + 2, ordenCompraRepository.count());
+    }
+
+    private void enFrio() {
+        entityManagerFactory.getCache().evictAll();
+        expansionRecetasService.onProductoModificado(new ProductoModificadoEvent(
+                producto.getIdProducto(), producto.getCategoria().getIdCategoria(),
+                ProductoModificadoEvent.Tipo.ACTUALIZADO));
+        estadisticas.clear();
+    }
+
+    private long checkout(CheckoutRequestDTO carrito) {
+        long inicio = System.nanoTime();
+        assertTrue(stockValidationService.checkAvailability(carrito).isValid());
+        OrdenCompra orden = ordenCompraService.crearOrden(carrito, cliente.getId());
+        long transcurrido = System.nanoTime() - inicio;
+        assertEquals(0, orden.getTotal().compareTo(BigDecimal.valueOf(4500.0)));
+        return transcurrido;
+    }
+}
@@ -0,0 +1,196 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.events.CambioRemotoEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.ImagenesProducto;
+import co.edu.uniquindio.oldbaker.model.InsumoProveedor;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.CambioEntidadRepository;
+import co.edu.uniquindio.oldbaker.repositories.ImagenesProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CambiosEntidadService.
+ *
+ * Verifican que el sondeo arranca desde los cambios registrados tras el arranque, avanza el cursor,
+ * ignora las filas del propio nodo, vuelve a publicar los cambios remotos como eventos locales,
+ * invalida solo las recetas e imágenes del producto cambiado, descarta de la caché los insumos de proveedor
+ * modificados en otro nodo y recupera los ids
+ * que se confirmaron después de que el cursor los saltara.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CambiosEntidadServiceTest {
+
+    private static final String NODO = "nodo-a";
+
+    @Mock
+    private CambioEntidadRepository cambioEntidadRepository;
+
+    @Mock
+    private RecetaRepository recetaRepository;
+
+    @Mock
+    private ImagenesProductoRepository imagenesProductoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    private CambiosEntidadService cambiosService;
+
+    @BeforeEach
+    void setUp() {
+        cambiosService = nuevoServicio();
+        // Sin cambios desde el arranque, el primer sondeo posiciona el cursor al final de la tabla
+        when(cambioEntidadRepository.findPrimerIdDesde(any(LocalDateTime.class))).thenReturn(null);
+        when(cambioEntidadRepository.findUltimoId()).thenReturn(10L);
+        assertEquals(0, cambiosService.sondear());
+    }
+
+    @Test
+    @DisplayName("Al arrancar aplica los cambios remotos registrados desde el arranque, no solo los posteriores al primer sondeo")
+    void testSondear_ArrancaDesdeMarcaDeArranque() {
+        CambiosEntidadService reiniciado = nuevoServicio();
+        when(cambioEntidadRepository.findPrimerIdDesde(any(LocalDateTime.class))).thenReturn(8L);
+        when(cambioEntidadRepository.findSiguientes(eq(7L), any(Pageable.class))).thenReturn(List.of(
+                cambio(8L, CambioEntidad.TipoEntidad.USUARIO, 1L, "nodo-b"),
+                cambio(9L, CambioEntidad.TipoEntidad.USUARIO, 2L, "nodo-b")));
+
+        assertEquals(2, reiniciado.sondear());
+        verify(cambioEntidadRepository, times(1)).findUltimoId();
+    }
+
+    @Test
+    @DisplayName("Registra una fila por entidad con el nodo local")
+    @SuppressWarnings("unchecked")
+    void testRegistrar() {
+        cambiosService.registrar(CambioEntidad.TipoEntidad.INSUMO, List.of(3L, 3L, 4L));
+
+        ArgumentCaptor<List<CambioEntidad>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cambioEntidadRepository).saveAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertTrue(captor.getValue().stream().allMatch(c -> NODO.equals(c.getNodo())));
+    }
+
+    @Test
+    @DisplayName("Ignora los cambios propios y publica los remotos como eventos locales")
+    void testSondear_PublicaCambiosRemotos() {
+        Cache cache = mock(Cache.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        when(recetaRepository.findIdsByProductos(Set.of(6L))).thenReturn(List.of(21L, 22L));
+        when(imagenesProductoRepository.findIdsByIdProductoIn(Set.of(6L))).thenReturn(List.of(31L));
+        when(cambioEntidadRepository.findSiguientes(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                cambio(11L, CambioEntidad.TipoEntidad.PRODUCTO, 5L, NODO),
+                cambio(12L, CambioEntidad.TipoEntidad.PRODUCTO, 6L, "nodo-b"),
+                cambio(13L, CambioEntidad.TipoEntidad.INSUMO, 7L, "nodo-b"),
+                cambio(14L, CambioEntidad.TipoEntidad.INSUMO, 7L, "nodo-b")));
+
+        assertEquals(2, cambiosService.sondear());
+
+        verify(cache).evictEntityData(Producto.class, 6L);
+        verify(cache, never()).evictEntityData(Producto.class, 5L);
+        verify(cache).evictEntityData(Receta.class, 21L);
+        verify(cache).evictEntityData(Receta.class, 22L);
+        verify(cache).evictEntityData(ImagenesProducto.class, 31L);
+        verify(cache, never()).evictEntityData(Receta.class);
+        verify(cache, never()).evictEntityData(ImagenesProducto.class);
+        ArgumentCaptor<Object> eventos = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(4)).publishEvent(eventos.capture());
+        ProductoModificadoEvent producto = eventos.getAllValues().stream()
+                .filter(ProductoModificadoEvent.class::isInstance).map(ProductoModificadoEvent.class::cast)
+                .findFirst().orElseThrow();
+        assertEquals(6L, producto.getIdProducto());
+        StockInsumoModificadoEvent stock = eventos.getAllValues().stream()
+                .filter(StockInsumoModificadoEvent.class::isInstance).map(StockInsumoModificadoEvent.class::cast)
+                .findFirst().orElseThrow();
+        assertEquals(Set.of(7L), stock.getIdsInsumo());
+        assertEquals(2, eventos.getAllValues().stream().filter(CambioRemotoEvent.class::isInstance).count());
+
+        // El siguiente sondeo continúa desde el último id leído
+        when(cambioEntidadRepository.findSiguientes(eq(14L), any(Pageable.class))).thenReturn(List.of());
+        assertEquals(0, cambiosService.sondear());
+    }
+
+    @Test
+    @DisplayName("Un insumo de proveedor modificado en otro nodo se descarta de la caché de segundo nivel")
+    void testSondear_InvalidaInsumoProveedor() {
+        Cache cache = mock(Cache.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        when(cambioEntidadRepository.findSiguientes(eq(10L), any(Pageable.class))).thenReturn(List.of(
+                cambio(11L, CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, 4L, NODO),
+                cambio(12L, CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, 8L, "nodo-b")));
+
+        assertEquals(1, cambiosService.sondear());
+
+        verify(cache).evictEntityData(InsumoProveedor.class, 8L);
+        verify(cache, never()).evictEntityData(InsumoProveedor.class, 4L);
+        verify(eventPublisher).publishEvent(any(CambioRemotoEvent.class));
+    }
+
+    @Test
+    @DisplayName("Un id saltado por una transacción lenta se aplica cuando se confirma")
+    void testSondear_RecuperaHuecos() {
+        when(cambioEntidadRepository.findSiguientes(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(cambio(12L, CambioEntidad.TipoEntidad.USUARIO, 1L, "nodo-b")));
+        assertEquals(1, cambiosService.sondear());
+
+        when(cambioEntidadRepository.findByIdIn(anyList()))
+                .thenReturn(List.of(cambio(11L, CambioEntidad.TipoEntidad.USUARIO, 2L, "nodo-b")));
+        when(cambioEntidadRepository.findSiguientes(eq(12L), any(Pageable.class))).thenReturn(List.of());
+        assertEquals(1, cambiosService.sondear());
+
+        verify(cambioEntidadRepository).findByIdIn(List.of(11L));
+        // Una vez recuperado el hueco no se vuelve a consultar
+        cambiosService.sondear();
+        verify(cambioEntidadRepository, times(1)).findByIdIn(anyList());
+    }
+
+    private CambiosEntidadService nuevoServicio() {
+        return new CambiosEntidadService(cambioEntidadRepository, recetaRepository, imagenesProductoRepository,
+                eventPublisher, entityManagerFactory, new SimpleMeterRegistry(), NODO, 500, 10_000, 24);
+    }
+
+    private CambioEntidad cambio(Long id, CambioEntidad.TipoEntidad entidad, Long idEntidad, String nodo) {
+        return CambioEntidad.builder()
+                .id(id)
+                .entidad(entidad)
+                .idEntidad(idEntidad)
+                .version(System.currentTimeMillis())
+                .nodo(nodo)
+                .build();
+    }
+}
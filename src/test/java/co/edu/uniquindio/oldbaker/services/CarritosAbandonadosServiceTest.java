@@ -0,0 +1,108 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.cart.CarritoInactivoDTO;
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import co.edu.uniquindio.oldbaker.repositories.CartRepository;
+import co.edu.uniquindio.oldbaker.repositories.CheckpointProcesoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CarritosAbandonadosService.
+ *
+ * Verifican que el barrido avanza por lotes desde el checkpoint, que solo recuerda los carritos con items,
+ * sin órdenes posteriores y sin recordatorio desde su último cambio, y que el checkpoint queda en la última fila leída.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CarritosAbandonadosServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private CheckpointProcesoRepository checkpointRepository;
+
+    @Mock
+    private MailService mailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CarritosAbandonadosService service;
+    private CheckpointProceso checkpoint;
+
+    @BeforeEach
+    void setUp() {
+        service = new CarritosAbandonadosService(cartRepository, checkpointRepository, mailService,
+                transactionManager, new SimpleMeterRegistry(), 24, 2, "https://oldbaker.test/cart");
+        checkpoint = CheckpointProceso.builder()
+                .nombre(CarritosAbandonadosService.CHECKPOINT)
+                .ultimaFecha(BASE.minusYears(1))
+                .ultimoId(0L)
+                .build();
+        when(checkpointRepository.findParaActualizar(CarritosAbandonadosService.CHECKPOINT))
+                .thenReturn(Optional.of(checkpoint));
+    }
+
+    @Test
+    @DisplayName("Recorre los lotes desde el checkpoint y solo recuerda los carritos abandonados")
+    void testBarrer() {
+        when(cartRepository.findInactivosDesde(any(), eq(BASE.minusYears(1)), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(
+                        fila(1L, BASE, null, 2L, 0L),
+                        fila(2L, BASE.plusHours(1), null, 3L, 1L)));
+        when(cartRepository.findInactivosDesde(any(), eq(BASE.plusHours(1)), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(fila(3L, BASE.plusHours(2), BASE.plusHours(3), 1L, 0L)));
+
+        assertEquals(1, service.barrer());
+
+        // El carrito 2 tiene una orden posterior y el 3 ya fue recordado después de su último cambio
+        verify(mailService, times(1)).encolarEmail(eq("usuario1@test.com"), anyString(),
+                eq(CarritosAbandonadosService.PLANTILLA), any(Locale.class), anyMap());
+        verify(cartRepository).marcarRecordados(eq(List.of(1L)), any(LocalDateTime.class));
+        assertEquals(BASE.plusHours(2), checkpoint.getUltimaFecha());
+        assertEquals(3L, checkpoint.getUltimoId());
+    }
+
+    @Test
+    @DisplayName("Un carrito modificado después del último recordatorio se vuelve a recordar; uno vacío no")
+    void testBarrer_RecordatorioAnterior() {
+        when(cartRepository.findInactivosDesde(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        fila(4L, BASE, BASE.minusDays(2), 1L, 0L),
+                        fila(5L, BASE, null, 0L, 0L)))
+                .thenReturn(List.of());
+
+        assertEquals(1, service.barrer());
+
+        verify(cartRepository).marcarRecordados(eq(List.of(4L)), any(LocalDateTime.class));
+        verify(cartRepository, times(2)).findInactivosDesde(any(), any(), any(), any(Pageable.class));
+        assertEquals(5L, checkpoint.getUltimoId());
+    }
+
+    private CarritoInactivoDTO fila(Long idCart, LocalDateTime actualizacion, LocalDateTime recordatorio,
+                                    Long items, Long ordenes) {
+        return new CarritoInactivoDTO(idCart, "usuario" + idCart + "@test.com", "Usuario " + idCart,
+                actualizacion, recordatorio, items, ordenes);
+    }
+}
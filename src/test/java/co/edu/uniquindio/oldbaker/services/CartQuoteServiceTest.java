@@ -0,0 +1,129 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartQuoteDTO;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.Cart;
+import co.edu.uniquindio.oldbaker.model.CartItem;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.repositories.CartRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CartQuoteService.
+ *
+ * Usan un StockValidationService real sobre repositorios simulados para verificar los subtotales,
+ * el máximo preparable con reservas en orden y que una cotización se reutiliza mientras
+ * no cambien ni la revisión del carrito ni el stock.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CartQuoteServiceTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    private CartQuoteService cartQuoteService;
+
+    @BeforeEach
+    void setUp() {
+        StockValidationService stockValidationService = new StockValidationService(expansionRecetasService, insumoRepository, productoRepository);
+        cartQuoteService = new CartQuoteService(cartRepository, usuarioRepository, stockValidationService, 60, 100);
+
+        // Pan y torta comparten la harina (insumo 10): 10 unidades, 2 por pan y 4 por torta
+        Cart cart = Cart.builder().id(5L).revision(3L).items(new ArrayList<>()).build();
+        cart.addItem(item(producto(1L, "Pan", 1500.0), 3, true));
+        cart.addItem(item(producto(2L, "Torta", 20000.0), 2, true));
+        cart.addItem(item(producto(3L, "Galleta", 500.0), 4, false));
+
+        when(cartRepository.findRevisionByUsuarioId(1L)).thenReturn(Optional.of(3L));
+        when(cartRepository.findByUsuarioIdConProductos(1L)).thenReturn(Optional.of(cart));
+        when(expansionRecetasService.requerimientos(anyCollection())).thenReturn(Map.of(
+                1L, List.of(new RequerimientoInsumoDTO(1L, 10L, 2_000L)),
+                2L, List.of(new RequerimientoInsumoDTO(2L, 10L, 4_000L)),
+                3L, List.of(new RequerimientoInsumoDTO(3L, 11L, 1_000L))));
+        when(insumoRepository.findStockByIds(anyCollection())).thenReturn(List.of(
+                new StockInsumoDTO(10L, 10_000L),
+                new StockInsumoDTO(11L, 2_000L)));
+    }
+
+    @Test
+    @DisplayName("Calcula subtotales, total seleccionado y máximo preparable reservando en orden")
+    void testCotizar() {
+        CartQuoteDTO cotizacion = cartQuoteService.cotizar(1L);
+
+        assertEquals(3, cotizacion.getLineas().size());
+        assertEquals(0, new BigDecimal("44500.0").compareTo(cotizacion.getTotalSeleccionado()));
+        // El pan reserva 6 de harina; a la torta le quedan 4, que alcanzan para una unidad
+        assertEquals(5, cotizacion.getLineas().get(0).getMaximoPreparable());
+        assertTrue(cotizacion.getLineas().get(0).isDisponible());
+        assertEquals(1, cotizacion.getLineas().get(1).getMaximoPreparable());
+        assertFalse(cotizacion.getLineas().get(1).isDisponible());
+        // La galleta no está seleccionada: no cuenta para el total ni para la disponibilidad del carrito
+        assertFalse(cotizacion.getLineas().get(2).isDisponible());
+        assertFalse(cotizacion.isDisponible());
+        assertEquals(3L, cotizacion.getRevision());
+    }
+
+    @Test
+    @DisplayName("Reutiliza la cotización mientras no cambien el carrito ni el stock")
+    void testCotizar_UsaCache() {
+        CartQuoteDTO primera = cartQuoteService.cotizar(1L);
+        CartQuoteDTO segunda = cartQuoteService.cotizar(1L);
+
+        assertSame(primera, segunda);
+        verify(cartRepository, times(1)).findByUsuarioIdConProductos(1L);
+        verify(expansionRecetasService, times(1)).requerimientos(anyCollection());
+
+        cartQuoteService.onStockInsumoModificado(new StockInsumoModificadoEvent(Set.of(10L)));
+        CartQuoteDTO tercera = cartQuoteService.cotizar(1L);
+
+        assertNotSame(primera, tercera);
+        verify(cartRepository, times(2)).findByUsuarioIdConProductos(1L);
+    }
+
+    private CartItem item(Producto producto, int cantidad, boolean selected) {
+        return CartItem.builder().producto(producto).cantidad(cantidad).selected(selected).build();
+    }
+
+    private Producto producto(Long id, String nombre, double costo) {
+        Producto producto = new Producto();
+        producto.setIdProducto(id);
+        producto.setNombre(nombre);
+        producto.setCostoUnitario(costo);
+        return producto;
+    }
+}
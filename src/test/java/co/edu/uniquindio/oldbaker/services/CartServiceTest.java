@@ -0,0 +1,160 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.cart.CartDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartItemDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartOperacionDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartPatchRequest;
+import co.edu.uniquindio.oldbaker.model.Cart;
+import co.edu.uniquindio.oldbaker.model.CartItem;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Usuario;
+import co.edu.uniquindio.oldbaker.repositories.CartRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CartService.
+ *
+ * Verifican que PUT y PATCH cambian solo los items afectados (los objetos existentes se conservan),
+ * que los productos nuevos se validan en una única consulta y que nunca se lee cada producto por separado.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CartServiceTest {
+
+    @Mock
+    private CartRepository cartRepository;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private CartService cartService;
+
+    private Cart cart;
+    private CartItem pan;
+    private CartItem torta;
+
+    @BeforeEach
+    void setUp() {
+        Usuario usuario = new Usuario();
+        usuario.setId(1L);
+        cart = Cart.builder().id(10L).usuario(usuario).items(new ArrayList<>()).build();
+        pan = item(100L, 1L, 2, true);
+        torta = item(101L, 2L, 1, true);
+        cart.addItem(pan);
+        cart.addItem(torta);
+    }
+
+    @Test
+    @DisplayName("PUT conserva los items sin cambios, actualiza los modificados y agrega los nuevos con una sola validación")
+    void testActualizarCart_AplicaDiferencia() {
+        when(cartRepository.findByUsuarioIdConItems(1L)).thenReturn(Optional.of(cart));
+        when(productoRepository.findIdsExistentes(List.of(3L))).thenReturn(List.of(3L));
+        when(productoRepository.getReferenceById(3L)).thenReturn(producto(3L));
+
+        CartDTO request = new CartDTO(null, 1L, List.of(
+                new CartItemDTO(1L, 2, true),
+                new CartItemDTO(3L, 4, null)));
+
+        CartDTO resultado = cartService.actualizarCart(1L, request);
+
+        assertEquals(2, cart.getItems().size());
+        assertSame(pan, cart.getItems().get(0), "El item sin cambios debe ser el mismo objeto administrado");
+        assertTrue(cart.getItems().stream().noneMatch(i -> i == torta));
+        assertEquals(4, cart.getItems().get(1).getCantidad());
+        assertTrue(cart.getItems().get(1).getSelected());
+        assertEquals(2, resultado.getItems().size());
+        verify(productoRepository, never()).findById(any());
+        verify(cartRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("PATCH aplica agregar, fijar cantidad, seleccionar y eliminar sobre los items existentes")
+    void testAplicarOperaciones() {
+        when(cartRepository.findByUsuarioIdConItems(1L)).thenReturn(Optional.of(cart));
+
+        CartPatchRequest request = new CartPatchRequest(List.of(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 1L, 3, null),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.SELECCIONAR, 1L, null, false),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.FIJAR_CANTIDAD, 2L, 0, null)));
+
+        CartDTO resultado = cartService.aplicarOperaciones(1L, request);
+
+        assertEquals(1, cart.getItems().size());
+        assertSame(pan, cart.getItems().get(0));
+        assertEquals(5, pan.getCantidad());
+        assertFalse(pan.getSelected());
+        assertEquals(1, resultado.getItems().size());
+        verify(productoRepository, never()).findIdsExistentes(anyCollection());
+    }
+
+    @Test
+    @DisplayName("PATCH rechaza productos inexistentes antes de modificar el carrito")
+    void testAplicarOperaciones_ProductoInexistente() {
+        when(cartRepository.findByUsuarioIdConItems(1L)).thenReturn(Optional.of(cart));
+        when(productoRepository.findIdsExistentes(anyCollection())).thenReturn(List.of());
+
+        CartPatchRequest request = new CartPatchRequest(List.of(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.ELIMINAR, 1L, null, null),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 99L, 1, null)));
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.aplicarOperaciones(1L, request));
+        assertEquals(2, cart.getItems().size());
+    }
+
+    @Test
+    @DisplayName("La fusión con un carrito de invitado suma cantidades y descarta productos que ya no existen")
+    void testFusionarInvitado() {
+        when(cartRepository.findByUsuarioIdConItems(1L)).thenReturn(Optional.of(cart));
+        when(productoRepository.findIdsExistentes(List.of(3L, 99L))).thenReturn(List.of(3L));
+        when(productoRepository.getReferenceById(3L)).thenReturn(producto(3L));
+
+        CartDTO resultado = cartService.fusionarInvitado(1L, List.of(
+                new CartItemDTO(1L, 3, true),
+                new CartItemDTO(3L, 1, false),
+                new CartItemDTO(99L, 2, true)));
+
+        assertEquals(3, resultado.getItems().size());
+        assertSame(pan, cart.getItems().get(0));
+        assertEquals(5, pan.getCantidad());
+        assertFalse(cart.getItems().get(2).getSelected());
+        assertEquals(1L, cart.getRevision());
+        verify(productoRepository, times(1)).findIdsExistentes(anyCollection());
+    }
+
+    private CartItem item(Long id, Long idProducto, int cantidad, boolean selected) {
+        return CartItem.builder()
+                .id(id)
+                .producto(producto(idProducto))
+                .cantidad(cantidad)
+                .selected(selected)
+                .build();
+    }
+
+    private Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setIdProducto(id);
+        return producto;
+    }
+}
@@ -0,0 +1,138 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.CatalogoPaginaResponse;
+import co.edu.uniquindio.oldbaker.dto.FacetaCategoriaDTO;
+import co.edu.uniquindio.oldbaker.dto.ProductoCatalogoDTO;
+import co.edu.uniquindio.oldbaker.model.ImagenesProducto;
+import co.edu.uniquindio.oldbaker.repositories.ImagenesProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CatalogoService.
+ *
+ * Verifican la paginación por keyset (fila extra, cursor opaco que continúa tras la última fila),
+ * la agregación de imágenes en una sola consulta, que las filas sin precio no se pierden entre páginas
+ * y que las facetas solo viajan en la primera página, contadas con el filtro de precio.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogoServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private ImagenesProductoRepository imagenesProductoRepository;
+
+    @Mock
+    private FacetasCatalogoService facetasCatalogoService;
+
+    @Mock
+    private DisponibilidadProductoService disponibilidadProductoService;
+
+    @InjectMocks
+    private CatalogoService catalogoService;
+
+    @Test
+    @DisplayName("La primera página trae facetas, imágenes agregadas y un cursor que continúa por precio")
+    void testExplorar_PaginacionPorPrecio() {
+        List<ProductoCatalogoDTO> filas = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            filas.add(new ProductoCatalogoDTO(id, "Pan " + id, 1000.0 * id, 1, 7L, "Panadería"));
+        }
+        when(productoRepository.findCatalogoPorPrecio(eq(7L), isNull(), isNull(), eq(false), eq(-Double.MAX_VALUE), eq(0L), any(Pageable.class)))
+                .thenReturn(filas);
+        when(imagenesProductoRepository.findByIdProductoInOrderByIdAsc(List.of(1L, 2L)))
+                .thenReturn(List.of(imagen(1L, "a.jpg"), imagen(1L, "b.jpg"), imagen(2L, "c.jpg")));
+        when(facetasCatalogoService.obtenerFacetas(null, null)).thenReturn(List.of(new FacetaCategoriaDTO(7L, "Panadería", 3L)));
+
+        CatalogoPaginaResponse primera = catalogoService.explorar(7L, null, null, CatalogoService.Orden.PRECIO, null, 2);
+
+        assertEquals(2, primera.getProductos().size());
+        assertTrue(primera.isHayMas());
+        assertEquals(List.of("a.jpg", "b.jpg"), primera.getProductos().get(0).getImagenes());
+        assertEquals(1, primera.getFacetas().size());
+        assertNotNull(primera.getSiguienteCursor());
+
+        when(productoRepository.findCatalogoPorPrecio(eq(7L), isNull(), isNull(), eq(false), eq(2000.0), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(filas.get(2)));
+        when(imagenesProductoRepository.findByIdProductoInOrderByIdAsc(List.of(3L))).thenReturn(List.of());
+
+        CatalogoPaginaResponse segunda = catalogoService.explorar(7L, null, null, CatalogoService.Orden.PRECIO,
+                primera.getSiguienteCursor(), 2);
+
+        assertEquals(1, segunda.getProductos().size());
+        assertFalse(segunda.isHayMas());
+        assertNull(segunda.getSiguienteCursor());
+        assertNull(segunda.getFacetas());
+        verify(facetasCatalogoService, times(1)).obtenerFacetas(null, null);
+    }
+
+    @Test
+    @DisplayName("Tras una fila sin precio el cursor continúa por las demás filas sin precio")
+    void testExplorar_PrecioNuloAlFinal() {
+        ProductoCatalogoDTO conPrecio = new ProductoCatalogoDTO(1L, "Pan", 1000.0, 1, 7L, "Panadería");
+        ProductoCatalogoDTO sinPrecio = new ProductoCatalogoDTO(4L, "Torta", null, 1, 7L, "Panadería");
+        ProductoCatalogoDTO otroSinPrecio = new ProductoCatalogoDTO(9L, "Galleta", null, 1, 7L, "Panadería");
+        when(productoRepository.findCatalogoPorPrecio(isNull(), isNull(), isNull(), eq(false), eq(-Double.MAX_VALUE), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(conPrecio, sinPrecio, otroSinPrecio));
+        when(productoRepository.findCatalogoPorPrecio(isNull(), isNull(), isNull(), eq(true), eq(-Double.MAX_VALUE), eq(4L), any(Pageable.class)))
+                .thenReturn(List.of(otroSinPrecio));
+
+        CatalogoPaginaResponse primera = catalogoService.explorar(null, null, null, CatalogoService.Orden.PRECIO, null, 2);
+        CatalogoPaginaResponse segunda = catalogoService.explorar(null, null, null, CatalogoService.Orden.PRECIO,
+                primera.getSiguienteCursor(), 2);
+
+        assertEquals(List.of(1L, 4L), primera.getProductos().stream().map(ProductoCatalogoDTO::getIdProducto).toList());
+        assertEquals(List.of(9L), segunda.getProductos().stream().map(ProductoCatalogoDTO::getIdProducto).toList());
+        assertFalse(segunda.isHayMas());
+    }
+
+    @Test
+    @DisplayName("Las facetas de la primera página se cuentan con el rango de precio pedido")
+    void testExplorar_FacetasConFiltroDePrecio() {
+        when(productoRepository.findCatalogoRecientes(isNull(), eq(500.0), eq(1500.0), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(facetasCatalogoService.obtenerFacetas(500.0, 1500.0))
+                .thenReturn(List.of(new FacetaCategoriaDTO(7L, "Panadería", 1L)));
+
+        CatalogoPaginaResponse pagina = catalogoService.explorar(null, 500.0, 1500.0, null, null, 20);
+
+        assertEquals(1L, pagina.getFacetas().get(0).getCantidad());
+        verify(facetasCatalogoService, never()).obtenerFacetas();
+    }
+
+    @Test
+    @DisplayName("Rechaza cursores manipulados o de otro orden")
+    void testExplorar_CursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () ->
+                catalogoService.explorar(null, null, null, CatalogoService.Orden.NOMBRE, "no-es-un-cursor", 20));
+
+        String cursorRecientes = new CatalogoService.Cursor(CatalogoService.Orden.RECIENTES, 10L, "").codificar();
+        assertThrows(IllegalArgumentException.class, () ->
+                catalogoService.explorar(null, null, null, CatalogoService.Orden.PRECIO, cursorRecientes, 20));
+        verifyNoInteractions(productoRepository);
+    }
+
+    private ImagenesProducto imagen(Long idProducto, String url) {
+        ImagenesProducto imagen = new ImagenesProducto();
+        imagen.setIdProducto(idProducto);
+        imagen.setUrl(url);
+        return imagen;
+    }
+}
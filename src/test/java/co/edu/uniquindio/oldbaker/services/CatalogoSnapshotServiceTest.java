@@ -0,0 +1,109 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoHomeResponse;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CatalogoSnapshotService.
+ *
+ * Verifican que la instantánea se reutiliza sin consultar la base de datos,
+ * que se reconstruye tras una invalidación y que una ráfaga concurrente dispara una sola consulta.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogoSnapshotServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private DisponibilidadProductoService disponibilidadProductoService;
+
+    private CatalogoSnapshotService catalogoSnapshotService;
+
+    private final List<ProductoHomeResponse> productos = List.of(
+            new ProductoHomeResponse(1L, "Pan Integral", "Pan integral con semillas", 3500.0, 5, "Panadería", "https://example.com/pan.jpg", 10));
+
+    @BeforeEach
+    void setUp() {
+        catalogoSnapshotService = new CatalogoSnapshotService(productoRepository, disponibilidadProductoService, 300);
+    }
+
+    @Test
+    @DisplayName("Reutiliza la instantánea mientras no cambie el catálogo")
+    void testObtener_ReutilizaSnapshot() {
+        when(productoRepository.findProductos()).thenReturn(productos);
+
+        CatalogoSnapshot primera = catalogoSnapshotService.obtener();
+        CatalogoSnapshot segunda = catalogoSnapshotService.obtener();
+
+        assertSame(primera, segunda);
+        assertTrue(primera.coincideCon(primera.getEtag(), false));
+        assertTrue(primera.coincideCon("W/" + primera.getEtag() + ", \"otro\"", false));
+        // Cada codificación valida solo con su propio ETag
+        assertTrue(primera.coincideCon(primera.etag(true), true));
+        assertFalse(primera.coincideCon(primera.getEtag(), true));
+        assertFalse(primera.coincideCon(primera.etag(true), false));
+        verify(productoRepository, times(1)).findProductos();
+    }
+
+    @Test
+    @DisplayName("Reconstruye tras un cambio de producto y conserva el ETag si el contenido es igual")
+    void testObtener_InvalidaPorEvento() {
+        when(productoRepository.findProductos()).thenReturn(productos);
+        CatalogoSnapshot primera = catalogoSnapshotService.obtener();
+
+        catalogoSnapshotService.onProductoModificado(new ProductoModificadoEvent(1L, 1L, ProductoModificadoEvent.Tipo.ACTUALIZADO));
+        CatalogoSnapshot segunda = catalogoSnapshotService.obtener();
+
+        assertNotSame(primera, segunda);
+        assertEquals(primera.getEtag(), segunda.getEtag());
+        verify(productoRepository, times(2)).findProductos();
+    }
+
+    @Test
+    @DisplayName("Una ráfaga concurrente sin instantánea dispara una sola consulta")
+    void testObtener_VueloUnico() throws Exception {
+        CountDownLatch consultaIniciada = new CountDownLatch(1);
+        CountDownLatch liberarConsulta = new CountDownLatch(1);
+        when(productoRepository.findProductos()).thenAnswer(inv -> {
+            consultaIniciada.countDown();
+            liberarConsulta.await(5, TimeUnit.SECONDS);
+            return productos;
+        });
+
+        int hilos = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<CatalogoSnapshot>> resultados = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                resultados.add(executor.submit(catalogoSnapshotService::obtener));
+            }
+            assertTrue(consultaIniciada.await(5, TimeUnit.SECONDS));
+            liberarConsulta.countDown();
+
+            CatalogoSnapshot esperada = resultados.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<CatalogoSnapshot> resultado : resultados) {
+                assertSame(esperada, resultado.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(productoRepository, times(1)).findProductos();
+    }
+}
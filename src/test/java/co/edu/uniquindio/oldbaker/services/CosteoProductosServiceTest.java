@@ -0,0 +1,125 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.CostoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.MargenProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.PrecioProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.CambioRemotoEvent;
+import co.edu.uniquindio.oldbaker.events.CostoInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para CosteoProductosService.
+ *
+ * Verifican el costo de ingredientes y el margen de cada producto, que un cambio de costo de un insumo solo
+ * recalcula los productos que lo usan y que un cambio remoto sin cambio de costo no recalcula nada.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class CosteoProductosServiceTest {
+
+    @Mock
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    private CosteoProductosService costeoService;
+
+    @BeforeEach
+    void setUp() {
+        costeoService = new CosteoProductosService(expansionRecetasService, insumoRepository, productoRepository, 2);
+
+        // Pan: 200 g de harina (10) y 5 g de sal (20). Galleta: 50 g de harina y 30 g de azúcar (30, sin costo)
+        when(productoRepository.findPrecios()).thenReturn(List.of(
+                new PrecioProductoDTO(1L, "Pan", 2000.0),
+                new PrecioProductoDTO(2L, "Galleta", 500.0)));
+        when(insumoRepository.findCostos()).thenReturn(List.of(
+                new CostoInsumoDTO(10L, 4.0),
+                new CostoInsumoDTO(20L, 2.0),
+                new CostoInsumoDTO(30L, null)));
+        when(expansionRecetasService.requerimientos(anyCollection())).thenReturn(Map.of(
+                1L, List.of(new RequerimientoInsumoDTO(1L, 10L, 200_000L), new RequerimientoInsumoDTO(1L, 20L, 5_000L)),
+                2L, List.of(new RequerimientoInsumoDTO(2L, 10L, 50_000L), new RequerimientoInsumoDTO(2L, 30L, 30_000L))));
+        costeoService.recargar();
+    }
+
+    @Test
+    @DisplayName("Calcula el costo de ingredientes y el margen, y ordena el reporte por el peor margen")
+    void testReporte() {
+        List<MargenProductoDTO> reporte = costeoService.reporte();
+
+        MargenProductoDTO pan = reporte.get(0);
+        assertEquals(1L, pan.getIdProducto());
+        assertEquals(810.0, pan.getCostoIngredientes(), 1e-9);
+        assertEquals(1190.0, pan.getMargen(), 1e-9);
+        assertEquals(59.5, pan.getMargenPorcentaje(), 1e-9);
+        assertTrue(pan.isCostoCompleto());
+
+        // El azúcar no tiene costo: el costo queda incompleto y el margen sale más alto de lo real
+        MargenProductoDTO galleta = reporte.get(1);
+        assertEquals(2L, galleta.getIdProducto());
+        assertEquals(200.0, galleta.getCostoIngredientes(), 1e-9);
+        assertEquals(60.0, galleta.getMargenPorcentaje(), 1e-9);
+        assertFalse(galleta.isCostoCompleto());
+    }
+
+    @Test
+    @DisplayName("Un cambio de costo solo recalcula los productos que usan el insumo")
+    void testCambioCosto_RecalculaAfectados() {
+        MargenProductoDTO galletaAntes = costeoService.margen(2L);
+        when(insumoRepository.findCostosByIds(Set.of(20L))).thenReturn(List.of(new CostoInsumoDTO(20L, 10.0)));
+
+        costeoService.onCostoInsumoModificado(new CostoInsumoModificadoEvent(Set.of(20L)));
+
+        assertEquals(850.0, costeoService.margen(1L).getCostoIngredientes(), 1e-9);
+        assertSame(galletaAntes, costeoService.margen(2L));
+        verify(expansionRecetasService, times(1)).requerimientos(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Un cambio remoto de insumo sin cambio de costo no recalcula nada")
+    void testCambioRemoto_SinCambioDeCosto() {
+        MargenProductoDTO panAntes = costeoService.margen(1L);
+        when(insumoRepository.findCostosByIds(Set.of(10L))).thenReturn(List.of(new CostoInsumoDTO(10L, 4.0)));
+
+        costeoService.onCambioRemoto(new CambioRemotoEvent(CambioEntidad.TipoEntidad.INSUMO, Set.of(10L)));
+
+        assertSame(panAntes, costeoService.margen(1L));
+    }
+
+    @Test
+    @DisplayName("Un producto eliminado sale del reporte y del índice inverso")
+    void testProductoEliminado() {
+        costeoService.onProductoModificado(new ProductoModificadoEvent(1L, null, ProductoModificadoEvent.Tipo.ELIMINADO));
+
+        assertEquals(1, costeoService.reporte().size());
+        assertThrows(RuntimeException.class, () -> costeoService.margen(1L));
+
+        when(insumoRepository.findCostosByIds(Set.of(20L))).thenReturn(List.of(new CostoInsumoDTO(20L, 10.0)));
+        costeoService.onCostoInsumoModificado(new CostoInsumoModificadoEvent(Set.of(20L)));
+        assertEquals(1, costeoService.reporte().size());
+        verify(productoRepository, never()).findPreciosByIds(anyCollection());
+    }
+}
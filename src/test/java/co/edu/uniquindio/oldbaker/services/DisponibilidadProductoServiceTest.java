@@ -0,0 +1,110 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.StockInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.DisponibilidadModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para DisponibilidadProductoService.
+ *
+ * Verifican el cálculo de unidades producibles, que un cambio de stock solo recalcula
+ * los productos que usan el insumo y que el evento de invalidación sale únicamente cuando
+ * un producto pasa de disponible a agotado o viceversa.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class DisponibilidadProductoServiceTest {
+
+    @Mock
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private DisponibilidadProductoService disponibilidadService;
+
+    @BeforeEach
+    void setUp() {
+        // Producto 1 usa harina (10) y azúcar (20); producto 2 usa solo azúcar (20)
+        when(expansionRecetasService.recargar()).thenReturn(Map.of(
+                1L, List.of(new RequerimientoInsumoDTO(1L, 10L, 2_000L), new RequerimientoInsumoDTO(1L, 20L, 1_000L)),
+                2L, List.of(new RequerimientoInsumoDTO(2L, 20L, 3_000L))));
+        when(insumoRepository.findStock()).thenReturn(List.of(
+                new StockInsumoDTO(10L, 5_000L),
+                new StockInsumoDTO(20L, 9_000L)));
+        disponibilidadService.recargar();
+    }
+
+    @Test
+    @DisplayName("Las unidades producibles son el mínimo de stock / cantidad por unidad")
+    void testUnidadesProducibles() {
+        assertEquals(2, disponibilidadService.unidadesProducibles(1L));
+        assertEquals(3, disponibilidadService.unidadesProducibles(2L));
+        assertFalse(disponibilidadService.estaDisponible(99L), "Un producto sin receta no está disponible");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("Un cambio de stock solo recalcula productos afectados y avisa cuando se agotan")
+    void testActualizarStock_PublicaSoloCambiosDeDisponibilidad() {
+        when(insumoRepository.findStockByIds(Set.of(10L))).thenReturn(List.of(new StockInsumoDTO(10L, 1_000L)));
+
+        disponibilidadService.onStockInsumoModificado(new StockInsumoModificadoEvent(Set.of(10L)));
+
+        assertEquals(0, disponibilidadService.unidadesProducibles(1L));
+        assertEquals(3, disponibilidadService.unidadesProducibles(2L));
+        ArgumentCaptor<DisponibilidadModificadaEvent> captor = ArgumentCaptor.forClass(DisponibilidadModificadaEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertEquals(Set.of(1L), captor.getValue().getIdsProducto());
+
+        // Bajar el stock sin agotar no cambia la disponibilidad, así que no hay evento nuevo
+        when(insumoRepository.findStockByIds(Set.of(20L))).thenReturn(List.of(new StockInsumoDTO(20L, 4_000L)));
+        disponibilidadService.onStockInsumoModificado(new StockInsumoModificadoEvent(Set.of(20L)));
+
+        assertEquals(1, disponibilidadService.unidadesProducibles(2L));
+        verify(eventPublisher, times(1)).publishEvent(any());
+        verify(expansionRecetasService, times(1)).recargar();
+    }
+
+    @Test
+    @DisplayName("Eliminar un producto lo retira del índice inverso")
+    void testActualizarReceta_ProductoEliminado() {
+        disponibilidadService.onProductoModificado(
+                new ProductoModificadoEvent(1L, 7L, ProductoModificadoEvent.Tipo.ELIMINADO));
+
+        assertFalse(disponibilidadService.estaDisponible(1L));
+
+        when(insumoRepository.findStockByIds(Set.of(10L))).thenReturn(List.of(new StockInsumoDTO(10L, 0L)));
+        disponibilidadService.onStockInsumoModificado(new StockInsumoModificadoEvent(Set.of(10L)));
+
+        verify(eventPublisher).publishEvent(any(DisponibilidadModificadaEvent.class));
+        verify(eventPublisher, times(1)).publishEvent(any());
+        verify(expansionRecetasService, never()).requerimientos(anyLong());
+    }
+}
@@ -0,0 +1,175 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.model.EmailOutbox;
+import co.edu.uniquindio.oldbaker.repositories.EmailOutboxRepository;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para EmailOutboxDispatcher.
+ *
+ * Se reemplaza el transporte SMTP por un JavaMailSenderImpl que solo cuenta sesiones y mensajes,
+ * para verificar que cada lote usa una sola sesión, que los fallos se reintentan con backoff
+ * y que los correos que agotan sus intentos pasan a FALLIDO.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class EmailOutboxDispatcherTest {
+
+    private static final int TAMANO_LOTE = 50;
+    private static final int MAX_INTENTOS = 3;
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private MailService mailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SmtpSimulado mailSender;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new SmtpSimulado();
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, mailService,
+                transactionManager, TAMANO_LOTE, MAX_INTENTOS, 30, 3600);
+        when(mailService.renderizar(anyString(), any(Locale.class), anyMap())).thenReturn("<p>codigo</p>");
+    }
+
+    @Test
+    @DisplayName("Envía todo el lote en una sola sesión SMTP")
+    void testDespacharLote_UnaSesionPorLote() {
+        List<EmailOutbox> lote = crearCorreos(TAMANO_LOTE);
+        when(emailOutboxRepository.findListosParaEnvio(eq(EmailOutbox.EstadoEnvio.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(lote, List.of());
+
+        int procesados = dispatcher.despachar();
+
+        assertEquals(TAMANO_LOTE, procesados);
+        assertEquals(1, mailSender.sesiones);
+        assertEquals(TAMANO_LOTE, mailSender.mensajes);
+        assertTrue(lote.stream().allMatch(e -> e.getEstado() == EmailOutbox.EstadoEnvio.ENVIADO));
+        assertTrue(lote.stream().allMatch(e -> e.getFechaEnvio() != null));
+        // Cada correo lleva sus propias variables: un render por correo
+        verify(mailService, times(TAMANO_LOTE)).renderizar(anyString(), any(Locale.class), anyMap());
+    }
+
+    @Test
+    @DisplayName("Reintenta con backoff exponencial solo los destinatarios rechazados")
+    void testDespacharLote_FalloParcialProgramaReintento() {
+        List<EmailOutbox> lote = crearCorreos(3);
+        mailSender.rechazados.add(lote.get(1).getDestinatario());
+        when(emailOutboxRepository.findListosParaEnvio(any(), any(), any())).thenReturn(lote, List.of());
+
+        LocalDateTime antes = LocalDateTime.now();
+        dispatcher.despachar();
+
+        assertEquals(EmailOutbox.EstadoEnvio.ENVIADO, lote.get(0).getEstado());
+        assertEquals(EmailOutbox.EstadoEnvio.ENVIADO, lote.get(2).getEstado());
+
+        EmailOutbox fallido = lote.get(1);
+        assertEquals(EmailOutbox.EstadoEnvio.PENDIENTE, fallido.getEstado());
+        assertEquals(1, fallido.getIntentos());
+        assertNotNull(fallido.getUltimoError());
+        assertFalse(fallido.getProximoIntento().isBefore(antes.plusSeconds(30)));
+        assertEquals(1, mailSender.sesiones);
+    }
+
+    @Test
+    @DisplayName("Mueve a FALLIDO el correo que agota sus intentos")
+    void testDespacharLote_AgotaIntentos() {
+        List<EmailOutbox> lote = crearCorreos(1);
+        EmailOutbox correo = lote.get(0);
+        correo.setIntentos(MAX_INTENTOS - 1);
+        mailSender.rechazados.add(correo.getDestinatario());
+        when(emailOutboxRepository.findListosParaEnvio(any(), any(), any())).thenReturn(lote, List.of());
+
+        dispatcher.despachar();
+
+        assertEquals(EmailOutbox.EstadoEnvio.FALLIDO, correo.getEstado());
+        assertEquals(MAX_INTENTOS, correo.getIntentos());
+        assertNull(correo.getFechaEnvio());
+    }
+
+    @Test
+    @DisplayName("No abre sesión SMTP cuando no hay correos pendientes")
+    void testDespachar_SinPendientes() {
+        when(emailOutboxRepository.findListosParaEnvio(any(), any(), any())).thenReturn(List.of());
+
+        assertEquals(0, dispatcher.despachar());
+        assertEquals(0, mailSender.sesiones);
+        verifyNoInteractions(mailService);
+    }
+
+    private List<EmailOutbox> crearCorreos(int cantidad) {
+        return IntStream.range(0, cantidad)
+                .mapToObj(i -> EmailOutbox.builder()
+                        .id((long) i)
+                        .destinatario("cliente" + i + "@oldbaker.shop")
+                        .asunto("Código de verificación")
+                        .plantilla(MailService.PLANTILLA_POR_DEFECTO)
+                        .locale("es")
+                        .variables("{\"titulo\":\"Verificación\"}")
+                        .estado(EmailOutbox.EstadoEnvio.PENDIENTE)
+                        .intentos(0)
+                        .proximoIntento(LocalDateTime.now())
+                        .build())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Transporte SMTP simulado: cada llamada a doSend equivale a una conexión.
+     */
+    private static class SmtpSimulado extends JavaMailSenderImpl {
+        int sesiones;
+        int mensajes;
+        final Set<String> rechazados = new HashSet<>();
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            sesiones++;
+            Map<Object, Exception> fallidos = new LinkedHashMap<>();
+            for (MimeMessage mensaje : mimeMessages) {
+                try {
+                    String destinatario = ((InternetAddress) mensaje.getAllRecipients()[0]).getAddress();
+                    if (rechazados.contains(destinatario)) {
+                        fallidos.put(mensaje, new IllegalStateException("550 buzón no disponible"));
+                    } else {
+                        mensajes++;
+                    }
+                } catch (Exception e) {
+                    fallidos.put(mensaje, e);
+                }
+            }
+            if (!fallidos.isEmpty()) {
+                throw new MailSendException(fallidos);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.LineaRecetaDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.events.PreparacionModificadaEvent;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ExpansionRecetasService.
+ *
+ * Verifican que una receta con preparaciones anidadas se aplana a insumos crudos en proporción al rendimiento
+ * de cada lote, que la expansión se memoriza, que cambiar una preparación descarta de forma transitiva a quienes
+ * la usan y que un ciclo en los datos hace fallar la expansión.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class ExpansionRecetasServiceTest {
+
+    // Insumos: harina (1), agua (2), sal (3). Preparaciones: masa madre (10) y masa (20). Producto: pan (5)
+    private static final List<LineaRecetaDTO> PAN = List.of(
+            new LineaRecetaDTO(5L, null, 20L, 200_000L),
+            new LineaRecetaDTO(5L, 3L, null, 5_000L));
+    // La masa rinde 2 kg con 0,5 kg de masa madre y 1,5 kg de harina
+    private static final List<LineaRecetaDTO> MASA = List.of(
+            new LineaRecetaDTO(20L, 2_000_000L, null, 10L, 500_000L),
+            new LineaRecetaDTO(20L, 2_000_000L, 1L, null, 1_500_000L));
+    // La masa madre rinde 1 kg con 600 g de harina y 400 g de agua
+    private static final List<LineaRecetaDTO> MASA_MADRE = List.of(
+            new LineaRecetaDTO(10L, 1_000_000L, 1L, null, 600_000L),
+            new LineaRecetaDTO(10L, 1_000_000L, 2L, null, 400_000L));
+
+    @Mock
+    private RecetaRepository recetaRepository;
+
+    @InjectMocks
+    private ExpansionRecetasService expansionService;
+
+    @Test
+    @DisplayName("Aplana las preparaciones anidadas en proporción al rendimiento y memoriza el resultado")
+    void testRequerimientos_AplanaYMemoriza() {
+        stubPan();
+
+        Map<Long, Long> vector = porInsumo(expansionService.requerimientos(5L));
+        Map<Long, Long> otraVez = porInsumo(expansionService.requerimientos(5L));
+
+        // 200 g de masa son una décima del lote: 180 g de harina (150 + 30 de la masa madre) y 20 g de agua
+        assertEquals(Map.of(1L, 180_000L, 2L, 20_000L, 3L, 5_000L), vector);
+        assertEquals(vector, otraVez);
+        verify(recetaRepository, times(1)).findLineasByProductos(anyCollection());
+        verify(recetaRepository, times(2)).findLineasByPreparaciones(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Cambiar una preparación descarta las preparaciones y productos que la usan")
+    void testInvalidacionTransitiva() {
+        stubPan();
+        expansionService.requerimientos(5L);
+
+        // Una preparación que nadie usa no toca lo memorizado
+        expansionService.onPreparacionModificada(new PreparacionModificadaEvent(Set.of(99L)));
+        expansionService.requerimientos(5L);
+        verify(recetaRepository, times(1)).findLineasByProductos(anyCollection());
+
+        // La masa madre la usa la masa, y la masa el pan: los tres se vuelven a expandir
+        expansionService.onPreparacionModificada(new PreparacionModificadaEvent(Set.of(10L)));
+        expansionService.requerimientos(5L);
+        verify(recetaRepository, times(2)).findLineasByProductos(anyCollection());
+        verify(recetaRepository, times(2)).findLineasByPreparaciones(Set.of(20L));
+        verify(recetaRepository, times(2)).findLineasByPreparaciones(Set.of(10L));
+    }
+
+    @Test
+    @DisplayName("Un ciclo entre preparaciones hace fallar la expansión en lugar de recorrerlo sin fin")
+    void testRequerimientos_Ciclo() {
+        when(recetaRepository.findLineasByProductos(Set.of(5L)))
+                .thenReturn(List.of(new LineaRecetaDTO(5L, null, 10L, 100_000L)));
+        when(recetaRepository.findLineasByPreparaciones(Set.of(10L)))
+                .thenReturn(List.of(new LineaRecetaDTO(10L, 1_000_000L, null, 20L, 500_000L)));
+        when(recetaRepository.findLineasByPreparaciones(Set.of(20L)))
+                .thenReturn(List.of(new LineaRecetaDTO(20L, 1_000_000L, null, 10L, 500_000L)));
+
+        assertThrows(IllegalStateException.class, () -> expansionService.requerimientos(5L));
+    }
+
+    private void stubPan() {
+        when(recetaRepository.findLineasByProductos(Set.of(5L))).thenReturn(PAN);
+        when(recetaRepository.findLineasByPreparaciones(Set.of(20L))).thenReturn(MASA);
+        when(recetaRepository.findLineasByPreparaciones(Set.of(10L))).thenReturn(MASA_MADRE);
+    }
+
+    private static Map<Long, Long> porInsumo(List<RequerimientoInsumoDTO> requerimientos) {
+        Map<Long, Long> vector = new HashMap<>();
+        requerimientos.forEach(r -> vector.put(r.getIdInsumo(), r.getCantidadInsumo()));
+        return vector;
+    }
+}
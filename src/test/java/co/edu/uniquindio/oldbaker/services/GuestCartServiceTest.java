@@ -0,0 +1,135 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.auth.AuthResponse;
+import co.edu.uniquindio.oldbaker.dto.cart.CartDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartItemDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartOperacionDTO;
+import co.edu.uniquindio.oldbaker.dto.cart.CartPatchRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para GuestCartService.
+ *
+ * Verifican que el carrito de invitado se modifica solo en memoria, que el almacén respeta su tamaño máximo
+ * descartando el carrito usado hace más tiempo y que al iniciar sesión un cliente su carrito de invitado
+ * se fusiona una única vez con el persistido.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class GuestCartServiceTest {
+
+    @Mock
+    private CartService cartService;
+
+    private GuestCartService guestCartService;
+
+    @BeforeEach
+    void setUp() {
+        guestCartService = new GuestCartService(cartService, new SimpleMeterRegistry(), 2, 60, 50);
+    }
+
+    @Test
+    @DisplayName("PATCH sin cookie crea un carrito nuevo y las operaciones siguientes usan el mismo token")
+    void testAplicarOperaciones() {
+        GuestCartService.Resultado primero = guestCartService.aplicarOperaciones(null, patch(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 1L, 2, null),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 2L, 1, null),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 3L, 5, null)));
+        assertNotNull(primero.token());
+
+        GuestCartService.Resultado segundo = guestCartService.aplicarOperaciones(primero.token(), patch(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 1L, 3, null),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.SELECCIONAR, 3L, null, false),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.ELIMINAR, 2L, null, null)));
+
+        assertEquals(primero.token(), segundo.token());
+        List<CartItemDTO> items = guestCartService.obtener(primero.token()).getItems();
+        assertEquals(List.of(new CartItemDTO(1L, 5, true), new CartItemDTO(3L, 5, false)), items);
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    @DisplayName("Una operación inválida deja el carrito de invitado como estaba")
+    void testAplicarOperaciones_Invalida() {
+        String token = guestCartService.aplicarOperaciones(null, patch(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 1L, 2, null))).token();
+
+        assertThrows(IllegalArgumentException.class, () -> guestCartService.aplicarOperaciones(token, patch(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.ELIMINAR, 1L, null, null),
+                new CartOperacionDTO(CartOperacionDTO.Tipo.FIJAR_CANTIDAD, 9L, 1, null))));
+
+        assertEquals(List.of(new CartItemDTO(1L, 2, true)), guestCartService.obtener(token).getItems());
+    }
+
+    @Test
+    @DisplayName("Al superar el máximo se descarta el carrito usado hace más tiempo y un token desconocido no se reutiliza")
+    void testLimiteCarritos() {
+        String a = guestCartService.reemplazar(null, carrito(1L)).token();
+        String b = guestCartService.reemplazar(null, carrito(2L)).token();
+        guestCartService.obtener(a);
+        String c = guestCartService.reemplazar(null, carrito(3L)).token();
+
+        assertEquals(2, guestCartService.tamano());
+        assertTrue(guestCartService.obtener(b).getItems().isEmpty());
+        assertEquals(1, guestCartService.obtener(a).getItems().size());
+        assertEquals(1, guestCartService.obtener(c).getItems().size());
+
+        String reemitido = guestCartService.reemplazar(b, carrito(4L)).token();
+        assertNotEquals(b, reemitido);
+    }
+
+    @Test
+    @DisplayName("Al iniciar sesión un cliente, su carrito de invitado se fusiona una vez y se descarta")
+    void testFusionarAlIniciarSesion() {
+        String token = guestCartService.aplicarOperaciones(null, patch(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 1L, 2, null))).token();
+
+        assertTrue(guestCartService.fusionarAlIniciarSesion(token, usuario("CLIENTE")));
+        verify(cartService).fusionarInvitado(7L, List.of(new CartItemDTO(1L, 2, true)));
+
+        assertTrue(guestCartService.fusionarAlIniciarSesion(token, usuario("CLIENTE")));
+        verify(cartService, times(1)).fusionarInvitado(any(), anyList());
+        assertEquals(0, guestCartService.tamano());
+    }
+
+    @Test
+    @DisplayName("Si la fusión falla el carrito de invitado se conserva; otros roles no fusionan")
+    void testFusionarAlIniciarSesion_FallaONoCliente() {
+        String token = guestCartService.aplicarOperaciones(null, patch(
+                new CartOperacionDTO(CartOperacionDTO.Tipo.AGREGAR, 1L, 2, null))).token();
+
+        assertFalse(guestCartService.fusionarAlIniciarSesion(token, usuario("ADMINISTRADOR")));
+        verifyNoInteractions(cartService);
+
+        when(cartService.fusionarInvitado(eq(7L), anyList())).thenThrow(new RuntimeException("BD no disponible"));
+        assertFalse(guestCartService.fusionarAlIniciarSesion(token, usuario("CLIENTE")));
+        assertEquals(1, guestCartService.obtener(token).getItems().size());
+    }
+
+    private CartPatchRequest patch(CartOperacionDTO... operaciones) {
+        return new CartPatchRequest(List.of(operaciones));
+    }
+
+    private CartDTO carrito(Long idProducto) {
+        return new CartDTO(null, null, List.of(new CartItemDTO(idProducto, 1, true)));
+    }
+
+    private AuthResponse.UserResponse usuario(String rol) {
+        return AuthResponse.UserResponse.builder().id(7L).rol(rol).build();
+    }
+}
@@ -0,0 +1,185 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoBusquedaDTO;
+import co.edu.uniquindio.oldbaker.dto.ResultadoBusquedaDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para IndiceBusquedaProductos y AnalizadorTextoEspanol.
+ *
+ * Verifican el plegado de tildes, el stemming de plurales, el ranking BM25 con pesos por campo,
+ * el autocompletado por prefijo, que aplicar cambios por producto da lo mismo que reconstruir, y la latencia
+ * del autocompletado con un catálogo de 10.000 productos frente al objetivo de p99 por debajo de 1 ms.
+ *
+ * @author OldBaker Team
+ */
+class IndiceBusquedaProductosTest {
+
+    private static final String[] SABORES = {"chocolate", "vainilla", "fresa", "arequipe", "queso", "canela", "coco", "almendra"};
+    private static final String[] TIPOS = {"torta", "galleta", "pan", "croissant", "brownie", "muffin", "rollo", "pastel"};
+    private static final String[] CATEGORIAS = {"Panadería", "Pastelería", "Galletería", "Postres"};
+
+    @Test
+    @DisplayName("Pliega tildes y reduce plurales a la misma raíz")
+    void testAnalizador() {
+        assertEquals("panaderia", AnalizadorTextoEspanol.plegar("Panadería"));
+        assertEquals(AnalizadorTextoEspanol.terminos("galleta"), AnalizadorTextoEspanol.terminos("Galletas"));
+        assertEquals(AnalizadorTextoEspanol.terminos("nuez"), AnalizadorTextoEspanol.terminos("nueces"));
+        assertEquals(AnalizadorTextoEspanol.terminos("dulce"), AnalizadorTextoEspanol.terminos("dulces"));
+        assertEquals(List.of("pan", "queso"), AnalizadorTextoEspanol.palabras("Pan de queso"));
+    }
+
+    @Test
+    @DisplayName("Rankea con BM25 y pondera el nombre sobre la descripción")
+    void testBuscar() {
+        IndiceBusquedaProductos indice = indiceDe(List.of(
+                producto(1L, "Pan de queso", "Horneado cada mañana", "Panadería"),
+                producto(2L, "Torta de chocolate", "Bizcocho húmedo con cobertura", "Pastelería"),
+                producto(3L, "Brownie", "Brownie con trozos de chocolate y nueces", "Postres"),
+                producto(4L, "Galletas de avena", "Sin azúcar", "Galletería")));
+
+        List<ResultadoBusquedaDTO> resultados = indice.buscar("Chocolates", 10);
+        assertEquals(2, resultados.size());
+        assertEquals(2L, resultados.get(0).getIdProducto());
+        assertEquals(3L, resultados.get(1).getIdProducto());
+
+        assertEquals(4L, indice.buscar("galleta", 10).get(0).getIdProducto());
+        assertEquals(1L, indice.buscar("panaderia", 10).get(0).getIdProducto());
+        assertEquals(3L, indice.buscar("nuez", 10).get(0).getIdProducto());
+        assertTrue(indice.buscar("de", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Autocompleta la última palabra como prefijo y exige las anteriores")
+    void testAutocompletar() {
+        IndiceBusquedaProductos indice = indiceDe(List.of(
+                producto(1L, "Pan de queso", "", "Panadería"),
+                producto(2L, "Pan integral", "", "Panadería"),
+                producto(3L, "Pastel de queso", "", "Pastelería")));
+
+        List<ResultadoBusquedaDTO> pas = indice.autocompletar("pás", 10);
+        assertEquals(3L, pas.get(0).getIdProducto());
+
+        List<ResultadoBusquedaDTO> panQue = indice.autocompletar("pan que", 10);
+        assertEquals(1, panQue.size());
+        assertEquals(1L, panQue.get(0).getIdProducto());
+
+        assertTrue(indice.autocompletar("xyz", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Un índice nuevo refleja los cambios sin alterar el anterior (copy-on-write)")
+    void testCopyOnWrite() {
+        List<IndiceBusquedaProductos.Documento> docs = new ArrayList<>(List.of(
+                IndiceBusquedaProductos.Documento.analizar(producto(1L, "Pan de queso", "", "Panadería"))));
+        IndiceBusquedaProductos anterior = IndiceBusquedaProductos.construir(docs);
+
+        docs.add(IndiceBusquedaProductos.Documento.analizar(producto(2L, "Pandebono", "", "Panadería")));
+        IndiceBusquedaProductos nuevo = IndiceBusquedaProductos.construir(docs);
+
+        assertEquals(1, anterior.tamano());
+        assertEquals(2, nuevo.tamano());
+        assertEquals(2L, nuevo.autocompletar("pandeb", 10).get(0).getIdProducto());
+        assertTrue(anterior.autocompletar("pandeb", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Aplicar cambios por producto da los mismos resultados que reconstruir y no altera el índice anterior")
+    void testConCambios_IgualQueReconstruir() {
+        List<IndiceBusquedaProductos.Documento> docs = catalogo(2_000);
+        IndiceBusquedaProductos anterior = IndiceBusquedaProductos.construir(docs);
+        List<ResultadoBusquedaDTO> antes = anterior.buscar("torta chocolate", 20);
+
+        // Se modifica el 5, se elimina el 7 y se crea el 2001
+        IndiceBusquedaProductos.Documento modificado = IndiceBusquedaProductos.Documento.analizar(
+                producto(5L, "Milhoja de arequipe", "Hojaldre con arequipe", "Pastelería"));
+        IndiceBusquedaProductos.Documento nuevo = IndiceBusquedaProductos.Documento.analizar(
+                producto(2_001L, "Pandebono", "Con queso costeño", "Panadería"));
+        IndiceBusquedaProductos incremental = anterior.conCambios(List.of(modificado, nuevo), List.of(7L));
+
+        List<IndiceBusquedaProductos.Documento> finales = new ArrayList<>(docs);
+        finales.removeIf(d -> d.getIdProducto() == 5L || d.getIdProducto() == 7L);
+        finales.add(modificado);
+        finales.add(nuevo);
+        IndiceBusquedaProductos reconstruido = IndiceBusquedaProductos.construir(finales);
+
+        assertEquals(reconstruido.tamano(), incremental.tamano());
+        for (String consulta : List.of("torta chocolate", "arequipe", "milhoja", "pandebono", "queso", "galleta fresa")) {
+            assertEquals(reconstruido.buscar(consulta, 20), incremental.buscar(consulta, 20), consulta);
+        }
+        for (String consulta : List.of("mil", "pande", "pan de q", "croissant ch", "brow")) {
+            assertEquals(reconstruido.autocompletar(consulta, 8), incremental.autocompletar(consulta, 8), consulta);
+        }
+        assertTrue(incremental.buscar("milhoja", 5).stream().anyMatch(r -> r.getIdProducto() == 5L));
+        assertTrue(incremental.autocompletar("pandeb", 5).stream().anyMatch(r -> r.getIdProducto() == 2_001L));
+
+        // El índice anterior sigue sirviendo su versión
+        assertEquals(antes, anterior.buscar("torta chocolate", 20));
+        assertTrue(anterior.autocompletar("milho", 5).isEmpty());
+        assertEquals(2_000, anterior.tamano());
+    }
+
+    @Test
+    @DisplayName("Con 10.000 productos el autocompletado tiene p99 por debajo de 1 ms")
+    void testAutocompletar_LatenciaP99() {
+        IndiceBusquedaProductos indice = IndiceBusquedaProductos.construir(catalogo(10_000));
+        String[] consultas = {"c", "cr", "croissant ch", "torta de choc", "pan", "galleta fre", "brow", "past", "muffin de v"};
+
+        // Calentamiento para que el JIT compile el camino de la consulta
+        for (int i = 0; i < 20_000; i++) {
+            indice.autocompletar(consultas[i % consultas.length], 8);
+        }
+        long[] tiempos = new long[20_000];
+        for (int i = 0; i < tiempos.length; i++) {
+            long inicio = System.nanoTime();
+            indice.autocompletar(consultas[i % consultas.length], 8);
+            tiempos[i] = System.nanoTime() - inicio;
+        }
+        Arrays.sort(tiempos);
+        long p99 = tiempos[(int) (tiempos.length * 0.99)];
+        assertTrue(p99 < 1_000_000, "p99 de autocompletar: " + p99 / 1_000 + " µs");
+    }
+
+    @Test
+    @DisplayName("Con 10.000 productos el autocompletado respeta el límite y exige las palabras completas")
+    void testAutocompletar_CatalogoGrande() {
+        IndiceBusquedaProductos indice = IndiceBusquedaProductos.construir(catalogo(10_000));
+
+        List<ResultadoBusquedaDTO> croissants = indice.autocompletar("croissant ch", 8);
+        assertEquals(8, croissants.size());
+        assertTrue(croissants.stream().allMatch(r -> r.getNombre().startsWith("croissant ")));
+        assertEquals(croissants.size(), croissants.stream().map(ResultadoBusquedaDTO::getIdProducto).distinct().count());
+
+        assertEquals(3, indice.autocompletar("brow", 3).size());
+        assertTrue(indice.autocompletar("croissant xyz", 8).isEmpty());
+    }
+
+    // Catálogo sintético reproducible
+    private List<IndiceBusquedaProductos.Documento> catalogo(int productos) {
+        Random random = new Random(42);
+        List<IndiceBusquedaProductos.Documento> docs = new ArrayList<>();
+        for (long id = 1; id <= productos; id++) {
+            String nombre = TIPOS[random.nextInt(TIPOS.length)] + " de " + SABORES[random.nextInt(SABORES.length)] + " " + id;
+            String descripcion = "Hecho con " + SABORES[random.nextInt(SABORES.length)] + " y " + SABORES[random.nextInt(SABORES.length)];
+            docs.add(IndiceBusquedaProductos.Documento.analizar(
+                    producto(id, nombre, descripcion, CATEGORIAS[random.nextInt(CATEGORIAS.length)])));
+        }
+        return docs;
+    }
+
+    private IndiceBusquedaProductos indiceDe(List<ProductoBusquedaDTO> productos) {
+        return IndiceBusquedaProductos.construir(productos.stream().map(IndiceBusquedaProductos.Documento::analizar).toList());
+    }
+
+    private ProductoBusquedaDTO producto(Long id, String nombre, String descripcion, String categoria) {
+        return new ProductoBusquedaDTO(id, nombre, descripcion, categoria, 1000.0);
+    }
+}
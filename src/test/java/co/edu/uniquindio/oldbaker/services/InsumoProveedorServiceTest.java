@@ -0,0 +1,138 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.InsumoProveedorRequest;
+import co.edu.uniquindio.oldbaker.events.CostoInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.InsumoProveedor;
+import co.edu.uniquindio.oldbaker.model.Proveedor;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.InsumoProveedorRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProveedorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para el paso del precio del proveedor al insumo del inventario en InsumoProveedorService.
+ *
+ * Verifican que el precio por unidad de compra se convierte al precio por unidad base del insumo, que sin unidad
+ * de compra no se copia y que una unidad de otra magnitud se rechaza. También que cada escritura queda en el
+ * registro de cambios para que los demás nodos descarten su copia en caché.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class InsumoProveedorServiceTest {
+
+    @Mock
+    private InsumoProveedorRepository insumoProveedorRepository;
+
+    @Mock
+    private ProveedorRepository proveedorRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private CambiosEntidadService cambiosEntidadService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private InsumoProveedorService service;
+    private InsumoProveedor harinaProveedor;
+    private Insumo harina;
+
+    @BeforeEach
+    void setUp() {
+        service = new InsumoProveedorService(insumoProveedorRepository, proveedorRepository, insumoRepository,
+                cambiosEntidadService, eventPublisher);
+        Proveedor molino = new Proveedor();
+        molino.setIdProveedor(5L);
+        harina = Insumo.builder().idInsumo(100L).costoUnitario(3.5).unidadMedida(Receta.UnidadMedida.GRAMOS).build();
+        harinaProveedor = InsumoProveedor.builder().idInsumo(10L).nombre("Harina").costoUnitario(3500.0)
+                .proveedor(molino).insumo(harina).build();
+        // La eliminación no lee el insumo
+        lenient().when(insumoProveedorRepository.findById(10L)).thenReturn(Optional.of(harinaProveedor));
+    }
+
+    @Test
+    @DisplayName("El precio por kilo del proveedor pasa al inventario como precio por gramo")
+    void testActualizar_PrecioPorUnidadBase() {
+        when(proveedorRepository.findById(5L)).thenReturn(Optional.of(harinaProveedor.getProveedor()));
+        when(insumoProveedorRepository.save(harinaProveedor)).thenReturn(harinaProveedor);
+
+        service.actualizarInsumo(10L, solicitud(4000.0, Receta.UnidadMedida.KILOGRAMOS));
+
+        assertEquals(4000.0, harinaProveedor.getCostoUnitario());
+        assertEquals(Receta.UnidadMedida.KILOGRAMOS, harinaProveedor.getUnidadMedida());
+        assertEquals(4.0, harina.getCostoUnitario());
+        verify(insumoRepository).save(harina);
+        verify(eventPublisher).publishEvent(any(CostoInsumoModificadoEvent.class));
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.INSUMO, 100L);
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, 10L);
+    }
+
+    @Test
+    @DisplayName("Sin unidad de compra el precio queda en el proveedor y el inventario conserva su costo")
+    void testActualizar_SinUnidadNoSeCopia() {
+        when(proveedorRepository.findById(5L)).thenReturn(Optional.of(harinaProveedor.getProveedor()));
+        when(insumoProveedorRepository.save(harinaProveedor)).thenReturn(harinaProveedor);
+
+        service.actualizarInsumo(10L, solicitud(4000.0, null));
+
+        assertEquals(4000.0, harinaProveedor.getCostoUnitario());
+        assertEquals(3.5, harina.getCostoUnitario());
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, 10L);
+        verify(cambiosEntidadService, never()).registrar(eq(CambioEntidad.TipoEntidad.INSUMO), anyLong());
+        verifyNoInteractions(insumoRepository, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Una unidad de compra de otra magnitud se rechaza sin modificar nada")
+    void testActualizar_MagnitudIncompatible() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.actualizarInsumo(10L, solicitud(4000.0, Receta.UnidadMedida.LITROS)));
+
+        assertEquals(3500.0, harinaProveedor.getCostoUnitario());
+        assertEquals(3.5, harina.getCostoUnitario());
+        verify(insumoProveedorRepository, never()).save(any());
+        verifyNoInteractions(insumoRepository, cambiosEntidadService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Eliminar un insumo de proveedor lo registra para que los demás nodos lo saquen de su caché")
+    void testEliminar_RegistraCambio() {
+        when(insumoProveedorRepository.existsById(10L)).thenReturn(true);
+
+        service.eliminarInsumo(10L);
+
+        verify(insumoProveedorRepository).deleteById(10L);
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.INSUMO_PROVEEDOR, 10L);
+    }
+
+    private InsumoProveedorRequest solicitud(Double costo, Receta.UnidadMedida unidad) {
+        return InsumoProveedorRequest.builder()
+                .nombre("Harina")
+                .descripcion("Harina de trigo")
+                .costoUnitario(costo)
+                .fechaVencimiento(LocalDate.now().plusMonths(6))
+                .cantidadDisponible(50)
+                .unidadMedida(unidad)
+                .idProveedor(5L)
+                .build();
+    }
+}
@@ -0,0 +1,222 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.SaldoPendienteDTO;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.LoteInsumo;
+import co.edu.uniquindio.oldbaker.model.MovimientoInventario;
+import co.edu.uniquindio.oldbaker.model.SnapshotInventario;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.MovimientoInventarioRepository;
+import co.edu.uniquindio.oldbaker.repositories.SnapshotInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para InventarioService.
+ *
+ * Verifican que registrar un movimiento solo inserta filas en el libro, que el saldo histórico parte del último
+ * snapshot anterior a la fecha, que las entradas abren lotes y las salidas se descuentan de ellos (una venta sin
+ * lote se confirma con un aviso y otra salida sin lote se rechaza), y que el
+ * cierre periódico conserva el saldo base, mueve el saldo del insumo y no pasa de un id que aún no confirma.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class InventarioServiceTest {
+
+    private static final LocalDateTime SEIS_AM = LocalDateTime.of(2025, 3, 1, 6, 0);
+
+    @Mock
+    private MovimientoInventarioRepository movimientoRepository;
+
+    @Mock
+    private SnapshotInventarioRepository snapshotRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private LoteInsumoService loteInsumoService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventarioService inventarioService;
+
+    @BeforeEach
+    void setUp() {
+        inventarioService = new InventarioService(movimientoRepository, snapshotRepository, insumoRepository,
+                loteInsumoService, transactionManager, 60, 1800);
+    }
+
+    @Test
+    @DisplayName("Registrar movimientos solo inserta en el libro y descarta los de cantidad cero")
+    @SuppressWarnings("unchecked")
+    void testRegistrar_SoloInserta() {
+        inventarioService.registrar(List.of(
+                InventarioService.movimiento(1L, MovimientoInventario.TipoMovimiento.VENTA, -4, "orden:9"),
+                InventarioService.movimiento(2L, MovimientoInventario.TipoMovimiento.VENTA, 0, "orden:9")));
+
+        ArgumentCaptor<List<MovimientoInventario>> captor = ArgumentCaptor.forClass(List.class);
+        verify(movimientoRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(-4L, captor.getValue().get(0).getCantidad());
+        verify(loteInsumoService).consumir(1L, 4L, false);
+        verifyNoInteractions(insumoRepository);
+    }
+
+    @Test
+    @DisplayName("Una recepción abre un lote con su vencimiento y un ajuste negativo puede tomar lotes vencidos")
+    @SuppressWarnings("unchecked")
+    void testRegistrar_Lotes() {
+        LocalDate vencimiento = LocalDate.of(2025, 3, 10);
+
+        inventarioService.registrar(List.of(
+                InventarioService.movimiento(3L, MovimientoInventario.TipoMovimiento.AJUSTE_MANUAL, -2, "ajuste"),
+                InventarioService.recepcion(1L, 50, "pedido:7", vencimiento)));
+
+        ArgumentCaptor<Collection<LoteInsumo>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(loteInsumoService).recibir(captor.capture());
+        LoteInsumo lote = captor.getValue().iterator().next();
+        assertEquals(1L, lote.getIdInsumo());
+        assertEquals(50L, lote.getCantidadInicial());
+        assertEquals(vencimiento, lote.getFechaVencimiento());
+        assertEquals("pedido:7", lote.getReferencia());
+        verify(loteInsumoService).consumir(3L, 2L, true);
+    }
+
+    @Test
+    @DisplayName("Una venta que los lotes no cubren se registra completa y avisa del faltante")
+    void testRegistrar_VentaSinLote() {
+        when(loteInsumoService.consumir(1L, 4L, false)).thenReturn(3L);
+
+        inventarioService.registrar(List.of(
+                InventarioService.movimiento(1L, MovimientoInventario.TipoMovimiento.VENTA, -4, "orden:9"),
+                InventarioService.movimiento(2L, MovimientoInventario.TipoMovimiento.VENTA, -1, "orden:9")));
+
+        verify(movimientoRepository).saveAll(anyList());
+        verify(loteInsumoService).alertarSinLote(Map.of(1L, 3L), "orden:9");
+    }
+
+    @Test
+    @DisplayName("Una salida que no es venta y que los lotes no cubren se rechaza")
+    void testRegistrar_ProduccionSinLote() {
+        when(loteInsumoService.consumir(1L, 4L, false)).thenReturn(1L);
+
+        assertThrows(IllegalStateException.class, () -> inventarioService.registrar(List.of(
+                InventarioService.movimiento(1L, MovimientoInventario.TipoMovimiento.PRODUCCION, -4, "producto:2"))));
+
+        verify(loteInsumoService, never()).alertarSinLote(any(), any());
+    }
+
+    @Test
+    @DisplayName("El saldo en un instante suma al último snapshot anterior solo la cola de movimientos")
+    void testSaldoEn_DesdeSnapshot() {
+        SnapshotInventario snapshot = SnapshotInventario.builder()
+                .idInsumo(1L).saldo(120L).idUltimoMovimiento(500L).fecha(SEIS_AM.minusMinutes(5)).build();
+        when(snapshotRepository.findFirstByIdInsumoAndFechaLessThanEqualOrderByFechaDesc(1L, SEIS_AM))
+                .thenReturn(Optional.of(snapshot));
+        when(movimientoRepository.sumarDesde(1L, 500L, SEIS_AM)).thenReturn(-20L);
+
+        assertEquals(100, inventarioService.saldoEn(1L, SEIS_AM));
+        verifyNoInteractions(insumoRepository);
+    }
+
+    @Test
+    @DisplayName("Sin snapshots el saldo en un instante parte del saldo base guardado en el insumo")
+    void testSaldoEn_SinSnapshots() {
+        Insumo insumo = Insumo.builder().idInsumo(1L).cantidadActual(40L).build();
+        when(snapshotRepository.findFirstByIdInsumoAndFechaLessThanEqualOrderByFechaDesc(1L, SEIS_AM))
+                .thenReturn(Optional.empty());
+        when(insumoRepository.findById(1L)).thenReturn(Optional.of(insumo));
+        when(movimientoRepository.sumarDesde(1L, 0L, SEIS_AM)).thenReturn(15L);
+
+        assertEquals(55, inventarioService.saldoEn(1L, SEIS_AM));
+    }
+
+    @Test
+    @DisplayName("El primer cierre guarda el saldo base y el nuevo; un insumo cerrado por otro nodo se omite")
+    @SuppressWarnings("unchecked")
+    void testCerrarSaldos() {
+        when(insumoRepository.findUltimoMovimientoCerrado()).thenReturn(12L);
+        when(movimientoRepository.findUltimoIdAntesDe(any(LocalDateTime.class))).thenReturn(30L);
+        when(movimientoRepository.findIdsEntre(12L, 30L)).thenReturn(ids(13, 30));
+        when(insumoRepository.findSaldosPendientes(30L)).thenReturn(List.of(
+                new SaldoPendienteDTO(1L, 40L, null, -10L, 30L),
+                new SaldoPendienteDTO(2L, 8L, 12L, 5L, 29L)));
+        when(insumoRepository.cerrarSaldo(1L, 30L, 30L, 0L)).thenReturn(1);
+        when(insumoRepository.cerrarSaldo(eq(2L), any(), anyLong(), eq(12L))).thenReturn(0);
+
+        assertEquals(1, inventarioService.cerrarSaldos());
+
+        ArgumentCaptor<List<SnapshotInventario>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).saveAll(captor.capture());
+        List<SnapshotInventario> snapshots = captor.getValue();
+        assertEquals(2, snapshots.size());
+        assertEquals(40L, snapshots.get(0).getSaldo());
+        assertEquals(0L, snapshots.get(0).getIdUltimoMovimiento());
+        assertEquals(30L, snapshots.get(1).getSaldo());
+        assertEquals(30L, snapshots.get(1).getIdUltimoMovimiento());
+    }
+
+    @Test
+    @DisplayName("El cierre se detiene antes de un id que aún no confirma y lo incorpora cuando aparece")
+    void testCerrarSaldos_EsperaHuecos() {
+        when(insumoRepository.findUltimoMovimientoCerrado()).thenReturn(10L);
+        when(movimientoRepository.findUltimoIdAntesDe(any(LocalDateTime.class))).thenReturn(15L);
+        // El 13 es de una transacción lenta: se confirma después del primer cierre
+        when(movimientoRepository.findIdsEntre(10L, 15L)).thenReturn(List.of(11L, 12L, 14L, 15L));
+        when(insumoRepository.findSaldosPendientes(12L)).thenReturn(List.of(new SaldoPendienteDTO(1L, 40L, 10L, -2L, 12L)));
+        when(insumoRepository.cerrarSaldo(1L, 38L, 12L, 10L)).thenReturn(1);
+
+        assertEquals(1, inventarioService.cerrarSaldos());
+        verify(insumoRepository, never()).findSaldosPendientes(15L);
+
+        when(movimientoRepository.findIdsEntre(12L, 15L)).thenReturn(List.of(13L, 14L, 15L));
+        when(insumoRepository.findSaldosPendientes(15L)).thenReturn(List.of(new SaldoPendienteDTO(1L, 38L, 12L, -3L, 15L)));
+        when(insumoRepository.cerrarSaldo(1L, 35L, 15L, 12L)).thenReturn(1);
+
+        assertEquals(1, inventarioService.cerrarSaldos());
+        verify(insumoRepository, times(1)).findUltimoMovimientoCerrado();
+    }
+
+    @Test
+    @DisplayName("Un id que no aparece tras la espera se da por revertido y el cierre continúa")
+    void testCerrarSaldos_HuecoRevertido() {
+        inventarioService = new InventarioService(movimientoRepository, snapshotRepository, insumoRepository,
+                loteInsumoService, transactionManager, 60, 0);
+        when(insumoRepository.findUltimoMovimientoCerrado()).thenReturn(10L);
+        when(movimientoRepository.findUltimoIdAntesDe(any(LocalDateTime.class))).thenReturn(12L);
+        when(movimientoRepository.findIdsEntre(10L, 12L)).thenReturn(List.of(12L));
+        when(insumoRepository.findSaldosPendientes(12L)).thenReturn(List.of());
+
+        inventarioService.cerrarSaldos();
+
+        verify(insumoRepository).findSaldosPendientes(12L);
+    }
+
+    private static List<Long> ids(long desde, long hasta) {
+        return LongStream.rangeClosed(desde, hasta).boxed().toList();
+    }
+}
@@ -0,0 +1,215 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.LoteVencimientoDTO;
+import co.edu.uniquindio.oldbaker.dto.ResumenInsumoDTO;
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import co.edu.uniquindio.oldbaker.model.LoteInsumo;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.CheckpointProcesoRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.LoteInsumoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para LoteInsumoService.
+ *
+ * Verifican que las salidas se asignan a los lotes que vencen primero leyendo los lotes una sola vez y en una
+ * transacción propia, que las ventas omiten los lotes vencidos e informan lo que los lotes no cubren, que un
+ * descuento rechazado recarga la cola y reintenta, que los lotes del mismo vencimiento se reparten, que el faltante
+ * de una venta se avisa por correo y que el reporte de vencimientos se envía una vez por día.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class LoteInsumoServiceTest {
+
+    @Mock
+    private LoteInsumoRepository loteRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private CheckpointProcesoRepository checkpointRepository;
+
+    @Mock
+    private MailService mailService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LoteInsumoService service;
+    private LocalDate hoy;
+
+    @BeforeEach
+    void setUp() {
+        service = new LoteInsumoService(loteRepository, insumoRepository, checkpointRepository, mailService,
+                transactionManager, 3, "bodega@oldbaker.com");
+        hoy = LocalDate.now();
+    }
+
+    @Test
+    @DisplayName("Las salidas toman primero el lote que vence antes y los lotes se leen una sola vez")
+    void testConsumir_Fefo() {
+        when(loteRepository.findDisponibles(1L)).thenReturn(List.of(
+                lote(10L, 1L, 5, null),
+                lote(11L, 1L, 4, hoy.plusDays(9)),
+                lote(12L, 1L, 3, hoy.plusDays(2))));
+        when(loteRepository.consumir(anyLong(), anyLong())).thenReturn(1);
+
+        service.consumir(1L, 5, false);
+        service.consumir(1L, 4, false);
+
+        InOrder orden = inOrder(loteRepository);
+        orden.verify(loteRepository).consumir(12L, 3);
+        orden.verify(loteRepository, times(2)).consumir(11L, 2);
+        orden.verify(loteRepository).consumir(10L, 2);
+        verify(loteRepository, times(1)).findDisponibles(1L);
+        // La cola se lee en su propia transacción, no en la del llamador
+        verify(transactionManager).getTransaction(argThat(definicion ->
+                definicion.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW
+                        && definicion.getIsolationLevel() == TransactionDefinition.ISOLATION_READ_COMMITTED));
+    }
+
+    @Test
+    @DisplayName("Una venta omite los lotes vencidos e informa lo que los vigentes no cubren; un ajuste sí los consume")
+    void testConsumir_Vencidos() {
+        when(loteRepository.findDisponibles(1L)).thenReturn(List.of(
+                lote(10L, 1L, 6, hoy.minusDays(1)),
+                lote(11L, 1L, 4, hoy)));
+        when(loteRepository.consumir(anyLong(), anyLong())).thenReturn(1);
+
+        assertEquals(1, service.consumir(1L, 5, false));
+        verify(loteRepository).consumir(11L, 4);
+        verify(loteRepository, never()).consumir(eq(10L), anyLong());
+
+        assertEquals(0, service.consumir(1L, 6, true));
+        verify(loteRepository).consumir(10L, 6);
+    }
+
+    @Test
+    @DisplayName("El faltante de una venta sin lote se encola por correo con el nombre del insumo")
+    @SuppressWarnings("unchecked")
+    void testAlertarSinLote() {
+        when(insumoRepository.findResumenByIds(Set.of(1L))).thenReturn(List.of(
+                new ResumenInsumoDTO(1L, "Mantequilla", Receta.UnidadMedida.GRAMOS)));
+
+        service.alertarSinLote(Map.of(1L, 2_500L), "orden:9");
+
+        ArgumentCaptor<Map<String, Object>> variables = ArgumentCaptor.forClass(Map.class);
+        verify(mailService).encolarEmail(eq("bodega@oldbaker.com"), anyString(), eq("salidas-sin-lote"), any(),
+                variables.capture());
+        assertEquals("orden:9", variables.getValue().get("referencia"));
+        assertEquals(List.of(Map.of("insumo", "Mantequilla", "cantidad", "2.5")), variables.getValue().get("insumos"));
+    }
+
+    @Test
+    @DisplayName("Si otro consumo se adelantó, la cola se recarga y se descuenta lo que falta")
+    void testConsumir_Conflicto() {
+        when(loteRepository.findDisponibles(1L))
+                .thenReturn(List.of(lote(10L, 1L, 5, hoy.plusDays(1)), lote(11L, 1L, 5, hoy.plusDays(4))))
+                .thenReturn(List.of(lote(10L, 1L, 1, hoy.plusDays(1)), lote(11L, 1L, 5, hoy.plusDays(4))));
+        when(loteRepository.consumir(10L, 4)).thenReturn(0);
+        when(loteRepository.consumir(10L, 1)).thenReturn(1);
+        when(loteRepository.consumir(11L, 3)).thenReturn(1);
+
+        service.consumir(1L, 4, false);
+
+        verify(loteRepository, times(2)).findDisponibles(1L);
+        verify(loteRepository).consumir(10L, 1);
+        verify(loteRepository).consumir(11L, 3);
+    }
+
+    @Test
+    @DisplayName("Un lote recibido se agrega a la cola ya cargada sin volver a leer los lotes")
+    void testRecibir_ColaCargada() {
+        when(loteRepository.findDisponibles(1L)).thenReturn(List.of(lote(10L, 1L, 5, hoy.plusDays(8))));
+        when(loteRepository.consumir(anyLong(), anyLong())).thenReturn(1);
+        service.consumir(1L, 1, false);
+        when(loteRepository.saveAll(anyList())).thenReturn(List.of(lote(20L, 1L, 10, hoy.plusDays(1))));
+
+        service.recibir(List.of(lote(null, 1L, 10, hoy.plusDays(1))));
+        service.consumir(1L, 2, false);
+
+        verify(loteRepository).consumir(20L, 2);
+        verify(loteRepository, times(1)).findDisponibles(1L);
+    }
+
+    @Test
+    @DisplayName("La relectura tras un conflicto descuenta lo que esta misma salida ya tomó")
+    void testConsumir_RelecturaDescuentaLoPropio() {
+        // La relectura no ve lo descontado por la transacción del llamador: el lote 10 sigue con 5
+        when(loteRepository.findDisponibles(1L))
+                .thenReturn(List.of(lote(10L, 1L, 5, hoy.plusDays(1)), lote(11L, 1L, 5, hoy.plusDays(4))));
+        when(loteRepository.consumir(10L, 5)).thenReturn(1);
+        when(loteRepository.consumir(11L, 2)).thenReturn(0, 1);
+
+        service.consumir(1L, 7, false);
+
+        verify(loteRepository, times(1)).consumir(10L, 5);
+        verify(loteRepository, times(2)).consumir(11L, 2);
+    }
+
+    @Test
+    @DisplayName("Los lotes que vencen el mismo día se reparten entre las salidas")
+    void testConsumir_MismoVencimientoSeReparte() {
+        when(loteRepository.findDisponibles(1L)).thenReturn(List.of(
+                lote(10L, 1L, 100, hoy.plusDays(2)),
+                lote(11L, 1L, 100, hoy.plusDays(2))));
+        when(loteRepository.consumir(anyLong(), anyLong())).thenReturn(1);
+
+        for (int i = 0; i < 40; i++) {
+            service.consumir(1L, 1, false);
+        }
+
+        verify(loteRepository, atLeastOnce()).consumir(10L, 1);
+        verify(loteRepository, atLeastOnce()).consumir(11L, 1);
+    }
+
+    @Test
+    @DisplayName("El reporte de vencimientos se encola una vez por día")
+    void testReportarVencimientos() {
+        CheckpointProceso checkpoint = CheckpointProceso.builder()
+                .nombre("reporte-vencimientos").ultimaFecha(LocalDateTime.now().minusDays(1)).ultimoId(0L).build();
+        when(checkpointRepository.findParaActualizar("reporte-vencimientos")).thenReturn(Optional.of(checkpoint));
+        when(loteRepository.findPorVencer(hoy.plusDays(3))).thenReturn(List.of(
+                new LoteVencimientoDTO(10L, 1L, "Mantequilla", 8.0, hoy.minusDays(1))));
+
+        assertEquals(1, service.reportarVencimientos());
+        assertEquals(0, service.reportarVencimientos());
+
+        verify(mailService, times(1)).encolarEmail(eq("bodega@oldbaker.com"), anyString(),
+                eq("vencimientos-insumos"), any(), anyMap());
+        verify(loteRepository, times(1)).findPorVencer(any());
+    }
+
+    private LoteInsumo lote(Long id, Long idInsumo, long cantidad, LocalDate vencimiento) {
+        return LoteInsumo.builder()
+                .id(id)
+                .idInsumo(idInsumo)
+                .cantidadInicial(cantidad)
+                .cantidadDisponible(cantidad)
+                .fechaVencimiento(vencimiento)
+                .build();
+    }
+}
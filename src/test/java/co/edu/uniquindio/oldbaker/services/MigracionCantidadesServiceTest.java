@@ -0,0 +1,112 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.model.CheckpointProceso;
+import co.edu.uniquindio.oldbaker.repositories.CheckpointProcesoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para MigracionCantidadesService.
+ *
+ * Verifican que solo el choque con el checkpoint de otro nodo se tolera al arrancar y que cualquier otro error
+ * de la conversión se propaga para detener el arranque, y que los costos pasan una sola vez a precio por unidad base.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class MigracionCantidadesServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CheckpointProcesoRepository checkpointRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MigracionCantidadesService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MigracionCantidadesService(jdbcTemplate, checkpointRepository, transactionManager);
+        // Un estado por transacción: cada checkpoint corre en la suya
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> new SimpleTransactionStatus());
+        // Ninguna columna es INT y la columna decimal de las recetas sigue existiendo
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), any(Object[].class))).thenAnswer(inv ->
+                inv.getArguments().length == 5 ? 0 : 1);
+    }
+
+    @Test
+    @DisplayName("Si otro nodo inserta el checkpoint a la vez, se revierte sin error y no se borra la columna")
+    void testMigrar_CheckpointDeOtroNodo() {
+        when(checkpointRepository.existsById("cantidades-milis")).thenReturn(false);
+        when(checkpointRepository.existsById("costos-unidad-base")).thenReturn(true);
+        when(checkpointRepository.saveAndFlush(any(CheckpointProceso.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry 'cantidades-milis'"));
+
+        assertDoesNotThrow(() -> service.migrar());
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate, never()).execute("ALTER TABLE recetas DROP COLUMN cantidad_insumo");
+        // La transacción queda marcada para revertirse en lugar de confirmar el intento fallido
+        verify(transactionManager).commit(argThat(TransactionStatus::isRollbackOnly));
+    }
+
+    @Test
+    @DisplayName("Un error de la conversión se propaga y detiene el arranque")
+    void testMigrar_ErrorDeConversion() {
+        when(checkpointRepository.existsById("cantidades-milis")).thenReturn(false);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new BadSqlGrammarException("migración", "UPDATE recetas", new SQLException("sintaxis")));
+
+        assertThrows(BadSqlGrammarException.class, () -> service.migrar());
+
+        verify(jdbcTemplate, never()).execute("ALTER TABLE recetas DROP COLUMN cantidad_insumo");
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Con el checkpoint ya creado no se convierte de nuevo y se borra la columna pendiente")
+    void testMigrar_YaConvertido() {
+        when(checkpointRepository.existsById("cantidades-milis")).thenReturn(true);
+        when(checkpointRepository.existsById("costos-unidad-base")).thenReturn(true);
+
+        service.migrar();
+
+        verify(checkpointRepository, never()).saveAndFlush(any());
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        verify(jdbcTemplate).execute("ALTER TABLE recetas DROP COLUMN cantidad_insumo");
+    }
+
+    @Test
+    @DisplayName("Los costos cargados por kilo o por litro pasan a precio por gramo o mililitro una sola vez")
+    void testMigrar_CostosPorUnidadBase() {
+        when(checkpointRepository.existsById("cantidades-milis")).thenReturn(true);
+        when(checkpointRepository.existsById("costos-unidad-base")).thenReturn(false);
+
+        service.migrar();
+
+        verify(checkpointRepository).saveAndFlush(argThat(c -> "costos-unidad-base".equals(c.getNombre())));
+        verify(jdbcTemplate).update(contains("costo_unitario / ?"), eq(1000L), eq("KILOGRAMOS"));
+        verify(jdbcTemplate).update(contains("costo_unitario / ?"), eq(1000L), eq("LITROS"));
+        verify(jdbcTemplate, never()).update(anyString(), any(), eq("GRAMOS"));
+        verify(jdbcTemplate, never()).update(anyString(), any(), eq("UNIDADES"));
+    }
+}
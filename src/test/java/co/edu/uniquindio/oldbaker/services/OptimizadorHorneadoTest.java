@@ -0,0 +1,159 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para OptimizadorHorneado.
+ *
+ * Verifican que la ramificación mejora el redondeo de la relajación lineal, que se respeta la tanda mínima,
+ * que el resultado coincide con la búsqueda exhaustiva en instancias pequeñas y que sin presupuesto se devuelve
+ * la mejor solución encontrada.
+ *
+ * @author OldBaker Team
+ */
+class OptimizadorHorneadoTest {
+
+    @Test
+    @DisplayName("Ramifica cuando redondear la relajación deja valor sobre la mesa")
+    void testMejoraElRedondeo() {
+        // 1 kg de harina; pan: 300 g por 1000, torta: 400 g por 1300. La relajación hornea 3,33 panes
+        OptimizadorHorneado.Resultado resultado = OptimizadorHorneado.resolver(
+                new double[]{1000, 1300},
+                new long[][]{{300_000, 400_000}},
+                new long[]{1_000_000},
+                new int[]{1, 1},
+                new int[]{10, 10},
+                2, 2000);
+
+        // Tres panes valen 3000; dos panes y una torta usan todo el kilo y valen 3300
+        assertArrayEquals(new int[]{2, 1}, resultado.cantidades());
+        assertEquals(3300, resultado.valor(), 1e-9);
+        assertEquals(resultado.valor(), resultado.cota(), 1e-9);
+        assertTrue(resultado.optimo());
+    }
+
+    @Test
+    @DisplayName("No sugiere un producto si no alcanza para su tanda mínima")
+    void testTandaMinima() {
+        // Doce panes de 100 g no caben en 1 kg; las galletas sí
+        OptimizadorHorneado.Resultado resultado = OptimizadorHorneado.resolver(
+                new double[]{1000, 200},
+                new long[][]{{100_000, 50_000}},
+                new long[]{1_000_000},
+                new int[]{12, 1},
+                new int[]{20, 5},
+                2, 2000);
+
+        assertArrayEquals(new int[]{0, 5}, resultado.cantidades());
+        assertEquals(1000, resultado.valor(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Coincide con la búsqueda exhaustiva en instancias pequeñas")
+    void testContraBusquedaExhaustiva() {
+        Random random = new Random(7);
+        for (int caso = 0; caso < 200; caso++) {
+            int productos = 2 + random.nextInt(3);
+            int insumos = 1 + random.nextInt(3);
+            double[] valor = new double[productos];
+            int[] minimo = new int[productos];
+            int[] tope = new int[productos];
+            long[][] consumo = new long[insumos][productos];
+            long[] stock = new long[insumos];
+            for (int p = 0; p < productos; p++) {
+                valor[p] = 100 + random.nextInt(3000);
+                minimo[p] = 1 + random.nextInt(4);
+                tope[p] = random.nextInt(9);
+            }
+            for (int i = 0; i < insumos; i++) {
+                stock[i] = random.nextInt(2_000_000);
+                for (int p = 0; p < productos; p++) {
+                    consumo[i][p] = random.nextInt(3) == 0 ? 0 : 1000L * (1 + random.nextInt(400));
+                }
+            }
+
+            OptimizadorHorneado.Resultado resultado = OptimizadorHorneado.resolver(valor, consumo, stock, minimo, tope, 2, 5000);
+
+            assertTrue(resultado.optimo(), "caso " + caso);
+            assertEquals(exhaustiva(valor, consumo, stock, minimo, tope, new int[productos], 0), resultado.valor(), 1e-6,
+                    "caso " + caso);
+            assertTrue(factible(resultado.cantidades(), consumo, stock, minimo, tope), "caso " + caso);
+        }
+    }
+
+    @Test
+    @DisplayName("Sin presupuesto devuelve la mejor solución encontrada y una cota válida")
+    void testPresupuestoAgotado() {
+        Random random = new Random(11);
+        int productos = 60;
+        int insumos = 30;
+        double[] valor = new double[productos];
+        int[] minimo = new int[productos];
+        int[] tope = new int[productos];
+        long[][] consumo = new long[insumos][productos];
+        long[] stock = new long[insumos];
+        for (int p = 0; p < productos; p++) {
+            valor[p] = 500 + random.nextInt(5000);
+            minimo[p] = 1 + random.nextInt(12);
+            tope[p] = 5 + random.nextInt(60);
+        }
+        for (int i = 0; i < insumos; i++) {
+            stock[i] = 5_000_000L + random.nextInt(50_000_000);
+            for (int p = 0; p < productos; p++) {
+                consumo[i][p] = random.nextInt(4) == 0 ? 1000L * (1 + random.nextInt(500)) : 0;
+            }
+        }
+
+        OptimizadorHorneado.Resultado resultado = OptimizadorHorneado.resolver(valor, consumo, stock, minimo, tope, 2, 0);
+
+        assertFalse(resultado.optimo());
+        assertTrue(resultado.valor() > 0);
+        assertTrue(resultado.cota() >= resultado.valor());
+        assertTrue(factible(resultado.cantidades(), consumo, stock, minimo, tope));
+    }
+
+    private static double exhaustiva(double[] valor, long[][] consumo, long[] stock, int[] minimo, int[] tope,
+                                     int[] x, int p) {
+        if (p == valor.length) {
+            if (!factible(x, consumo, stock, minimo, tope)) {
+                return 0;
+            }
+            double total = 0;
+            for (int j = 0; j < x.length; j++) {
+                total += valor[j] * x[j];
+            }
+            return total;
+        }
+        x[p] = 0;
+        double mejor = exhaustiva(valor, consumo, stock, minimo, tope, x, p + 1);
+        for (int k = minimo[p]; k <= tope[p]; k++) {
+            x[p] = k;
+            mejor = Math.max(mejor, exhaustiva(valor, consumo, stock, minimo, tope, x, p + 1));
+        }
+        x[p] = 0;
+        return mejor;
+    }
+
+    private static boolean factible(int[] x, long[][] consumo, long[] stock, int[] minimo, int[] tope) {
+        for (int p = 0; p < x.length; p++) {
+            if (x[p] != 0 && (x[p] < minimo[p] || x[p] > tope[p])) {
+                return false;
+            }
+        }
+        for (int i = 0; i < consumo.length; i++) {
+            long usado = 0;
+            for (int p = 0; p < x.length; p++) {
+                usado += consumo[i][p] * x[p];
+            }
+            if (usado > stock[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,167 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.payment.CheckoutItemDTO;
+import co.edu.uniquindio.oldbaker.dto.payment.CheckoutRequestDTO;
+import co.edu.uniquindio.oldbaker.model.Categoria;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.LoteInsumo;
+import co.edu.uniquindio.oldbaker.model.MovimientoInventario;
+import co.edu.uniquindio.oldbaker.model.OrdenCompra;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.model.Usuario;
+import co.edu.uniquindio.oldbaker.repositories.CategoriaRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.LoteInsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.MovimientoInventarioRepository;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import co.edu.uniquindio.oldbaker.repositories.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Pruebas de persistencia del pago de una orden sobre H2, con el libro de inventario y los lotes reales.
+ *
+ * Verifican que una orden aprobada cuyo insumo solo tiene lotes vencidos queda pagada igual: la venta se registra
+ * completa en el libro, los lotes vencidos no se tocan y el faltante se avisa por correo.
+ * Cada paso corre en su propia transacción, como en el webhook; por eso la prueba no es transaccional.
+ *
+ * @author OldBaker Team
+ */
+@DataJpaTest(properties = "lotes.reporte-vencimiento.destinatario=bodega@oldbaker.com")
+@ActiveProfiles("h2")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrdenCompraService.class, InventarioService.class, LoteInsumoService.class, ExpansionRecetasService.class})
+class PagoOrdenLotesTest {
+
+    @Autowired
+    private OrdenCompraService ordenCompraService;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private InsumoRepository insumoRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private RecetaRepository recetaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private OrdenCompraRepository ordenCompraRepository;
+
+    @Autowired
+    private LoteInsumoRepository loteRepository;
+
+    @Autowired
+    private MovimientoInventarioRepository movimientoRepository;
+
+    @MockitoBean
+    private MailService mailService;
+
+    @MockitoBean
+    private CambiosEntidadService cambiosEntidadService;
+
+    @MockitoBean
+    private PronosticoConsumoService pronosticoConsumoService;
+
+    private Insumo mantequilla;
+    private Producto producto;
+    private Usuario cliente;
+
+    @BeforeEach
+    void setUp() {
+        Categoria categoria = categoriaRepository.save(new Categoria(null, "Panadería", null));
+        mantequilla = insumoRepository.save(Insumo.builder()
+                .nombre("Mantequilla")
+                .costoUnitario(20.0)
+                .unidadMedida(Receta.UnidadMedida.GRAMOS)
+                .cantidadActual(0L)
+                .build());
+        producto = new Producto();
+        producto.setNombre("Croissant");
+        producto.setCostoUnitario(4000.0);
+        producto.setPedidoMinimo(1);
+        producto.setCategoria(categoria);
+        producto = productoRepository.save(producto);
+        Receta receta = new Receta();
+        receta.setCantidadInsumo(50_000L);
+        receta.setUnidadMedida(Receta.UnidadMedida.GRAMOS);
+        receta.setInsumo(mantequilla);
+        receta.setProducto(producto);
+        recetaRepository.save(receta);
+        cliente = usuarioRepository.save(Usuario.builder()
+                .email("cliente@oldbaker.co")
+                .nombre("Cliente")
+                .rol(Usuario.Rol.CLIENTE)
+                .tipoAutenticacion(Usuario.TipoAutenticacion.EMAIL)
+                .verificado(true)
+                .activo(true)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ordenCompraRepository.deleteAll();
+        usuarioRepository.deleteAll();
+        movimientoRepository.deleteAll();
+        loteRepository.deleteAll();
+        recetaRepository.deleteAll();
+        productoRepository.deleteAll();
+        insumoRepository.deleteAll();
+        categoriaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Una orden aprobada con el stock solo en lotes vencidos queda pagada y avisa del faltante")
+    void testMarcarComoPagada_SoloLotesVencidos() {
+        LoteInsumo vencido = loteRepository.save(LoteInsumo.builder()
+                .idInsumo(mantequilla.getIdInsumo())
+                .cantidadInicial(1_000_000L)
+                .cantidadDisponible(1_000_000L)
+                .fechaVencimiento(LocalDate.now().minusDays(2))
+                .referencia("pedido:1")
+                .build());
+        CheckoutRequestDTO carrito = new CheckoutRequestDTO();
+        carrito.setItems(List.of(new CheckoutItemDTO(producto.getIdProducto(), 2)));
+        carrito.setPayerEmail("cliente@oldbaker.co");
+        OrdenCompra orden = ordenCompraService.crearOrden(carrito, cliente.getId());
+
+        assertDoesNotThrow(() -> ordenCompraService.marcarComoPagada(orden.getExternalReference(), "pago-1"));
+
+        OrdenCompra pagada = ordenCompraRepository.findByExternalReference(orden.getExternalReference()).orElseThrow();
+        assertEquals(OrdenCompra.EstadoOrden.PAID, pagada.getStatus());
+        assertEquals("pago-1", pagada.getPaymentId());
+        // La venta queda completa en el libro aunque ningún lote la respalde
+        List<MovimientoInventario> movimientos = movimientoRepository.findAll();
+        assertEquals(1, movimientos.size());
+        assertEquals(MovimientoInventario.TipoMovimiento.VENTA, movimientos.get(0).getTipo());
+        assertEquals(-100_000L, movimientos.get(0).getCantidad());
+        assertEquals(1_000_000L, loteRepository.findById(vencido.getId()).orElseThrow().getCantidadDisponible());
+        verify(mailService).encolarEmail(eq("bodega@oldbaker.com"), anyString(), eq("salidas-sin-lote"), any(),
+                argThat(variables -> ("orden:" + orden.getId()).equals(variables.get("referencia"))));
+    }
+}
@@ -0,0 +1,219 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.PedidoInsumoPaginaResponse;
+import co.edu.uniquindio.oldbaker.dto.PedidoInsumoResponse;
+import co.edu.uniquindio.oldbaker.model.*;
+import co.edu.uniquindio.oldbaker.repositories.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para la aprobación y el listado de pedidos de PedidoInsumoService.
+ *
+ * Verifican que la aprobación de varios pedidos lee todo en una consulta, crea de una vez los insumos que
+ * aún no existen, registra un movimiento de recepción por insumo y pedido, y que no aprueba nada si algún
+ * pedido no está PENDIENTE; que lo comprado en otra unidad se recibe en la unidad base; y que el listado avanza
+ * por cursor con dos consultas por página.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class PedidoInsumoServiceTest {
+
+    @Mock
+    private PedidoInsumoRepository pedidoInsumoRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private PagoProveedorRepository pagoProveedorRepository;
+
+    @Mock
+    private InsumoProveedorRepository insumoProveedorRepository;
+
+    @Mock
+    private ReporteProveedorRepository reporteProveedorRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CambiosEntidadService cambiosEntidadService;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @InjectMocks
+    private PedidoInsumoService pedidoInsumoService;
+
+    @Test
+    @DisplayName("Aprobar varios pedidos crea una vez los insumos nuevos y agrupa las recepciones")
+    @SuppressWarnings("unchecked")
+    void testAprobarPedidos() {
+        InsumoProveedor harina = insumoProveedor(10L, "Harina");
+        harina.setFechaVencimiento(LocalDate.of(2025, 6, 30));
+        Insumo harinaInventario = Insumo.builder().idInsumo(100L).insumoProveedor(harina).build();
+        harina.setInsumo(harinaInventario);
+        InsumoProveedor azucar = insumoProveedor(20L, "Azúcar");
+
+        PedidoInsumo pedido1 = pedido(1L, detalle(harina, 5), detalle(harina, 3), detalle(azucar, 2));
+        PedidoInsumo pedido2 = pedido(2L, detalle(azucar, 4));
+        when(pedidoInsumoRepository.findConDetallesByIds(List.of(1L, 2L))).thenReturn(List.of(pedido2, pedido1));
+        when(insumoRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Insumo> nuevos = inv.getArgument(0);
+            nuevos.forEach(i -> i.setIdInsumo(200L));
+            return nuevos;
+        });
+
+        List<PedidoInsumoResponse> respuestas = pedidoInsumoService.aprobarPedidos(List.of(1L, 2L, 1L));
+
+        assertEquals(List.of(1L, 2L), respuestas.stream().map(PedidoInsumoResponse::getId).toList());
+        assertEquals(PedidoInsumo.EstadoPedido.APROBADO, pedido1.getEstado());
+        assertEquals(PedidoInsumo.EstadoPedido.APROBADO, pedido2.getEstado());
+
+        // El azúcar aparece en los dos pedidos pero se crea una sola vez
+        ArgumentCaptor<List<Insumo>> nuevos = ArgumentCaptor.forClass(List.class);
+        verify(insumoRepository).saveAll(nuevos.capture());
+        assertEquals(1, nuevos.getValue().size());
+        assertEquals("Azúcar", nuevos.getValue().get(0).getNombre());
+
+        ArgumentCaptor<Collection<MovimientoInventario>> movimientos = ArgumentCaptor.forClass(Collection.class);
+        verify(inventarioService).registrar(movimientos.capture());
+        List<MovimientoInventario> registrados = new ArrayList<>(movimientos.getValue());
+        assertEquals(3, registrados.size());
+        assertEquals(100L, registrados.get(0).getIdInsumo());
+        assertEquals(8_000L, registrados.get(0).getCantidad());
+        assertEquals("pedido:1", registrados.get(0).getReferencia());
+        assertEquals(LocalDate.of(2025, 6, 30), registrados.get(0).getVencimientoLote());
+        assertEquals(200L, registrados.get(2).getIdInsumo());
+        assertEquals(4_000L, registrados.get(2).getCantidad());
+        assertEquals("pedido:2", registrados.get(2).getReferencia());
+        verify(insumoRepository, never()).findByInsumoProveedor(any());
+        verify(pedidoInsumoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Si un pedido del lote no está PENDIENTE no se aprueba ninguno")
+    void testAprobarPedidos_EstadoInvalido() {
+        PedidoInsumo pendiente = pedido(1L, detalle(insumoProveedor(10L, "Harina"), 5));
+        PedidoInsumo pagado = pedido(2L);
+        pagado.setEstado(PedidoInsumo.EstadoPedido.PAGADO);
+        when(pedidoInsumoRepository.findConDetallesByIds(List.of(1L, 2L))).thenReturn(List.of(pendiente, pagado));
+
+        assertThrows(RuntimeException.class, () -> pedidoInsumoService.aprobarPedidos(List.of(1L, 2L)));
+
+        assertEquals(PedidoInsumo.EstadoPedido.PENDIENTE, pendiente.getEstado());
+        verifyNoInteractions(insumoRepository, inventarioService, cambiosEntidadService);
+    }
+
+    @Test
+    @DisplayName("Lo comprado por kilos entra en gramos y el insumo nuevo toma el precio por gramo")
+    @SuppressWarnings("unchecked")
+    void testAprobarPedidos_UnidadDeCompra() {
+        InsumoProveedor harina = insumoProveedor(10L, "Harina");
+        harina.setCostoUnitario(4000.0);
+        harina.setUnidadMedida(Receta.UnidadMedida.KILOGRAMOS);
+        InsumoProveedor leche = insumoProveedor(20L, "Leche");
+        leche.setUnidadMedida(Receta.UnidadMedida.LITROS);
+        leche.setInsumo(Insumo.builder().idInsumo(300L).unidadMedida(Receta.UnidadMedida.MILILITROS).build());
+        when(pedidoInsumoRepository.findConDetallesByIds(List.of(1L)))
+                .thenReturn(List.of(pedido(1L, detalle(harina, 2), detalle(leche, 3))));
+        when(insumoRepository.saveAll(anyList())).thenAnswer(inv -> {
+            List<Insumo> nuevos = inv.getArgument(0);
+            nuevos.forEach(i -> i.setIdInsumo(200L));
+            return nuevos;
+        });
+
+        pedidoInsumoService.aprobarPedidos(List.of(1L));
+
+        Insumo nuevo = harina.getInsumo();
+        assertEquals(Receta.UnidadMedida.GRAMOS, nuevo.getUnidadMedida());
+        assertEquals(4.0, nuevo.getCostoUnitario());
+        ArgumentCaptor<Collection<MovimientoInventario>> movimientos = ArgumentCaptor.forClass(Collection.class);
+        verify(inventarioService).registrar(movimientos.capture());
+        List<MovimientoInventario> registrados = new ArrayList<>(movimientos.getValue());
+        assertEquals(200L, registrados.get(0).getIdInsumo());
+        assertEquals(2_000_000L, registrados.get(0).getCantidad());
+        assertEquals(300L, registrados.get(1).getIdInsumo());
+        assertEquals(3_000_000L, registrados.get(1).getCantidad());
+    }
+
+    @Test
+    @DisplayName("Cada página lee los ids por keyset y luego los pedidos completos, sin cargar el historial")
+    void testListarPedidos_Paginas() {
+        PedidoInsumo pedido9 = pedido(9L, detalle(insumoProveedor(10L, "Harina"), 5));
+        PedidoInsumo pedido7 = pedido(7L);
+        when(pedidoInsumoRepository.findIdsPagina(eq(PedidoInsumo.EstadoPedido.PENDIENTE), isNull(), isNull(),
+                eq(Long.MAX_VALUE), any(Pageable.class))).thenReturn(List.of(9L, 7L, 4L));
+        when(pedidoInsumoRepository.findConDetallesByIds(List.of(9L, 7L))).thenReturn(List.of(pedido7, pedido9));
+
+        PedidoInsumoPaginaResponse primera = pedidoInsumoService.listarPedidos(
+                PedidoInsumo.EstadoPedido.PENDIENTE, null, null, null, 2);
+
+        assertEquals(List.of(9L, 7L), primera.getPedidos().stream().map(PedidoInsumoResponse::getId).toList());
+        assertEquals("Harina", primera.getPedidos().get(0).getDetalles().get(0).getInsumo().getNombre());
+        assertTrue(primera.isHayMas());
+
+        // La página siguiente continúa después del último id entregado
+        when(pedidoInsumoRepository.findIdsPagina(eq(PedidoInsumo.EstadoPedido.PENDIENTE), isNull(), isNull(),
+                eq(7L), any(Pageable.class))).thenReturn(List.of(4L));
+        when(pedidoInsumoRepository.findConDetallesByIds(List.of(4L))).thenReturn(List.of(pedido(4L)));
+
+        PedidoInsumoPaginaResponse segunda = pedidoInsumoService.listarPedidos(
+                PedidoInsumo.EstadoPedido.PENDIENTE, null, null, primera.getSiguienteCursor(), 2);
+
+        assertEquals(List.of(4L), segunda.getPedidos().stream().map(PedidoInsumoResponse::getId).toList());
+        assertFalse(segunda.isHayMas());
+        assertNull(segunda.getSiguienteCursor());
+        verify(pedidoInsumoRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Un rango de fechas invertido o un cursor inválido se rechazan sin consultar")
+    void testListarPedidos_ParametrosInvalidos() {
+        assertThrows(IllegalArgumentException.class, () -> pedidoInsumoService.listarPedidos(null,
+                LocalDate.of(2025, 5, 2), LocalDate.of(2025, 5, 1), null, 20));
+        assertThrows(IllegalArgumentException.class, () -> pedidoInsumoService.listarPedidos(null,
+                null, null, "no-es-un-cursor", 20));
+        verifyNoInteractions(pedidoInsumoRepository);
+    }
+
+    private InsumoProveedor insumoProveedor(Long id, String nombre) {
+        return InsumoProveedor.builder().idInsumo(id).nombre(nombre).costoUnitario(1000.0).build();
+    }
+
+    private DetalleProveedorPedido detalle(InsumoProveedor insumoProveedor, int cantidad) {
+        DetalleProveedorPedido detalle = new DetalleProveedorPedido();
+        detalle.setInsumo(insumoProveedor);
+        detalle.setCantidadInsumo(cantidad);
+        return detalle;
+    }
+
+    private PedidoInsumo pedido(Long id, DetalleProveedorPedido... detalles) {
+        PedidoInsumo pedido = new PedidoInsumo();
+        pedido.setIdPedido(id);
+        pedido.setEstado(PedidoInsumo.EstadoPedido.PENDIENTE);
+        for (DetalleProveedorPedido detalle : detalles) {
+            detalle.setPedido(pedido);
+            pedido.getDetalles().add(detalle);
+        }
+        return pedido;
+    }
+}
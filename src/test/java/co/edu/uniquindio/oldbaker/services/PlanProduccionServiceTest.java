@@ -0,0 +1,166 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.DemandaProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.ResumenInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.PlanProduccionProductoDTO;
+import co.edu.uniquindio.oldbaker.events.OrdenPagadaEvent;
+import co.edu.uniquindio.oldbaker.events.StockInsumoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.OrdenCompra;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para PlanProduccionService.
+ *
+ * Verifican que el plan suma los insumos de lo pagado y de lo reservado, calcula el faltante frente al
+ * saldo, se sirve desde memoria y que un pago se suma a la demanda sin volver a consultar las órdenes, salvo si
+ * la consulta de la ventana ya lo vio.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class PlanProduccionServiceTest {
+
+    @Mock
+    private OrdenCompraRepository ordenCompraRepository;
+
+    @Mock
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PlanProduccionService planService;
+
+    private final LocalDate hoy = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        planService = new PlanProduccionService(ordenCompraRepository, expansionRecetasService, inventarioService,
+                insumoRepository, productoRepository, transactionManager, 300);
+
+        // Pan: 10 pagados y 2 en espera, 200 g de harina (10). Torta: 1 pagada, 500 g de harina y 100 g de azúcar (20)
+        when(ordenCompraRepository.findDemandaPorProducto(anyCollection(), any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(List.of(
+                        new DemandaProductoDTO(1L, "Pan", OrdenCompra.EstadoOrden.PAID, 10L),
+                        new DemandaProductoDTO(1L, "Pan", OrdenCompra.EstadoOrden.PENDING, 2L),
+                        new DemandaProductoDTO(2L, "Torta", OrdenCompra.EstadoOrden.PAID, 1L)));
+        when(expansionRecetasService.requerimientos(anyCollection())).thenReturn(Map.of(
+                1L, List.of(new RequerimientoInsumoDTO(1L, 10L, 200_000L)),
+                2L, List.of(new RequerimientoInsumoDTO(2L, 10L, 500_000L), new RequerimientoInsumoDTO(2L, 20L, 100_000L))));
+        // El libro ya descontó lo pagado: quedan 100 g de harina y 1 kg de azúcar
+        when(inventarioService.saldos(anyCollection())).thenReturn(Map.of(10L, 100_000L, 20L, 1_000_000L));
+        when(insumoRepository.findResumenByIds(anyCollection())).thenReturn(List.of(
+                new ResumenInsumoDTO(10L, "Harina", Receta.UnidadMedida.GRAMOS),
+                new ResumenInsumoDTO(20L, "Azúcar", Receta.UnidadMedida.GRAMOS)));
+    }
+
+    @Test
+    @DisplayName("Suma los insumos de lo pagado y lo reservado y se sirve desde memoria")
+    void testPlan() {
+        PlanProduccionDTO plan = planService.plan(hoy, hoy);
+
+        PlanProduccionProductoDTO pan = plan.getProductos().get(0);
+        assertEquals(1L, pan.getIdProducto());
+        assertEquals(10L, pan.getCantidadPagada());
+        assertEquals(2L, pan.getCantidadReservada());
+
+        // Harina: 2000 + 500 g para lo pagado, 400 g reservados y solo 100 g en el libro
+        PlanProduccionInsumoDTO harina = plan.getInsumos().get(0);
+        assertEquals("Harina", harina.getNombre());
+        assertEquals(2500.0, harina.getRequerido(), 1e-9);
+        assertEquals(400.0, harina.getReservado(), 1e-9);
+        assertEquals(300.0, harina.getFaltante(), 1e-9);
+        assertEquals(0.0, plan.getInsumos().get(1).getFaltante(), 1e-9);
+        assertTrue(plan.isHayFaltantes());
+
+        assertSame(plan, planService.plan(hoy, hoy));
+        verify(ordenCompraRepository, times(1)).findDemandaPorProducto(anyCollection(), any(), any());
+        verify(expansionRecetasService, times(1)).requerimientos(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Un pago pasa las unidades de reservadas a pagadas sin volver a agrupar las órdenes")
+    void testOrdenPagada_Incremental() {
+        planService.plan(hoy, hoy);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        planService.onOrdenPagada(new OrdenPagadaEvent(7L, OrdenCompra.EstadoOrden.PENDING, ahora, ahora, Map.of(1L, 2)));
+        PlanProduccionDTO plan = planService.plan(hoy, hoy);
+
+        PlanProduccionProductoDTO pan = plan.getProductos().get(0);
+        assertEquals(12L, pan.getCantidadPagada());
+        assertEquals(0L, pan.getCantidadReservada());
+        assertFalse(plan.isHayFaltantes());
+        verify(ordenCompraRepository, times(1)).findDemandaPorProducto(anyCollection(), any(), any());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("Un pago que la consulta de la ventana ya vio pagado no se suma otra vez")
+    void testOrdenPagada_YaContada() {
+        // La orden 7 se pagó y confirmó antes de cargar la ventana; su evento llega después
+        when(ordenCompraRepository.findIdsPorEstadoDesde(eq(OrdenCompra.EstadoOrden.PAID), any(LocalDateTime.class)))
+                .thenReturn(List.of(7L));
+        planService.plan(hoy, hoy);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        planService.onOrdenPagada(new OrdenPagadaEvent(7L, OrdenCompra.EstadoOrden.PENDING, ahora, ahora, Map.of(1L, 2)));
+        // Un evento repetido de una orden sumada por evento tampoco se cuenta dos veces
+        planService.onOrdenPagada(new OrdenPagadaEvent(8L, OrdenCompra.EstadoOrden.PENDING, ahora, ahora, Map.of(1L, 2)));
+        planService.onOrdenPagada(new OrdenPagadaEvent(8L, OrdenCompra.EstadoOrden.PENDING, ahora, ahora, Map.of(1L, 2)));
+        PlanProduccionProductoDTO pan = planService.plan(hoy, hoy).getProductos().get(0);
+
+        assertEquals(12L, pan.getCantidadPagada());
+        assertEquals(0L, pan.getCantidadReservada());
+        verify(transactionManager).getTransaction(argThat(definicion -> definicion.isReadOnly()
+                && definicion.getIsolationLevel() == TransactionDefinition.ISOLATION_REPEATABLE_READ));
+    }
+
+    @Test
+    @DisplayName("Un cambio de stock rearma el plan con la demanda en memoria")
+    void testCambioStock_RearmaPlan() {
+        PlanProduccionDTO antes = planService.plan(hoy, hoy);
+
+        planService.onStockInsumoModificado(new StockInsumoModificadoEvent(Set.of(10L)));
+
+        assertNotSame(antes, planService.plan(hoy, hoy));
+        verify(ordenCompraRepository, times(1)).findDemandaPorProducto(anyCollection(), any(), any());
+        assertThrows(IllegalArgumentException.class, () -> planService.plan(hoy, hoy.minusDays(1)));
+    }
+}
@@ -0,0 +1,127 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ComponenteRecetaRequest;
+import co.edu.uniquindio.oldbaker.dto.PreparacionRequest;
+import co.edu.uniquindio.oldbaker.events.PreparacionModificadaEvent;
+import co.edu.uniquindio.oldbaker.events.ProductoModificadoEvent;
+import co.edu.uniquindio.oldbaker.model.CambioEntidad;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.Preparacion;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.PreparacionRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para PreparacionService.
+ *
+ * Verifican que al cambiar los componentes de una preparación se rechace cualquiera que ya la use (ciclo) y que,
+ * al aceptarse el cambio, se guarden las cantidades en la unidad base y se anuncien los productos afectados.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class PreparacionServiceTest {
+
+    @Mock
+    private PreparacionRepository preparacionRepository;
+
+    @Mock
+    private RecetaRepository recetaRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private CambiosEntidadService cambiosEntidadService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private PreparacionService preparacionService;
+
+    @BeforeEach
+    void setUp() {
+        // La masa madre (10) la usa la masa (20), y la masa el pan (producto 5)
+        when(preparacionRepository.findById(10L))
+                .thenReturn(Optional.of(new Preparacion(10L, "Masa madre", null, Receta.UnidadMedida.GRAMOS, 1_000_000L)));
+        when(recetaRepository.findIdsPreparacionesQueUsan(Set.of(10L))).thenReturn(List.of(20L));
+        when(recetaRepository.findIdsPreparacionesQueUsan(Set.of(20L))).thenReturn(List.of());
+    }
+
+    @Test
+    @DisplayName("Rechaza como componente una preparación que ya usa a la que se modifica")
+    void testActualizar_RechazaCiclo() {
+        when(preparacionRepository.findById(20L))
+                .thenReturn(Optional.of(new Preparacion(20L, "Masa", null, Receta.UnidadMedida.GRAMOS, 2_000_000L)));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> preparacionService.actualizar(10L, request(componente(null, 20L, 0.2))));
+
+        assertTrue(error.getMessage().contains("Masa"));
+        verify(recetaRepository, never()).deleteAll(any());
+        verify(recetaRepository, never()).saveAll(anyList());
+        verifyNoInteractions(cambiosEntidadService, eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Guarda los componentes en la unidad base y anuncia los productos que usan la preparación")
+    @SuppressWarnings("unchecked")
+    void testActualizar_AnunciaProductosAfectados() {
+        when(insumoRepository.findById(1L)).thenReturn(Optional.of(
+                Insumo.builder().idInsumo(1L).nombre("Harina").unidadMedida(Receta.UnidadMedida.GRAMOS).build()));
+        when(recetaRepository.findIdsProductosQueUsan(Set.of(10L, 20L))).thenReturn(List.of(5L));
+
+        preparacionService.actualizar(10L, request(componente(1L, null, 0.6)));
+
+        ArgumentCaptor<List<Receta>> guardadas = ArgumentCaptor.forClass(List.class);
+        verify(recetaRepository).saveAll(guardadas.capture());
+        Receta linea = guardadas.getValue().get(0);
+        assertEquals(600_000L, linea.getCantidadInsumo());
+        assertEquals(10L, linea.getPreparacion().getIdPreparacion());
+
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.PREPARACION, 10L);
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.PRODUCTO, List.of(5L));
+        ArgumentCaptor<Object> eventos = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(eventos.capture());
+        assertEquals(Set.of(10L), ((PreparacionModificadaEvent) eventos.getAllValues().get(0)).getIdsPreparacion());
+        assertEquals(5L, ((ProductoModificadoEvent) eventos.getAllValues().get(1)).getIdProducto());
+    }
+
+    private static PreparacionRequest request(ComponenteRecetaRequest componente) {
+        PreparacionRequest request = new PreparacionRequest();
+        request.setNombre("Masa madre");
+        request.setRendimiento(1.0);
+        request.setUnidadMedida(Receta.UnidadMedida.KILOGRAMOS);
+        request.setComponentes(List.of(componente));
+        return request;
+    }
+
+    private static ComponenteRecetaRequest componente(Long idInsumo, Long idPreparacion, double kilos) {
+        ComponenteRecetaRequest componente = new ComponenteRecetaRequest();
+        componente.setIdInsumo(idInsumo);
+        componente.setIdPreparacion(idPreparacion);
+        componente.setCantidad(kilos);
+        componente.setUnidadMedida(Receta.UnidadMedida.KILOGRAMOS);
+        return componente;
+    }
+}
@@ -0,0 +1,101 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoResponse;
+import co.edu.uniquindio.oldbaker.model.Categoria;
+import co.edu.uniquindio.oldbaker.model.Insumo;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de persistencia para el listado de productos de ProductoService sobre H2.
+ *
+ * Cuentan las sentencias que Hibernate prepara al listar: deben ser dos (productos con categoría y recetas
+ * proyectadas) sin importar cuántos productos y recetas haya, así que un N+1 haría fallar la prueba.
+ * La caché de segundo nivel se desactiva para que cada lectura llegue a la base de datos.
+ *
+ * @author OldBaker Team
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("h2")
+@Import(ProductoService.class)
+class ProductoServiceConsultasTest {
+
+    @Autowired
+    private ProductoService productoService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CambiosEntidadService cambiosEntidadService;
+
+    @MockitoBean
+    private InventarioService inventarioService;
+
+    @MockitoBean
+    private PreparacionService preparacionService;
+
+    @ParameterizedTest(name = "{0} productos")
+    @ValueSource(ints = {3, 40})
+    @DisplayName("Lista productos, categorías y recetas con dos sentencias")
+    void testListarProductos_SentenciasFijas(int cantidad) {
+        Categoria categoria = entityManager.persist(new Categoria(null, "Panadería", null));
+        Insumo harina = entityManager.persist(Insumo.builder()
+                .nombre("Harina")
+                .costoUnitario(4.0)
+                .unidadMedida(Receta.UnidadMedida.GRAMOS)
+                .cantidadActual(0L)
+                .build());
+        for (int i = 0; i < cantidad; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Pan " + i);
+            producto.setCostoUnitario(1000.0 + i);
+            producto.setPedidoMinimo(1);
+            producto.setCategoria(categoria);
+            entityManager.persist(producto);
+            for (int j = 0; j < 2; j++) {
+                Receta receta = new Receta();
+                receta.setCantidadInsumo(100_000L);
+                receta.setUnidadMedida(Receta.UnidadMedida.GRAMOS);
+                receta.setInsumo(harina);
+                receta.setProducto(producto);
+                entityManager.persist(receta);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        List<ProductoResponse> productos = productoService.listarProductos();
+
+        assertEquals(cantidad, productos.size());
+        assertTrue(productos.stream().allMatch(p -> p.getCategoriaNombre().equals("Panadería")));
+        assertTrue(productos.stream().allMatch(p -> p.getReceta().size() == 2));
+        assertEquals(2, estadisticas.getPrepareStatementCount());
+    }
+}
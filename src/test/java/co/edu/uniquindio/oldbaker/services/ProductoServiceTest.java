@@ -0,0 +1,96 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ProductoResponse;
+import co.edu.uniquindio.oldbaker.dto.RecetaProductoDTO;
+import co.edu.uniquindio.oldbaker.model.Categoria;
+import co.edu.uniquindio.oldbaker.model.Producto;
+import co.edu.uniquindio.oldbaker.model.Receta;
+import co.edu.uniquindio.oldbaker.repositories.CategoriaRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import co.edu.uniquindio.oldbaker.repositories.RecetaRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ProductoService.
+ *
+ * Verifican que el listado de productos para administración use un número fijo de consultas
+ * (productos con categoría y recetas proyectadas) sin importar cuántos productos haya.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductoServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private RecetaRepository recetaRepository;
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private CategoriaRepository categoriaRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CambiosEntidadService cambiosEntidadService;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private PreparacionService preparacionService;
+
+    @InjectMocks
+    private ProductoService productoService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 300})
+    @DisplayName("El listado de administración usa dos consultas sin importar el tamaño del catálogo")
+    void testListarProductos_ConsultasAcotadas(int cantidad) {
+        Categoria categoria = new Categoria(1L, "Panadería", "Panes");
+        List<Producto> productos = new ArrayList<>();
+        List<RecetaProductoDTO> recetas = new ArrayList<>();
+        LongStream.rangeClosed(1, cantidad).forEach(id -> {
+            productos.add(new Producto(id, "Producto " + id, "Descripción", 1000.0, 3, 1, categoria));
+            recetas.add(new RecetaProductoDTO(id, id * 10, "Harina", null, 250_000, Receta.UnidadMedida.GRAMOS));
+            recetas.add(new RecetaProductoDTO(id, id * 10 + 1, "Azúcar", null, 1_500_000, Receta.UnidadMedida.KILOGRAMOS));
+        });
+        when(productoRepository.findAllConCategoria()).thenReturn(productos);
+        when(recetaRepository.findResumenRecetas()).thenReturn(recetas);
+
+        List<ProductoResponse> response = productoService.listarProductos();
+
+        assertEquals(cantidad, response.size());
+        assertEquals("Panadería", response.get(0).getCategoriaNombre());
+        assertEquals(2, response.get(cantidad - 1).getReceta().size());
+        assertEquals("Harina", response.get(cantidad - 1).getReceta().get(0).getInsumoNombre());
+        // Las cantidades se guardan en milésimas de gramo y se muestran en la unidad de la receta
+        assertEquals(250.0, response.get(0).getReceta().get(0).getCantidadInsumo());
+        assertEquals(1.5, response.get(0).getReceta().get(1).getCantidadInsumo());
+
+        verify(productoRepository, times(1)).findAllConCategoria();
+        verify(recetaRepository, times(1)).findResumenRecetas();
+        verifyNoMoreInteractions(productoRepository, recetaRepository);
+        verifyNoInteractions(insumoRepository, categoriaRepository);
+    }
+}
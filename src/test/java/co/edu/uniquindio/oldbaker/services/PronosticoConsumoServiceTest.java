@@ -0,0 +1,176 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.ConsumoDiarioDTO;
+import co.edu.uniquindio.oldbaker.dto.PronosticoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.VentaDiariaDTO;
+import co.edu.uniquindio.oldbaker.model.ConsumoDiarioInsumo;
+import co.edu.uniquindio.oldbaker.repositories.ConsumoDiarioInsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para PronosticoConsumoService.
+ *
+ * Verifican el suavizado de Holt-Winters con estacionalidad semanal, que el registro incremental solo suma
+ * consumos distintos de cero, que la reconstrucción cubre el rango con particiones contiguas e inserta filas nuevas,
+ * y que la serie pronosticada se calcula una vez por día mientras el stock se lee en cada consulta.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class PronosticoConsumoServiceTest {
+
+    private static final double[] SEMANA = {10, 10, 10, 10, 20, 30, 5};
+
+    @Mock
+    private ConsumoDiarioInsumoRepository consumoRepository;
+
+    @Mock
+    private OrdenCompraRepository ordenCompraRepository;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PronosticoConsumoService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PronosticoConsumoService(consumoRepository, ordenCompraRepository, inventarioService,
+                expansionRecetasService, transactionManager, 0.3, 0.05, 0.2, 28, 2, 31);
+    }
+
+    @Test
+    @DisplayName("Una serie con patrón semanal exacto se pronostica repitiendo el patrón")
+    void testHoltWinters_PatronSemanal() {
+        double[] serie = new double[28];
+        for (int i = 0; i < serie.length; i++) {
+            serie[i] = SEMANA[i % 7];
+        }
+
+        double[] pronostico = PronosticoConsumoService.holtWinters(serie, 7, 7, 0.3, 0.05, 0.2);
+
+        for (int k = 0; k < 7; k++) {
+            assertEquals(SEMANA[k], pronostico[k], 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("Con menos de dos semanas de datos se pronostica el promedio")
+    void testHoltWinters_SerieCorta() {
+        double[] pronostico = PronosticoConsumoService.holtWinters(new double[]{4, 6, 8}, 7, 3, 0.3, 0.05, 0.2);
+
+        assertArrayEquals(new double[]{6, 6, 6}, pronostico, 1e-9);
+    }
+
+    @Test
+    @DisplayName("El registro incremental suma cada insumo al día y omite los consumos en cero")
+    void testRegistrarConsumo() {
+        LocalDate hoy = LocalDate.of(2025, 4, 10);
+        Map<Long, Long> consumo = new LinkedHashMap<>();
+        consumo.put(1L, 2_500L);
+        consumo.put(2L, 0L);
+
+        service.registrarConsumo(hoy, consumo);
+
+        verify(consumoRepository).sumar(1L, hoy, 2.5);
+        verify(consumoRepository, never()).sumar(eq(2L), any(), any());
+    }
+
+    @Test
+    @DisplayName("La reconstrucción reemplaza el rango en particiones contiguas calculadas en paralelo")
+    @SuppressWarnings("unchecked")
+    void testReconstruir() {
+        LocalDate desde = LocalDate.of(2025, 1, 1);
+        LocalDate hasta = LocalDate.of(2025, 4, 10);
+        // Dos unidades vendidas el primer día de cada partición; cada unidad consume 1,5 del insumo 7
+        when(ordenCompraRepository.findVentasPagadas(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenAnswer(inv -> List.of(new VentaDiariaDTO(1L,
+                        ((LocalDateTime) inv.getArgument(0)).toLocalDate(), 2L)));
+        when(expansionRecetasService.requerimientos(anyCollection()))
+                .thenReturn(Map.of(1L, List.of(new RequerimientoInsumoDTO(1L, 7L, 1_500L))));
+
+        int filas = service.reconstruir(desde, hasta);
+
+        ArgumentCaptor<LocalDate> inicios = ArgumentCaptor.forClass(LocalDate.class);
+        ArgumentCaptor<LocalDate> fines = ArgumentCaptor.forClass(LocalDate.class);
+        verify(consumoRepository, atLeast(2)).eliminarRango(inicios.capture(), fines.capture());
+        List<LocalDate[]> particiones = new ArrayList<>();
+        for (int i = 0; i < inicios.getAllValues().size(); i++) {
+            particiones.add(new LocalDate[]{inicios.getAllValues().get(i), fines.getAllValues().get(i)});
+        }
+        particiones.sort(Comparator.comparing(p -> p[0]));
+
+        assertEquals(desde, particiones.get(0)[0]);
+        assertEquals(hasta, particiones.get(particiones.size() - 1)[1]);
+        for (int i = 1; i < particiones.size(); i++) {
+            assertEquals(particiones.get(i - 1)[1].plusDays(1), particiones.get(i)[0]);
+        }
+        assertEquals(particiones.size(), filas);
+
+        ArgumentCaptor<List<ConsumoDiarioInsumo>> guardados = ArgumentCaptor.forClass(List.class);
+        verify(consumoRepository, atLeast(2)).saveAll(guardados.capture());
+        ConsumoDiarioInsumo consumo = guardados.getAllValues().get(0).get(0);
+        assertEquals(7L, consumo.getIdInsumo());
+        assertEquals(3.0, consumo.getCantidad(), 1e-9);
+        // Filas nuevas: saveAll las persiste sin un merge (SELECT) por fila
+        assertTrue(consumo.isNew());
+    }
+
+    @Test
+    @DisplayName("Una reconstrucción que empieza hoy se rechaza: el día en curso es del registro incremental")
+    void testReconstruir_RangoInvalido() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.reconstruir(LocalDate.now(), LocalDate.now().plusDays(3)));
+        verifyNoInteractions(consumoRepository, ordenCompraRepository);
+    }
+
+    @Test
+    @DisplayName("La serie se pronostica una vez por día y la cobertura usa el stock de cada consulta")
+    void testPronosticar_Cache() {
+        LocalDate hoy = LocalDate.now();
+        List<ConsumoDiarioDTO> serie = new ArrayList<>();
+        for (int i = 1; i <= 28; i++) {
+            serie.add(new ConsumoDiarioDTO(1L, hoy.minusDays(i), 10.0));
+        }
+        when(consumoRepository.findSerie(hoy.minusDays(28), hoy.minusDays(1))).thenReturn(serie);
+        when(inventarioService.saldos(Set.of(1L))).thenReturn(Map.of(1L, 25_000L), Map.of(1L, 5_000L));
+        when(inventarioService.saldo(1L)).thenReturn(45_000L);
+
+        List<PronosticoInsumoDTO> primero = service.pronosticar(7);
+        List<PronosticoInsumoDTO> segundo = service.pronosticar(7);
+        PronosticoInsumoDTO soloHarina = service.pronosticar(1L, 7);
+
+        verify(consumoRepository, times(1)).findSerie(any(), any());
+        PronosticoInsumoDTO harina = primero.get(0);
+        assertEquals(hoy.plusDays(1), harina.getDesde());
+        assertEquals(70.0, harina.getConsumoTotal(), 1e-6);
+        assertEquals(2, harina.getDiasCobertura());
+        // Después de una venta el stock bajó: la misma serie cubre menos días
+        assertEquals(70.0, segundo.get(0).getConsumoTotal(), 1e-6);
+        assertEquals(5.0, segundo.get(0).getStockActual(), 1e-9);
+        assertEquals(0, segundo.get(0).getDiasCobertura());
+        assertEquals(4, soloHarina.getDiasCobertura());
+    }
+}
@@ -0,0 +1,171 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.EstadoReposicionDTO;
+import co.edu.uniquindio.oldbaker.model.*;
+import co.edu.uniquindio.oldbaker.repositories.InsumoProveedorRepository;
+import co.edu.uniquindio.oldbaker.repositories.InsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.PedidoInsumoRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProveedorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para ReposicionInsumosService.
+ *
+ * Verifican que los insumos que cruzan su punto de reorden se agrupan en un borrador por proveedor, que solo
+ * actúa la evaluación que gana la marca condicional, que la cantidad se pide en la unidad de compra del proveedor
+ * y que un insumo que vuelve a superar el umbral se rearma.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class ReposicionInsumosServiceTest {
+
+    @Mock
+    private InsumoRepository insumoRepository;
+
+    @Mock
+    private InsumoProveedorRepository insumoProveedorRepository;
+
+    @Mock
+    private PedidoInsumoRepository pedidoInsumoRepository;
+
+    @Mock
+    private ProveedorRepository proveedorRepository;
+
+    @Mock
+    private CambiosEntidadService cambiosEntidadService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReposicionInsumosService service;
+    private Proveedor molino;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReposicionInsumosService(insumoRepository, insumoProveedorRepository, pedidoInsumoRepository,
+                proveedorRepository, cambiosEntidadService, transactionManager, new SimpleMeterRegistry());
+        molino = new Proveedor();
+        molino.setIdProveedor(5L);
+        molino.setNombre("Molino");
+    }
+
+    @Test
+    @DisplayName("Los cruces de un mismo proveedor se reúnen en un borrador; la evaluación que pierde la marca no pide")
+    void testEvaluar_BorradorPorProveedor() {
+        when(insumoRepository.findEstadosReposicion(List.of(1L, 2L, 3L))).thenReturn(List.of(
+                new EstadoReposicionDTO(1L, 8_000L, 10_000L, 50_000L, null, 11L, 5L),
+                new EstadoReposicionDTO(2L, 3_000L, 5_000L, 20_000L, false, 12L, 5L),
+                new EstadoReposicionDTO(3L, 2_000L, 5_000L, 20_000L, false, 13L, 5L)));
+        when(proveedorRepository.findParaActualizar(5L)).thenReturn(Optional.of(molino));
+        when(insumoRepository.marcarEnReposicion(1L)).thenReturn(1);
+        when(insumoRepository.marcarEnReposicion(2L)).thenReturn(1);
+        // Otra evaluación concurrente ya marcó el insumo 3
+        when(insumoRepository.marcarEnReposicion(3L)).thenReturn(0);
+        when(pedidoInsumoRepository.findBorradoresReposicion(5L)).thenReturn(List.of());
+        when(insumoProveedorRepository.findAllById(List.of(11L, 12L))).thenReturn(List.of(
+                InsumoProveedor.builder().idInsumo(11L).nombre("Harina").costoUnitario(100.0).build(),
+                InsumoProveedor.builder().idInsumo(12L).nombre("Levadura").costoUnitario(50.0).build()));
+        when(pedidoInsumoRepository.save(any(PedidoInsumo.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals(2, service.evaluar(List.of(1L, 2L, 3L)));
+
+        ArgumentCaptor<PedidoInsumo> captor = ArgumentCaptor.forClass(PedidoInsumo.class);
+        verify(pedidoInsumoRepository, times(1)).save(captor.capture());
+        PedidoInsumo borrador = captor.getValue();
+        assertTrue(borrador.getReposicionAutomatica());
+        assertEquals(PedidoInsumo.EstadoPedido.PENDIENTE, borrador.getEstado());
+        assertEquals(2, borrador.getDetalles().size());
+        assertEquals(42, borrador.getDetalles().get(0).getCantidadInsumo());
+        assertEquals(17, borrador.getDetalles().get(1).getCantidadInsumo());
+        assertEquals(42 * 100.0 + 17 * 50.0, borrador.getCostoTotal());
+    }
+
+    @Test
+    @DisplayName("Un cruce nuevo se suma al borrador pendiente del proveedor en lugar de crear otro")
+    void testEvaluar_SumaAlBorradorPendiente() {
+        InsumoProveedor harina = InsumoProveedor.builder().idInsumo(11L).nombre("Harina").costoUnitario(100.0).build();
+        PedidoInsumo pendiente = new PedidoInsumo();
+        pendiente.setIdPedido(40L);
+        pendiente.setEstado(PedidoInsumo.EstadoPedido.PENDIENTE);
+        pendiente.setReposicionAutomatica(true);
+        DetalleProveedorPedido existente = new DetalleProveedorPedido();
+        existente.setInsumo(harina);
+        existente.setCantidadInsumo(30);
+        existente.setCostoSubtotal(3000.0);
+        existente.setEsDevuelto(false);
+        existente.setPedido(pendiente);
+        pendiente.getDetalles().add(existente);
+
+        when(insumoRepository.findEstadosReposicion(List.of(2L))).thenReturn(List.of(
+                new EstadoReposicionDTO(2L, 4_000L, 5_000L, 20_000L, false, 12L, 5L)));
+        when(proveedorRepository.findParaActualizar(5L)).thenReturn(Optional.of(molino));
+        when(insumoRepository.marcarEnReposicion(2L)).thenReturn(1);
+        when(pedidoInsumoRepository.findBorradoresReposicion(5L)).thenReturn(List.of(pendiente));
+        when(insumoProveedorRepository.findAllById(List.of(12L))).thenReturn(List.of(
+                InsumoProveedor.builder().idInsumo(12L).nombre("Levadura").costoUnitario(50.0).build()));
+        when(pedidoInsumoRepository.save(pendiente)).thenReturn(pendiente);
+
+        assertEquals(1, service.evaluar(List.of(2L)));
+
+        assertEquals(2, pendiente.getDetalles().size());
+        assertEquals(16, pendiente.getDetalles().get(1).getCantidadInsumo());
+        assertEquals(3000.0 + 16 * 50.0, pendiente.getCostoTotal());
+        verify(cambiosEntidadService).registrar(CambioEntidad.TipoEntidad.PEDIDO_INSUMO, 40L);
+    }
+
+    @Test
+    @DisplayName("Lo que falta en gramos se pide en kilos enteros y se cuesta al precio por kilo del proveedor")
+    void testEvaluar_UnidadDeCompra() {
+        Insumo harina = Insumo.builder().idInsumo(1L).unidadMedida(Receta.UnidadMedida.GRAMOS).build();
+        InsumoProveedor harinaPorKilo = InsumoProveedor.builder().idInsumo(11L).nombre("Harina")
+                .costoUnitario(4000.0).unidadMedida(Receta.UnidadMedida.KILOGRAMOS).insumo(harina).build();
+        // 3.500 g de saldo y objetivo de 20 kg: faltan 16.500 g, que son 17 kg completos
+        when(insumoRepository.findEstadosReposicion(List.of(1L))).thenReturn(List.of(
+                new EstadoReposicionDTO(1L, 3_500_000L, 5_000_000L, 20_000_000L, false, 11L, 5L)));
+        when(proveedorRepository.findParaActualizar(5L)).thenReturn(Optional.of(molino));
+        when(insumoRepository.marcarEnReposicion(1L)).thenReturn(1);
+        when(pedidoInsumoRepository.findBorradoresReposicion(5L)).thenReturn(List.of());
+        when(insumoProveedorRepository.findAllById(List.of(11L))).thenReturn(List.of(harinaPorKilo));
+        when(pedidoInsumoRepository.save(any(PedidoInsumo.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals(1, service.evaluar(List.of(1L)));
+
+        ArgumentCaptor<PedidoInsumo> captor = ArgumentCaptor.forClass(PedidoInsumo.class);
+        verify(pedidoInsumoRepository).save(captor.capture());
+        DetalleProveedorPedido detalle = captor.getValue().getDetalles().get(0);
+        assertEquals(17, detalle.getCantidadInsumo());
+        assertEquals(17 * 4000.0, detalle.getCostoSubtotal());
+        assertEquals(17 * 4000.0, captor.getValue().getCostoTotal());
+    }
+
+    @Test
+    @DisplayName("Sin cruces nuevos no se pide nada y un insumo repuesto se rearma")
+    void testEvaluar_Rearme() {
+        when(insumoRepository.findEstadosReposicion(List.of(1L, 2L))).thenReturn(List.of(
+                new EstadoReposicionDTO(1L, 60_000L, 10_000L, 50_000L, true, 11L, 5L),
+                new EstadoReposicionDTO(2L, 3_000L, 5_000L, 20_000L, true, 12L, 5L)));
+
+        assertEquals(0, service.evaluar(List.of(1L, 2L)));
+
+        verify(insumoRepository).rearmarReposicion(1L);
+        verify(insumoRepository, never()).rearmarReposicion(2L);
+        verify(insumoRepository, never()).marcarEnReposicion(anyLong());
+        verifyNoInteractions(pedidoInsumoRepository, proveedorRepository);
+    }
+}
@@ -0,0 +1,124 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.dto.MargenProductoDTO;
+import co.edu.uniquindio.oldbaker.dto.ProductoHorneadoDTO;
+import co.edu.uniquindio.oldbaker.dto.RequerimientoInsumoDTO;
+import co.edu.uniquindio.oldbaker.dto.VentaDiariaDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.SugerenciaHorneadoDTO;
+import co.edu.uniquindio.oldbaker.dto.produccion.SugerenciaHorneadoProductoDTO;
+import co.edu.uniquindio.oldbaker.repositories.OrdenCompraRepository;
+import co.edu.uniquindio.oldbaker.repositories.ProductoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para SugerenciaHorneadoService.
+ *
+ * Verifican que la sugerencia no pasa de la mayor venta diaria reciente, que sin ventas el tope es la tanda
+ * mínima, que los productos sin receta quedan fuera y que con el objetivo de margen se descartan los productos
+ * de costo incompleto, y que el presupuesto de tiempo tiene un tope.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class SugerenciaHorneadoServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private OrdenCompraRepository ordenCompraRepository;
+
+    @Mock
+    private ExpansionRecetasService expansionRecetasService;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private CosteoProductosService costeoProductosService;
+
+    private SugerenciaHorneadoService sugerenciaService;
+
+    @BeforeEach
+    void setUp() {
+        sugerenciaService = new SugerenciaHorneadoService(productoRepository, ordenCompraRepository,
+                expansionRecetasService, inventarioService, costeoProductosService, 2, 2000, 28);
+
+        // Pan: 100 g de harina (10). Torta: 1 kg de harina. Galleta: sin receta
+        when(productoRepository.findParaHorneado()).thenReturn(List.of(
+                new ProductoHorneadoDTO(1L, "Pan", 1000.0, 1),
+                new ProductoHorneadoDTO(2L, "Torta", 5000.0, 1),
+                new ProductoHorneadoDTO(3L, "Galleta", 300.0, 1)));
+        when(expansionRecetasService.requerimientos(anyCollection())).thenReturn(Map.of(
+                1L, List.of(new RequerimientoInsumoDTO(1L, 10L, 100_000L)),
+                2L, List.of(new RequerimientoInsumoDTO(2L, 10L, 1_000_000L)),
+                3L, List.of()));
+        // Hay 2 kg de harina; del pan se vendieron como mucho 8 en un día y de la torta nada
+        when(inventarioService.saldos(anyCollection())).thenReturn(Map.of(10L, 2_000_000L));
+        when(ordenCompraRepository.findVentasPagadas(any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(List.of(
+                new VentaDiariaDTO(1L, LocalDate.now().minusDays(2), 5L),
+                new VentaDiariaDTO(1L, LocalDate.now().minusDays(1), 8L)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sugerenciaService.cerrar();
+    }
+
+    @Test
+    @DisplayName("Maximiza el ingreso sin pasar de la demanda reciente")
+    void testIngreso_TopeDeDemanda() {
+        SugerenciaHorneadoDTO sugerencia = sugerenciaService.sugerir(null, null);
+
+        // Sin tope serían 20 panes; con él, 8 panes y la tanda mínima de torta
+        assertEquals(SugerenciaHorneadoService.Objetivo.INGRESO, sugerencia.getObjetivo());
+        assertEquals(13000.0, sugerencia.getValorObjetivo(), 1e-9);
+        assertTrue(sugerencia.isOptima());
+        assertEquals(2, sugerencia.getProductos().size());
+
+        SugerenciaHorneadoProductoDTO pan = sugerencia.getProductos().get(0);
+        assertEquals(1L, pan.getIdProducto());
+        assertEquals(8, pan.getCantidad());
+        assertEquals(8, pan.getTopeDemanda());
+        assertEquals(8000.0, pan.getAporte(), 1e-9);
+
+        SugerenciaHorneadoProductoDTO torta = sugerencia.getProductos().get(1);
+        assertEquals(2L, torta.getIdProducto());
+        assertEquals(1, torta.getCantidad());
+        verifyNoInteractions(costeoProductosService);
+    }
+
+    @Test
+    @DisplayName("Con objetivo de margen descarta los productos con costo incompleto")
+    void testMargen_CostoIncompleto() {
+        when(costeoProductosService.reporte()).thenReturn(List.of(
+                new MargenProductoDTO(1L, "Pan", 1000.0, 600.0, 400.0, 40.0, true),
+                new MargenProductoDTO(2L, "Torta", 5000.0, 1000.0, 4000.0, 80.0, false)));
+
+        SugerenciaHorneadoDTO sugerencia = sugerenciaService.sugerir(SugerenciaHorneadoService.Objetivo.MARGEN, 500L);
+
+        assertEquals(1, sugerencia.getProductos().size());
+        assertEquals(8, sugerencia.getProductos().get(0).getCantidad());
+        assertEquals(3200.0, sugerencia.getValorObjetivo(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> sugerenciaService.sugerir(null, 0L));
+        // Un presupuesto largo acapararía el pool compartido
+        assertThrows(IllegalArgumentException.class, () -> sugerenciaService.sugerir(null, 6_000L));
+    }
+}
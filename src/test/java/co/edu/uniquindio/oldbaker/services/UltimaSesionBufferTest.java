@@ -0,0 +1,99 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para UltimaSesionBuffer.
+ *
+ * Verifican que varios eventos del mismo usuario se agrupan en una sola fila,
+ * que el volcado usa una única actualización por lotes y que un fallo no pierde marcas.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class UltimaSesionBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private UltimaSesionBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = new UltimaSesionBuffer(jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Conserva solo la marca más reciente por usuario y vuelca en un único batch")
+    @SuppressWarnings("unchecked")
+    void testVolcar_AgrupaPorUsuario() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+        buffer.registrar(1L, base.plusMinutes(5));
+        buffer.registrar(1L, base);
+        buffer.registrar(1L, base.plusMinutes(2));
+        buffer.registrar(2L, base);
+
+        assertEquals(2, buffer.pendientes());
+        assertEquals(2.0, meterRegistry.get("oldbaker.ultima_sesion.buffer.size").gauge().value());
+
+        int volcados = buffer.volcar();
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(UltimaSesionBuffer.SQL_ACTUALIZAR), captor.capture());
+        assertEquals(2, volcados);
+        assertEquals(0, buffer.pendientes());
+
+        Object[] filaUsuario1 = captor.getValue().stream().filter(f -> f[1].equals(1L)).findFirst().orElseThrow();
+        assertEquals(Timestamp.valueOf(base.plusMinutes(5)), filaUsuario1[0]);
+        assertEquals(1L, meterRegistry.get("oldbaker.ultima_sesion.flush").timer().count());
+    }
+
+    @Test
+    @DisplayName("No toca la base de datos si el buffer está vacío")
+    void testVolcar_BufferVacio() {
+        assertEquals(0, buffer.volcar());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Devuelve las marcas al buffer si el volcado falla")
+    void testVolcar_FalloReencola() {
+        buffer.registrar(7L, LocalDateTime.now());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("sin conexión"));
+
+        assertEquals(0, buffer.volcar());
+        assertEquals(1, buffer.pendientes());
+    }
+
+    @Test
+    @DisplayName("Drena el buffer al apagar")
+    void testDrenar() {
+        buffer.registrar(3L);
+
+        buffer.drenar();
+
+        verify(jdbcTemplate).batchUpdate(eq(UltimaSesionBuffer.SQL_ACTUALIZAR), anyList());
+        assertEquals(0, buffer.pendientes());
+    }
+}
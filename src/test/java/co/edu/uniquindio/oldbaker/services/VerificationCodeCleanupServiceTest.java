@@ -0,0 +1,59 @@
+package co.edu.uniquindio.oldbaker.services;
+
+import co.edu.uniquindio.oldbaker.repositories.VerificationCodeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para VerificationCodeCleanupService.
+ *
+ * Verifican que los códigos expirados se borran por lotes hasta que un lote sale incompleto.
+ *
+ * @author OldBaker Team
+ */
+@ExtendWith(MockitoExtension.class)
+class VerificationCodeCleanupServiceTest {
+
+    @Mock
+    private VerificationCodeRepository verificationCodeRepository;
+
+    @InjectMocks
+    private VerificationCodeCleanupService cleanupService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cleanupService, "batchSize", 500);
+    }
+
+    @Test
+    @DisplayName("Borra lotes completos hasta que uno sale incompleto")
+    void testEliminarPorLotes() {
+        when(verificationCodeRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(500)))
+                .thenReturn(500, 500, 3);
+
+        assertEquals(1003, cleanupService.eliminarCodigosExpirados());
+        verify(verificationCodeRepository, times(3)).deleteExpiredBatch(any(LocalDateTime.class), eq(500));
+    }
+
+    @Test
+    @DisplayName("Sin códigos expirados hace una sola consulta")
+    void testSinExpirados() {
+        when(verificationCodeRepository.deleteExpiredBatch(any(LocalDateTime.class), eq(500))).thenReturn(0);
+
+        assertEquals(0, cleanupService.eliminarCodigosExpirados());
+        verify(verificationCodeRepository, times(1)).deleteExpiredBatch(any(LocalDateTime.class), eq(500));
+    }
+}